@@ -0,0 +1,326 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+//
+// Point-to-point shortest paths searching from both ends at once over a CSRGraph
+//
+// A forward search from the source follows the out-edges while a backward search from the target
+// follows the in-edges (the transpose), and the two meet in the middle. On a sparse graph each side
+// only has to cover a ball of about half the radius of a one-sided search, which typically settles a
+// small fraction of the vertices that Dijkstra from the source alone would.
+//
+// Weighted (bidirectional Dijkstra): the side whose heap minimum is smaller advances one vertex at a
+// time. Whenever an edge reaches a vertex the other side has already reached, the path through that
+// edge is a candidate; the best candidate is the shortest path as soon as the two heap minimums add up
+// to at least its length. Weights must be non-negative.
+//
+// Unweighted (bidirectional BFS): the side with the smaller frontier expands one whole level at a time,
+// and the search stops after the first level in which the two sides touch.
+//
+// Query state lives in arrays owned by the instance and stamped per query, as in Dijkstra: keep one
+// instance per thread over a shared graph.
+//
+public class BidirectionalSearch
+{
+    public static final long UNREACHABLE = DagPaths.UNREACHABLE;
+
+    private static final int FORWARD = 0;
+    private static final int BACKWARD = 1;
+    private static final int SETTLED = -1;
+
+    private FrozenGraph graph;
+    private boolean weighted;
+
+    // Per direction; parent is the predecessor (forward) or the successor (backward) on the best path
+    private int[][] stamp;
+    private int query;
+    private long[][] distance;
+    private int[][] parent;
+    private int[][] position;
+    private int[][] heap;    // the heap, or the current level for BFS
+    private int[] spare;     // BFS: the level being built
+    private int[] heapSize;
+
+    private long best;       // length of the best path found so far
+    private int meet;        // dense vertex where the best path crosses from forward to backward
+    private int numSettled;
+    private long numRelaxed;
+
+    public BidirectionalSearch(FrozenGraph theGraph)
+    {
+        this(theGraph, true);
+    }
+
+    //
+    // weighted == false measures paths in edges and searches breadth-first
+    //
+    public BidirectionalSearch(FrozenGraph theGraph, boolean isWeighted)
+    {
+        graph = theGraph;
+        weighted = isWeighted;
+
+        int n = graph.getNumVertices();
+        stamp = new int[2][n];
+        distance = new long[2][n];
+        parent = new int[2][n];
+        position = new int[2][n];
+        heap = new int[2][n];
+        if (!weighted) spare = new int[n];
+        heapSize = new int[2];
+        meet = -1;
+    }
+
+    public FrozenGraph getGraph()
+    {
+        return graph;
+    }
+
+    //
+    // The shortest distance between two vertex ids, UNREACHABLE if there is no path; getPath then
+    // returns the path itself
+    //
+    public long shortestPath(int source, int target)
+    {
+        int sourceIndex = graph.getIndex(source);
+        if (sourceIndex < 0) throw new IllegalArgumentException("Vertex " + source + " is not in the graph");
+        int targetIndex = graph.getIndex(target);
+        if (targetIndex < 0) throw new IllegalArgumentException("Vertex " + target + " is not in the graph");
+
+        if (++query == 0)
+        {
+            // The stamps wrapped around; forget every earlier query
+            Arrays.fill(stamp[FORWARD], 0);
+            Arrays.fill(stamp[BACKWARD], 0);
+            query = 1;
+        }
+
+        best = Long.MAX_VALUE;
+        meet = -1;
+        numSettled = 0;
+        numRelaxed = 0;
+        heapSize[FORWARD] = heapSize[BACKWARD] = 0;
+
+        Reach(FORWARD, sourceIndex, 0, -1);
+        Reach(BACKWARD, targetIndex, 0, -1);
+        if (sourceIndex == targetIndex)
+        {
+            best = 0;
+            meet = sourceIndex;
+            return 0;
+        }
+
+        if (weighted) RunDijkstra();
+        else RunBreadthFirst();
+
+        return meet < 0 ? UNREACHABLE : best;
+    }
+
+    private void RunDijkstra()
+    {
+        while (heapSize[FORWARD] > 0 && heapSize[BACKWARD] > 0)
+        {
+            long topForward = distance[FORWARD][heap[FORWARD][0]];
+            long topBackward = distance[BACKWARD][heap[BACKWARD][0]];
+            if (meet >= 0 && topForward + topBackward >= best) return;
+
+            int side = topForward <= topBackward ? FORWARD : BACKWARD;
+            int v = PopMin(side);
+            numSettled++;
+
+            long dv = distance[side][v];
+            int degree = side == FORWARD ? graph.getOutDegree(v) : graph.getInDegree(v);
+            for (int i = 0; i < degree; i++)
+            {
+                int w = side == FORWARD ? graph.getOutNeighbor(v, i) : graph.getInNeighbor(v, i);
+                int weight = side == FORWARD ? graph.getOutWeight(v, i) : graph.getInWeight(v, i);
+                if (weight < 0) throw new IllegalStateException("Dijkstra needs non-negative edge weights");
+
+                numRelaxed++;
+                long candidate = dv + weight;
+                if (stamp[side][w] != query)
+                {
+                    Reach(side, w, candidate, v);
+                }
+                else if (position[side][w] != SETTLED && candidate < distance[side][w])
+                {
+                    distance[side][w] = candidate;
+                    parent[side][w] = v;
+                    SiftUp(side, position[side][w]);
+                }
+                else continue;
+
+                Meet(side, w);
+            }
+        }
+    }
+
+    private void RunBreadthFirst()
+    {
+        // heap[side][0 .. heapSize[side]) is the current level of each side
+        while (heapSize[FORWARD] > 0 && heapSize[BACKWARD] > 0)
+        {
+            int side = heapSize[FORWARD] <= heapSize[BACKWARD] ? FORWARD : BACKWARD;
+            int[] level = heap[side];
+            int levelSize = heapSize[side];
+            int[] next = spare;
+            int nextSize = 0;
+
+            for (int f = 0; f < levelSize; f++)
+            {
+                int v = level[f];
+                numSettled++;
+
+                long dw = distance[side][v] + 1;
+                int degree = side == FORWARD ? graph.getOutDegree(v) : graph.getInDegree(v);
+                for (int i = 0; i < degree; i++)
+                {
+                    int w = side == FORWARD ? graph.getOutNeighbor(v, i) : graph.getInNeighbor(v, i);
+                    numRelaxed++;
+                    if (stamp[side][w] == query) continue;
+
+                    stamp[side][w] = query;
+                    distance[side][w] = dw;
+                    parent[side][w] = v;
+                    next[nextSize++] = w;
+
+                    Meet(side, w);
+                }
+            }
+
+            spare = level;
+            heap[side] = next;
+            heapSize[side] = nextSize;
+
+            // Every path through this level has been seen, so the best one is the shortest
+            if (meet >= 0) return;
+        }
+    }
+
+    // w was just reached (or improved) from one side; if the other side has reached it too, the path
+    // through w is a candidate
+    private void Meet(int side, int w)
+    {
+        int other = side ^ 1;
+        if (stamp[other][w] != query) return;
+
+        long length = distance[side][w] + distance[other][w];
+        if (length < best)
+        {
+            best = length;
+            meet = w;
+        }
+    }
+
+    // First contact with a vertex from one side in this query: record it and queue it
+    private void Reach(int side, int v, long d, int from)
+    {
+        stamp[side][v] = query;
+        distance[side][v] = d;
+        parent[side][v] = from;
+
+        int i = heapSize[side]++;
+        heap[side][i] = v;
+        position[side][v] = i;
+        if (weighted) SiftUp(side, i);
+    }
+
+    private void SiftUp(int side, int i)
+    {
+        int[] h = heap[side];
+        int[] pos = position[side];
+        long[] dist = distance[side];
+
+        int v = h[i];
+        long d = dist[v];
+        while (i > 0)
+        {
+            int up = (i - 1) >>> 1;
+            if (dist[h[up]] <= d) break;
+            h[i] = h[up];
+            pos[h[i]] = i;
+            i = up;
+        }
+        h[i] = v;
+        pos[v] = i;
+    }
+
+    private int PopMin(int side)
+    {
+        int[] h = heap[side];
+        int[] pos = position[side];
+        long[] dist = distance[side];
+
+        int min = h[0];
+        pos[min] = SETTLED;
+
+        int size = --heapSize[side];
+        if (size == 0) return min;
+
+        int last = h[size];
+        long d = dist[last];
+        int i = 0;
+        while (true)
+        {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && dist[h[child + 1]] < dist[h[child]]) child++;
+            if (dist[h[child]] >= d) break;
+            h[i] = h[child];
+            pos[h[i]] = i;
+            i = child;
+        }
+        h[i] = last;
+        pos[last] = i;
+
+        return min;
+    }
+
+    //
+    // The length of the path found by the last query, UNREACHABLE if there was none
+    //
+    public long getDistance()
+    {
+        return meet < 0 ? UNREACHABLE : best;
+    }
+
+    //
+    // The vertex ids of the path found by the last query (source first), or null if there was none
+    //
+    public ArrayList<Integer> getPath()
+    {
+        if (meet < 0) return null;
+
+        ArrayList<Integer> path = new ArrayList<Integer>();
+        for (int v = meet; v >= 0; v = parent[FORWARD][v])
+        {
+            path.add(graph.getLabel(v));
+        }
+        Collections.reverse(path);
+
+        for (int v = parent[BACKWARD][meet]; v >= 0; v = parent[BACKWARD][v])
+        {
+            path.add(graph.getLabel(v));
+        }
+
+        return path;
+    }
+
+    //
+    // How many vertices the last query settled (weighted) or expanded (unweighted), both sides together
+    //
+    public int getNumSettled()
+    {
+        return numSettled;
+    }
+
+    //
+    // How many edges the last query relaxed, both sides together
+    //
+    public long getNumRelaxed()
+    {
+        return numRelaxed;
+    }
+}
@@ -0,0 +1,339 @@
+package digraph;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+//
+// An immutable (frozen) directed graph stored in compressed sparse row (CSR) form
+//
+// Vertices are renumbered densely 0..n-1 in the order the source graph lists them; the original
+// vertex ids (labels) are kept so that all query results are reported in the caller's ids.
+//
+// The successors of dense vertex v are targets[offsets[v]] .. targets[offsets[v + 1] - 1] and the
+// predecessors are kept the same way in transposeOffsets / transposeTargets. Compared to the
+// Hashtable<Integer, ArrayList<Integer>> maps used by DiGraph and DiGraphInt this costs 8 bytes per
+// edge (both directions) and 12 bytes per vertex, with no boxing, locking or per-vertex objects.
+//
+// Edge weights (Edge.getWeight) are kept parallel to targets / transposeTargets; when every edge has
+// the default weight of 1 the weight arrays are left null.
+//
+public class CSRGraph extends FrozenGraph
+{
+    protected int[] labels;          // dense index -> vertex id
+    protected int[] sortedLabels;    // vertex ids in increasing order (null if labels[i] == i)
+    protected int[] sortedIndices;   // dense index of sortedLabels[i]
+
+    protected int[] offsets;
+    protected int[] targets;
+    protected int[] transposeOffsets;
+    protected int[] transposeTargets;
+    protected int[] weights;          // weight of targets[e]; null if all weights are 1
+    protected int[] transposeWeights; // weight of transposeTargets[e]; null if all weights are 1
+
+    //
+    // Freeze a DiGraphInt; the dense order is the order of its vertex list (goal node first)
+    //
+    public CSRGraph(DiGraphInt graph)
+    {
+        int n = graph.vertices.size();
+
+        labels = new int[n];
+        for (int v = 0; v < n; v++)
+        {
+            labels[v] = graph.vertices.get(v);
+        }
+        BuildIndex();
+
+        offsets = new int[n + 1];
+        for (int v = 0; v < n; v++)
+        {
+            ArrayList<Integer> successors = graph.edgeMap.get(labels[v]);
+            offsets[v + 1] = offsets[v] + (successors == null ? 0 : successors.size());
+        }
+
+        targets = new int[offsets[n]];
+        for (int v = 0; v < n; v++)
+        {
+            ArrayList<Integer> successors = graph.edgeMap.get(labels[v]);
+            if (successors == null) continue;
+
+            int e = offsets[v];
+            for (int i = 0; i < successors.size(); i++)
+            {
+                targets[e++] = getIndex(successors.get(i));
+            }
+        }
+
+        BuildTranspose();
+    }
+
+    //
+    // Freeze a DiGraph; node ids are already dense so they are used as the indices directly, unless
+    // nodes have been removed: then the remaining ids are renumbered densely in increasing order
+    //
+    public CSRGraph(DiGraph<?> graph)
+    {
+        EdgeTable table = graph.edgeTable;
+        int ids = table.getNumVertices();
+        int n = ids - table.getNumRemovedVertices();
+
+        // id -> dense index; null while they coincide
+        int[] index = null;
+        labels = new int[n];
+        if (n == ids)
+        {
+            for (int v = 0; v < n; v++)
+            {
+                labels[v] = v;
+            }
+        }
+        else
+        {
+            index = new int[ids];
+            int next = 0;
+            for (int id = 0; id < ids; id++)
+            {
+                index[id] = table.isRemovedVertex(id) ? -1 : next;
+                if (index[id] >= 0) labels[next++] = id;
+            }
+        }
+        BuildIndex();
+
+        // Counting sort of the edge table by source; edges keep their insertion order within a row
+        int m = table.getNumEdges();
+
+        offsets = new int[n + 1];
+        for (int v = 0; v < n; v++)
+        {
+            offsets[v + 1] = offsets[v] + table.getOutDegree(labels[v]);
+        }
+
+        targets = new int[m];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < table.getEdgeLimit(); e++)
+        {
+            if (table.isRemoved(e)) continue;
+
+            int from = table.getSource(e);
+            int to = table.getTarget(e);
+            int slot = cursor[index == null ? from : index[from]]++;
+            targets[slot] = index == null ? to : index[to];
+
+            if (table.getWeight(e) == 1) continue;
+
+            if (weights == null)
+            {
+                weights = new int[m];
+                Arrays.fill(weights, 1);
+            }
+            weights[slot] = table.getWeight(e);
+        }
+
+        BuildTranspose();
+    }
+
+    //
+    // Wrap already built forward arrays (over dense indices); the transpose is derived from them
+    //
+    protected CSRGraph(int[] theLabels, int[] theOffsets, int[] theTargets)
+    {
+        this(theLabels, theOffsets, theTargets, null);
+    }
+
+    protected CSRGraph(int[] theLabels, int[] theOffsets, int[] theTargets, int[] theWeights)
+    {
+        labels = theLabels;
+        offsets = theOffsets;
+        targets = theTargets;
+        weights = theWeights;
+
+        BuildIndex();
+        BuildTranspose();
+    }
+
+    //
+    // Sorted (id, index) pairs for id -> index lookups; skipped when the ids are already 0..n-1
+    //
+    private void BuildIndex()
+    {
+        boolean identity = true;
+        for (int v = 0; v < labels.length && identity; v++)
+        {
+            identity = labels[v] == v;
+        }
+
+        if (identity)
+        {
+            sortedLabels = null;
+            sortedIndices = null;
+            return;
+        }
+
+        long[] pairs = new long[labels.length];
+        for (int v = 0; v < labels.length; v++)
+        {
+            pairs[v] = ((long) labels[v] << 32) | v;
+        }
+        Arrays.sort(pairs);
+
+        sortedLabels = new int[labels.length];
+        sortedIndices = new int[labels.length];
+        for (int i = 0; i < pairs.length; i++)
+        {
+            sortedLabels[i] = (int) (pairs[i] >> 32);
+            sortedIndices[i] = (int) pairs[i];
+        }
+    }
+
+    //
+    // Counting sort of the forward edges (and their weights) by target
+    //
+    private void BuildTranspose()
+    {
+        int n = labels.length;
+
+        transposeOffsets = new int[n + 1];
+        for (int e = 0; e < targets.length; e++)
+        {
+            transposeOffsets[targets[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++)
+        {
+            transposeOffsets[v + 1] += transposeOffsets[v];
+        }
+
+        int[] next = Arrays.copyOf(transposeOffsets, n);
+        transposeTargets = new int[targets.length];
+        transposeWeights = weights == null ? null : new int[targets.length];
+        for (int v = 0; v < n; v++)
+        {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++)
+            {
+                int slot = next[targets[e]]++;
+                transposeTargets[slot] = v;
+                if (weights != null) transposeWeights[slot] = weights[e];
+            }
+        }
+    }
+
+    public int getNumVertices()
+    {
+        return labels.length;
+    }
+
+    public int getNumEdges()
+    {
+        return targets.length;
+    }
+
+    // The vertex id of a dense index
+    public int getLabel(int index)
+    {
+        return labels[index];
+    }
+
+    // The dense index of a vertex id, -1 if the vertex is not in the graph
+    public int getIndex(int label)
+    {
+        if (sortedLabels == null) return (label >= 0 && label < labels.length) ? label : -1;
+
+        int i = Arrays.binarySearch(sortedLabels, label);
+        return i < 0 ? -1 : sortedIndices[i];
+    }
+
+    public int getOutDegree(int index)
+    {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    public int getInDegree(int index)
+    {
+        return transposeOffsets[index + 1] - transposeOffsets[index];
+    }
+
+    // The i-th successor (dense index) of a dense vertex
+    public int getOutNeighbor(int index, int i)
+    {
+        return targets[offsets[index] + i];
+    }
+
+    // The i-th predecessor (dense index) of a dense vertex
+    public int getInNeighbor(int index, int i)
+    {
+        return transposeTargets[transposeOffsets[index] + i];
+    }
+
+    public int getOutNeighbors(int index, int[] into, int offset)
+    {
+        int degree = offsets[index + 1] - offsets[index];
+        System.arraycopy(targets, offsets[index], into, offset, degree);
+        return degree;
+    }
+
+    public int getInNeighbors(int index, int[] into, int offset)
+    {
+        int degree = transposeOffsets[index + 1] - transposeOffsets[index];
+        System.arraycopy(transposeTargets, transposeOffsets[index], into, offset, degree);
+        return degree;
+    }
+
+    // Calls action with the dense index of every successor of a dense vertex
+    public void forEachOutNeighbor(int index, IntConsumer action)
+    {
+        for (int e = offsets[index]; e < offsets[index + 1]; e++)
+        {
+            action.accept(targets[e]);
+        }
+    }
+
+    // Calls action with the dense index of every predecessor of a dense vertex
+    public void forEachInNeighbor(int index, IntConsumer action)
+    {
+        for (int e = transposeOffsets[index]; e < transposeOffsets[index + 1]; e++)
+        {
+            action.accept(transposeTargets[e]);
+        }
+    }
+
+    public PrimitiveIterator.OfInt outNeighbors(int index)
+    {
+        return new IntArrayIterator(targets, offsets[index], offsets[index + 1]);
+    }
+
+    public PrimitiveIterator.OfInt inNeighbors(int index)
+    {
+        return new IntArrayIterator(transposeTargets, transposeOffsets[index], transposeOffsets[index + 1]);
+    }
+
+    // A read-only view of the successors of a dense vertex, sharing the CSR array (no copy)
+    public IntBuffer getOutNeighborView(int index)
+    {
+        return IntBuffer.wrap(targets, offsets[index], getOutDegree(index)).slice().asReadOnlyBuffer();
+    }
+
+    // A read-only view of the predecessors of a dense vertex, sharing the CSR array (no copy)
+    public IntBuffer getInNeighborView(int index)
+    {
+        return IntBuffer.wrap(transposeTargets, transposeOffsets[index], getInDegree(index)).slice().asReadOnlyBuffer();
+    }
+
+    public boolean isWeighted()
+    {
+        return weights != null;
+    }
+
+    // The weight of the edge to the i-th successor of a dense vertex
+    public int getOutWeight(int index, int i)
+    {
+        return weights == null ? 1 : weights[offsets[index] + i];
+    }
+
+    // The weight of the edge from the i-th predecessor of a dense vertex
+    public int getInWeight(int index, int i)
+    {
+        return transposeWeights == null ? 1 : transposeWeights[transposeOffsets[index] + i];
+    }
+}
@@ -0,0 +1,782 @@
+package digraph;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+//
+// A frozen graph with compressed neighbor lists, after WebGraph (Boldi and Vigna, "The WebGraph
+// Framework I: Compression Techniques", 2004)
+//
+// Every neighbor list (successors and, separately, predecessors) is sorted and written to a bit stream
+// with Elias-gamma codes of natural numbers x >= 0 (2 floor(log2(x + 1)) + 1 bits):
+//
+//   degree d
+//   reference r         0, or the list of vertex v - r (1 <= r <= window) that this list copies from
+//   copy blocks         r > 0 only: the number of blocks b, then b block lengths; the blocks alternate
+//                       copy / skip over the referenced list, starting with copy (the first length may
+//                       be 0, the others are stored minus 1), and the rest of the referenced list is
+//                       copied when b is even, skipped when b is odd
+//   residuals           the elements not copied: the first as the zigzag of its distance from v, the
+//                       others as the gap to the previous one minus 1
+//   weights             weighted graphs only: the zigzag of every weight, in list order
+//
+// Graphs with locality (targets near their source, neighboring vertices with similar lists) thus take
+// a few bits per edge. The encoder tries every list in the window as the reference and keeps the
+// cheapest; reference chains are limited to maxRefCount lists, which bounds the decoding work.
+//
+// The bit position of every list is found in O(1) from an index of blocks of BLOCK_SIZE vertices: the
+// position of the first list of a block, and the offsets of the others from it in the fewest bits that
+// hold the largest of them (about log2 of 64 list lengths per vertex).
+//
+// Accessors decode a whole list once into a per-thread cache (the last successor and predecessor list
+// each), so walking getOutDegree(v) and then getOutNeighbor(v, i) for every i costs one decode. The
+// cache of the calling thread is found through a ThreadLocal, behind a check of the cache used last, so
+// a graph may be shared by several threads (ParallelBFS, ParallelLinearExtensions). Reading another
+// list in between decodes the first again when it is next read, so engines that interleave lists
+// copy each one out once (getOutNeighbors; see StronglyConnectedComponents).
+//
+public class CompressedGraph extends FrozenGraph
+{
+    public static final int DEFAULT_WINDOW = 7;
+    public static final int DEFAULT_MAX_REF_COUNT = 3;
+    private static final int BLOCK_SIZE = 64;
+
+    private int numVertices;
+    private int numEdges;
+    private int[] labels;          // null if the labels are 0..n-1
+    private int[] sortedLabels;    // null if the labels are 0..n-1
+    private int[] sortedIndices;
+    private boolean weighted;
+    private int window;
+    private int maxRefCount;
+    private Lists out;
+    private Lists in;
+
+    private ThreadLocal<Cursor> cursors = ThreadLocal.withInitial(() -> new Cursor(out.maxDegree, in.maxDegree, weighted, maxRefCount));
+    private Cursor lastCursor;     // the cursor used last, by any thread; a shortcut past the ThreadLocal
+
+    //
+    // The compressed lists of one direction
+    //
+    private static class Lists
+    {
+        long[] words;          // the bit stream, most significant bit first, one spare word at the end
+        long numBits;
+        long[] blocks;         // per block: the bit position of its first list, then the bit position of
+                               // its offsets in index << 6 | their width
+        long[] index;          // the offsets of the other lists of every block from its first
+        long numIndexBits;
+        int maxDegree;
+    }
+
+    private CompressedGraph()
+    {
+    }
+
+    public static CompressedGraph compress(FrozenGraph graph)
+    {
+        return compress(graph, DEFAULT_WINDOW, DEFAULT_MAX_REF_COUNT);
+    }
+
+    //
+    // window: how many preceding lists are tried as the reference (0: no reference compression)
+    // maxRefCount: the longest chain of references to be followed when decoding a list
+    //
+    public static CompressedGraph compress(FrozenGraph graph, int window, int maxRefCount)
+    {
+        if (window < 0 || maxRefCount < 0) throw new IllegalArgumentException("Negative window or reference count");
+
+        CompressedGraph compressed = new CompressedGraph();
+        int n = graph.getNumVertices();
+        compressed.numVertices = n;
+        compressed.numEdges = graph.getNumEdges();
+        compressed.weighted = graph.isWeighted();
+        compressed.window = window;
+        compressed.maxRefCount = maxRefCount;
+
+        boolean identity = true;
+        for (int v = 0; v < n && identity; v++)
+        {
+            identity = graph.getLabel(v) == v;
+        }
+        if (!identity)
+        {
+            compressed.labels = new int[n];
+            long[] pairs = new long[n];
+            for (int v = 0; v < n; v++)
+            {
+                compressed.labels[v] = graph.getLabel(v);
+                pairs[v] = ((long) graph.getLabel(v) << 32) | v;
+            }
+            Arrays.sort(pairs);
+
+            compressed.sortedLabels = new int[n];
+            compressed.sortedIndices = new int[n];
+            for (int i = 0; i < n; i++)
+            {
+                compressed.sortedLabels[i] = (int) (pairs[i] >> 32);
+                compressed.sortedIndices[i] = (int) pairs[i];
+            }
+        }
+
+        compressed.out = new Encoder(graph, true, window, maxRefCount).encode();
+        compressed.in = new Encoder(graph, false, window, maxRefCount).encode();
+        return compressed;
+    }
+
+    //
+    // Writes the lists of one direction
+    //
+    private static class Encoder
+    {
+        private FrozenGraph graph;
+        private boolean forward;
+        private boolean weighted;
+        private int window;
+        private int maxRefCount;
+
+        private int[][] previous;      // the sorted lists of the last window + 1 vertices, by v % (window + 1)
+        private int[] previousDegree;
+        private int[] refCount;        // the reference chain length of those lists
+        private long[] pairs = new long[16];
+        private int[] weights = new int[16];
+        private boolean[] copied = new boolean[16];
+        private CostCounter counter = new CostCounter();
+
+        Encoder(FrozenGraph theGraph, boolean isForward, int theWindow, int theMaxRefCount)
+        {
+            graph = theGraph;
+            forward = isForward;
+            weighted = graph.isWeighted();
+            window = theWindow;
+            maxRefCount = theMaxRefCount;
+
+            previous = new int[window + 1][16];
+            previousDegree = new int[window + 1];
+            refCount = new int[window + 1];
+        }
+
+        Lists encode()
+        {
+            int n = graph.getNumVertices();
+            BitWriter bits = new BitWriter();
+            long[] positions = new long[n];
+
+            Lists lists = new Lists();
+            for (int v = 0; v < n; v++)
+            {
+                positions[v] = bits.size;
+
+                int slot = v % (window + 1);
+                int degree = Gather(v, slot);
+                lists.maxDegree = Math.max(lists.maxDegree, degree);
+
+                // The cheapest reference in the window, 0 for none
+                int bestReference = 0;
+                long bestCost = Cost(v, slot, degree, 0);
+                for (int r = 1; r <= window && r <= v && degree > 0; r++)
+                {
+                    int refSlot = (v - r) % (window + 1);
+                    if (refCount[refSlot] >= maxRefCount) continue;
+
+                    long cost = Cost(v, slot, degree, r);
+                    if (cost < bestCost)
+                    {
+                        bestCost = cost;
+                        bestReference = r;
+                    }
+                }
+
+                Write(bits, v, slot, degree, bestReference);
+                refCount[slot] = bestReference == 0 ? 0 : refCount[(v - bestReference) % (window + 1)] + 1;
+            }
+
+            lists.words = bits.toWords();
+            lists.numBits = bits.size;
+            Index(lists, positions);
+            return lists;
+        }
+
+        // The block index over the list positions
+        private static void Index(Lists lists, long[] positions)
+        {
+            int n = positions.length;
+            int numBlocks = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            lists.blocks = new long[2 * numBlocks];
+            BitWriter index = new BitWriter();
+
+            for (int b = 0; b < numBlocks; b++)
+            {
+                int first = b * BLOCK_SIZE;
+                int last = Math.min(first + BLOCK_SIZE, n) - 1;
+                int width = 64 - Long.numberOfLeadingZeros(positions[last] - positions[first]);
+
+                lists.blocks[2 * b] = positions[first];
+                lists.blocks[2 * b + 1] = (index.size << 6) | width;
+                for (int v = first + 1; v <= last; v++)
+                {
+                    index.writeBits(positions[v] - positions[first], width);
+                }
+            }
+
+            lists.index = index.toWords();
+            lists.numIndexBits = index.size;
+        }
+
+        // The sorted, deduplicated list of v (and its weights) into previous[slot]; returns the degree
+        private int Gather(int v, int slot)
+        {
+            int degree = forward ? graph.getOutDegree(v) : graph.getInDegree(v);
+            if (pairs.length < degree) pairs = new long[degree];
+
+            for (int i = 0; i < degree; i++)
+            {
+                int w = forward ? graph.getOutNeighbor(v, i) : graph.getInNeighbor(v, i);
+                int weight = forward ? graph.getOutWeight(v, i) : graph.getInWeight(v, i);
+                pairs[i] = ((long) w << 32) | ((weight & 0xFFFFFFFFL) ^ 0x80000000L);
+            }
+            Arrays.sort(pairs, 0, degree);
+
+            if (previous[slot].length < degree) previous[slot] = new int[degree];
+            if (weights.length < degree) weights = new int[degree];
+            int[] list = previous[slot];
+            int size = 0;
+            for (int i = 0; i < degree; i++)
+            {
+                int w = (int) (pairs[i] >> 32);
+                if (size > 0 && list[size - 1] == w) continue;
+
+                weights[size] = (int) (pairs[i] ^ 0x80000000L);
+                list[size++] = w;
+            }
+
+            previousDegree[slot] = size;
+            return size;
+        }
+
+        // Marks in copied[] the elements of the list at distance r that the list of v contains
+        private int MarkCopied(int slot, int degree, int r)
+        {
+            int[] list = previous[slot];
+            int refSlot = ((slot - r) % (window + 1) + window + 1) % (window + 1);
+            int[] reference = previous[refSlot];
+            int refDegree = previousDegree[refSlot];
+            if (copied.length < refDegree) copied = new boolean[refDegree];
+
+            int numCopied = 0;
+            int i = 0;
+            for (int j = 0; j < refDegree; j++)
+            {
+                while (i < degree && list[i] < reference[j]) i++;
+                copied[j] = i < degree && list[i] == reference[j];
+                if (copied[j]) numCopied++;
+            }
+            return numCopied;
+        }
+
+        // The bits of the list of v with reference r (the weights cost the same either way)
+        private long Cost(int v, int slot, int degree, int r)
+        {
+            counter.size = 0;
+            Encode(counter, v, slot, degree, r);
+            return counter.size;
+        }
+
+        private void Write(BitWriter bits, int v, int slot, int degree, int r)
+        {
+            Encode(bits, v, slot, degree, r);
+
+            if (weighted)
+            {
+                for (int i = 0; i < degree; i++)
+                {
+                    bits.writeNat(ZigZag(weights[i]));
+                }
+            }
+        }
+
+        private void Encode(BitSink bits, int v, int slot, int degree, int r)
+        {
+            int[] list = previous[slot];
+            bits.writeNat(degree);
+            if (degree == 0) return;
+            if (window > 0) bits.writeNat(r);
+
+            int numCopied = 0;
+            int refDegree = 0;
+            if (r > 0)
+            {
+                numCopied = MarkCopied(slot, degree, r);
+                refDegree = previousDegree[((slot - r) % (window + 1) + window + 1) % (window + 1)];
+
+                // Runs of copied / skipped elements, starting with a (possibly empty) copy run; all
+                // but the last are written
+                int numBlocks = 0;
+                for (int j = 1; j < refDegree; j++)
+                {
+                    if (copied[j] != copied[j - 1]) numBlocks++;
+                }
+                if (refDegree > 0 && !copied[0]) numBlocks++;
+                bits.writeNat(numBlocks);
+
+                boolean copying = true;
+                int run = 0;
+                int block = 0;
+                for (int j = 0; j < refDegree && block < numBlocks; j++)
+                {
+                    if (copied[j] == copying)
+                    {
+                        run++;
+                        continue;
+                    }
+
+                    bits.writeNat(block == 0 ? run : run - 1);
+                    block++;
+                    copying = !copying;
+                    run = 1;
+                }
+            }
+
+            // The residuals: the elements not copied from the reference
+            int previousResidual = 0;
+            boolean first = true;
+            int j = 0;
+            for (int i = 0; i < degree; i++)
+            {
+                if (r > 0)
+                {
+                    int[] reference = previous[((slot - r) % (window + 1) + window + 1) % (window + 1)];
+                    while (j < refDegree && reference[j] < list[i]) j++;
+                    if (j < refDegree && reference[j] == list[i] && copied[j]) continue;
+                }
+
+                if (first) bits.writeNat(ZigZag((long) list[i] - v));
+                else bits.writeNat((long) list[i] - previousResidual - 1);
+                previousResidual = list[i];
+                first = false;
+            }
+        }
+    }
+
+    private static long ZigZag(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long UnZigZag(long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private interface BitSink
+    {
+        void writeNat(long x);
+    }
+
+    // Counts the bits a list would take
+    private static class CostCounter implements BitSink
+    {
+        long size;
+
+        @Override
+        public void writeNat(long x)
+        {
+            size += NatLength(x);
+        }
+    }
+
+    // Elias gamma of x + 1: the bit length of x + 1 minus 1 zeros, then x + 1
+    private static int NatLength(long x)
+    {
+        return 2 * (64 - Long.numberOfLeadingZeros(x + 1)) - 1;
+    }
+
+    private static class BitWriter implements BitSink
+    {
+        long[] words = new long[16];
+        long size;
+
+        @Override
+        public void writeNat(long x)
+        {
+            long y = x + 1;
+            int length = 64 - Long.numberOfLeadingZeros(y);
+            size += length - 1;
+            writeBits(y, length);
+        }
+
+        // The low count bits of value, count < 64
+        void writeBits(long value, int count)
+        {
+            if (count == 0) return;
+
+            int w = (int) (size >>> 6);
+            if (w + 2 >= words.length) words = Arrays.copyOf(words, words.length + (words.length >> 1) + 2);
+
+            int free = 64 - (int) (size & 63);
+            if (count <= free)
+            {
+                words[w] |= value << (free - count);
+            }
+            else
+            {
+                words[w] |= value >>> (count - free);
+                words[w + 1] |= value << (64 - (count - free));
+            }
+            size += count;
+        }
+
+        // The stream with one spare word, so that reads may always look at the next word
+        long[] toWords()
+        {
+            return Arrays.copyOf(words, (int) ((size + 63) >>> 6) + 1);
+        }
+    }
+
+    //
+    // One thread's decoding state: the last list decoded in each direction, and scratch lists for the
+    // references. It holds nothing of the graph (the lists are passed in), since the thread keeps it as
+    // long as it lives, and a reference back would keep the graph from being collected.
+    //
+    private static class Cursor
+    {
+        final Thread owner = Thread.currentThread();
+        long position;
+
+        int outVertex = -1;
+        int outDegree;
+        int[] outList;
+        int[] outWeights;
+        int inVertex = -1;
+        int inDegree;
+        int[] inList;
+        int[] inWeights;
+        int[][] references; // decoded references, by depth
+        int[][] copies;    // the elements copied from them, by depth
+
+        Cursor(int maxOutDegree, int maxInDegree, boolean weighted, int maxRefCount)
+        {
+            outList = new int[Math.max(maxOutDegree, 1)];
+            inList = new int[Math.max(maxInDegree, 1)];
+            if (weighted)
+            {
+                outWeights = new int[outList.length];
+                inWeights = new int[inList.length];
+            }
+            int maxDegree = Math.max(Math.max(maxOutDegree, maxInDegree), 1);
+            references = new int[maxRefCount + 2][maxDegree];
+            copies = new int[maxRefCount + 1][maxDegree];
+        }
+
+        // Decodes the successor list of v (from the graph's out lists) unless it is the one decoded last
+        void out(Lists lists, int window, int v)
+        {
+            if (outVertex == v) return;
+
+            outDegree = Decode(lists, window, v, outList, outWeights, 0);
+            outVertex = v;
+        }
+
+        void in(Lists lists, int window, int v)
+        {
+            if (inVertex == v) return;
+
+            inDegree = Decode(lists, window, v, inList, inWeights, 0);
+            inVertex = v;
+        }
+
+        // The length of the successor list of v: the first code of the list, without decoding the rest
+        int outDegree(Lists lists, int v)
+        {
+            if (outVertex == v) return outDegree;
+
+            position = Locate(lists, v);
+            return (int) ReadNat(lists.words);
+        }
+
+        int inDegree(Lists lists, int v)
+        {
+            if (inVertex == v) return inDegree;
+
+            position = Locate(lists, v);
+            return (int) ReadNat(lists.words);
+        }
+
+        // The list of v into into (and its weights into weights, unless null); returns its length. A
+        // reference at depth d is decoded into references[d + 1], and the elements copied from it are
+        // collected in copies[d].
+        private int Decode(Lists lists, int window, int v, int[] into, int[] weights, int depth)
+        {
+            position = Locate(lists, v);
+            long[] words = lists.words;
+
+            int degree = (int) ReadNat(words);
+            if (degree == 0) return 0;
+            int r = window > 0 ? (int) ReadNat(words) : 0;
+
+            int numCopied = 0;
+            int[] copied = copies[depth];
+            if (r > 0)
+            {
+                int numBlocks = (int) ReadNat(words);
+                long blocks = position;
+
+                int[] reference = references[depth + 1];
+                int refDegree = Decode(lists, window, v - r, reference, null, depth + 1);
+                position = blocks;
+
+                int j = 0;
+                boolean copying = true;
+                for (int b = 0; b <= numBlocks; b++)
+                {
+                    int length = b == numBlocks ? refDegree - j : (int) ReadNat(words) + (b == 0 ? 0 : 1);
+                    if (copying)
+                    {
+                        System.arraycopy(reference, j, copied, numCopied, length);
+                        numCopied += length;
+                    }
+                    j += length;
+                    copying = !copying;
+                }
+            }
+
+            // Merge the copied elements with the residuals
+            int numResiduals = degree - numCopied;
+            int c = 0;
+            int size = 0;
+            long residual = 0;
+            for (int i = 0; i < numResiduals; i++)
+            {
+                residual = i == 0 ? v + UnZigZag(ReadNat(words)) : residual + ReadNat(words) + 1;
+                while (c < numCopied && copied[c] < residual)
+                {
+                    into[size++] = copied[c++];
+                }
+                into[size++] = (int) residual;
+            }
+            while (c < numCopied)
+            {
+                into[size++] = copied[c++];
+            }
+
+            if (weights != null)
+            {
+                for (int i = 0; i < degree; i++)
+                {
+                    weights[i] = (int) UnZigZag(ReadNat(words));
+                }
+            }
+            return degree;
+        }
+
+        // The bit position of the list of v: the position of its block's first list plus its offset
+        private static long Locate(Lists lists, int v)
+        {
+            int b = v / BLOCK_SIZE;
+            int j = v - b * BLOCK_SIZE;
+            long listPosition = lists.blocks[2 * b];
+            if (j == 0) return listPosition;
+
+            long offsets = lists.blocks[2 * b + 1];
+            int width = (int) (offsets & 63);
+            if (width == 0) return listPosition;
+
+            return listPosition + (Peek(lists.index, (offsets >>> 6) + (long) (j - 1) * width) >>> (64 - width));
+        }
+
+        // Reads the gamma code of x + 1 at position and returns x
+        private long ReadNat(long[] words)
+        {
+            long peek = Peek(words, position);
+            int zeros = Long.numberOfLeadingZeros(peek);
+            int length = zeros + 1;
+
+            long y;
+            if (zeros + length <= 64)
+            {
+                y = (peek << zeros) >>> (64 - length);
+            }
+            else
+            {
+                y = Peek(words, position + zeros) >>> (64 - length);
+            }
+            position += zeros + length;
+            return y - 1;
+        }
+
+        private static long Peek(long[] words, long position)
+        {
+            int w = (int) (position >>> 6);
+            int offset = (int) (position & 63);
+            if (offset == 0) return words[w];
+
+            return (words[w] << offset) | (words[w + 1] >>> (64 - offset));
+        }
+    }
+
+    // The calling thread's cursor
+    private Cursor Cursor()
+    {
+        Cursor cursor = lastCursor;
+        if (cursor != null && cursor.owner == Thread.currentThread()) return cursor;
+
+        cursor = cursors.get();
+        lastCursor = cursor;
+        return cursor;
+    }
+
+    public int getNumVertices()
+    {
+        return numVertices;
+    }
+
+    public int getNumEdges()
+    {
+        return numEdges;
+    }
+
+    public int getLabel(int index)
+    {
+        if (index < 0 || index >= numVertices) throw new IndexOutOfBoundsException("Index " + index + ", length " + numVertices);
+
+        return labels == null ? index : labels[index];
+    }
+
+    public int getIndex(int label)
+    {
+        if (sortedLabels == null) return (label >= 0 && label < numVertices) ? label : -1;
+
+        int i = Arrays.binarySearch(sortedLabels, label);
+        return i < 0 ? -1 : sortedIndices[i];
+    }
+
+    // The degrees are read without decoding the lists, so BFS frontier sums and sink scans stay cheap
+    public int getOutDegree(int index)
+    {
+        return Cursor().outDegree(out, index);
+    }
+
+    public int getInDegree(int index)
+    {
+        return Cursor().inDegree(in, index);
+    }
+
+    public int getOutNeighbor(int index, int i)
+    {
+        Cursor cursor = Cursor();
+        cursor.out(out, window, index);
+        if (i < 0 || i >= cursor.outDegree) throw new IndexOutOfBoundsException("Neighbor " + i + ", degree " + cursor.outDegree);
+
+        return cursor.outList[i];
+    }
+
+    public int getInNeighbor(int index, int i)
+    {
+        Cursor cursor = Cursor();
+        cursor.in(in, window, index);
+        if (i < 0 || i >= cursor.inDegree) throw new IndexOutOfBoundsException("Neighbor " + i + ", degree " + cursor.inDegree);
+
+        return cursor.inList[i];
+    }
+
+    public boolean isWeighted()
+    {
+        return weighted;
+    }
+
+    public int getOutWeight(int index, int i)
+    {
+        if (!weighted) return 1;
+
+        Cursor cursor = Cursor();
+        cursor.out(out, window, index);
+        return cursor.outWeights[i];
+    }
+
+    public int getInWeight(int index, int i)
+    {
+        if (!weighted) return 1;
+
+        Cursor cursor = Cursor();
+        cursor.in(in, window, index);
+        return cursor.inWeights[i];
+    }
+
+    // Decodes once (or not at all if the list is the one decoded last) and copies the successors
+    @Override
+    public int getOutNeighbors(int index, int[] into, int offset)
+    {
+        Cursor cursor = Cursor();
+        cursor.out(out, window, index);
+        System.arraycopy(cursor.outList, 0, into, offset, cursor.outDegree);
+        return cursor.outDegree;
+    }
+
+    @Override
+    public int getInNeighbors(int index, int[] into, int offset)
+    {
+        Cursor cursor = Cursor();
+        cursor.in(in, window, index);
+        System.arraycopy(cursor.inList, 0, into, offset, cursor.inDegree);
+        return cursor.inDegree;
+    }
+
+    // Decodes once and calls action with every successor
+    @Override
+    public void forEachOutNeighbor(int index, IntConsumer action)
+    {
+        Cursor cursor = Cursor();
+        cursor.out(out, window, index);
+        int[] list = cursor.outList;
+        int degree = cursor.outDegree;
+        for (int i = 0; i < degree; i++)
+        {
+            action.accept(list[i]);
+        }
+    }
+
+    @Override
+    public void forEachInNeighbor(int index, IntConsumer action)
+    {
+        Cursor cursor = Cursor();
+        cursor.in(in, window, index);
+        int[] list = cursor.inList;
+        int degree = cursor.inDegree;
+        for (int i = 0; i < degree; i++)
+        {
+            action.accept(list[i]);
+        }
+    }
+
+    // A read-only copy of the successors of a dense vertex (the lists are only held compressed)
+    public IntBuffer getOutNeighborView(int index)
+    {
+        Cursor cursor = Cursor();
+        cursor.out(out, window, index);
+        return IntBuffer.wrap(Arrays.copyOf(cursor.outList, cursor.outDegree)).asReadOnlyBuffer();
+    }
+
+    public IntBuffer getInNeighborView(int index)
+    {
+        Cursor cursor = Cursor();
+        cursor.in(in, window, index);
+        return IntBuffer.wrap(Arrays.copyOf(cursor.inList, cursor.inDegree)).asReadOnlyBuffer();
+    }
+
+    //
+    // The size of the successor lists, including their offset index, in bits per edge; the predecessor
+    // lists take about as much again
+    //
+    public double getBitsPerEdge()
+    {
+        long bits = out.numBits + out.numIndexBits + 64L * out.blocks.length;
+        return numEdges == 0 ? 0 : (double) bits / numEdges;
+    }
+
+    // The size of both directions in bytes, without the labels
+    public long getSizeInBytes()
+    {
+        return 8L * (out.words.length + out.index.length + out.blocks.length + in.words.length + in.index.length + in.blocks.length);
+    }
+}
@@ -0,0 +1,1020 @@
+package digraph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+//
+// Contraction hierarchy over a weighted CSRGraph for fast repeated point-to-point shortest paths
+//
+// Preprocessing contracts the vertices one by one, least important first. Contracting v removes it
+// from the remaining graph; for every remaining pair u -> v -> w whose path through v is the only
+// shortest one (no "witness" path u ~> w avoiding v is as short), a shortcut edge u -> w with the
+// combined weight is added, remembering v as its middle vertex. The importance of a vertex is its edge
+// difference (shortcuts it would add minus edges it removes) plus the number of its neighbors that are
+// already contracted, which spreads the contraction evenly; priorities are re-evaluated lazily when a
+// vertex reaches the top of the queue and refreshed for the neighbors of every contracted vertex.
+//
+// The rank of a vertex is its position in the contraction order. Every shortest path has a shortest
+// path in the augmented graph that first climbs in rank and then descends, so a query runs Dijkstra
+// upward from the source and upward (over the reversed edges) from the target and never looks at an
+// edge that goes down in rank. Each edge is stored once, at its lower-ranked endpoint:
+//
+//   up:   u -> w with rank[w] > rank[u], stored at u (searched forward from the source)
+//   down: u -> w with rank[u] > rank[w], stored at w (searched backward from the target)
+//
+// Shortcuts are unpacked through their middle vertices to report paths in the original graph.
+// The hierarchy is immutable; run queries through a Query per thread. writeTo / readFrom store it in a
+// versioned binary form so it need not be rebuilt at startup.
+//
+public class ContractionHierarchy
+{
+    public static final long UNREACHABLE = DagPaths.UNREACHABLE;
+
+    private static final int MAGIC = 0x44474348; // "DGCH"
+    private static final int VERSION = 1;
+
+    private static final int WITNESS_SETTLE_LIMIT = 100;  // per witness search while contracting
+    private static final int SIMULATE_SETTLE_LIMIT = 10;  // per witness search while ordering
+
+    private int[] labels;       // vertex id of each dense vertex
+    private int[] sortedLabels; // null when the labels are 0..n-1 in order
+    private int[] sortedIndices;
+    private int[] rank;
+
+    private int[] upOffsets;
+    private int[] upTargets;
+    private long[] upWeights;
+    private int[] upMiddle;     // middle vertex of a shortcut, -1 for an original edge
+
+    private int[] downOffsets;
+    private int[] downSources;
+    private long[] downWeights;
+    private int[] downMiddle;
+
+    private ContractionHierarchy()
+    {
+    }
+
+    //
+    // Contracts a frozen graph; edge weights (1 when unweighted) must be non-negative
+    //
+    public static ContractionHierarchy build(FrozenGraph graph)
+    {
+        return new Contraction(graph).Run();
+    }
+
+    public int getNumVertices()
+    {
+        return labels.length;
+    }
+
+    //
+    // Edges of the augmented graph, shortcuts included
+    //
+    public int getNumEdges()
+    {
+        return upTargets.length + downSources.length;
+    }
+
+    public int getNumShortcuts()
+    {
+        int shortcuts = 0;
+        for (int mid : upMiddle)
+        {
+            if (mid >= 0) shortcuts++;
+        }
+        for (int mid : downMiddle)
+        {
+            if (mid >= 0) shortcuts++;
+        }
+        return shortcuts;
+    }
+
+    //
+    // The position of a vertex id in the contraction order (0 = contracted first), -1 if not in the graph
+    //
+    public int getRank(int vertex)
+    {
+        int index = getIndex(vertex);
+        return index < 0 ? -1 : rank[index];
+    }
+
+    private int getIndex(int label)
+    {
+        if (sortedLabels == null) return (label >= 0 && label < labels.length) ? label : -1;
+
+        int i = Arrays.binarySearch(sortedLabels, label);
+        return i < 0 ? -1 : sortedIndices[i];
+    }
+
+    private void BuildIndex()
+    {
+        boolean identity = true;
+        for (int v = 0; v < labels.length && identity; v++)
+        {
+            identity = labels[v] == v;
+        }
+        if (identity) return;
+
+        long[] pairs = new long[labels.length];
+        for (int v = 0; v < labels.length; v++)
+        {
+            pairs[v] = ((long) labels[v] << 32) | v;
+        }
+        Arrays.sort(pairs);
+
+        sortedLabels = new int[labels.length];
+        sortedIndices = new int[labels.length];
+        for (int i = 0; i < pairs.length; i++)
+        {
+            sortedLabels[i] = (int) (pairs[i] >> 32);
+            sortedIndices[i] = (int) pairs[i];
+        }
+    }
+
+    public Query newQuery()
+    {
+        return new Query();
+    }
+
+    //
+    // Writes the hierarchy in a versioned binary form (see readFrom)
+    //
+    public void writeTo(DataOutput out) throws IOException
+    {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        WriteInts(out, labels);
+        WriteInts(out, rank);
+        WriteInts(out, upOffsets);
+        WriteInts(out, upTargets);
+        WriteLongs(out, upWeights);
+        WriteInts(out, upMiddle);
+        WriteInts(out, downOffsets);
+        WriteInts(out, downSources);
+        WriteLongs(out, downWeights);
+        WriteInts(out, downMiddle);
+    }
+
+    public static ContractionHierarchy readFrom(DataInput in) throws IOException
+    {
+        if (in.readInt() != MAGIC) throw new IOException("Not a contraction hierarchy");
+        int version = in.readInt();
+        if (version != VERSION) throw new IOException("Unsupported contraction hierarchy version " + version);
+
+        ContractionHierarchy ch = new ContractionHierarchy();
+        ch.labels = ReadInts(in);
+        ch.rank = ReadInts(in);
+        ch.upOffsets = ReadInts(in);
+        ch.upTargets = ReadInts(in);
+        ch.upWeights = ReadLongs(in);
+        ch.upMiddle = ReadInts(in);
+        ch.downOffsets = ReadInts(in);
+        ch.downSources = ReadInts(in);
+        ch.downWeights = ReadLongs(in);
+        ch.downMiddle = ReadInts(in);
+
+        int n = ch.labels.length;
+        if (ch.rank.length != n || ch.upOffsets.length != n + 1 || ch.downOffsets.length != n + 1
+            || ch.upOffsets[n] != ch.upTargets.length || ch.downOffsets[n] != ch.downSources.length)
+        {
+            throw new IOException("Corrupt contraction hierarchy");
+        }
+
+        ch.BuildIndex();
+        return ch;
+    }
+
+    private static void WriteInts(DataOutput out, int[] values) throws IOException
+    {
+        out.writeInt(values.length);
+        for (int value : values)
+        {
+            out.writeInt(value);
+        }
+    }
+
+    private static void WriteLongs(DataOutput out, long[] values) throws IOException
+    {
+        out.writeInt(values.length);
+        for (long value : values)
+        {
+            out.writeLong(value);
+        }
+    }
+
+    private static int[] ReadInts(DataInput in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0) throw new IOException("Corrupt contraction hierarchy");
+
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++)
+        {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static long[] ReadLongs(DataInput in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0) throw new IOException("Corrupt contraction hierarchy");
+
+        long[] values = new long[length];
+        for (int i = 0; i < length; i++)
+        {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    //
+    // Point-to-point queries on the hierarchy: two upward Dijkstra searches, from the source over the up
+    // edges and from the target over the down edges, alternating until neither side can still improve
+    // the best meeting vertex. State is stamped per query as in Dijkstra; one Query per thread.
+    //
+    public class Query
+    {
+        private static final int FORWARD = 0;
+        private static final int BACKWARD = 1;
+        private static final int SETTLED = -1;
+
+        private int[][] stamp;
+        private int query;
+        private long[][] distance;
+        private int[][] parent;   // previous vertex on the search tree, -1 at the source / target
+        private int[][] position;
+        private int[][] heap;
+        private int[] heapSize;
+
+        private long best;
+        private int meet;
+        private int numSettled;
+        private long numRelaxed;
+
+        Query()
+        {
+            int n = labels.length;
+            stamp = new int[2][n];
+            distance = new long[2][n];
+            parent = new int[2][n];
+            position = new int[2][n];
+            heap = new int[2][n];
+            heapSize = new int[2];
+            meet = -1;
+        }
+
+        //
+        // The shortest distance between two vertex ids, UNREACHABLE if there is no path
+        //
+        public long shortestPath(int source, int target)
+        {
+            int s = getIndex(source);
+            if (s < 0) throw new IllegalArgumentException("Vertex " + source + " is not in the graph");
+            int t = getIndex(target);
+            if (t < 0) throw new IllegalArgumentException("Vertex " + target + " is not in the graph");
+
+            if (++query == 0)
+            {
+                // The stamps wrapped around; forget every earlier query
+                Arrays.fill(stamp[FORWARD], 0);
+                Arrays.fill(stamp[BACKWARD], 0);
+                query = 1;
+            }
+
+            best = Long.MAX_VALUE;
+            meet = -1;
+            numSettled = 0;
+            numRelaxed = 0;
+            heapSize[FORWARD] = heapSize[BACKWARD] = 0;
+
+            Reach(FORWARD, s, 0, -1);
+            Reach(BACKWARD, t, 0, -1);
+            Meet(FORWARD, s);
+
+            int side = FORWARD;
+            while (true)
+            {
+                boolean forwardDone = heapSize[FORWARD] == 0 || distance[FORWARD][heap[FORWARD][0]] >= best;
+                boolean backwardDone = heapSize[BACKWARD] == 0 || distance[BACKWARD][heap[BACKWARD][0]] >= best;
+                if (forwardDone && backwardDone) break;
+
+                if (side == FORWARD ? forwardDone : backwardDone) side ^= 1;
+                Settle(side);
+                side ^= 1;
+            }
+
+            return meet < 0 ? UNREACHABLE : best;
+        }
+
+        private void Settle(int side)
+        {
+            int v = PopMin(side);
+            numSettled++;
+
+            int[] offsets = side == FORWARD ? upOffsets : downOffsets;
+            int[] ends = side == FORWARD ? upTargets : downSources;
+            long[] weights = side == FORWARD ? upWeights : downWeights;
+
+            long dv = distance[side][v];
+            for (int e = offsets[v]; e < offsets[v + 1]; e++)
+            {
+                int w = ends[e];
+                long candidate = dv + weights[e];
+                numRelaxed++;
+
+                if (stamp[side][w] != query)
+                {
+                    Reach(side, w, candidate, v);
+                }
+                else if (position[side][w] != SETTLED && candidate < distance[side][w])
+                {
+                    distance[side][w] = candidate;
+                    parent[side][w] = v;
+                    SiftUp(side, position[side][w]);
+                }
+                else continue;
+
+                Meet(side, w);
+            }
+        }
+
+        private void Meet(int side, int w)
+        {
+            int other = side ^ 1;
+            if (stamp[other][w] != query) return;
+
+            long length = distance[side][w] + distance[other][w];
+            if (length < best)
+            {
+                best = length;
+                meet = w;
+            }
+        }
+
+        private void Reach(int side, int v, long d, int from)
+        {
+            stamp[side][v] = query;
+            distance[side][v] = d;
+            parent[side][v] = from;
+
+            int i = heapSize[side]++;
+            heap[side][i] = v;
+            position[side][v] = i;
+            SiftUp(side, i);
+        }
+
+        private void SiftUp(int side, int i)
+        {
+            int[] h = heap[side];
+            int[] pos = position[side];
+            long[] dist = distance[side];
+
+            int v = h[i];
+            long d = dist[v];
+            while (i > 0)
+            {
+                int up = (i - 1) >>> 1;
+                if (dist[h[up]] <= d) break;
+                h[i] = h[up];
+                pos[h[i]] = i;
+                i = up;
+            }
+            h[i] = v;
+            pos[v] = i;
+        }
+
+        private int PopMin(int side)
+        {
+            int[] h = heap[side];
+            int[] pos = position[side];
+            long[] dist = distance[side];
+
+            int min = h[0];
+            pos[min] = SETTLED;
+
+            int size = --heapSize[side];
+            if (size == 0) return min;
+
+            int last = h[size];
+            long d = dist[last];
+            int i = 0;
+            while (true)
+            {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && dist[h[child + 1]] < dist[h[child]]) child++;
+                if (dist[h[child]] >= d) break;
+                h[i] = h[child];
+                pos[h[i]] = i;
+                i = child;
+            }
+            h[i] = last;
+            pos[last] = i;
+
+            return min;
+        }
+
+        public long getDistance()
+        {
+            return meet < 0 ? UNREACHABLE : best;
+        }
+
+        //
+        // The vertex ids of the path found by the last query in the original graph (source first), or
+        // null if there was none
+        //
+        public ArrayList<Integer> getPath()
+        {
+            if (meet < 0) return null;
+
+            // The hierarchy path: source .. meet .. target
+            ArrayList<Integer> hops = new ArrayList<Integer>();
+            for (int v = meet; v >= 0; v = parent[FORWARD][v])
+            {
+                hops.add(v);
+            }
+            Collections.reverse(hops);
+            for (int v = parent[BACKWARD][meet]; v >= 0; v = parent[BACKWARD][v])
+            {
+                hops.add(v);
+            }
+
+            ArrayList<Integer> path = new ArrayList<Integer>();
+            path.add(labels[hops.get(0)]);
+            for (int i = 0; i + 1 < hops.size(); i++)
+            {
+                Unpack(hops.get(i), hops.get(i + 1), path);
+            }
+            return path;
+        }
+
+        public int getNumSettled()
+        {
+            return numSettled;
+        }
+
+        public long getNumRelaxed()
+        {
+            return numRelaxed;
+        }
+    }
+
+    //
+    // Appends the vertex ids after from on the original path of the edge from -> to, expanding shortcuts
+    // through their middle vertices; an explicit stack of pending edges keeps deep nesting off the call
+    // stack
+    //
+    private void Unpack(int from, int to, ArrayList<Integer> path)
+    {
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = from;
+        stack[size++] = to;
+
+        while (size > 0)
+        {
+            int b = stack[--size];
+            int a = stack[--size];
+
+            int mid = Middle(a, b);
+            if (mid < 0)
+            {
+                path.add(labels[b]);
+                continue;
+            }
+
+            if (size + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length << 1);
+
+            // a -> mid is expanded before mid -> b
+            stack[size++] = mid;
+            stack[size++] = b;
+            stack[size++] = a;
+            stack[size++] = mid;
+        }
+    }
+
+    // The middle vertex of the cheapest stored edge a -> b (-1 for an original edge)
+    private int Middle(int a, int b)
+    {
+        long bestWeight = Long.MAX_VALUE;
+        int mid = -1;
+
+        if (rank[a] < rank[b])
+        {
+            for (int e = upOffsets[a]; e < upOffsets[a + 1]; e++)
+            {
+                if (upTargets[e] == b && upWeights[e] < bestWeight)
+                {
+                    bestWeight = upWeights[e];
+                    mid = upMiddle[e];
+                }
+            }
+        }
+        else
+        {
+            for (int e = downOffsets[b]; e < downOffsets[b + 1]; e++)
+            {
+                if (downSources[e] == a && downWeights[e] < bestWeight)
+                {
+                    bestWeight = downWeights[e];
+                    mid = downMiddle[e];
+                }
+            }
+        }
+
+        return mid;
+    }
+
+    //
+    // The preprocessing: a mutable adjacency (original edges plus shortcuts) that is contracted in
+    // priority order and then split into the up and down graphs
+    //
+    private static class Contraction
+    {
+        private FrozenGraph graph;
+        private int n;
+
+        // Per vertex out- and in-edge lists: neighbor, weight and middle vertex in parallel arrays
+        private int[][] outTo;
+        private long[][] outWeight;
+        private int[][] outMid;
+        private int[] outSize;
+        private int[][] inFrom;
+        private long[][] inWeight;
+        private int[][] inMid;
+        private int[] inSize;
+
+        private boolean[] contracted;
+        private int[] deletedNeighbors;
+        private int[] rank;
+
+        // Priority queue of (priority, vertex) packed into longs: the signed priority in the high half orders them
+        private long[] queue;
+        private int queueSize;
+
+        // Witness search state, stamped per search
+        private int[] stamp;
+        private int[] target;    // search in which a vertex is one of the out-neighbors looked for
+        private int search;
+        private long[] distance;
+        private int[] position;
+        private int[] heap;
+        private int heapSize;
+
+        private int[] slot;      // position of w in the out-edges of the shortcut source being updated, or -1
+
+        // Shortcuts found by the last Shortcuts call
+        private int[] newFrom = new int[16];
+        private int[] newTo = new int[16];
+        private long[] newWeight = new long[16];
+        private int numNew;
+
+        Contraction(FrozenGraph theGraph)
+        {
+            graph = theGraph;
+            n = graph.getNumVertices();
+
+            outTo = new int[n][];
+            outWeight = new long[n][];
+            outMid = new int[n][];
+            outSize = new int[n];
+            inFrom = new int[n][];
+            inWeight = new long[n][];
+            inMid = new int[n][];
+            inSize = new int[n];
+
+            for (int v = 0; v < n; v++)
+            {
+                int out = Math.max(graph.getOutDegree(v), 1);
+                outTo[v] = new int[out];
+                outWeight[v] = new long[out];
+                outMid[v] = new int[out];
+
+                int in = Math.max(graph.getInDegree(v), 1);
+                inFrom[v] = new int[in];
+                inWeight[v] = new long[in];
+                inMid[v] = new int[in];
+            }
+
+            for (int v = 0; v < n; v++)
+            {
+                for (int i = 0; i < graph.getOutDegree(v); i++)
+                {
+                    int w = graph.getOutNeighbor(v, i);
+                    int weight = graph.getOutWeight(v, i);
+                    if (weight < 0) throw new IllegalStateException("A contraction hierarchy needs non-negative edge weights");
+
+                    // Self loops never lie on a shortest path
+                    if (w != v) AddEdge(v, w, weight, -1);
+                }
+            }
+
+            contracted = new boolean[n];
+            deletedNeighbors = new int[n];
+            rank = new int[n];
+
+            queue = new long[Math.max(n, 1)];
+            stamp = new int[n];
+            target = new int[n];
+            slot = new int[n];
+            Arrays.fill(slot, -1);
+            distance = new long[n];
+            position = new int[n];
+            heap = new int[n];
+        }
+
+        ContractionHierarchy Run()
+        {
+            for (int v = 0; v < n; v++)
+            {
+                Push(Priority(v), v);
+            }
+
+            int next = 0;
+            while (queueSize > 0)
+            {
+                long top = Pop();
+                int v = (int) top;
+                if (contracted[v]) continue; // an older entry of a vertex queued again below
+
+                // Lazy update: re-evaluate, and put the vertex back if it is no longer the least important
+                int priority = Priority(v);
+                if (queueSize > 0 && priority > (int) (queue[0] >> 32))
+                {
+                    Push(priority, v);
+                    continue;
+                }
+
+                Contract(v);
+                rank[v] = next++;
+            }
+
+            return Split();
+        }
+
+        private int Priority(int v)
+        {
+            Shortcuts(v, SIMULATE_SETTLE_LIMIT);
+
+            return numNew - outSize[v] - inSize[v] + deletedNeighbors[v];
+        }
+
+        private void Contract(int v)
+        {
+            Shortcuts(v, WITNESS_SETTLE_LIMIT);
+
+            // The shortcuts come grouped by their source u; index the out-edges of u while adding them
+            int s = 0;
+            while (s < numNew)
+            {
+                int u = newFrom[s];
+                for (int i = 0; i < outSize[u]; i++)
+                {
+                    slot[outTo[u][i]] = i;
+                }
+                for (; s < numNew && newFrom[s] == u; s++)
+                {
+                    AddShortcut(u, newTo[s], newWeight[s], v);
+                }
+                for (int i = 0; i < outSize[u]; i++)
+                {
+                    slot[outTo[u][i]] = -1;
+                }
+            }
+
+            // v leaves the remaining graph: its own lists now hold exactly its edges to higher-ranked
+            // vertices and are final, while its neighbors forget it
+            contracted[v] = true;
+            for (int i = 0; i < outSize[v]; i++)
+            {
+                int w = outTo[v][i];
+                deletedNeighbors[w]++;
+                RemoveIn(w, v);
+            }
+            for (int i = 0; i < inSize[v]; i++)
+            {
+                int u = inFrom[v][i];
+                deletedNeighbors[u]++;
+                RemoveOut(u, v);
+            }
+        }
+
+        private void RemoveOut(int u, int w)
+        {
+            for (int i = 0; i < outSize[u]; i++)
+            {
+                if (outTo[u][i] != w) continue;
+
+                int last = --outSize[u];
+                outTo[u][i] = outTo[u][last];
+                outWeight[u][i] = outWeight[u][last];
+                outMid[u][i] = outMid[u][last];
+                return;
+            }
+        }
+
+        private void RemoveIn(int w, int u)
+        {
+            for (int i = 0; i < inSize[w]; i++)
+            {
+                if (inFrom[w][i] != u) continue;
+
+                int last = --inSize[w];
+                inFrom[w][i] = inFrom[w][last];
+                inWeight[w][i] = inWeight[w][last];
+                inMid[w][i] = inMid[w][last];
+                return;
+            }
+        }
+
+        //
+        // Collects in newFrom/newTo/newWeight the shortcuts that contracting v needs: u -> v -> w for which
+        // a witness search from u that avoids v finds nothing as short
+        //
+        private void Shortcuts(int v, int settleLimit)
+        {
+            numNew = 0;
+
+            for (int i = 0; i < inSize[v]; i++)
+            {
+                int u = inFrom[v][i];
+
+                long maxNeeded = -1;
+                for (int j = 0; j < outSize[v]; j++)
+                {
+                    int w = outTo[v][j];
+                    if (w == u) continue;
+                    maxNeeded = Math.max(maxNeeded, inWeight[v][i] + outWeight[v][j]);
+                }
+                if (maxNeeded < 0) continue;
+
+                Witness(u, v, maxNeeded, settleLimit);
+
+                for (int j = 0; j < outSize[v]; j++)
+                {
+                    int w = outTo[v][j];
+                    if (w == u) continue;
+
+                    long needed = inWeight[v][i] + outWeight[v][j];
+                    if (stamp[w] == search && distance[w] <= needed) continue;
+
+                    if (numNew == newFrom.length)
+                    {
+                        newFrom = Arrays.copyOf(newFrom, numNew << 1);
+                        newTo = Arrays.copyOf(newTo, numNew << 1);
+                        newWeight = Arrays.copyOf(newWeight, numNew << 1);
+                    }
+                    newFrom[numNew] = u;
+                    newTo[numNew] = w;
+                    newWeight[numNew] = needed;
+                    numNew++;
+                }
+            }
+        }
+
+        // Dijkstra from u over the remaining graph without v, until every out-neighbor of v is settled or
+        // the distance limit or settleLimit vertices are reached; the tentative distances left behind are
+        // lengths of real paths, so they are valid witnesses too
+        private void Witness(int u, int v, long limit, int settleLimit)
+        {
+            if (++search == 0)
+            {
+                Arrays.fill(stamp, 0);
+                Arrays.fill(target, 0);
+                search = 1;
+            }
+
+            int remaining = 0;
+            for (int j = 0; j < outSize[v]; j++)
+            {
+                int w = outTo[v][j];
+                if (w != u && target[w] != search)
+                {
+                    target[w] = search;
+                    remaining++;
+                }
+            }
+
+            heapSize = 0;
+            Reach(u, 0);
+
+            int settled = 0;
+            while (heapSize > 0 && settled < settleLimit)
+            {
+                int x = PopMin();
+                if (distance[x] > limit) break;
+                settled++;
+                if (target[x] == search && --remaining == 0) break;
+
+                for (int i = 0; i < outSize[x]; i++)
+                {
+                    int y = outTo[x][i];
+                    if (y == v) continue;
+
+                    long candidate = distance[x] + outWeight[x][i];
+                    if (stamp[y] != search)
+                    {
+                        Reach(y, candidate);
+                    }
+                    else if (position[y] >= 0 && candidate < distance[y])
+                    {
+                        distance[y] = candidate;
+                        SiftUp(position[y]);
+                    }
+                }
+            }
+        }
+
+        private void Reach(int v, long d)
+        {
+            stamp[v] = search;
+            distance[v] = d;
+            heap[heapSize] = v;
+            position[v] = heapSize;
+            SiftUp(heapSize++);
+        }
+
+        private void SiftUp(int i)
+        {
+            int v = heap[i];
+            long d = distance[v];
+            while (i > 0)
+            {
+                int up = (i - 1) >>> 1;
+                if (distance[heap[up]] <= d) break;
+                heap[i] = heap[up];
+                position[heap[i]] = i;
+                i = up;
+            }
+            heap[i] = v;
+            position[v] = i;
+        }
+
+        private int PopMin()
+        {
+            int min = heap[0];
+            position[min] = -1;
+
+            int last = heap[--heapSize];
+            if (heapSize == 0) return min;
+
+            long d = distance[last];
+            int i = 0;
+            while (true)
+            {
+                int child = 2 * i + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && distance[heap[child + 1]] < distance[heap[child]]) child++;
+                if (distance[heap[child]] >= d) break;
+                heap[i] = heap[child];
+                position[heap[i]] = i;
+                i = child;
+            }
+            heap[i] = last;
+            position[last] = i;
+
+            return min;
+        }
+
+        // Adds u -> w, or lowers the weight of an existing u -> w; slot holds the out-edge positions of u
+        private void AddShortcut(int u, int w, long weight, int mid)
+        {
+            int i = slot[w];
+            if (i < 0)
+            {
+                AddEdge(u, w, weight, mid);
+                return;
+            }
+            if (outWeight[u][i] <= weight) return;
+
+            outWeight[u][i] = weight;
+            outMid[u][i] = mid;
+            for (int j = 0; j < inSize[w]; j++)
+            {
+                if (inFrom[w][j] == u)
+                {
+                    inWeight[w][j] = weight;
+                    inMid[w][j] = mid;
+                    break;
+                }
+            }
+        }
+
+        private void AddEdge(int u, int w, long weight, int mid)
+        {
+            if (outSize[u] == outTo[u].length)
+            {
+                int capacity = outSize[u] << 1;
+                outTo[u] = Arrays.copyOf(outTo[u], capacity);
+                outWeight[u] = Arrays.copyOf(outWeight[u], capacity);
+                outMid[u] = Arrays.copyOf(outMid[u], capacity);
+            }
+            outTo[u][outSize[u]] = w;
+            outWeight[u][outSize[u]] = weight;
+            outMid[u][outSize[u]++] = mid;
+
+            if (inSize[w] == inFrom[w].length)
+            {
+                int capacity = inSize[w] << 1;
+                inFrom[w] = Arrays.copyOf(inFrom[w], capacity);
+                inWeight[w] = Arrays.copyOf(inWeight[w], capacity);
+                inMid[w] = Arrays.copyOf(inMid[w], capacity);
+            }
+            inFrom[w][inSize[w]] = u;
+            inWeight[w][inSize[w]] = weight;
+            inMid[w][inSize[w]++] = mid;
+        }
+
+        private void Push(int priority, int v)
+        {
+            long entry = ((long) priority << 32) | v;
+            if (queueSize == queue.length) queue = Arrays.copyOf(queue, queueSize << 1);
+
+            int i = queueSize++;
+            while (i > 0)
+            {
+                int up = (i - 1) >>> 1;
+                if (queue[up] <= entry) break;
+                queue[i] = queue[up];
+                i = up;
+            }
+            queue[i] = entry;
+        }
+
+        private long Pop()
+        {
+            long top = queue[0];
+            long last = queue[--queueSize];
+
+            int i = 0;
+            while (true)
+            {
+                int child = 2 * i + 1;
+                if (child >= queueSize) break;
+                if (child + 1 < queueSize && queue[child + 1] < queue[child]) child++;
+                if (queue[child] >= last) break;
+                queue[i] = queue[child];
+                i = child;
+            }
+            if (queueSize > 0) queue[i] = last;
+
+            return top;
+        }
+
+        // Every edge is stored at its lower-ranked endpoint: the lists a vertex had when it was contracted
+        private ContractionHierarchy Split()
+        {
+            ContractionHierarchy ch = new ContractionHierarchy();
+            ch.labels = new int[n];
+            for (int v = 0; v < n; v++)
+            {
+                ch.labels[v] = graph.getLabel(v);
+            }
+            ch.rank = rank;
+
+            ch.upOffsets = new int[n + 1];
+            ch.downOffsets = new int[n + 1];
+            for (int v = 0; v < n; v++)
+            {
+                ch.upOffsets[v + 1] = ch.upOffsets[v] + outSize[v];
+                ch.downOffsets[v + 1] = ch.downOffsets[v] + inSize[v];
+            }
+
+            ch.upTargets = new int[ch.upOffsets[n]];
+            ch.upWeights = new long[ch.upOffsets[n]];
+            ch.upMiddle = new int[ch.upOffsets[n]];
+            ch.downSources = new int[ch.downOffsets[n]];
+            ch.downWeights = new long[ch.downOffsets[n]];
+            ch.downMiddle = new int[ch.downOffsets[n]];
+
+            for (int v = 0; v < n; v++)
+            {
+                int e = ch.upOffsets[v];
+                for (int i = 0; i < outSize[v]; i++)
+                {
+                    ch.upTargets[e] = outTo[v][i];
+                    ch.upWeights[e] = outWeight[v][i];
+                    ch.upMiddle[e++] = outMid[v][i];
+                }
+
+                e = ch.downOffsets[v];
+                for (int i = 0; i < inSize[v]; i++)
+                {
+                    ch.downSources[e] = inFrom[v][i];
+                    ch.downWeights[e] = inWeight[v][i];
+                    ch.downMiddle[e++] = inMid[v][i];
+                }
+            }
+
+            ch.BuildIndex();
+            return ch;
+        }
+    }
+}
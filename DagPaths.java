@@ -0,0 +1,170 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+//
+// Longest and shortest paths in a DAG by dynamic programming over a topological order
+//
+// Processing the vertices in topological order guarantees that the distance of a vertex is final before
+// any of its out-edges is relaxed, so every edge is relaxed exactly once: O(V + E) regardless of how
+// many distinct paths the graph contains. Edge weights are the CSR weights (Edge.getWeight), or 1 for
+// every edge when the path is measured in edges.
+//
+// The longest path of a DAG is its critical path: the chain of dependent steps that bounds how fast
+// the whole graph can be worked through.
+//
+public class DagPaths
+{
+    private FrozenGraph graph;
+    private boolean longest;
+    private long[] distance;   // per dense vertex; UNREACHABLE if no path from a start vertex
+    private int[] predecessor; // previous dense vertex on the best path, -1 at a start vertex
+
+    public static final long UNREACHABLE = Long.MIN_VALUE;
+
+    //
+    // The longest path that may start at any vertex (the critical path of the DAG)
+    //
+    public static DagPaths longestPaths(FrozenGraph graph, boolean weighted)
+    {
+        return new DagPaths(graph, -1, true, weighted);
+    }
+
+    //
+    // The longest paths from one vertex id
+    //
+    public static DagPaths longestPaths(FrozenGraph graph, int source, boolean weighted)
+    {
+        return new DagPaths(graph, SourceIndex(graph, source), true, weighted);
+    }
+
+    //
+    // The shortest paths from one vertex id; weights may be negative since the graph is a DAG
+    //
+    public static DagPaths shortestPaths(FrozenGraph graph, int source, boolean weighted)
+    {
+        return new DagPaths(graph, SourceIndex(graph, source), false, weighted);
+    }
+
+    private static int SourceIndex(FrozenGraph graph, int source)
+    {
+        int index = graph.getIndex(source);
+        if (index < 0) throw new IllegalArgumentException("Vertex " + source + " is not in the graph");
+        return index;
+    }
+
+    //
+    // sourceIndex < 0: every vertex starts a path at distance 0
+    //
+    private DagPaths(FrozenGraph theGraph, int sourceIndex, boolean isLongest, boolean weighted)
+    {
+        graph = theGraph;
+        longest = isLongest;
+
+        int[] order = new TopologicalOrder(graph).getOrder();
+        if (order == null) throw new IllegalStateException("Paths by topological order need an acyclic graph");
+
+        int n = graph.getNumVertices();
+        distance = new long[n];
+        predecessor = new int[n];
+        Arrays.fill(distance, sourceIndex < 0 ? 0 : UNREACHABLE);
+        Arrays.fill(predecessor, -1);
+        if (sourceIndex >= 0) distance[sourceIndex] = 0;
+
+        for (int v : order)
+        {
+            if (distance[v] == UNREACHABLE) continue;
+
+            for (int i = 0; i < graph.getOutDegree(v); i++)
+            {
+                int w = graph.getOutNeighbor(v, i);
+                long candidate = distance[v] + (weighted ? graph.getOutWeight(v, i) : 1);
+
+                if (distance[w] == UNREACHABLE || (longest ? candidate > distance[w] : candidate < distance[w]))
+                {
+                    distance[w] = candidate;
+                    predecessor[w] = v;
+                }
+            }
+        }
+    }
+
+    public FrozenGraph getGraph()
+    {
+        return graph;
+    }
+
+    public boolean isReachable(int vertex)
+    {
+        int index = graph.getIndex(vertex);
+        return index >= 0 && distance[index] != UNREACHABLE;
+    }
+
+    //
+    // The length of the best path to a vertex id, UNREACHABLE if there is none
+    //
+    public long getDistance(int vertex)
+    {
+        int index = graph.getIndex(vertex);
+        return index < 0 ? UNREACHABLE : distance[index];
+    }
+
+    //
+    // The vertex ids of the best path ending at a vertex id (start first), or null if there is none
+    //
+    public ArrayList<Integer> getPath(int vertex)
+    {
+        int index = graph.getIndex(vertex);
+        if (index < 0 || distance[index] == UNREACHABLE) return null;
+
+        return PathTo(index);
+    }
+
+    private ArrayList<Integer> PathTo(int index)
+    {
+        int hops = 0;
+        for (int v = index; predecessor[v] >= 0; v = predecessor[v])
+        {
+            hops++;
+        }
+
+        Integer[] path = new Integer[hops + 1];
+        for (int v = index; v >= 0; v = predecessor[v])
+        {
+            path[hops--] = graph.getLabel(v);
+        }
+
+        return new ArrayList<Integer>(Arrays.asList(path));
+    }
+
+    // The dense vertex with the largest (longest) or smallest (shortest) reachable distance
+    private int BestEnd()
+    {
+        int best = -1;
+        for (int v = 0; v < distance.length; v++)
+        {
+            if (distance[v] == UNREACHABLE) continue;
+            if (best < 0 || (longest ? distance[v] > distance[best] : distance[v] < distance[best])) best = v;
+        }
+        return best;
+    }
+
+    //
+    // For longest paths: the length of the critical path (0 for a graph without edges)
+    //
+    public long getCriticalLength()
+    {
+        int end = BestEnd();
+        return end < 0 ? 0 : distance[end];
+    }
+
+    //
+    // For longest paths: the vertex ids of the critical path, start first (empty for an empty graph)
+    //
+    public ArrayList<Integer> getCriticalPath()
+    {
+        int end = BestEnd();
+        return end < 0 ? new ArrayList<Integer>() : PathTo(end);
+    }
+}
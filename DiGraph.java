@@ -1,85 +1,253 @@
 package digraph;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.Hashtable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.nio.IntBuffer;
+import java.util.function.IntConsumer;
+import java.util.concurrent.ForkJoinPool;
 import utilities.DepthFirstSearch;
 import hypergraph.*;
-import java.util.Queue;
-import java.util.LinkedList;
 
 public class DiGraph<T>
 {
-	private ArrayList<Node<T>> nodes;
-	protected ArrayList<Integer> nodesInt;
+	//
+	// Struct-of-arrays storage: node payloads are one column and the edges live in an EdgeTable
+	// (source / target / weight columns with per-node edge chains); node ids are 0..n-1
+	//
+	private Object[] data;
+	protected EdgeTable edgeTable;
+	private LongIntHashMap edgeIndex; // Edge.key of every edge -> its id in the edge table
+	private CSRGraph frozen; // Cached immutable copy; dropped on every change
+	private EdgeVisitor tracer; // Opt-in diagnostics hook; null when tracing is off
+	private Node<T>[] views; // Node views handed out so far, by id (null: none yet for that id)
 
-	//key(integer), value (arrayList)
-	protected Hashtable<Integer, ArrayList<Integer>> edgeMap;
-	protected Hashtable<Integer, ArrayList<Integer>> transposeEdgeMap;
-	private ArrayList<Edge> edges;
-	private int numEdges;
+	//
+	// The object API (getVertices, getNode, getOutEdgeNodes, topologicalSort, ...) hands out Node
+	// views built from the columns the first time a node is asked for and the same object every time
+	// after, so nodes can be compared by identity and kept in maps and sets. A view follows addEdge and
+	// removeEdge, and its data is the node's data: setting node.data is the same as setData. Changing
+	// the edge lists of a view directly does not change the graph, and a removed node's view keeps the
+	// edges it had. The graph thus holds objects only for the nodes handed out (forEachOutNeighbor and
+	// the neighbor views allocate none); releaseNodeViews drops them. getEdges builds new Edge objects
+	// on every call.
+	//
 
 	public DiGraph()
 	{
-		nodes = new ArrayList<Node<T>>();
-		nodesInt = new ArrayList<Integer>();
-		edgeMap = new Hashtable<Integer, ArrayList<Integer>>();
-		transposeEdgeMap = new Hashtable<Integer, ArrayList<Integer>>();
-		edges = new ArrayList<Edge>();
-		numEdges = 0;
+		data = new Object[16];
+		edgeTable = new EdgeTable();
+		edgeIndex = new LongIntHashMap();
 	}
 
+	//
+	// Each hyperedge is an in-edge of its target node, so collecting the in-edges of every node
+	// adds every hyperedge exactly once
+	//
 	public DiGraph(Hypergraph HG)
 	{
-		nodes = new ArrayList<Node<T>>();
-		nodesInt = new ArrayList<Integer>();
+		this(HypernodeData(HG), HyperedgeBuilder(HG).buildCSR());
+	}
 
-		//tried for each loop
+	// Hypergraph is used raw, as by the constructor above
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private static <T> ArrayList<T> HypernodeData(Hypergraph HG)
+	{
+		ArrayList<T> nodeData = new ArrayList<T>(HG.vertices.size());
 		for(int currNode = 0; currNode < HG.vertices.size(); currNode++)
 		{
-			//Node(T theData, int theId), the id's start at 0!
-			Node newNode = new Node(HG.getNode(currNode).data, currNode);
-			nodes.add(newNode);
-			nodesInt.add(currNode);
+			nodeData.add((T) HG.getNode(currNode).data);
 		}
+		return nodeData;
+	}
 
-		edgeMap = new Hashtable<Integer, ArrayList<Integer>>();
-		transposeEdgeMap = new Hashtable<Integer, ArrayList<Integer>>();
-		edges = new ArrayList<Edge>();
-		numEdges = 0;
-
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private static DiGraphBuilder HyperedgeBuilder(Hypergraph HG)
+	{
+		DiGraphBuilder builder = new DiGraphBuilder(HG.vertices.size());
 		for(int currNodeIndex = 0; currNodeIndex < HG.vertices.size(); currNodeIndex++)
 		{
 			Hypernode currNode = HG.getNode(currNodeIndex);
 			for(int currEdgeIndex = 0; currEdgeIndex < currNode.inEdges.size(); currEdgeIndex++)
 			{
 				Hyperedge currEdge = currNode.getInEdge(currEdgeIndex);
-				AddHyperEdge(currEdge.sourceNodes, currEdge.targetNode);
+				builder.addHyperEdge(currEdge.sourceNodes, currEdge.targetNode);
 			}
-			for(int currEdgeIndex = 0; currEdgeIndex < currNode.outEdges.size(); currEdgeIndex++)
+		}
+		return builder;
+	}
+
+	//
+	// Bulk construction (see DiGraphBuilder): node i carries nodeData.get(i) and the edges are taken
+	// from the CSR adjacency, so every column is allocated once at its final size
+	//
+	DiGraph(ArrayList<T> nodeData, CSRGraph adjacency)
+	{
+		int n = nodeData.size();
+		int m = adjacency.getNumEdges();
+
+		data = nodeData.toArray(new Object[Math.max(n, 1)]);
+		edgeTable = new EdgeTable(n, m);
+		edgeIndex = new LongIntHashMap(m);
+
+		for(int currNode = 0; currNode < n; currNode++)
+		{
+			edgeTable.addVertex();
+		}
+
+		for(int from = 0; from < n; from++)
+		{
+			for(int i = 0; i < adjacency.getOutDegree(from); i++)
 			{
-				Hyperedge currEdge = currNode.getOutEdge(currEdgeIndex);
-				AddHyperEdge(currEdge.sourceNodes, currEdge.targetNode);
+				int to = adjacency.getOutNeighbor(from, i);
+				int e = edgeTable.addEdge(from, to, adjacency.getOutWeight(from, i));
+				edgeIndex.put(Edge.key(from, to), e);
 			}
 		}
+
+		frozen = adjacency;
 	}
 
-	private boolean isAcyclic()
+	//
+	// A new Node view of one node with its edges, in O(degree); null for a removed node
+	//
+	@SuppressWarnings("unchecked")
+	private Node<T> NodeView(int id)
+	{
+		if(edgeTable.isRemovedVertex(id)) return null;
+
+		//Node(T theData, int theId), the id's start at 0!
+		Node<T> view = new Node<T>((T) data[id], id);
+		view.outEdges.ensureCapacity(edgeTable.getOutDegree(id));
+		view.descendants.ensureCapacity(edgeTable.getOutDegree(id));
+		view.inEdges.ensureCapacity(edgeTable.getInDegree(id));
+
+		for(int e = edgeTable.firstOutEdge(id); e >= 0; e = edgeTable.nextOutEdge(e))
+		{
+			int target = edgeTable.getTarget(e);
+			view.outEdges.add(new Edge(id, target, edgeTable.getWeight(e)));
+			if(target != id) view.descendants.add(target);
+		}
+		for(int e = edgeTable.firstInEdge(id); e >= 0; e = edgeTable.nextInEdge(e))
+		{
+			view.inEdges.add(new Edge(edgeTable.getSource(e), id, edgeTable.getWeight(e)));
+		}
+		return view;
+	}
+
+	//
+	// The cached view of a node, built on first use; null for a removed node
+	//
+	private Node<T> View(int id)
+	{
+		if(edgeTable.isRemovedVertex(id)) return null;
+
+		Node<T> view = Cached(id);
+		if(view != null) return view;
+
+		GrowViews();
+		view = NodeView(id);
+		views[id] = view;
+		return view;
+	}
+
+	private Node<T> Cached(int id)
+	{
+		return views != null && id < views.length ? views[id] : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void GrowViews()
+	{
+		int n = edgeTable.getNumVertices();
+		if(views == null) views = (Node<T>[]) new Node<?>[n];
+		else if(views.length < n) views = Arrays.copyOf(views, Math.max(n, views.length + (views.length >> 1)));
+	}
+
+	//
+	// Fills the view cache for every node, in O(V + E), and returns it indexed by id (null for a
+	// removed node); both endpoints of an edge built here share its Edge object
+	//
+	@SuppressWarnings("unchecked")
+	private Node<T>[] AllViews()
+	{
+		int n = edgeTable.getNumVertices();
+		GrowViews();
+
+		boolean[] built = new boolean[n];
+		boolean anyBuilt = false;
+		for(int id = 0; id < n; id++)
+		{
+			if(edgeTable.isRemovedVertex(id) || views[id] != null) continue;
+
+			Node<T> view = new Node<T>((T) data[id], id);
+			view.outEdges.ensureCapacity(edgeTable.getOutDegree(id));
+			view.descendants.ensureCapacity(edgeTable.getOutDegree(id));
+			view.inEdges.ensureCapacity(edgeTable.getInDegree(id));
+			views[id] = view;
+			built[id] = true;
+			anyBuilt = true;
+		}
+		if(!anyBuilt) return views;
+
+		for(int e = 0; e < edgeTable.getEdgeLimit(); e++)
+		{
+			if(edgeTable.isRemoved(e)) continue;
+
+			int from = edgeTable.getSource(e);
+			int to = edgeTable.getTarget(e);
+			if(!built[from] && !built[to]) continue;
+
+			Edge newEdge = new Edge(from, to, edgeTable.getWeight(e));
+			if(built[from]) views[from].attachEdge(newEdge);
+			if(built[to] && from != to) views[to].attachEdge(newEdge);
+		}
+		return views;
+	}
+
+	// Drops the cached Node views, keeping their data; nodes asked for after this are new objects
+	public void releaseNodeViews()
 	{
-		DepthFirstSearch DFS = new DepthFirstSearch(this);
+		if(views == null) return;
 
-		return DFS.getBackEdges().isEmpty();
+		for(int id = 0; id < views.length; id++)
+		{
+			if(views[id] != null) data[id] = views[id].data;
+		}
+		views = null;
 	}
 
+	private boolean isAcyclic()
+	{
+		return new TopologicalOrder(freeze()).isAcyclic();
+	}
+
+	// Kahn's algorithm (see TopologicalOrder) in one linear pass; null if the graph contains a cycle
 	public ArrayList<Node<T>> topologicalSort()
 	{
-		if(isAcyclic() == true)
+		return topologicalSort(null);
+	}
+
+	// As above, with ready nodes taken smallest id first by tieBreak (first-in first-out if null)
+	public ArrayList<Node<T>> topologicalSort(IntComparator tieBreak)
+	{
+		CSRGraph graph = freeze();
+		int[] order = new TopologicalOrder(graph, tieBreak).getOrder();
+		if(order == null) return null;
+
+		Node<T>[] nodes = AllViews();
+		ArrayList<Node<T>> sorted = new ArrayList<Node<T>>(order.length);
+		for(int index : order)
 		{
-			DepthFirstSearch DFS = new DepthFirstSearch(this);
-			return DFS.getTopologicalList();
+			sorted.add(nodes[graph.getLabel(index)]);
 		}
-		return null;
+		return sorted;
 	}
 
+	// Collects every topological sort; their number grows factorially, so prefer the streaming
+	// forEachTopologicalSort / topologicalSorts or countTopologicalSorts beyond small graphs
 	public ArrayList<Linearization<T>> allTopologicalSort()
 	{
 		if(isAcyclic() == true)
@@ -90,28 +258,59 @@ public class DiGraph<T>
 		return null;
 	}
 
-	public void addNode(T data)
+	// Hands every topological sort (node ids) to the visitor, one at a time, until it returns false;
+	// the array is reused for the next sort. Throws IllegalStateException if the graph has a cycle.
+	public long forEachTopologicalSort(LinearizationVisitor visitor)
 	{
-		nodes.add(new Node<T>(data, nodes.size()));
+		return new LinearExtensions(freeze()).visitAll(visitor);
 	}
 
-	// Adds an edge to a map of edges
-	private void AddEdge(Hashtable<Integer, ArrayList<Integer>> givenEdges, int from, int to)
+	// As forEachTopologicalSort, split over the threads of a pool (see ParallelLinearExtensions); the
+	// visitor is called concurrently and must be thread-safe
+	public long forEachTopologicalSort(LinearizationVisitor visitor, ForkJoinPool pool)
 	{
-		// This order needed because we want the goal node of the problem first
-		if(!nodesInt.contains(to)) nodesInt.add(to);
-		if(!nodesInt.contains(from)) nodesInt.add(from);
+		return new ParallelLinearExtensions(freeze(), pool).visitAll(visitor);
+	}
 
-		ArrayList<Integer> fromDependencies = new ArrayList<Integer>();
-		if(givenEdges.containsKey(from))
-		{
-			givenEdges.get(from).add(to);
-		}
-		else
+	// Lazily generates the topological sorts as Linearizations, one per call to next()
+	public Iterator<Linearization<T>> topologicalSorts()
+	{
+		final Iterator<int[]> orders = new LinearExtensions(freeze()).iterator();
+		return new Iterator<Linearization<T>>()
 		{
-			fromDependencies.add(to);
-			givenEdges.put(from, fromDependencies);
-		}
+			public boolean hasNext()
+			{
+				return orders.hasNext();
+			}
+
+			public Linearization<T> next()
+			{
+				return new Linearization<T>(DiGraph.this, orders.next());
+			}
+		};
+	}
+
+	// The number of topological sorts, counted without generating them (see LinearExtensions.count)
+	public BigInteger countTopologicalSorts()
+	{
+		return LinearExtensions.count(freeze());
+	}
+
+	// An immutable CSR copy of this graph; cached until the next node or edge is added
+	public CSRGraph freeze()
+	{
+		if(frozen == null) frozen = new CSRGraph(this);
+
+		return frozen;
+	}
+
+	public void addNode(T theData)
+	{
+		frozen = null;
+
+		int id = edgeTable.addVertex();
+		if(id == data.length) data = Arrays.copyOf(data, data.length + (data.length >> 1) + 1);
+		data[id] = theData;
 	}
 
 	//
@@ -127,45 +326,202 @@ public class DiGraph<T>
 
 	public void addEdge(int from, int to)
 	{
-		Edge newEdge = new Edge(from, to);
+		addEdge(from, to, 1);
+	}
+
+	// Adds a weighted edge; if the edge already exists it keeps its original weight
+	public void addEdge(int from, int to, int weight)
+	{
+		long key = Edge.key(from, to);
+		if(edgeIndex.containsKey(key)) return;
+
+		// The edge table checks that both nodes exist
+		int e = edgeTable.addEdge(from, to, weight);
+		edgeIndex.put(key, e);
+		frozen = null;
+
+		// Cached views of the endpoints gain the edge, sharing one Edge object
+		Node<T> source = Cached(from);
+		Node<T> target = Cached(to);
+		if(source == null && target == null) return;
+
+		Edge newEdge = new Edge(from, to, weight);
+		if(source != null) source.attachEdge(newEdge);
+		if(target != null && from != to) target.attachEdge(newEdge);
+	}
+
+	//
+	// Removes an edge; returns false if there was no such edge
+	//
+	// The edge is found through the edge index and left as a tombstone in the edge table, which is
+	// compacted once that pays for itself (see EdgeTable), so this is amortized O(1) however many
+	// nodes there are.
+	//
+	public boolean removeEdge(int from, int to)
+	{
+		int e = edgeIndex.remove(Edge.key(from, to), -1);
+		if(e < 0) return false;
+
+		edgeTable.removeEdge(e);
+		frozen = null;
+
+		if(edgeTable.needsCompaction()) Compact();
+
+		// Cached views of the endpoints lose the edge, in O(degree)
+		Node<T> source = Cached(from);
+		if(source != null)
+		{
+			RemoveEdge(source.outEdges, from, to);
+			if(from != to) source.descendants.remove(Integer.valueOf(to));
+			else RemoveEdge(source.inEdges, from, to);
+		}
+		Node<T> target = from != to ? Cached(to) : null;
+		if(target != null) RemoveEdge(target.inEdges, from, to);
+
+		return true;
+	}
+
+	private static void RemoveEdge(ArrayList<Edge> edges, int from, int to)
+	{
+		for(int i = 0; i < edges.size(); i++)
+		{
+			Edge currEdge = edges.get(i);
+			if(currEdge.sourceNode == from && currEdge.targetNode == to)
+			{
+				edges.remove(i);
+				return;
+			}
+		}
+	}
+
+	//
+	// Removes a node and all its edges; returns false if there is no such node. The other nodes keep
+	// their ids and the removed id is not reused (getNode returns null for it).
+	//
+	public boolean removeNode(int id)
+	{
+		if(id < 0 || id >= edgeTable.getNumVertices() || edgeTable.isRemovedVertex(id)) return false;
+
+		// The node's own view is let go first, so removing its edges only updates its neighbors' views
+		if(Cached(id) != null) views[id] = null;
 
-		if(this.hasEdge(newEdge) == false)
+		// Collect the neighbors first: removing edges while walking the chains is safe, but clearer not to
+		int[] targets = new int[edgeTable.getOutDegree(id)];
+		int count = 0;
+		for(int e = edgeTable.firstOutEdge(id); e >= 0; e = edgeTable.nextOutEdge(e))
+		{
+			targets[count++] = edgeTable.getTarget(e);
+		}
+		for(int to : targets)
 		{
-			nodes.get(from).addEdge(newEdge);
-			nodes.get(to).addEdge(newEdge);
-			edges.add(newEdge);
+			removeEdge(id, to);
+		}
+
+		int[] sources = new int[edgeTable.getInDegree(id)];
+		count = 0;
+		for(int e = edgeTable.firstInEdge(id); e >= 0; e = edgeTable.nextInEdge(e))
+		{
+			sources[count++] = edgeTable.getSource(e);
+		}
+		for(int from : sources)
+		{
+			removeEdge(from, id);
+		}
+
+		edgeTable.removeVertex(id);
+		data[id] = null;
+		frozen = null;
 
-			AddEdge(edgeMap, from, to);
-			AddEdge(transposeEdgeMap, to, from);
+		return true;
+	}
+
+	public boolean containsNode(int id)
+	{
+		return id >= 0 && id < edgeTable.getNumVertices() && !edgeTable.isRemovedVertex(id);
+	}
 
-			numEdges++;
+	// Drops the edge tombstones; the edge ids change, so the edge index follows them
+	private void Compact()
+	{
+		edgeTable.compact();
+		for(int e = 0; e < edgeTable.getEdgeLimit(); e++)
+		{
+			edgeIndex.put(Edge.key(edgeTable.getSource(e), edgeTable.getTarget(e)), e);
 		}
 	}
 
+	// Views of the nodes, in increasing id order (indexed by id while no node has been removed)
 	public ArrayList<Node<T>> getVertices()
 	{
-		return nodes;
+		Node<T>[] nodes = AllViews();
+
+		ArrayList<Node<T>> remaining = new ArrayList<Node<T>>(getNumNode());
+		for(int id = 0; id < edgeTable.getNumVertices(); id++)
+		{
+			if(nodes[id] != null) remaining.add(nodes[id]);
+		}
+		return remaining;
 	}
 
+	// The edges in the order they were added, as new Edge objects
 	public ArrayList<Edge> getEdges()
 	{
-		return edges;
+		ArrayList<Edge> edgeViews = new ArrayList<Edge>(edgeTable.getNumEdges());
+		for(int e = 0; e < edgeTable.getEdgeLimit(); e++)
+		{
+			if(!edgeTable.isRemoved(e)) edgeViews.add(new Edge(edgeTable.getSource(e), edgeTable.getTarget(e), edgeTable.getWeight(e)));
+		}
+		return edgeViews;
 	}
 
 	//checks and returns if each vertex is incident to the edge
 	public boolean hasEdge(Edge e)
 	{
-		for(Edge currEdge: edges)
-		{
-			if(e.equals(currEdge)) return true;
-		}
-		return false;
+		return edgeIndex.containsKey(e.key());
 	}
 
-	//returns the node with a specific id
+	public boolean hasEdge(int from, int to)
+	{
+		return edgeIndex.containsKey(Edge.key(from, to));
+	}
+
+	//returns the view of the node with a specific id (null if it was removed); O(degree) the first time
 	public Node<T> getNode(int id)
 	{
-		return nodes.get(id);
+		if(id < 0 || id >= edgeTable.getNumVertices()) throw new IndexOutOfBoundsException("Node " + id);
+		return View(id);
+	}
+
+	// The data of a node, without building any Node objects; null for a removed node
+	@SuppressWarnings("unchecked")
+	public T getData(int id)
+	{
+		if(id < 0 || id >= edgeTable.getNumVertices()) throw new IndexOutOfBoundsException("Node " + id);
+
+		// Once handed out, a view holds the node's data (node.data may have been set directly)
+		Node<T> view = Cached(id);
+		return view != null ? view.data : (T) data[id];
+	}
+
+	// Replaces the data of a node, in its view too if it has one
+	public void setData(int id, T theData)
+	{
+		if(!containsNode(id)) throw new IllegalArgumentException("No node " + id);
+		data[id] = theData;
+
+		Node<T> view = Cached(id);
+		if(view != null) view.data = theData;
+	}
+
+	public int getNumEdges()
+	{
+		return edgeTable.getNumEdges();
+	}
+
+	// The struct-of-arrays edge storage (read it, do not change it)
+	public EdgeTable getEdgeTable()
+	{
+		return edgeTable;
 	}
 
 
@@ -183,72 +539,154 @@ public class DiGraph<T>
 	//return target nodes 
 	public ArrayList<Node<T>> getOutEdgeNodes(int source)
 	{
+		//If there are no target nodes (or no such source) the list is empty
 		ArrayList<Node<T>> targetNodes = new ArrayList<Node<T>>();
+		if(source < 0 || source >= edgeTable.getNumVertices()) return targetNodes;
 
-		//get indexes for the target nodes use 
-		//nodesInt -> nodes
-		//If there are no target nodes
-		if (edgeMap.get(source).size() == 0) 
-		{
-			return targetNodes;
-		}
-		//will keep looping the size of the ArrayList from edgeMap
-		for(int i = 0; i < edgeMap.get(source).size(); i++)
+		targetNodes.ensureCapacity(edgeTable.getOutDegree(source));
+
+		//the out-edge chain of the source holds the ids of the target nodes
+		for(int e = edgeTable.firstOutEdge(source); e >= 0; e = edgeTable.nextOutEdge(e))
 		{
-			//taking index from 'edgeMap' to get node from 'nodes'
-			//edgeMap.get(source) == will return ArrayList<Integer>>
-			//edgeMap.get(source).get(i) == will return the index of the ArrayList
-			//nodes.get(edgeMap.get(source).get(i)) == will return the node 
-			//determined from the index from the edgeMap
-			
-			System.out.println("Class DiGraph: getOutEdgeNodes() Edge Map nodes: " + edgeMap.get(source).get(i));
-			
-			targetNodes.add(nodes.get(edgeMap.get(source).get(i)));
+			int target = edgeTable.getTarget(e);
+			if(tracer != null) tracer.visit(source, target);
+
+			targetNodes.add(View(target));
 		}
 
-		//targetNodes.add(getNodeArrayList(source));
-		
 		return targetNodes;
 	}//end LC
 
+	// Opt-in diagnostics: the tracer sees every (source, target) pair getOutEdgeNodes returns;
+	// null (the default) turns tracing off
+	public void setTracer(EdgeVisitor theTracer)
+	{
+		tracer = theTracer;
+	}
+
+	// Calls action with the id of every target of an edge from source, without allocating
+	public void forEachOutNeighbor(int source, IntConsumer action)
+	{
+		edgeTable.forEachOutNeighbor(source, action);
+	}
+
+	// Calls action with the id of every source of an edge to target, without allocating
+	public void forEachInNeighbor(int target, IntConsumer action)
+	{
+		edgeTable.forEachInNeighbor(target, action);
+	}
+
+	public PrimitiveIterator.OfInt outNeighbors(int source)
+	{
+		return edgeTable.outNeighbors(source);
+	}
+
+	public PrimitiveIterator.OfInt inNeighbors(int target)
+	{
+		return edgeTable.inNeighbors(target);
+	}
+
+	// A read-only primitive view of the target ids of source, backed by the frozen CSR copy (a copy
+	// once nodes have been removed, since the CSR copy then numbers the nodes differently); empty if
+	// there is no such node
+	public IntBuffer getOutNeighborView(int source)
+	{
+		if(!containsNode(source)) return IntBuffer.allocate(0).asReadOnlyBuffer();
+
+		CSRGraph graph = freeze();
+		if(edgeTable.getNumRemovedVertices() == 0) return graph.getOutNeighborView(source);
+
+		return ToIds(graph, graph.getOutNeighborView(graph.getIndex(source)));
+	}
+
+	// A read-only primitive view of the source ids of target, backed by the frozen CSR copy (a copy
+	// once nodes have been removed); empty if there is no such node
+	public IntBuffer getInNeighborView(int target)
+	{
+		if(!containsNode(target)) return IntBuffer.allocate(0).asReadOnlyBuffer();
+
+		CSRGraph graph = freeze();
+		if(edgeTable.getNumRemovedVertices() == 0) return graph.getInNeighborView(target);
+
+		return ToIds(graph, graph.getInNeighborView(graph.getIndex(target)));
+	}
+
+	private static IntBuffer ToIds(CSRGraph graph, IntBuffer indices)
+	{
+		int[] ids = new int[indices.remaining()];
+		for(int i = 0; i < ids.length; i++)
+		{
+			ids[i] = graph.getLabel(indices.get(i));
+		}
+		return IntBuffer.wrap(ids).asReadOnlyBuffer();
+	}
 
+	// The number of nodes; ids run up to edgeTable.getNumVertices() once nodes have been removed
 	public int getNumNode()
 	{
-		return nodes.size();
+		return edgeTable.getNumVertices() - edgeTable.getNumRemovedVertices();
 	}
 
-	// The depth of the graph is defined as being the length of the maximal path to the leaf nodes
-	// We assume that this graph is a DAG.
+	// The depth of the graph is defined as being the length of the maximal path to the leaf nodes,
+	// counted in vertices. We assume that this graph is a DAG.
 	//
-	// We use a DFS technique to determine maximality
-	//
-	// Since we have an implied 1-1 map between vertices and indices, we work on indices
+	// Dynamic programming over a topological order (see DagPaths) visits every edge once, so graphs
+	// with many shared sub-paths cost no more than trees
 	//
 	public int GetLength()
 	{
-		// passing index 0, depth 1
-		return GetLengthHelper(0, 1);
+		return freeze().GetLength();
 	}
-	private int GetLengthHelper(int currentNode, int currentDepth)
+
+	// The nodes of the longest path by edge weight (start first); we assume that this graph is a DAG
+	public ArrayList<Node<T>> getCriticalPath()
 	{
-		int maxDepth = -1;
+		ArrayList<Node<T>> path = new ArrayList<Node<T>>();
+		for(int id : freeze().GetCriticalPath())
+		{
+			path.add(getNode(id));
+		}
+		return path;
+	}
 
-		// Get the edges from this node to traverse
-		ArrayList<Integer> forwardEdges = new ArrayList<Integer>();
+	// The sum of the edge weights along the critical path
+	public long getCriticalPathLength()
+	{
+		return DagPaths.longestPaths(freeze(), true).getCriticalLength();
+	}
 
-		// Get the transpose edges from this node (as we are traversing backward from the goal)
-		// This node is a leaf if no edges: return the known depth
-		if(!edgeMap.containsKey(currentNode)) return currentDepth;
-		else forwardEdges = edgeMap.get(currentNode);
+	// The shortest paths by edge weight from one node; we assume that this graph is a DAG
+	public DagPaths getShortestPaths(int source)
+	{
+		return DagPaths.shortestPaths(freeze(), source, true);
+	}
 
-		// Traverse the edges tracking the max depth
-		for(int edge : forwardEdges)
+	// An index for repeated reachability questions (see ReachabilityIndex); a snapshot like freeze()
+	public ReachabilityIndex getReachabilityIndex()
+	{
+		return new ReachabilityIndex(freeze());
+	}
+
+	// Preprocesses this graph for repeated shortest path queries by edge weight (see ContractionHierarchy);
+	// the hierarchy is a snapshot and does not follow later changes to the graph
+	public ContractionHierarchy buildContractionHierarchy()
+	{
+		return ContractionHierarchy.build(freeze());
+	}
+
+	// The nodes of a shortest path by edge weight (start first), null if there is none; the graph may
+	// contain cycles but the weights must be non-negative
+	public ArrayList<Node<T>> getShortestPath(int from, int to)
+	{
+		ArrayList<Integer> ids = freeze().GetShortestPath(from, to);
+		if(ids == null) return null;
+
+		ArrayList<Node<T>> path = new ArrayList<Node<T>>(ids.size());
+		for(int id : ids)
 		{
-			int tempDepth = GetLengthHelper(edge, currentDepth + 1);
-			if (maxDepth < tempDepth) maxDepth = tempDepth;
+			path.add(getNode(id));
 		}
-
-		return maxDepth;
+		return path;
 	}
 
 	// General graph traversal assuming a DAG; we start at the goal node and walk the transpose edges
@@ -318,81 +756,38 @@ public class DiGraph<T>
 	//    }
 
 	//
-	//MY GETWIDTH
+	// BFS from the sinks over the transpose edges (see LevelWidth); O(V + E) with a visited bitset,
+	// and every node is counted on the first level that reaches it
 	//
-	public int GetWidth() throws Exception
+	public int GetWidth()
 	{
-		Queue<Integer> worklist = new LinkedList<Integer>();
-
-		// Add the 'goal' node as a catalyst
-		worklist.addAll(getSink());
-
-		ArrayList<Integer> nextLevel = new ArrayList<Integer>();
-
-		// width for this level
-		int currentLevelWidth = worklist.size();
-
-		// max width for the entire graph
-		int maxLevelWidth = worklist.size();
-
-		// For verification purposes, we track the total number of nodes visited
-		int sumOfAllWidths = 0;
-
-		ArrayList<Integer> worked = new ArrayList<Integer>();
-
-		//
-		// Traverse the entire graph
-		//
-		while (!worklist.isEmpty())
-		{ 
-			// Traverse an entire level
-			for (int ell = 0; ell < currentLevelWidth; ell++)
-			{
-				// Get the next node
-				int currentNode = worklist.poll();
-
-				worked.add(currentNode);
-
-				// Get the edges from this node to traverse
-				ArrayList<Integer> backwardEdges = new ArrayList<Integer>();
-				if (transposeEdgeMap.containsKey(currentNode))
-				{
-					backwardEdges = transposeEdgeMap.get(currentNode);
-					// Add all targets to the worklist
-					for(int edgeIndex : backwardEdges)
-					{
-						if(!nextLevel.contains(edgeIndex) && !worked.contains(edgeIndex)) nextLevel.add(edgeIndex);
-					}
-				}
-			}
-
-			// Completed a level; check width values, including if we have a new maxWidth
-			if (currentLevelWidth > maxLevelWidth) maxLevelWidth = currentLevelWidth;
-
-			sumOfAllWidths += currentLevelWidth;
-
-			// Next level's number of nodes
-			currentLevelWidth = nextLevel.size();
+		return freeze().GetWidth();
+	}
 
-			worklist.addAll(nextLevel);
-			nextLevel.clear();
-		}
+	// As above, expanding every level in parallel on the given pool (see ParallelBFS)
+	public int GetWidth(ForkJoinPool pool)
+	{
+		return freeze().GetWidth(pool);
+	}
 
-		if (sumOfAllWidths < nodesInt.size())
-		{
-			throw new Exception("Error in width determination: Did not traverse all nodes!");
-		}
+	// The number of nodes on every level of the traversal above, goal level first
+	public int[] getWidthProfile()
+	{
+		return freeze().GetWidthProfile();
+	}
 
-		return maxLevelWidth;
+	public int[] getWidthProfile(ForkJoinPool pool)
+	{
+		return freeze().GetWidthProfile(pool);
 	}
 
 	public ArrayList<Integer> getSource()
 	{
 		ArrayList<Integer> sources = new ArrayList<Integer>();
 
-		for(Node currNode : nodes)
+		for(int id = 0; id < edgeTable.getNumVertices(); id++)
 		{
-			if(currNode.inEdges.isEmpty()) sources.add(currNode.getId());
+			if(edgeTable.getInDegree(id) == 0 && !edgeTable.isRemovedVertex(id)) sources.add(id);
 		}
 
 		return sources;
@@ -402,9 +797,9 @@ public class DiGraph<T>
 	{
 		ArrayList<Integer> sinks = new ArrayList<Integer>();
 
-		for(Node currNode : nodes)
+		for(int id = 0; id < edgeTable.getNumVertices(); id++)
 		{
-			if(currNode.outEdges.isEmpty()) sinks.add(currNode.getId());
+			if(edgeTable.getOutDegree(id) == 0 && !edgeTable.isRemovedVertex(id)) sinks.add(id);
 		}
 
 		return sinks;
@@ -413,33 +808,32 @@ public class DiGraph<T>
 	@Override
 	public String toString()
 	{
-		String graphS = "";
+		StringBuilder graphS = new StringBuilder();
 
-		for(Node<T> currNode: nodes)
+		for(int id = 0; id < edgeTable.getNumVertices(); id++)
 		{
-			if(nodes.indexOf(currNode) != 0) graphS += "[Vertex " + nodes.indexOf(currNode) + "]: ";
-			else graphS += "[Vertex " + nodes.indexOf(currNode) + "]: ";
-			graphS += "(data: " + currNode.data + " / ";
-			graphS += "out edges: ";
-			if(currNode.outEdges.isEmpty()) graphS += "none ";
-			for(Edge currEdge: currNode.outEdges)
+			// Nodes not handed out yet are printed from a transient view, so printing fills no cache
+			Node<T> currNode = Cached(id);
+			if(currNode == null) currNode = NodeView(id);
+			if(currNode == null) continue;
+			graphS.append("[Vertex ").append(currNode.getId()).append("]: ");
+			graphS.append("(data: ").append(currNode.data).append(" / ");
+			graphS.append("out edges: ");
+			if(currNode.outEdges.isEmpty()) graphS.append("none ");
+			for(int i = 0; i < currNode.outEdges.size(); i++)
 			{
-				int lastIndex = currNode.outEdges.size() - 1;
-				if((currNode.outEdges.indexOf(currEdge)) != (lastIndex))
-				{
-					graphS += currEdge.toString() + ", ";
-				}
-				else graphS += currEdge.toString();
+				if(i != 0) graphS.append(", ");
+				graphS.append(currNode.outEdges.get(i));
 			}
-			graphS += " / in edges: ";
-			if(currNode.inEdges.isEmpty()) graphS += "none ";
+			graphS.append(" / in edges: ");
+			if(currNode.inEdges.isEmpty()) graphS.append("none ");
 			for(Edge currEdge: currNode.inEdges)
 			{
-				graphS += currEdge.toString();
+				graphS.append(currEdge);
 			}
-			graphS += ")\n";
+			graphS.append(")\n");
 		}
 
-		return graphS;
+		return graphS.toString();
 	}
 }
@@ -0,0 +1,298 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.stream.LongStream;
+
+//
+// Bulk loader for DiGraph, DiGraphInt and CSRGraph
+//
+// Edges are only appended to two primitive arrays while loading. Building is done in two passes:
+// the first counts the out-degree of every vertex, the second scatters the edges into a single
+// adjacency array sized exactly once, after which every neighbor list is sorted and deduplicated
+// in place. Vertex ids must be non-negative; they are used directly as dense indices.
+//
+public class DiGraphBuilder
+{
+    private int[] sources;
+    private int[] targets;
+    private int size;
+    private int numVertices;
+
+    public DiGraphBuilder()
+    {
+        this(0, 16);
+    }
+
+    //
+    // numVertices: the graph has at least the vertices 0..numVertices-1, even if some have no edges
+    //
+    public DiGraphBuilder(int numVertices)
+    {
+        this(numVertices, 16);
+    }
+
+    public DiGraphBuilder(int numVertices, int expectedEdges)
+    {
+        this.numVertices = numVertices;
+        sources = new int[Math.max(expectedEdges, 1)];
+        targets = new int[Math.max(expectedEdges, 1)];
+        size = 0;
+    }
+
+    public DiGraphBuilder addEdge(int from, int to)
+    {
+        if (from < 0 || to < 0) throw new IllegalArgumentException("Negative vertex id in edge (" + from + ", " + to + ")");
+
+        if (size == sources.length)
+        {
+            int capacity = sources.length + (sources.length >> 1) + 1;
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+        }
+
+        sources[size] = from;
+        targets[size] = to;
+        size++;
+
+        if (from >= numVertices) numVertices = from + 1;
+        if (to >= numVertices) numVertices = to + 1;
+
+        return this;
+    }
+
+    //
+    // Edges given as parallel arrays: (from[i], to[i])
+    //
+    public DiGraphBuilder addEdges(int[] from, int[] to)
+    {
+        if (from.length != to.length) throw new IllegalArgumentException("Edge arrays differ in length");
+
+        Reserve(from.length);
+        for (int i = 0; i < from.length; i++)
+        {
+            addEdge(from[i], to[i]);
+        }
+
+        return this;
+    }
+
+    //
+    // Edges given as consecutive pairs: from, to, from, to, ...
+    //
+    public DiGraphBuilder addEdges(int[] pairs)
+    {
+        if ((pairs.length & 1) != 0) throw new IllegalArgumentException("Odd number of vertex ids in edge pairs");
+
+        Reserve(pairs.length >> 1);
+        for (int i = 0; i < pairs.length; i += 2)
+        {
+            addEdge(pairs[i], pairs[i + 1]);
+        }
+
+        return this;
+    }
+
+    //
+    // Edges packed as Edge.key(from, to)
+    //
+    public DiGraphBuilder addEdges(long[] packedEdges)
+    {
+        Reserve(packedEdges.length);
+        for (long key : packedEdges)
+        {
+            addEdge((int) (key >>> 32), (int) key);
+        }
+
+        return this;
+    }
+
+    public DiGraphBuilder addEdges(LongStream packedEdges)
+    {
+        packedEdges.sequential().forEach(key -> addEdge((int) (key >>> 32), (int) key));
+
+        return this;
+    }
+
+    //
+    // Adds a many-to-one hyperedge by adding all the individual edges
+    //
+    public DiGraphBuilder addHyperEdge(ArrayList<Integer> fromList, int to)
+    {
+        Reserve(fromList.size());
+        for (int from : fromList)
+        {
+            addEdge(from, to);
+        }
+
+        return this;
+    }
+
+    private void Reserve(int moreEdges)
+    {
+        if (size + moreEdges > sources.length)
+        {
+            sources = Arrays.copyOf(sources, size + moreEdges);
+            targets = Arrays.copyOf(targets, size + moreEdges);
+        }
+    }
+
+    //
+    // Counting sort of the edges by source into offsets / adjacency, then sort and deduplicate
+    // every neighbor list. Returns { offsets, adjacency }.
+    //
+    private int[][] Compact(int n)
+    {
+        int[] offsets = new int[n + 1];
+
+        // Pass 1: degrees
+        for (int e = 0; e < size; e++)
+        {
+            offsets[sources[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++)
+        {
+            offsets[v + 1] += offsets[v];
+        }
+
+        // Pass 2: scatter
+        int[] adjacency = new int[size];
+        int[] next = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < size; e++)
+        {
+            adjacency[next[sources[e]]++] = targets[e];
+        }
+
+        // Sort each list and squeeze out duplicate edges
+        int write = 0;
+        for (int v = 0; v < n; v++)
+        {
+            int start = offsets[v];
+            int end = offsets[v + 1];
+            Arrays.sort(adjacency, start, end);
+
+            offsets[v] = write;
+            for (int i = start; i < end; i++)
+            {
+                if (i == start || adjacency[i] != adjacency[i - 1]) adjacency[write++] = adjacency[i];
+            }
+        }
+        offsets[n] = write;
+
+        if (write < adjacency.length) adjacency = Arrays.copyOf(adjacency, write);
+
+        return new int[][] { offsets, adjacency };
+    }
+
+    public int getNumVertices()
+    {
+        return numVertices;
+    }
+
+    // The number of edges added so far, duplicates included
+    public int getNumEdgesAdded()
+    {
+        return size;
+    }
+
+    //
+    // A CSR graph over the vertices 0..getNumVertices()-1 (vertex id == dense index)
+    //
+    public CSRGraph buildCSR()
+    {
+        return BuildCSR(numVertices);
+    }
+
+    private CSRGraph BuildCSR(int n)
+    {
+        int[] labels = new int[n];
+        for (int v = 0; v < n; v++)
+        {
+            labels[v] = v;
+        }
+
+        int[][] compact = Compact(n);
+        return new CSRGraph(labels, compact[0], compact[1]);
+    }
+
+    //
+    // A DiGraph whose node i carries nodeData.get(i); every edge must be between those nodes
+    //
+    public <T> DiGraph<T> buildDiGraph(ArrayList<T> nodeData)
+    {
+        if (numVertices > nodeData.size())
+        {
+            throw new IllegalArgumentException("Edge to vertex " + (numVertices - 1) + " but only " + nodeData.size() + " nodes");
+        }
+
+        return new DiGraph<T>(nodeData, BuildCSR(nodeData.size()));
+    }
+
+    //
+    // A DiGraphInt with the vertices listed in the order AddEdge would have listed them
+    //
+    public DiGraphInt buildDiGraphInt()
+    {
+        int[][] compact = Compact(numVertices);
+        int[] offsets = compact[0];
+        int[] adjacency = compact[1];
+        int numEdges = adjacency.length;
+
+        DiGraphInt graph = new DiGraphInt();
+        graph.vertexIndex = new IntIntHashMap(numVertices);
+        graph.edgeIndex = new LongHashSet(numEdges);
+        graph.edgeMap = new Hashtable<Integer, ArrayList<Integer>>(2 * numVertices);
+        graph.transposeEdgeMap = new Hashtable<Integer, ArrayList<Integer>>(2 * numVertices);
+
+        // The vertex list is in order of first appearance, target before source
+        boolean[] listed = new boolean[numVertices];
+        for (int e = 0; e < size; e++)
+        {
+            if (!listed[targets[e]])
+            {
+                listed[targets[e]] = true;
+                graph.vertexIndex.put(targets[e], graph.vertices.size());
+                graph.vertices.add(targets[e]);
+            }
+            if (!listed[sources[e]])
+            {
+                listed[sources[e]] = true;
+                graph.vertexIndex.put(sources[e], graph.vertices.size());
+                graph.vertices.add(sources[e]);
+            }
+        }
+        if (!graph.vertices.isEmpty()) graph.goal = graph.vertices.get(0);
+
+        int[] inDegree = new int[numVertices];
+        for (int v = 0; v < numVertices; v++)
+        {
+            if (offsets[v] == offsets[v + 1]) continue;
+
+            ArrayList<Integer> successors = new ArrayList<Integer>(offsets[v + 1] - offsets[v]);
+            for (int e = offsets[v]; e < offsets[v + 1]; e++)
+            {
+                successors.add(adjacency[e]);
+                graph.edgeIndex.add(Edge.key(v, adjacency[e]));
+                inDegree[adjacency[e]]++;
+            }
+            graph.edgeMap.put(v, successors);
+        }
+
+        for (int v = 0; v < numVertices; v++)
+        {
+            if (inDegree[v] > 0) graph.transposeEdgeMap.put(v, new ArrayList<Integer>(inDegree[v]));
+        }
+        for (int v = 0; v < numVertices; v++)
+        {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++)
+            {
+                graph.transposeEdgeMap.get(adjacency[e]).add(v);
+            }
+        }
+
+        graph.numEdges = numEdges;
+
+        return graph;
+    }
+}
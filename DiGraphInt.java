@@ -1,8 +1,10 @@
 package digraph;
 import java.util.ArrayList;
 import java.util.*;
-import java.util.Stack;
-import utilities.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.math.BigInteger;
 
 //
 // Implements a basic directional graph (with no node information)
@@ -50,7 +52,15 @@ public class DiGraphInt
     protected Hashtable<Integer, ArrayList<Integer>> transposeEdgeMap;
     protected int numEdges;
     protected ArrayList<Integer> vertices;
-    protected ArrayList<ArrayList<Integer>> sccs; // Strongly Connected Components
+    protected IntIntHashMap vertexIndex; // vertex -> position in vertices
+    protected LongHashSet edgeIndex; // Edge.key of every edge, so duplicates are rejected in O(1)
+    protected LongIntHashMap outPosition; // Edge.key -> position of the target in edgeMap; null until a removal
+    protected LongIntHashMap inPosition;  // Edge.key -> position of the source in transposeEdgeMap; likewise
+    protected DynamicStronglyConnectedComponents sccs; // Computed on first use, then kept up to date; else null
+    protected CSRGraph frozen; // Cached immutable copy; dropped on every change
+    protected DynamicTopologicalOrder dynamicOrder; // Kept up to date by AddEdge once maintained; else null
+    protected AtomicInteger sharers; // Graphs sharing the structures above (1: this one alone)
+    protected int goal; // The first vertex added (or the first since the graph was last empty): GetWidth's goal node
 
     public DiGraphInt()
     {
@@ -58,72 +68,290 @@ public class DiGraphInt
         transposeEdgeMap = new Hashtable<Integer, ArrayList<Integer>>();
         numEdges = 0;
         vertices = new ArrayList<Integer>();
-        sccs = new ArrayList<ArrayList<Integer>>();
+        vertexIndex = new IntIntHashMap();
+        edgeIndex = new LongHashSet();
+        sharers = new AtomicInteger(1);
     }
 
     //
-    // Make a shallow copy of this graph (all vertices and edges)
+    // Make a copy of this graph (all vertices and edges) in O(1): the two graphs share the adjacency
+    // and indices until either changes, and the first change of either copies them (see Own). A
+    // maintained topological order and computed components belong to one graph each and are copied
+    // here, in O(V).
+    //
+    // Every graph has its sharing counter from the start and a copy only increments it, so several
+    // threads may copy one graph at once; not while it is being changed, though, and DiGraphInt is
+    // otherwise single-threaded. For one writer and concurrent readers, see VersionedGraph: a copy is a
+    // consistent snapshot, but the writer's next change then copies the whole graph.
     //
     public DiGraphInt(DiGraphInt thatGraph)
     {
-        edgeMap = new Hashtable<Integer, ArrayList<Integer>>();
-        transposeEdgeMap = new Hashtable<Integer, ArrayList<Integer>>();
+        sharers = thatGraph.sharers;
+        sharers.incrementAndGet();
+
+        edgeMap = thatGraph.edgeMap;
+        transposeEdgeMap = thatGraph.transposeEdgeMap;
         numEdges = thatGraph.numEdges;
-        vertices = new ArrayList<Integer>(thatGraph.vertices);
+        goal = thatGraph.goal;
+        vertices = thatGraph.vertices;
+        vertexIndex = thatGraph.vertexIndex;
+        edgeIndex = thatGraph.edgeIndex;
+        outPosition = thatGraph.outPosition;
+        inPosition = thatGraph.inPosition;
 
-        // Copy the integer indices
-        for (Integer key : thatGraph.edgeMap.keySet())
-        {
-            edgeMap.put(key, new ArrayList<Integer>(thatGraph.edgeMap.get(key)));
-        }
+        // The frozen copy is immutable, so it may be shared
+        frozen = thatGraph.frozen;
+
+        if (thatGraph.dynamicOrder != null) dynamicOrder = new DynamicTopologicalOrder(this, thatGraph.dynamicOrder);
 
-        //            foreach (KeyValuePair<int, List<int>> pair in thatGraph.edgeMap)
-        //            {
-        //                edgeMap.Add(pair.Key, new List<int>(pair.Value));
-        //            }
+        // Components that have been computed are kept up to date by the copy too
+        if (thatGraph.sccs != null) sccs = new DynamicStronglyConnectedComponents(this, thatGraph.sccs);
+    }
 
-        // Copy the integer indices
-        for (Integer key : thatGraph.transposeEdgeMap.keySet())
+    //
+    // Called before every change: a graph still sharing its structures with copies takes its own deep
+    // copy of them, unless every other sharer has already done so. (A copy dropped without a change
+    // still counts, so the last remaining graph may copy once more than needed.)
+    //
+    private void Own()
+    {
+        if (sharers.get() == 1) return;
+
+        // Of sharers changing at once, the one whose decrement reaches 0 keeps the originals
+        if (sharers.decrementAndGet() > 0)
         {
-            transposeEdgeMap.put(key, new ArrayList<Integer>(thatGraph.transposeEdgeMap.get(key)));
+            Hashtable<Integer, ArrayList<Integer>> sharedEdges = edgeMap;
+            Hashtable<Integer, ArrayList<Integer>> sharedTransposeEdges = transposeEdgeMap;
+
+            edgeMap = new Hashtable<Integer, ArrayList<Integer>>();
+            transposeEdgeMap = new Hashtable<Integer, ArrayList<Integer>>();
+            vertices = new ArrayList<Integer>(vertices);
+            vertexIndex = new IntIntHashMap(vertexIndex);
+            edgeIndex = new LongHashSet(edgeIndex);
+            if (outPosition != null)
+            {
+                outPosition = new LongIntHashMap(outPosition);
+                inPosition = new LongIntHashMap(inPosition);
+            }
+
+            // Copy the integer indices
+            for (Integer key : sharedEdges.keySet())
+            {
+                edgeMap.put(key, new ArrayList<Integer>(sharedEdges.get(key)));
+            }
+            for (Integer key : sharedTransposeEdges.keySet())
+            {
+                transposeEdgeMap.put(key, new ArrayList<Integer>(sharedTransposeEdges.get(key)));
+            }
         }
+        sharers = new AtomicInteger(1);
+    }
+
+    //
+    // An immutable CSR copy of this graph; cached until the next edge is added
+    //
+    public CSRGraph Freeze()
+    {
+        if (frozen == null) frozen = new CSRGraph(this);
 
-        sccs = GetStronglyConnectedComponents();
+        return frozen;
+    }
+
+    //
+    // A compressed frozen copy (see CompressedGraph): a few bits per edge when most edges join nearby
+    // vertex indices; it does not follow later edges
+    //
+    public CompressedGraph Compress()
+    {
+        return CompressedGraph.compress(Freeze());
     }
 
     //
-    // Adds a basic edge to the graph
+    // Adds a basic edge to the graph; adding an existing edge again has no effect
+    //
+    // While a topological order is maintained (see MaintainTopologicalOrder) an edge that would close
+    // a cycle is rejected with an IllegalArgumentException and the graph is left unchanged
     //
     public void AddEdge(int from, int to)
     {
-        AddEdge(edgeMap, from, to);
-        AddEdge(transposeEdgeMap, to, from);
+        if (!TryAddEdge(from, to))
+        {
+            throw new IllegalArgumentException("Edge " + from + " -> " + to + " would close a cycle");
+        }
+    }
+
+    //
+    // As AddEdge, but returns false instead of throwing when the edge would close a cycle
+    //
+    public boolean TryAddEdge(int from, int to)
+    {
+        long key = Edge.key(from, to);
+        if (edgeIndex.contains(key)) return true;
+
+        Own();
+
+        if (dynamicOrder != null)
+        {
+            int fromIndex = vertexIndex.get(from, -1);
+            int toIndex = vertexIndex.get(to, -1);
+
+            if (from == to) return false;
+
+            // A new vertex cannot be on a cycle; it is placed at either end of the order below
+            if (fromIndex >= 0 && toIndex >= 0 && !dynamicOrder.addEdge(fromIndex, toIndex)) return false;
+        }
+
+        edgeIndex.add(key);
+        frozen = null;
+
+        // This order needed because we want the goal node of the problem first
+        AddVertex(to, false);
+        AddVertex(from, true);
+
+        int outIndex = AddEdge(edgeMap, from, to);
+        int inIndex = AddEdge(transposeEdgeMap, to, from);
+        if (outPosition != null)
+        {
+            outPosition.put(key, outIndex);
+            inPosition.put(key, inIndex);
+        }
 
         numEdges++;
+        if (sccs != null) sccs.addEdge(vertexIndex.get(from, -1), vertexIndex.get(to, -1));
+        return true;
     }
 
-    // Adds an edge to a map of edges
-    private void AddEdge(Hashtable<Integer, ArrayList<Integer>> givenEdges, int from, int to)
+    // A new source of an edge goes first in the maintained order, a new target last
+    private void AddVertex(int vertex, boolean isSource)
     {
+        if (!vertexIndex.putIfAbsent(vertex, vertices.size())) return;
 
-        // This order needed because we want the goal node of the problem first
-        if (!vertices.contains(to)) vertices.add(to);
-        if (!vertices.contains(from)) vertices.add(from);
+        if (vertices.isEmpty()) goal = vertex;
+        vertices.add(vertex);
 
-        ArrayList<Integer> fromDependencies = null;
-        if (givenEdges.containsKey(from))
+        if (dynamicOrder != null)
         {
-            fromDependencies = givenEdges.get(from);
-            Utilities.addUnique(fromDependencies, to);
+            if (isSource) dynamicOrder.prependVertex();
+            else dynamicOrder.appendVertex();
         }
-        else
+        if (sccs != null)
         {
-            ArrayList<Integer> toList = new ArrayList<>();
-            toList.add(to);
-            givenEdges.put(from, toList);
+            if (isSource) sccs.prependVertex();
+            else sccs.appendVertex();
         }
     }
 
+    // Adds an edge to a map of edges; the edge index has already ruled out a duplicate. Returns the
+    // position of the new entry in from's list.
+    private int AddEdge(Hashtable<Integer, ArrayList<Integer>> givenEdges, int from, int to)
+    {
+        ArrayList<Integer> fromDependencies = givenEdges.get(from);
+        if (fromDependencies == null)
+        {
+            fromDependencies = new ArrayList<Integer>();
+            givenEdges.put(from, fromDependencies);
+        }
+        fromDependencies.add(to);
+        return fromDependencies.size() - 1;
+    }
+
+    //
+    // Removes an edge; returns false if there was no such edge. Both endpoints stay in the graph.
+    //
+    // Every edge's positions in edgeMap and transposeEdgeMap are indexed (from the first removal on),
+    // and the last entry of a list moves into the hole, so this is amortized O(1); the successor and
+    // predecessor lists therefore lose their insertion order. A maintained topological order stays
+    // valid; the strongly connected components may split and are computed again on the next query.
+    //
+    public boolean RemoveEdge(int from, int to)
+    {
+        long key = Edge.key(from, to);
+        if (!edgeIndex.contains(key)) return false;
+
+        Own();
+        edgeIndex.remove(key);
+
+        if (outPosition == null) IndexPositions();
+
+        RemoveAt(edgeMap.get(from), outPosition.remove(key, -1), outPosition, from, true);
+        RemoveAt(transposeEdgeMap.get(to), inPosition.remove(key, -1), inPosition, to, false);
+
+        numEdges--;
+        frozen = null;
+        sccs = null;
+        return true;
+    }
+
+    // Moves the last entry of a neighbor list into position; its index entry follows it
+    private static void RemoveAt(ArrayList<Integer> neighbors, int position, LongIntHashMap index, int owner, boolean isOut)
+    {
+        int moved = neighbors.remove(neighbors.size() - 1);
+        if (position == neighbors.size()) return;
+
+        neighbors.set(position, moved);
+        index.put(isOut ? Edge.key(owner, moved) : Edge.key(moved, owner), position);
+    }
+
+    // Indexes the list positions of every edge, once, in O(V + E)
+    private void IndexPositions()
+    {
+        outPosition = new LongIntHashMap(numEdges);
+        inPosition = new LongIntHashMap(numEdges);
+
+        for (int vertex : vertices)
+        {
+            ArrayList<Integer> successors = edgeMap.get(vertex);
+            for (int i = 0; successors != null && i < successors.size(); i++)
+            {
+                outPosition.put(Edge.key(vertex, successors.get(i)), i);
+            }
+
+            ArrayList<Integer> predecessors = transposeEdgeMap.get(vertex);
+            for (int i = 0; predecessors != null && i < predecessors.size(); i++)
+            {
+                inPosition.put(Edge.key(predecessors.get(i), vertex), i);
+            }
+        }
+    }
+
+    //
+    // Removes a vertex with all its edges; returns false if there is no such vertex. The last vertex
+    // of the vertex list takes its place, so the other vertices keep their positions.
+    //
+    public boolean RemoveVertex(int vertex)
+    {
+        int position = vertexIndex.get(vertex, -1);
+        if (position < 0) return false;
+
+        Own();
+
+        ArrayList<Integer> successors = edgeMap.get(vertex);
+        while (successors != null && !successors.isEmpty())
+        {
+            RemoveEdge(vertex, successors.get(successors.size() - 1));
+        }
+        ArrayList<Integer> predecessors = transposeEdgeMap.get(vertex);
+        while (predecessors != null && !predecessors.isEmpty())
+        {
+            RemoveEdge(predecessors.get(predecessors.size() - 1), vertex);
+        }
+        edgeMap.remove(vertex);
+        transposeEdgeMap.remove(vertex);
+
+        vertexIndex.remove(vertex, -1);
+        int moved = vertices.remove(vertices.size() - 1);
+        if (position < vertices.size())
+        {
+            vertices.set(position, moved);
+            vertexIndex.put(moved, position);
+        }
+        if (dynamicOrder != null) dynamicOrder.removeVertex(position);
+
+        frozen = null;
+        sccs = null;
+        return true;
+    }
+
     //
     // Adds a many-to-one hyperedge to the graph by adding all the individual edges
     //
@@ -135,6 +363,42 @@ public class DiGraphInt
         }
     }
 
+    //
+    // Calls action with every successor of vertex, without allocating
+    //
+    public void ForEachOutNeighbor(int vertex, IntConsumer action)
+    {
+        ForEach(edgeMap.get(vertex), action);
+    }
+
+    //
+    // Calls action with every predecessor of vertex, without allocating
+    //
+    public void ForEachInNeighbor(int vertex, IntConsumer action)
+    {
+        ForEach(transposeEdgeMap.get(vertex), action);
+    }
+
+    private static void ForEach(ArrayList<Integer> neighbors, IntConsumer action)
+    {
+        if (neighbors == null) return;
+
+        for (int i = 0; i < neighbors.size(); i++)
+        {
+            action.accept(neighbors.get(i));
+        }
+    }
+
+    public PrimitiveIterator.OfInt OutNeighbors(int vertex)
+    {
+        return new IntListIterator(edgeMap.get(vertex));
+    }
+
+    public PrimitiveIterator.OfInt InNeighbors(int vertex)
+    {
+        return new IntListIterator(transposeEdgeMap.get(vertex));
+    }
+
     //
     // Simple heuristic for which we may use graph minors to acquire isomorphisms
     //
@@ -144,298 +408,231 @@ public class DiGraphInt
     }
 
     //
-    // The depth of the graph is defined as being the length of the maximal path to the leaf nodes
-    // We assume that this graph is a DAG.
-    //
-    // We use a DFS technique to determine maximality
+    // The depth of the graph is defined as being the length of the maximal path to the leaf nodes,
+    // counted in vertices. We assume that this graph is a DAG.
     //
-    // Since we have an implied 1-1 map between vertices and indices, we work on indices
+    // Dynamic programming over a topological order (see DagPaths) visits every edge once, so graphs
+    // with many shared sub-paths cost no more than trees
     //
     public int GetLength()
     {
-        // passing index 0, depth 1
-        return GetLengthHelper(vertices.get(1), 1);
+        return Freeze().GetLength();
     }
-    private int GetLengthHelper(int currentNode, int currentDepth)
-    {
-        int maxDepth = -1;
-
-        // Get the edges from this node to traverse
-        ArrayList<Integer> backwardEdges = null;
-
-        // Get the transpose edges from this node (as we are traversing backward from the goal)
-        // This node is a leaf if no edges: return the known depth
-        if (!transposeEdgeMap.containsKey(currentNode)) return currentDepth;
 
-        backwardEdges = transposeEdgeMap.get(currentNode);
-
-        // Traverse the edges tracking the max depth
-        for (int edge : backwardEdges)
-        {
-            int tempDepth = GetLengthHelper(edge, currentDepth + 1);
-            if (maxDepth < tempDepth) maxDepth = tempDepth;
-        }
+    //
+    // The vertices of a longest path in the graph (start first); we assume that this graph is a DAG
+    //
+    public ArrayList<Integer> GetCriticalPath()
+    {
+        return Freeze().GetCriticalPath();
+    }
 
-        return maxDepth;
+    //
+    // The vertices of a shortest path by edge count (start first), or null if there is none
+    //
+    public ArrayList<Integer> GetShortestPath(int from, int to)
+    {
+        return Freeze().GetShortestPath(from, to);
     }
 
     //
     // General graph traversal assuming a DAG; we start at the goal node and walk the transpose edges
     //
-    // Since this is a DAG, width is defined as the spread of the graph (like a tree) 
-    // Use a BFS technique where we continually update the levelWidth variable to ensure we know where the next level starts
+    // Since this is a DAG, width is defined as the spread of the graph (like a tree)
+    // Use a level-synchronous BFS (see LevelWidth) where every node is counted on the first level that
+    // reaches it, so shared ancestors are not enqueued again
     //
     // Since we have an implied 1-1 map between vertices and indices, we work on indices
     //
     public int GetWidth()
     {
-        CircularArrayQueue<Integer> worklist = new CircularArrayQueue<Integer>();
+        return GetWidth(null);
+    }
 
-        // Add the 'goal' node as a catalyst
-// should work because vertices is a list of Integers so vertices.get(0) is an Integer being enqueued to a queue of Integers
-        worklist.enqueue(vertices.get(0));
+    //
+    // As above, expanding every level in parallel on the given pool (see ParallelBFS); a null pool
+    // or a small graph is traversed sequentially
+    //
+    public int GetWidth(ForkJoinPool pool)
+    {
+        int maxLevelWidth = 0;
+        for (int width : GetWidthProfile(pool))
+        {
+            if (width > maxLevelWidth) maxLevelWidth = width;
+        }
 
-        // width for this level
-        int currentLevelWidth = 1;
+        return maxLevelWidth;
+    }
 
-        // max width for the entire graph
-        int maxLevelWidth = 1;
+    //
+    // The number of nodes on every level of the traversal above, goal level first
+    //
+    public int[] GetWidthProfile()
+    {
+        return GetWidthProfile(null);
+    }
 
-        // For verification purposes, we track the total number of nodes visited
-        int sumOfAllWidths = 0;
+    public int[] GetWidthProfile(ForkJoinPool pool)
+    {
+        if (vertices.isEmpty()) return new int[0];
 
-        //
-        // Traverse the entire graph
-        //
-        while (!worklist.isEmpty())
-        { 
-            // Traverse an entire level
-            int currentLevelAccumulator = 0;
-            for (int ell = 0; ell < currentLevelWidth; ell++)
-            {
-                // Get the next node
-                int currentNode = worklist.dequeue();
-
-                // Get the edges from this node to traverse
-                List<Integer> backwardEdges = null;
-
-                if (transposeEdgeMap.containsKey(currentNode))
-                {
-                    backwardEdges = transposeEdgeMap.get(currentNode);
-
-                    // Add all targets to the worklist
-                    //						backwardEdges.ForEach(edgeIndex => worklist.Enqueue(edgeIndex));
-                    for (Integer edgeIndex : backwardEdges)
-                    {
-                        worklist.enqueue(edgeIndex);
-                    }
-                }
-                currentLevelAccumulator += (backwardEdges == null) ? 0 : backwardEdges.size();
-            }
+        // The goal node is the first vertex added; RemoveVertex may have moved another vertex to
+        // position 0, so it is looked up by label. The frozen copy's dense indices are the positions.
+        int position = vertexIndex.get(goal, -1);
 
-            // Completed a level; check width values, including if we have a new maxWidth
-            if (currentLevelWidth > maxLevelWidth) maxLevelWidth = currentLevelWidth;
+        // The goal itself has been removed: start from all the sinks instead
+        if (position < 0) return pool == null ? Freeze().GetWidthProfile() : Freeze().GetWidthProfile(pool);
 
-            sumOfAllWidths += currentLevelWidth;
+        int[] seed = new int[] { position };
+        if (pool == null) return new LevelWidth(Freeze()).getWidthProfile(seed, false);
+        return new ParallelBFS(Freeze(), pool).getWidthProfile(seed, false);
+    }
 
-            // Next level's number of nodes
-            currentLevelWidth = currentLevelAccumulator;
-        }
+    //
+    // Keeps a topological order from now on (see DynamicTopologicalOrder): every AddEdge updates it
+    // within the affected region only and rejects edges that would close a cycle, so ContainsCycle is
+    // O(1) and TopologicalSort needs no pass over the edges. Throws IllegalStateException if the graph
+    // already contains a cycle.
+    //
+    public void MaintainTopologicalOrder()
+    {
+        if (dynamicOrder == null) dynamicOrder = new DynamicTopologicalOrder(this);
+    }
 
-        if (sumOfAllWidths < vertices.size())
-        {
-            try {
-                throw new Exception("Error in width determination: Did not traverse all nodes!");
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
+    public void StopMaintainingTopologicalOrder()
+    {
+        dynamicOrder = null;
+    }
 
-        return maxLevelWidth;
+    public boolean IsMaintainingTopologicalOrder()
+    {
+        return dynamicOrder != null;
     }
 
     public boolean ContainsCycle()
     {
-        // Update the SCCs
-        sccs = GetStronglyConnectedComponents();
+        // A maintained order rules out cycles
+        if (dynamicOrder != null) return false;
 
-        // Since all strongly connected components should contain one node, there should be the exact same number of SCCs as vertices.
-        return sccs.size() != vertices.size();
+        // Acyclic exactly when every strongly connected component is a single node without a self-loop
+        return GetStronglyConnectedComponents().containsCycle();
     }
 
     public String GetStronglyConnectedComponentDump()
     {
-        sccs = GetStronglyConnectedComponents();
-
         StringBuilder str = new StringBuilder();
         str.append("SCCs: ");
         int counter = 0;
-        for (ArrayList<Integer> scc : sccs)
+        for (ArrayList<Integer> scc : GetStronglyConnectedComponents().getComponents())
         {
-            str.append("\t" + (counter++) + ": ");
+            str.append('\t').append(counter++).append(": ");
             for (int v : scc)
             {
-                str.append(v + " ");
+                str.append(v).append(' ');
             }
-            str.append("");
         }
 
         return str.toString();
     }
 
     //
-    // Use Tarjan's Algorithm to acquire the Strongly Connected Components of a given directed graph
+    // The DAG of strongly connected components: vertex c of the result is component c, as listed
+    // by GetStronglyConnectedComponentDump
     //
-    private ArrayList<ArrayList<Integer>> GetStronglyConnectedComponents()
+    public CSRGraph GetCondensation()
     {
-        ArrayList<ArrayList<Integer>> stronglyConnectedComponents = new ArrayList<ArrayList<Integer>>();
-        Stack<Integer> workStack = new Stack<Integer>();
-        int overallIndex = 0;
-
-        int[] sccIndex = new int[vertices.size()];
-        int[] lowLink = new int[vertices.size()];
-
-        // Init to -1 for the tracking data for Tarjan's
-        for (int i = 0; i < vertices.size(); i++)
-        {
-            sccIndex[i] = -1;
-            lowLink[i] = -1;
-        }
-
-        for (int i = 0; i < vertices.size(); i++)
-        {
-            if (sccIndex[i] < 0)
-            {
-                StronglyConnectedSub(vertices.get(i), i, overallIndex, workStack, stronglyConnectedComponents, sccIndex, lowLink);
-            }
-        }
-
-        return stronglyConnectedComponents;
+        return GetStronglyConnectedComponents().getCondensation();
     }
 
-    private void StronglyConnectedSub(int vertex, int vertexIndex, int overallIndex, Stack<Integer> workStack, ArrayList<ArrayList<Integer>> stronglyConnectedComponents, int[] sccIndex, int[] lowLink)
+    //
+    // An index for repeated "can u reach v?" questions (see ReachabilityIndex); it is built over the
+    // condensation, so the graph may contain cycles, and it does not follow later edges
+    //
+    public ReachabilityIndex GetReachabilityIndex()
     {
-        //
-        // Define the current vertex reachability
-        //
-        sccIndex[vertexIndex] = overallIndex;
-        lowLink[vertexIndex] = overallIndex;
-        overallIndex++;
-
-        workStack.push(vertex);
+        return new ReachabilityIndex(Freeze());
+    }
 
-        ArrayList<Integer> dependencies;
-        //          if (edgeMap.TryGetValue(vertex, out dependencies)){
-        if (edgeMap.containsKey(vertex)){
+    //
+    // Use Tarjan's Algorithm to acquire the Strongly Connected Components of a given directed graph
+    //
+    // The search runs iteratively over the frozen CSR copy (see StronglyConnectedComponents), so it is
+    // linear in the size of the graph and safe for arbitrarily deep graphs. That happens once: from
+    // then on AddEdge merges components as cycles close (see DynamicStronglyConnectedComponents), so
+    // later queries are answered from the cache.
+    //
+    public DynamicStronglyConnectedComponents GetStronglyConnectedComponents()
+    {
+        if (sccs == null) sccs = new DynamicStronglyConnectedComponents(this);
 
-            dependencies = edgeMap.get(vertex);
+        return sccs;
+    }
 
-            //
-            // Follow each edge in depth-first manner
-            //
-            for (int dependent : dependencies)
-            {
-                int dependentIndex = vertices.indexOf(dependent);
-
-                if (sccIndex[dependentIndex] < 0)
-                {
-                    StronglyConnectedSub(dependent, dependentIndex, overallIndex, workStack, stronglyConnectedComponents, sccIndex, lowLink);
-                    lowLink[vertexIndex] = Math.min(lowLink[vertexIndex], lowLink[dependentIndex]);
-                }
-                else if (workStack.contains(dependent))
-                {
-                    lowLink[vertexIndex] = Math.min(lowLink[vertexIndex], lowLink[dependentIndex]);
-                }
-            }
-        }
+    //
+    // Hands every topological sort to the visitor, one at a time in a reused array, until it returns
+    // false (see LinearExtensions); returns how many it handed over. The graph must be a DAG.
+    //
+    public long ForEachTopologicalSort(LinearizationVisitor visitor)
+    {
+        return new LinearExtensions(Freeze()).visitAll(visitor);
+    }
 
-        if (lowLink[vertexIndex] == sccIndex[vertexIndex])
-        {
-            ArrayList<Integer> scc = new ArrayList<Integer>();
-            int w;
-            do
-            {
-                w = workStack.pop();
-                scc.add(w);
-            } while (vertex != w);
+    //
+    // As ForEachTopologicalSort, split over the threads of a pool; the visitor must be thread-safe
+    //
+    public long ForEachTopologicalSort(LinearizationVisitor visitor, ForkJoinPool pool)
+    {
+        return new ParallelLinearExtensions(Freeze(), pool).visitAll(visitor);
+    }
 
-            stronglyConnectedComponents.add(scc);
-        }
+    //
+    // The number of topological sorts, counted over the downsets without generating any
+    //
+    public BigInteger CountTopologicalSorts()
+    {
+        return LinearExtensions.count(Freeze());
     }
 
     //
-    // The algorithm loops through each node of the graph, in an arbitrary order, initiating a depth-first search that
-    // terminates when it hits any node that has already been visited since the beginning of the topological sort
+    // Kahn's algorithm over the frozen CSR copy (see TopologicalOrder): repeatedly take a vertex with
+    // no remaining incoming edges. Linear in the size of the graph.
+    //
+    // Returns the vertices in topological order (sources first), or null if the graph contains a cycle
+    // (GetCycle then reports one). A maintained order is returned as it is, in O(V log V).
     //
-    // L â†� Empty list that will contain the sorted nodes
-    // while there are unmarked nodes do
-    //    select an unmarked node n
-    //    visit(n) 
     public ArrayList<Integer> TopologicalSort()
     {
-        // L â†� Empty list that will contain the sorted elements
-        ArrayList<Integer> L = new ArrayList<Integer>();
-
-        // Unmarked
-        ArrayList<Integer> unmarked = new ArrayList<Integer>();
-        for (Integer vertex : vertices){
-            unmarked.add(vertex);
-        }
-
-        // Temporarily marked
-        ArrayList<Integer> tempMarked = new ArrayList<Integer>();
-
-        // Permanently marked
-        ArrayList<Integer> marked = new ArrayList<Integer>();
-
-        while (!unmarked.isEmpty())
-        {
-            // remove a node n from unmarked
-            int n = unmarked.get(0);
-            unmarked.remove(0);
-
-            Visit(n, unmarked, tempMarked, marked, L);
-        }
+        if (dynamicOrder != null) return dynamicOrder.getSortedLabels();
 
-        return L;
+        return new TopologicalOrder(Freeze()).getSortedLabels();
     }
 
-    // function visit(node n)
-    //    if n has a temporary mark then stop (not a DAG)
-    //    if n is not marked (i.e. has not been visited yet) then
-    //        mark n temporarily
-    //        for each node m with an edge from n to m do
-    //            visit(m)
-    //        mark n permanently
-    //        add n to head of L
-    private void Visit(int n, ArrayList<Integer> unmarked, ArrayList<Integer> tempMarked, ArrayList<Integer> marked, ArrayList<Integer> L)
+    //
+    // As above, but vertices that are ready at the same time are taken smallest first by tieBreak,
+    // so the order does not depend on the order in which edges were added
+    //
+    public ArrayList<Integer> TopologicalSort(IntComparator tieBreak)
     {
-        // if n has a temporary mark then stop (not a DAG)
-        if (tempMarked.contains(n)) return;
+        return new TopologicalOrder(Freeze(), tieBreak).getSortedLabels();
+    }
 
-        // if n is not marked (i.e. has not been visited yet) then
-        if (!marked.contains(n))
-        {
-            // mark n temporarily
-            tempMarked.add(n);
-
-            // for each node m with an edge from n to m do
-            ArrayList<Integer> dependencies;
-            //              if (edgeMap.TryGetValue(n, out dependencies)){
-            if (edgeMap.containsKey(n)){
-                dependencies = edgeMap.get(n);
-                for (int dependent : dependencies)
-                {
-                    Visit(dependent, unmarked, tempMarked, marked, L);
-                }
-            }
+    //
+    // The topological sort as levels: level 0 holds the sources and every other vertex sits one level
+    // below its deepest predecessor, so the vertices within a level are independent. Null on a cycle.
+    //
+    public ArrayList<ArrayList<Integer>> GetTopologicalLayers()
+    {
+        return new TopologicalOrder(Freeze()).getLayers();
+    }
 
-            // mark n permanently
-            marked.add(n);
-            unmarked.remove(n);
+    //
+    // The vertices of some cycle in edge order (the last has an edge back to the first),
+    // or null if the graph is a DAG
+    //
+    public ArrayList<Integer> GetCycle()
+    {
+        if (dynamicOrder != null) return null;
 
-            // add n to head of L
-            L.add(n);
-        }
+        return new TopologicalOrder(Freeze()).getCycle();
     }
 }
\ No newline at end of file
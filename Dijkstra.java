@@ -0,0 +1,279 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+//
+// Dijkstra's single-source shortest paths over a CSRGraph with non-negative edge weights
+//
+// All query state (distance, predecessor, heap position) lives in primitive arrays owned by this engine
+// rather than on the graph, so one frozen graph can serve any number of engines at once: give every
+// thread its own Dijkstra over the shared CSRGraph. The arrays are allocated once and reused by every
+// query; a per-vertex stamp records which query last touched a vertex, so starting a query is O(1)
+// instead of clearing O(V) entries, and a query only costs what it explores.
+//
+// The frontier is an indexed binary heap keyed by tentative distance: position[v] is the slot of v in
+// the heap, so improving the distance of a queued vertex is a decrease-key (sift up) rather than a
+// second entry. A single-pair query stops as soon as its target is settled.
+//
+// A single-pair query may also be guided by a Heuristic (A*): the heap is then ordered by distance plus
+// the estimated distance left to the target, so vertices that lead away from the target are settled
+// late or never. With a consistent heuristic every vertex is still settled at most once.
+//
+public class Dijkstra
+{
+    public static final long UNREACHABLE = DagPaths.UNREACHABLE;
+
+    private static final int SETTLED = -1; // position of a vertex that has left the heap
+
+    private FrozenGraph graph;
+    private boolean weighted;
+
+    private int[] stamp;       // query in which each vertex was last reached
+    private int query;
+    private long[] distance;   // tentative until the vertex is settled
+    private long[] priority;   // heap key: distance, plus the heuristic estimate under A*
+    private int[] predecessor; // previous dense vertex on the best path, -1 at the source
+    private int[] position;    // slot in the heap, or SETTLED
+    private int[] heap;
+    private int heapSize;
+
+    private Heuristic heuristic; // of the running A* query, null for plain Dijkstra
+    private int target;          // vertex id the heuristic estimates towards
+
+    private int sourceIndex;
+    private int numSettled;
+    private long numRelaxed;
+
+    public Dijkstra(FrozenGraph theGraph)
+    {
+        this(theGraph, true);
+    }
+
+    //
+    // weighted == false measures paths in edges (every weight is 1)
+    //
+    public Dijkstra(FrozenGraph theGraph, boolean isWeighted)
+    {
+        graph = theGraph;
+        weighted = isWeighted;
+
+        int n = graph.getNumVertices();
+        stamp = new int[n];
+        distance = new long[n];
+        priority = new long[n];
+        predecessor = new int[n];
+        position = new int[n];
+        heap = new int[n];
+        sourceIndex = -1;
+    }
+
+    public FrozenGraph getGraph()
+    {
+        return graph;
+    }
+
+    //
+    // The shortest distance between two vertex ids, UNREACHABLE if there is no path; the search stops
+    // once the target is settled. getPath(target) then returns the path.
+    //
+    public long shortestPath(int source, int target)
+    {
+        return shortestPath(source, target, null);
+    }
+
+    //
+    // A* between two vertex ids: like shortestPath, guided by a consistent heuristic (null for none)
+    //
+    public long shortestPath(int source, int theTarget, Heuristic theHeuristic)
+    {
+        int targetIndex = graph.getIndex(theTarget);
+        if (targetIndex < 0) throw new IllegalArgumentException("Vertex " + theTarget + " is not in the graph");
+
+        heuristic = theHeuristic;
+        target = theTarget;
+        Run(SourceIndex(source), targetIndex);
+        heuristic = null;
+
+        return Settled(targetIndex) ? distance[targetIndex] : UNREACHABLE;
+    }
+
+    //
+    // Settles every vertex reachable from a vertex id; query the result with getDistance and getPath
+    //
+    public void shortestPaths(int source)
+    {
+        Run(SourceIndex(source), -1);
+    }
+
+    private int SourceIndex(int source)
+    {
+        int index = graph.getIndex(source);
+        if (index < 0) throw new IllegalArgumentException("Vertex " + source + " is not in the graph");
+        return index;
+    }
+
+    private void Run(int source, int targetIndex)
+    {
+        if (++query == 0)
+        {
+            // The stamps wrapped around; forget every earlier query
+            Arrays.fill(stamp, 0);
+            query = 1;
+        }
+
+        sourceIndex = source;
+        numSettled = 0;
+        numRelaxed = 0;
+        heapSize = 0;
+        Reach(source, 0, -1);
+
+        while (heapSize > 0)
+        {
+            int v = PopMin();
+            numSettled++;
+            if (v == targetIndex) return;
+
+            long dv = distance[v];
+            for (int i = 0; i < graph.getOutDegree(v); i++)
+            {
+                int w = graph.getOutNeighbor(v, i);
+                int weight = weighted ? graph.getOutWeight(v, i) : 1;
+                if (weight < 0) throw new IllegalStateException("Dijkstra needs non-negative edge weights");
+
+                numRelaxed++;
+                long candidate = dv + weight;
+                if (stamp[w] != query)
+                {
+                    Reach(w, candidate, v);
+                }
+                else if (position[w] != SETTLED && candidate < distance[w])
+                {
+                    priority[w] -= distance[w] - candidate;
+                    distance[w] = candidate;
+                    predecessor[w] = v;
+                    SiftUp(position[w]);
+                }
+            }
+        }
+    }
+
+    // First contact with a vertex in this query: record it and queue it
+    private void Reach(int v, long d, int from)
+    {
+        stamp[v] = query;
+        distance[v] = d;
+        priority[v] = heuristic == null ? d : d + heuristic.estimate(graph.getLabel(v), target);
+        predecessor[v] = from;
+        heap[heapSize] = v;
+        position[v] = heapSize;
+        SiftUp(heapSize++);
+    }
+
+    private void SiftUp(int i)
+    {
+        int v = heap[i];
+        long d = priority[v];
+        while (i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            if (priority[heap[parent]] <= d) break;
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = v;
+        position[v] = i;
+    }
+
+    private int PopMin()
+    {
+        int min = heap[0];
+        position[min] = SETTLED;
+
+        int last = heap[--heapSize];
+        if (heapSize == 0) return min;
+
+        long d = priority[last];
+        int i = 0;
+        while (true)
+        {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && priority[heap[child + 1]] < priority[heap[child]]) child++;
+            if (priority[heap[child]] >= d) break;
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = last;
+        position[last] = i;
+
+        return min;
+    }
+
+    private boolean Settled(int index)
+    {
+        return stamp[index] == query && position[index] == SETTLED;
+    }
+
+    //
+    // Whether the last query settled a vertex id; after an early exit only the vertices closer than the
+    // target are settled
+    //
+    public boolean isReachable(int vertex)
+    {
+        int index = graph.getIndex(vertex);
+        return index >= 0 && Settled(index);
+    }
+
+    //
+    // The shortest distance to a vertex id found by the last query, UNREACHABLE if it was not settled
+    //
+    public long getDistance(int vertex)
+    {
+        int index = graph.getIndex(vertex);
+        return index >= 0 && Settled(index) ? distance[index] : UNREACHABLE;
+    }
+
+    //
+    // The vertex ids of the shortest path from the last source to a vertex id (source first), or null
+    // if the last query did not settle it
+    //
+    public ArrayList<Integer> getPath(int vertex)
+    {
+        int index = graph.getIndex(vertex);
+        if (index < 0 || !Settled(index)) return null;
+
+        int hops = 0;
+        for (int v = index; v != sourceIndex; v = predecessor[v])
+        {
+            hops++;
+        }
+
+        Integer[] path = new Integer[hops + 1];
+        for (int v = index; ; v = predecessor[v])
+        {
+            path[hops--] = graph.getLabel(v);
+            if (v == sourceIndex) break;
+        }
+
+        return new ArrayList<Integer>(Arrays.asList(path));
+    }
+
+    //
+    // How many vertices the last query settled
+    //
+    public int getNumSettled()
+    {
+        return numSettled;
+    }
+
+    //
+    // How many edges the last query relaxed
+    //
+    public long getNumRelaxed()
+    {
+        return numRelaxed;
+    }
+}
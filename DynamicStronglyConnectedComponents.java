@@ -0,0 +1,465 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+//
+// The strongly connected components of a DiGraphInt, kept up to date as edges are added
+//
+// Components are the sets of a union-find structure over the vertex indices (union by size, path
+// halving), and each component's members form a circular list, so two components merge in O(1). The
+// condensation is never built: a component's edges are the edges of its members.
+//
+// The components also keep a topological order of the condensation, as in DynamicTopologicalOrder.
+// A new edge u -> v between the components cu and cv needs no work unless ord[cu] > ord[cv]; then only
+// the affected region between them is searched:
+//
+//   F <- components reachable from cv with ord <= ord[cu]
+//   B <- components reaching cu with ord >= ord[cv]
+//
+// If cu is in F the edge closed a cycle, and the components in both F and B (those on a path from cv
+// to cu) merge into one. Either way the positions held by F and B are handed out again: B (less the
+// merged component) first, then the merged component, then F, each group keeping its relative order.
+//
+// Tarjan's algorithm (see StronglyConnectedComponents) gives the starting point; after that every query
+// is answered from the structure. The graph stores an edge before calling addEdge.
+//
+public class DynamicStronglyConnectedComponents
+{
+    private DiGraphInt graph;
+    private int size;        // vertices
+    private int[] parent;    // union-find over vertex indices
+    private int[] weight;    // number of members, at the representatives
+    private int[] next;      // the next member of the same component (circular)
+    private int[] ord;       // position of a component, at its representative
+    private int minOrd;
+    private int maxOrd;
+    private int numComponents;
+    private int numSelfLoops;
+
+    // Search state of one addEdge; stamps avoid clearing the marks between edges
+    private int[] stampForward;
+    private int[] stampBackward;
+    private int search;
+    private int[] stack;
+    private long[] forward;  // ((long) ord << 32) | representative of F, then sorted
+    private long[] backward; // the same for B
+    private int numForward;
+    private int numBackward;
+    private int[] pool;      // the positions to hand out again
+
+    private long numMerges;
+
+    //
+    // Starts from the components of the graph as it is
+    //
+    public DynamicStronglyConnectedComponents(DiGraphInt theGraph)
+    {
+        graph = theGraph;
+
+        StronglyConnectedComponents sccs = new StronglyConnectedComponents(graph.Freeze());
+        size = sccs.getGraph().getNumVertices();
+        Allocate(Math.max(size, 16));
+
+        // Tarjan numbers the components in reverse topological order
+        numComponents = sccs.getNumComponents();
+        for (int c = 0; c < numComponents; c++)
+        {
+            int representative = sccs.getMember(c, 0);
+            int componentSize = sccs.getComponentSize(c);
+            for (int i = 0; i < componentSize; i++)
+            {
+                int v = sccs.getMember(c, i);
+                parent[v] = representative;
+                next[v] = sccs.getMember(c, (i + 1) % componentSize);
+            }
+            weight[representative] = componentSize;
+            ord[representative] = numComponents - 1 - c;
+        }
+        minOrd = 0;
+        maxOrd = numComponents - 1;
+
+        for (int v = 0; v < size; v++)
+        {
+            int label = graph.vertices.get(v);
+            if (graph.edgeIndex.contains(Edge.key(label, label))) numSelfLoops++;
+        }
+    }
+
+    //
+    // A copy of another graph's components, for a copy of that graph (same vertex indices)
+    //
+    public DynamicStronglyConnectedComponents(DiGraphInt theGraph, DynamicStronglyConnectedComponents that)
+    {
+        graph = theGraph;
+        size = that.size;
+        Allocate(that.parent.length);
+        System.arraycopy(that.parent, 0, parent, 0, size);
+        System.arraycopy(that.weight, 0, weight, 0, size);
+        System.arraycopy(that.next, 0, next, 0, size);
+        System.arraycopy(that.ord, 0, ord, 0, size);
+        minOrd = that.minOrd;
+        maxOrd = that.maxOrd;
+        numComponents = that.numComponents;
+        numSelfLoops = that.numSelfLoops;
+        numMerges = that.numMerges;
+    }
+
+    private void Allocate(int capacity)
+    {
+        parent = parent == null ? new int[capacity] : Arrays.copyOf(parent, capacity);
+        weight = weight == null ? new int[capacity] : Arrays.copyOf(weight, capacity);
+        next = next == null ? new int[capacity] : Arrays.copyOf(next, capacity);
+        ord = ord == null ? new int[capacity] : Arrays.copyOf(ord, capacity);
+        stampForward = stampForward == null ? new int[capacity] : Arrays.copyOf(stampForward, capacity);
+        stampBackward = stampBackward == null ? new int[capacity] : Arrays.copyOf(stampBackward, capacity);
+        stack = new int[capacity];
+        forward = new long[capacity];
+        backward = new long[capacity];
+        pool = new int[capacity];
+    }
+
+    //
+    // Adds a new vertex (the next vertex index) as its own component, after every other component
+    //
+    public void appendVertex()
+    {
+        if (maxOrd == Integer.MAX_VALUE) Renumber();
+        Add(++maxOrd);
+    }
+
+    //
+    // Adds a new vertex (the next vertex index) as its own component, before every other component
+    //
+    public void prependVertex()
+    {
+        if (minOrd == Integer.MIN_VALUE) Renumber();
+        Add(--minOrd);
+    }
+
+    private void Add(int position)
+    {
+        if (size == parent.length) Allocate(size + (size >> 1) + 1);
+
+        int v = size++;
+        parent[v] = v;
+        weight[v] = 1;
+        next[v] = v;
+        ord[v] = position;
+        numComponents++;
+    }
+
+    // Hands out the positions again as -numComponents / 2 .. numComponents / 2, keeping the order
+    private void Renumber()
+    {
+        long[] sorted = new long[numComponents];
+        int count = 0;
+        for (int v = 0; v < size; v++)
+        {
+            if (parent[v] == v) sorted[count++] = Pack(v);
+        }
+        Arrays.sort(sorted);
+
+        minOrd = -(numComponents / 2);
+        for (int i = 0; i < numComponents; i++)
+        {
+            ord[(int) sorted[i]] = minOrd + i;
+        }
+        maxOrd = minOrd + numComponents - 1;
+    }
+
+    //
+    // Updates the components for an edge between two vertex indices that the graph has just stored
+    //
+    public void addEdge(int from, int to)
+    {
+        if (from == to)
+        {
+            numSelfLoops++;
+            return;
+        }
+
+        int cu = Find(from);
+        int cv = Find(to);
+        if (cu == cv) return;
+
+        int lowerBound = ord[cv];
+        int upperBound = ord[cu];
+        if (upperBound < lowerBound) return;
+
+        NextSearch();
+        SearchForward(cv, upperBound);
+        SearchBackward(cu, lowerBound);
+
+        Reorder(stampForward[cu] == search);
+    }
+
+    // F: depth-first from start over components positioned at or before upperBound
+    private void SearchForward(int start, int upperBound)
+    {
+        numForward = 0;
+        int top = 0;
+        stack[top++] = start;
+        stampForward[start] = search;
+
+        while (top > 0)
+        {
+            int c = stack[--top];
+            forward[numForward++] = Pack(c);
+
+            int m = c;
+            do
+            {
+                ArrayList<Integer> successors = graph.edgeMap.get(graph.vertices.get(m));
+                for (int i = 0; successors != null && i < successors.size(); i++)
+                {
+                    int w = Find(Index(successors.get(i)));
+                    if (stampForward[w] == search || ord[w] > upperBound) continue;
+
+                    stampForward[w] = search;
+                    stack[top++] = w;
+                }
+                m = next[m];
+            }
+            while (m != c);
+        }
+    }
+
+    // B: depth-first from start over components positioned at or after lowerBound
+    private void SearchBackward(int start, int lowerBound)
+    {
+        numBackward = 0;
+        int top = 0;
+        stack[top++] = start;
+        stampBackward[start] = search;
+
+        while (top > 0)
+        {
+            int c = stack[--top];
+            backward[numBackward++] = Pack(c);
+
+            int m = c;
+            do
+            {
+                ArrayList<Integer> predecessors = graph.transposeEdgeMap.get(graph.vertices.get(m));
+                for (int i = 0; predecessors != null && i < predecessors.size(); i++)
+                {
+                    int w = Find(Index(predecessors.get(i)));
+                    if (stampBackward[w] == search || ord[w] < lowerBound) continue;
+
+                    stampBackward[w] = search;
+                    stack[top++] = w;
+                }
+                m = next[m];
+            }
+            while (m != c);
+        }
+    }
+
+    //
+    // Merges the components in both F and B if there is a cycle, and gives B, the merged component and
+    // F increasing positions out of those they held
+    //
+    private void Reorder(boolean isCycle)
+    {
+        Arrays.sort(forward, 0, numForward);
+        Arrays.sort(backward, 0, numBackward);
+
+        // The sorted positions of F and B together, each once
+        int f = 0;
+        int b = 0;
+        int numPositions = 0;
+        while (f < numForward || b < numBackward)
+        {
+            long packed = b == numBackward || (f < numForward && forward[f] < backward[b]) ? forward[f++] : backward[b++];
+            int position = (int) (packed >> 32);
+            if (numPositions == 0 || pool[numPositions - 1] != position) pool[numPositions++] = position;
+        }
+
+        int p = 0;
+        for (int i = 0; i < numBackward; i++)
+        {
+            int c = (int) backward[i];
+            if (!InBoth(c)) ord[c] = pool[p++];
+        }
+
+        // The components on a path from cv to cu (in both F and B) become one
+        if (isCycle)
+        {
+            int merged = -1;
+            for (int i = 0; i < numForward; i++)
+            {
+                int c = (int) forward[i];
+                if (InBoth(c)) merged = merged < 0 ? c : Union(merged, c);
+            }
+            ord[merged] = pool[p];
+        }
+
+        // The rest of F takes the last positions; those of the merged components are left unused
+        int numRest = 0;
+        for (int i = 0; i < numForward; i++)
+        {
+            if (!InBoth((int) forward[i])) numRest++;
+        }
+
+        p = numPositions - numRest;
+        for (int i = 0; i < numForward; i++)
+        {
+            int c = (int) forward[i];
+            if (!InBoth(c)) ord[c] = pool[p++];
+        }
+    }
+
+    private boolean InBoth(int c)
+    {
+        return stampForward[c] == search && stampBackward[c] == search;
+    }
+
+    // Merges two components by size and splices their member lists; returns the new representative
+    private int Union(int a, int b)
+    {
+        if (weight[a] < weight[b])
+        {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+
+        parent[b] = a;
+        weight[a] += weight[b];
+
+        int after = next[a];
+        next[a] = next[b];
+        next[b] = after;
+
+        numComponents--;
+        numMerges++;
+        return a;
+    }
+
+    private int Find(int v)
+    {
+        while (parent[v] != v)
+        {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private long Pack(int c)
+    {
+        return ((long) ord[c] << 32) | c;
+    }
+
+    private int Index(int vertex)
+    {
+        return graph.vertexIndex.get(vertex, -1);
+    }
+
+    private void NextSearch()
+    {
+        if (++search == 0)
+        {
+            Arrays.fill(stampForward, 0);
+            Arrays.fill(stampBackward, 0);
+            search = 1;
+        }
+    }
+
+    //
+    // A cycle exists if some component has more than one vertex or some vertex has an edge to itself
+    //
+    public boolean containsCycle()
+    {
+        return numSelfLoops > 0 || numComponents < size;
+    }
+
+    public int getNumComponents()
+    {
+        return numComponents;
+    }
+
+    //
+    // The representative (a member's vertex index) of the component of a vertex index
+    //
+    public int getComponent(int index)
+    {
+        return Find(index);
+    }
+
+    public boolean isStronglyConnected(int u, int v)
+    {
+        return Find(u) == Find(v);
+    }
+
+    //
+    // The components as lists of vertices, in reverse topological order like Tarjan's (every edge
+    // between components goes from a later list to an earlier one)
+    //
+    public ArrayList<ArrayList<Integer>> getComponents()
+    {
+        long[] sorted = new long[numComponents];
+        int count = 0;
+        for (int v = 0; v < size; v++)
+        {
+            if (parent[v] == v) sorted[count++] = Pack(v);
+        }
+        Arrays.sort(sorted);
+
+        ArrayList<ArrayList<Integer>> components = new ArrayList<ArrayList<Integer>>(numComponents);
+        for (int i = numComponents - 1; i >= 0; i--)
+        {
+            int c = (int) sorted[i];
+            ArrayList<Integer> scc = new ArrayList<Integer>(weight[c]);
+
+            int m = c;
+            do
+            {
+                scc.add(graph.vertices.get(m));
+                m = next[m];
+            }
+            while (m != c);
+
+            components.add(scc);
+        }
+        return components;
+    }
+
+    //
+    // The condensation: vertex c is the c-th list of getComponents(), with an edge between two
+    // components whenever some edge joins their members
+    //
+    public CSRGraph getCondensation()
+    {
+        ArrayList<ArrayList<Integer>> components = getComponents();
+
+        int[] id = new int[size];
+        for (int c = 0; c < components.size(); c++)
+        {
+            id[Find(Index(components.get(c).get(0)))] = c;
+        }
+
+        DiGraphBuilder builder = new DiGraphBuilder(numComponents);
+        for (int v = 0; v < size; v++)
+        {
+            ArrayList<Integer> successors = graph.edgeMap.get(graph.vertices.get(v));
+            for (int i = 0; successors != null && i < successors.size(); i++)
+            {
+                int cv = id[Find(v)];
+                int cw = id[Find(Index(successors.get(i)))];
+                if (cv != cw) builder.addEdge(cv, cw);
+            }
+        }
+
+        return builder.buildCSR();
+    }
+
+    //
+    // How many times two components have merged since the start
+    //
+    public long getNumMerges()
+    {
+        return numMerges;
+    }
+}
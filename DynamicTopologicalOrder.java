@@ -0,0 +1,329 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+//
+// A topological order of a DiGraphInt that is kept up to date edge by edge (Pearce and Kelly, "A
+// Dynamic Topological Sort Algorithm for Directed Acyclic Graphs", 2006)
+//
+// Every vertex holds a distinct integer position ord, and every edge u -> v satisfies ord[u] < ord[v].
+// A new edge x -> y that already agrees with the order costs O(1). Otherwise only the affected region
+// between ord[y] and ord[x] is searched:
+//
+//   deltaF <- vertices reachable from y with ord < ord[x]   (reaching x itself means a cycle)
+//   deltaB <- vertices reaching x with ord > ord[y]
+//
+// and the positions held by deltaB and deltaF are handed out again, deltaB first, each group keeping
+// its relative order. Vertices outside the region keep their positions, and the cost is bounded by the
+// edges of the region, not the size of the graph.
+//
+// Positions need not be contiguous: a new vertex that only has the edge being added goes before every
+// other vertex (a source) or after all of them (a sink), so it never triggers a reordering.
+//
+// The order refers to the vertex indices of the graph (positions in its vertex list) and walks the
+// graph's own adjacency; DiGraphInt calls addEdge before it stores an edge, so a rejected edge leaves
+// both unchanged.
+//
+public class DynamicTopologicalOrder
+{
+    private DiGraphInt graph;
+    private int[] ord;       // vertex index -> position
+    private int size;
+    private int minOrd;      // smallest and largest position handed out so far
+    private int maxOrd;
+
+    // Search state of one addEdge; stamps avoid clearing the marks between edges
+    private int[] stamp;
+    private int search;
+    private int[] stack;
+    private long[] forward;  // ((long) ord << 32) | vertex of deltaF, then sorted
+    private long[] backward; // the same for deltaB
+    private int numForward;
+    private int numBackward;
+    private int[] pool;      // the positions to hand out again
+
+    private long numReorderings;
+    private long numVisited;
+
+    //
+    // Starts from a topological sort of the graph as it is; throws IllegalStateException on a cycle
+    //
+    public DynamicTopologicalOrder(DiGraphInt theGraph)
+    {
+        graph = theGraph;
+
+        int[] order = new TopologicalOrder(graph.Freeze()).getOrder();
+        if (order == null) throw new IllegalStateException("A topological order needs an acyclic graph");
+
+        size = order.length;
+        Allocate(Math.max(size, 16));
+        for (int i = 0; i < size; i++)
+        {
+            ord[order[i]] = i;
+        }
+        minOrd = 0;
+        maxOrd = size - 1; // -1 when empty, so the first vertex gets 0 either way
+    }
+
+    //
+    // A copy of another graph's order, for a copy of that graph (same vertex indices)
+    //
+    public DynamicTopologicalOrder(DiGraphInt theGraph, DynamicTopologicalOrder that)
+    {
+        graph = theGraph;
+        size = that.size;
+        Allocate(that.ord.length);
+        System.arraycopy(that.ord, 0, ord, 0, size);
+        minOrd = that.minOrd;
+        maxOrd = that.maxOrd;
+    }
+
+    private void Allocate(int capacity)
+    {
+        ord = ord == null ? new int[capacity] : Arrays.copyOf(ord, capacity);
+        stamp = stamp == null ? new int[capacity] : Arrays.copyOf(stamp, capacity);
+        stack = new int[capacity];
+        forward = new long[capacity];
+        backward = new long[capacity];
+        pool = new int[capacity];
+    }
+
+    //
+    // Places a new vertex (the next vertex index) after every other vertex
+    //
+    public void appendVertex()
+    {
+        if (maxOrd == Integer.MAX_VALUE) Renumber();
+        Add(++maxOrd);
+    }
+
+    //
+    // Places a new vertex (the next vertex index) before every other vertex
+    //
+    public void prependVertex()
+    {
+        if (minOrd == Integer.MIN_VALUE) Renumber();
+        Add(--minOrd);
+    }
+
+    private void Add(int position)
+    {
+        if (size == ord.length) Allocate(size + (size >> 1) + 1);
+        ord[size++] = position;
+    }
+
+    //
+    // Forgets a vertex index whose vertex is gone; the last vertex index takes its place, as in
+    // DiGraphInt's vertex list. Removing vertices or edges never breaks the order.
+    //
+    public void removeVertex(int index)
+    {
+        ord[index] = ord[--size];
+    }
+
+    // Hands out the positions again as -size / 2 .. size / 2, keeping the order
+    private void Renumber()
+    {
+        long[] sorted = new long[size];
+        for (int v = 0; v < size; v++)
+        {
+            sorted[v] = Pack(v);
+        }
+        Arrays.sort(sorted);
+
+        minOrd = -(size / 2);
+        for (int i = 0; i < size; i++)
+        {
+            ord[(int) sorted[i]] = minOrd + i;
+        }
+        maxOrd = minOrd + size - 1;
+    }
+
+    //
+    // Updates the order for a new edge between two vertex indices, before the graph stores it; returns
+    // false, leaving the order unchanged, if the edge would close a cycle
+    //
+    public boolean addEdge(int from, int to)
+    {
+        if (from == to) return false;
+
+        int lowerBound = ord[to];
+        int upperBound = ord[from];
+        if (upperBound < lowerBound) return true;
+
+        NextSearch();
+        if (!SearchForward(to, upperBound)) return false;
+        SearchBackward(from, lowerBound);
+
+        Reorder();
+        numReorderings++;
+        return true;
+    }
+
+    // deltaF: depth-first from start over successors positioned before upperBound; false on reaching
+    // the vertex at upperBound (the source of the new edge)
+    private boolean SearchForward(int start, int upperBound)
+    {
+        numForward = 0;
+        int top = 0;
+        stack[top++] = start;
+        stamp[start] = search;
+
+        while (top > 0)
+        {
+            int v = stack[--top];
+            forward[numForward++] = Pack(v);
+
+            ArrayList<Integer> successors = graph.edgeMap.get(graph.vertices.get(v));
+            if (successors == null) continue;
+
+            for (int i = 0; i < successors.size(); i++)
+            {
+                int w = Index(successors.get(i));
+                numVisited++;
+                if (ord[w] == upperBound) return false;
+                if (stamp[w] == search || ord[w] > upperBound) continue;
+
+                stamp[w] = search;
+                stack[top++] = w;
+            }
+        }
+        return true;
+    }
+
+    // deltaB: depth-first from start over predecessors positioned after lowerBound
+    private void SearchBackward(int start, int lowerBound)
+    {
+        numBackward = 0;
+        int top = 0;
+        stack[top++] = start;
+        stamp[start] = search;
+
+        while (top > 0)
+        {
+            int v = stack[--top];
+            backward[numBackward++] = Pack(v);
+
+            ArrayList<Integer> predecessors = graph.transposeEdgeMap.get(graph.vertices.get(v));
+            if (predecessors == null) continue;
+
+            for (int i = 0; i < predecessors.size(); i++)
+            {
+                int w = Index(predecessors.get(i));
+                numVisited++;
+                if (stamp[w] == search || ord[w] < lowerBound) continue;
+
+                stamp[w] = search;
+                stack[top++] = w;
+            }
+        }
+    }
+
+    // Gives deltaB, then deltaF, the positions they held between them, in increasing order
+    private void Reorder()
+    {
+        Arrays.sort(forward, 0, numForward);
+        Arrays.sort(backward, 0, numBackward);
+
+        // Merge the positions of both (disjoint) sets
+        int f = 0;
+        int b = 0;
+        int p = 0;
+        while (f < numForward || b < numBackward)
+        {
+            if (b == numBackward || (f < numForward && forward[f] < backward[b])) pool[p++] = (int) (forward[f++] >> 32);
+            else pool[p++] = (int) (backward[b++] >> 32);
+        }
+
+        p = 0;
+        for (int i = 0; i < numBackward; i++)
+        {
+            ord[(int) backward[i]] = pool[p++];
+        }
+        for (int i = 0; i < numForward; i++)
+        {
+            ord[(int) forward[i]] = pool[p++];
+        }
+    }
+
+    // Position in the high half so that packed values sort by position; the vertex in the low half
+    private long Pack(int v)
+    {
+        return ((long) ord[v] << 32) | v;
+    }
+
+    private int Index(int vertex)
+    {
+        return graph.vertexIndex.get(vertex, -1);
+    }
+
+    private void NextSearch()
+    {
+        if (++search == 0)
+        {
+            Arrays.fill(stamp, 0);
+            search = 1;
+        }
+    }
+
+    //
+    // Whether u comes before v in the current order (vertex indices); necessary for u to reach v
+    //
+    public boolean precedes(int u, int v)
+    {
+        return ord[u] < ord[v];
+    }
+
+    //
+    // The vertex indices in the current order, in O(V log V)
+    //
+    public int[] getOrder()
+    {
+        long[] sorted = new long[size];
+        for (int v = 0; v < size; v++)
+        {
+            sorted[v] = Pack(v);
+        }
+        Arrays.sort(sorted);
+
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            order[i] = (int) sorted[i];
+        }
+        return order;
+    }
+
+    //
+    // The vertices (not indices) in the current order, sources first
+    //
+    public ArrayList<Integer> getSortedLabels()
+    {
+        int[] order = getOrder();
+        ArrayList<Integer> sorted = new ArrayList<Integer>(order.length);
+        for (int v : order)
+        {
+            sorted.add(graph.vertices.get(v));
+        }
+        return sorted;
+    }
+
+    public int getNumVertices()
+    {
+        return size;
+    }
+
+    //
+    // How many edges needed the order changed, and how many edges the searches walked in total
+    //
+    public long getNumReorderings()
+    {
+        return numReorderings;
+    }
+
+    public long getNumVisited()
+    {
+        return numVisited;
+    }
+}
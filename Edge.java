@@ -35,6 +35,17 @@ public class Edge
     	return weight;
     }
 
+    // Packs (from, to) into one long, the key used by the graphs' edge indices
+    public static long key(int from, int to)
+    {
+        return ((long) from << 32) | (to & 0xFFFFFFFFL);
+    }
+
+    public long key()
+    {
+        return key(sourceNode, targetNode);
+    }
+
     public boolean equals(Edge thatEdge)
     {
         if(this.sourceNode == thatEdge.sourceNode && this.targetNode == thatEdge.targetNode) 
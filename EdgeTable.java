@@ -0,0 +1,443 @@
+package digraph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+//
+// Struct-of-arrays storage for the edges of a growing graph
+//
+// Edge e is (source[e], target[e], weight[e]); edges are numbered 0..size-1 in the order they were added.
+// The out-edges of a vertex form a chain through nextOut (firstOut[v], nextOut[firstOut[v]], ...) and
+// the in-edges a chain through nextIn, both in insertion order, so appending an edge is O(1) and a
+// vertex's edges can be walked without any per-vertex or per-edge object.
+//
+// That is 20 bytes per edge and 24 bytes per vertex, against roughly 100 bytes per edge for an Edge
+// object referenced from an edge list and from both endpoint Nodes plus boxed edge-map entries.
+//
+// Removal leaves tombstones: a removed edge keeps its slot, with its source set to REMOVED, and is skipped
+// by every walk; a removed vertex keeps its id and can take no more edges. Once the tombstones in a chain
+// outnumber the live edges of that chain, the chain is relinked without them (its edge ids do not
+// change), so every chain stays under twice its degree plus one, and each tombstone is passed over by
+// one such relink per chain: removal is amortized O(1).
+//
+// The slots of the tombstones are only freed by compact(), which squeezes the removed edges out of the
+// columns and renumbers the edges that are left, keeping their order. It costs O(V + slots), so the
+// owner calls it once the tombstones outnumber both the live edges and the vertices (see
+// needsCompaction), which keeps that amortized O(1) as well.
+//
+public class EdgeTable
+{
+    private static final int NONE = -1;
+    private static final int REMOVED = -1; // source of a removed edge
+
+    // Edge columns
+    int[] source;
+    int[] target;
+    int[] weight;
+    int[] nextOut;
+    int[] nextIn;
+    int size;           // edge slots in use, including tombstones
+    int numRemoved;     // tombstones among them
+
+    // Vertex columns
+    int[] firstOut;
+    int[] lastOut;
+    int[] firstIn;
+    int[] lastIn;
+    int[] outDegree;
+    int[] inDegree;
+    int[] outTombstones;    // removed edges still linked into the out-chain
+    int[] inTombstones;
+    boolean[] removedVertex;
+    int numVertices;    // vertex ids in use, including removed vertices
+    int numRemovedVertices;
+
+    public EdgeTable()
+    {
+        this(16, 16);
+    }
+
+    public EdgeTable(int expectedVertices, int expectedEdges)
+    {
+        int m = Math.max(expectedEdges, 1);
+        source = new int[m];
+        target = new int[m];
+        weight = new int[m];
+        nextOut = new int[m];
+        nextIn = new int[m];
+
+        int n = Math.max(expectedVertices, 1);
+        firstOut = new int[n];
+        lastOut = new int[n];
+        firstIn = new int[n];
+        lastIn = new int[n];
+        outDegree = new int[n];
+        inDegree = new int[n];
+        outTombstones = new int[n];
+        inTombstones = new int[n];
+        removedVertex = new boolean[n];
+    }
+
+    //
+    // Adds a vertex without edges; returns its id
+    //
+    public int addVertex()
+    {
+        if (numVertices == firstOut.length)
+        {
+            int capacity = firstOut.length + (firstOut.length >> 1) + 1;
+            firstOut = Arrays.copyOf(firstOut, capacity);
+            lastOut = Arrays.copyOf(lastOut, capacity);
+            firstIn = Arrays.copyOf(firstIn, capacity);
+            lastIn = Arrays.copyOf(lastIn, capacity);
+            outDegree = Arrays.copyOf(outDegree, capacity);
+            inDegree = Arrays.copyOf(inDegree, capacity);
+            outTombstones = Arrays.copyOf(outTombstones, capacity);
+            inTombstones = Arrays.copyOf(inTombstones, capacity);
+            removedVertex = Arrays.copyOf(removedVertex, capacity);
+        }
+
+        firstOut[numVertices] = lastOut[numVertices] = NONE;
+        firstIn[numVertices] = lastIn[numVertices] = NONE;
+        outDegree[numVertices] = inDegree[numVertices] = 0;
+        outTombstones[numVertices] = inTombstones[numVertices] = 0;
+        removedVertex[numVertices] = false;
+
+        return numVertices++;
+    }
+
+    //
+    // Appends an edge between existing vertices; returns its edge id. Duplicates are not checked here.
+    //
+    public int addEdge(int from, int to, int theWeight)
+    {
+        if (from < 0 || from >= numVertices || to < 0 || to >= numVertices)
+        {
+            throw new IndexOutOfBoundsException("Edge (" + from + ", " + to + ") with " + numVertices + " vertices");
+        }
+        if (removedVertex[from] || removedVertex[to])
+        {
+            throw new IllegalArgumentException("Edge (" + from + ", " + to + ") to a removed vertex");
+        }
+
+        if (size == source.length)
+        {
+            int capacity = source.length + (source.length >> 1) + 1;
+            source = Arrays.copyOf(source, capacity);
+            target = Arrays.copyOf(target, capacity);
+            weight = Arrays.copyOf(weight, capacity);
+            nextOut = Arrays.copyOf(nextOut, capacity);
+            nextIn = Arrays.copyOf(nextIn, capacity);
+        }
+
+        int e = size++;
+        source[e] = from;
+        target[e] = to;
+        weight[e] = theWeight;
+        nextOut[e] = NONE;
+        nextIn[e] = NONE;
+
+        if (lastOut[from] == NONE) firstOut[from] = e;
+        else nextOut[lastOut[from]] = e;
+        lastOut[from] = e;
+        outDegree[from]++;
+
+        if (lastIn[to] == NONE) firstIn[to] = e;
+        else nextIn[lastIn[to]] = e;
+        lastIn[to] = e;
+        inDegree[to]++;
+
+        return e;
+    }
+
+    //
+    // Removes an edge by its id, leaving a tombstone; false if it was already removed. The other edge
+    // ids stay valid.
+    //
+    public boolean removeEdge(int edge)
+    {
+        if (source[edge] == REMOVED) return false;
+
+        int from = source[edge];
+        int to = target[edge];
+        outDegree[from]--;
+        inDegree[to]--;
+        source[edge] = REMOVED;
+        numRemoved++;
+
+        if (++outTombstones[from] > outDegree[from]) UnlinkOut(from);
+        if (++inTombstones[to] > inDegree[to]) UnlinkIn(to);
+        return true;
+    }
+
+    // Relinks the out-chain of a vertex past its tombstones, in O(chain)
+    private void UnlinkOut(int vertex)
+    {
+        int last = NONE;
+        for (int e = firstOut[vertex]; e != NONE; e = nextOut[e])
+        {
+            if (source[e] == REMOVED) continue;
+
+            if (last == NONE) firstOut[vertex] = e;
+            else nextOut[last] = e;
+            last = e;
+        }
+
+        if (last == NONE) firstOut[vertex] = NONE;
+        else nextOut[last] = NONE;
+        lastOut[vertex] = last;
+        outTombstones[vertex] = 0;
+    }
+
+    // Relinks the in-chain of a vertex past its tombstones, in O(chain)
+    private void UnlinkIn(int vertex)
+    {
+        int last = NONE;
+        for (int e = firstIn[vertex]; e != NONE; e = nextIn[e])
+        {
+            if (source[e] == REMOVED) continue;
+
+            if (last == NONE) firstIn[vertex] = e;
+            else nextIn[last] = e;
+            last = e;
+        }
+
+        if (last == NONE) firstIn[vertex] = NONE;
+        else nextIn[last] = NONE;
+        lastIn[vertex] = last;
+        inTombstones[vertex] = 0;
+    }
+
+    //
+    // Removes a vertex that has no edges left; its id is not reused
+    //
+    public void removeVertex(int vertex)
+    {
+        if (removedVertex[vertex]) return;
+        if (outDegree[vertex] != 0 || inDegree[vertex] != 0)
+        {
+            throw new IllegalStateException("Vertex " + vertex + " still has edges");
+        }
+
+        removedVertex[vertex] = true;
+        numRemovedVertices++;
+    }
+
+    //
+    // Drops the tombstones and relinks the chains, in O(V + slots). The live edges keep their order but
+    // get new ids: the result maps every old edge id to its new one, or -1 for a removed edge.
+    //
+    public int[] compact()
+    {
+        int[] newId = new int[size];
+
+        for (int v = 0; v < numVertices; v++)
+        {
+            firstOut[v] = lastOut[v] = NONE;
+            firstIn[v] = lastIn[v] = NONE;
+            outTombstones[v] = inTombstones[v] = 0;
+        }
+
+        int live = 0;
+        for (int e = 0; e < size; e++)
+        {
+            if (source[e] == REMOVED)
+            {
+                newId[e] = NONE;
+                continue;
+            }
+
+            int from = source[e];
+            int to = target[e];
+            source[live] = from;
+            target[live] = to;
+            weight[live] = weight[e];
+            nextOut[live] = NONE;
+            nextIn[live] = NONE;
+
+            if (lastOut[from] == NONE) firstOut[from] = live;
+            else nextOut[lastOut[from]] = live;
+            lastOut[from] = live;
+
+            if (lastIn[to] == NONE) firstIn[to] = live;
+            else nextIn[lastIn[to]] = live;
+            lastIn[to] = live;
+
+            newId[e] = live++;
+        }
+
+        size = live;
+        numRemoved = 0;
+        return newId;
+    }
+
+    //
+    // True once compact() pays for itself: the tombstones outnumber both the live edges and the vertices
+    //
+    public boolean needsCompaction()
+    {
+        return numRemoved > Math.max(size - numRemoved, numVertices);
+    }
+
+    //
+    // The bound on vertex ids: ids 0..getNumVertices() - 1 have been handed out, removed ones included
+    //
+    public int getNumVertices()
+    {
+        return numVertices;
+    }
+
+    public int getNumRemovedVertices()
+    {
+        return numRemovedVertices;
+    }
+
+    public boolean isRemovedVertex(int vertex)
+    {
+        return removedVertex[vertex];
+    }
+
+    // The number of live edges
+    public int getNumEdges()
+    {
+        return size - numRemoved;
+    }
+
+    //
+    // The bound on edge ids: ids 0..getEdgeLimit() - 1 are in use, tombstones included (see isRemoved)
+    //
+    public int getEdgeLimit()
+    {
+        return size;
+    }
+
+    public int getNumRemovedEdges()
+    {
+        return numRemoved;
+    }
+
+    public boolean isRemoved(int edge)
+    {
+        return source[edge] == REMOVED;
+    }
+
+    public int getSource(int edge)
+    {
+        return source[edge];
+    }
+
+    public int getTarget(int edge)
+    {
+        return target[edge];
+    }
+
+    public int getWeight(int edge)
+    {
+        return weight[edge];
+    }
+
+    public int getOutDegree(int vertex)
+    {
+        return outDegree[vertex];
+    }
+
+    public int getInDegree(int vertex)
+    {
+        return inDegree[vertex];
+    }
+
+    // The first live out-edge id of a vertex, -1 if none; continue with nextOutEdge
+    public int firstOutEdge(int vertex)
+    {
+        return Live(firstOut[vertex], nextOut);
+    }
+
+    public int nextOutEdge(int edge)
+    {
+        return Live(nextOut[edge], nextOut);
+    }
+
+    // The first live in-edge id of a vertex, -1 if none; continue with nextInEdge
+    public int firstInEdge(int vertex)
+    {
+        return Live(firstIn[vertex], nextIn);
+    }
+
+    public int nextInEdge(int edge)
+    {
+        return Live(nextIn[edge], nextIn);
+    }
+
+    // The first edge from edge on along a chain that is not a tombstone
+    private int Live(int edge, int[] next)
+    {
+        while (edge != NONE && source[edge] == REMOVED)
+        {
+            edge = next[edge];
+        }
+        return edge;
+    }
+
+    // Calls action with the target of every out-edge of a vertex, in insertion order
+    public void forEachOutNeighbor(int vertex, IntConsumer action)
+    {
+        for (int e = firstOutEdge(vertex); e != NONE; e = nextOutEdge(e))
+        {
+            action.accept(target[e]);
+        }
+    }
+
+    // Calls action with the source of every in-edge of a vertex, in insertion order
+    public void forEachInNeighbor(int vertex, IntConsumer action)
+    {
+        for (int e = firstInEdge(vertex); e != NONE; e = nextInEdge(e))
+        {
+            action.accept(source[e]);
+        }
+    }
+
+    public PrimitiveIterator.OfInt outNeighbors(int vertex)
+    {
+        return new ChainIterator(firstOutEdge(vertex), nextOut, target);
+    }
+
+    public PrimitiveIterator.OfInt inNeighbors(int vertex)
+    {
+        return new ChainIterator(firstInEdge(vertex), nextIn, source);
+    }
+
+    //
+    // Walks one edge chain past the tombstones, reporting the given endpoint column of every edge
+    //
+    private class ChainIterator implements PrimitiveIterator.OfInt
+    {
+        private int edge;
+        private int[] next;
+        private int[] endpoint;
+
+        ChainIterator(int first, int[] theNext, int[] theEndpoint)
+        {
+            edge = first;
+            next = theNext;
+            endpoint = theEndpoint;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return edge != NONE;
+        }
+
+        @Override
+        public int nextInt()
+        {
+            if (edge == NONE) throw new NoSuchElementException();
+
+            int value = endpoint[edge];
+            edge = Live(next[edge], next);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package digraph;
+
+//
+// Receives edges as primitive (from, to) pairs, e.g. as the opt-in tracing hook of DiGraph
+//
+@FunctionalInterface
+public interface EdgeVisitor
+{
+    void visit(int from, int to);
+}
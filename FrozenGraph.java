@@ -0,0 +1,302 @@
+package digraph;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+//
+// An immutable directed graph over dense vertex indices 0..n-1, as read by every engine of the package
+// (TopologicalOrder, StronglyConnectedComponents, DagPaths, LevelWidth, Dijkstra, ...)
+//
+// The storage is left to the subclasses: CSRGraph keeps its compressed sparse rows in int arrays on the
+// heap, MappedGraph reads the same rows straight from a memory-mapped file, and OffHeapGraph keeps them
+// in direct buffers outside the heap. Each vertex also has its caller's id (label), and all query
+// results are reported in those ids.
+//
+// The neighbor lists of a vertex are indexed 0..degree-1 in both directions, with the weight of every
+// edge alongside (1 throughout an unweighted graph).
+//
+public abstract class FrozenGraph
+{
+    public abstract int getNumVertices();
+
+    public abstract int getNumEdges();
+
+    // The number of edges where it may exceed an int (see OffHeapGraph)
+    public long getNumEdgesLong()
+    {
+        return getNumEdges();
+    }
+
+    // The vertex id of a dense index
+    public abstract int getLabel(int index);
+
+    // The dense index of a vertex id, -1 if the vertex is not in the graph
+    public abstract int getIndex(int label);
+
+    public abstract int getOutDegree(int index);
+
+    public abstract int getInDegree(int index);
+
+    // The i-th successor (dense index) of a dense vertex
+    public abstract int getOutNeighbor(int index, int i);
+
+    // The i-th predecessor (dense index) of a dense vertex
+    public abstract int getInNeighbor(int index, int i);
+
+    public abstract boolean isWeighted();
+
+    // The weight of the edge to the i-th successor of a dense vertex
+    public abstract int getOutWeight(int index, int i);
+
+    // The weight of the edge from the i-th predecessor of a dense vertex
+    public abstract int getInWeight(int index, int i);
+
+    // A read-only view of the successors of a dense vertex
+    public abstract IntBuffer getOutNeighborView(int index);
+
+    // A read-only view of the predecessors of a dense vertex
+    public abstract IntBuffer getInNeighborView(int index);
+
+    //
+    // Copies the successors of a dense vertex into into from offset on (the caller makes room for
+    // getOutDegree(index) of them) and returns their number. An engine that comes back to a vertex's
+    // list after reading others' (a depth-first search) takes the list this way once: a graph that
+    // decodes its lists (CompressedGraph) would otherwise decode it again on every return.
+    //
+    public int getOutNeighbors(int index, int[] into, int offset)
+    {
+        int degree = getOutDegree(index);
+        for (int i = 0; i < degree; i++)
+        {
+            into[offset + i] = getOutNeighbor(index, i);
+        }
+        return degree;
+    }
+
+    public int getInNeighbors(int index, int[] into, int offset)
+    {
+        int degree = getInDegree(index);
+        for (int i = 0; i < degree; i++)
+        {
+            into[offset + i] = getInNeighbor(index, i);
+        }
+        return degree;
+    }
+
+    // Calls action with the dense index of every successor of a dense vertex
+    public void forEachOutNeighbor(int index, IntConsumer action)
+    {
+        for (int i = 0; i < getOutDegree(index); i++)
+        {
+            action.accept(getOutNeighbor(index, i));
+        }
+    }
+
+    // Calls action with the dense index of every predecessor of a dense vertex
+    public void forEachInNeighbor(int index, IntConsumer action)
+    {
+        for (int i = 0; i < getInDegree(index); i++)
+        {
+            action.accept(getInNeighbor(index, i));
+        }
+    }
+
+    public PrimitiveIterator.OfInt outNeighbors(int index)
+    {
+        return new NeighborIterator(index, true);
+    }
+
+    public PrimitiveIterator.OfInt inNeighbors(int index)
+    {
+        return new NeighborIterator(index, false);
+    }
+
+    //
+    // Iterates the neighbors of one vertex through the accessors above
+    //
+    private class NeighborIterator implements PrimitiveIterator.OfInt
+    {
+        private int index;
+        private boolean isOut;
+        private int next;
+        private int end;
+
+        NeighborIterator(int theIndex, boolean out)
+        {
+            index = theIndex;
+            isOut = out;
+            end = isOut ? getOutDegree(index) : getInDegree(index);
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return next < end;
+        }
+
+        @Override
+        public int nextInt()
+        {
+            if (next >= end) throw new NoSuchElementException();
+
+            return isOut ? getOutNeighbor(index, next++) : getInNeighbor(index, next++);
+        }
+    }
+
+    public ArrayList<Integer> getSource()
+    {
+        ArrayList<Integer> sources = new ArrayList<Integer>();
+
+        for (int v = 0; v < getNumVertices(); v++)
+        {
+            if (getInDegree(v) == 0) sources.add(getLabel(v));
+        }
+
+        return sources;
+    }
+
+    public ArrayList<Integer> getSink()
+    {
+        ArrayList<Integer> sinks = new ArrayList<Integer>();
+
+        for (int v = 0; v < getNumVertices(); v++)
+        {
+            if (getOutDegree(v) == 0) sinks.add(getLabel(v));
+        }
+
+        return sinks;
+    }
+
+    //
+    // The vertex ids in topological order (sources first), or null if the graph contains a cycle
+    //
+    public ArrayList<Integer> TopologicalSort()
+    {
+        return new TopologicalOrder(this).getSortedLabels();
+    }
+
+    //
+    // As above, but vertices that are ready at the same time are taken smallest first by tieBreak
+    //
+    public ArrayList<Integer> TopologicalSort(IntComparator tieBreak)
+    {
+        return new TopologicalOrder(this, tieBreak).getSortedLabels();
+    }
+
+    //
+    // The vertex ids layer by layer (sources first), or null if the graph contains a cycle
+    //
+    public ArrayList<ArrayList<Integer>> GetTopologicalLayers()
+    {
+        return new TopologicalOrder(this).getLayers();
+    }
+
+    //
+    // The vertex ids of some cycle in edge order, or null if the graph is a DAG
+    //
+    public ArrayList<Integer> GetCycle()
+    {
+        return new TopologicalOrder(this).getCycle();
+    }
+
+    //
+    // The length of the graph is the number of vertices on its longest path; the graph must be a DAG
+    //
+    public int GetLength()
+    {
+        if (getNumVertices() == 0) return 0;
+
+        return (int) DagPaths.longestPaths(this, false).getCriticalLength() + 1;
+    }
+
+    //
+    // The vertex ids of the longest path by edge weight (start first); the graph must be a DAG
+    //
+    public ArrayList<Integer> GetCriticalPath()
+    {
+        return DagPaths.longestPaths(this, true).getCriticalPath();
+    }
+
+    //
+    // The vertex ids of a shortest path by edge weight between two vertex ids (start first), or null if
+    // there is none; weights must be non-negative. Searches from both ends (see BidirectionalSearch);
+    // callers running many queries should keep one search per thread instead, which reuses its arrays.
+    //
+    public ArrayList<Integer> GetShortestPath(int from, int to)
+    {
+        BidirectionalSearch search = new BidirectionalSearch(this, isWeighted());
+        search.shortestPath(from, to);
+        return search.getPath();
+    }
+
+    //
+    // The width of the graph is the largest level of a breadth-first traversal that starts at the
+    // sinks (goal nodes) and walks the transpose edges; every vertex is counted on the first level
+    // at which it is reached
+    //
+    public int GetWidth()
+    {
+        LevelWidth bfs = new LevelWidth(this);
+        bfs.getWidthProfile(LevelWidth.sinks(this), false);
+
+        return bfs.getMaxWidth();
+    }
+
+    //
+    // As above, expanding every level in parallel on the given pool (see ParallelBFS)
+    //
+    public int GetWidth(ForkJoinPool pool)
+    {
+        ParallelBFS bfs = new ParallelBFS(this, pool);
+        bfs.getWidthProfile(LevelWidth.sinks(this), false);
+
+        return bfs.getMaxWidth();
+    }
+
+    //
+    // The width of every level of that traversal, sinks first
+    //
+    public int[] GetWidthProfile()
+    {
+        return new LevelWidth(this).getWidthProfile(LevelWidth.sinks(this), false);
+    }
+
+    public int[] GetWidthProfile(ForkJoinPool pool)
+    {
+        return new ParallelBFS(this, pool).getWidthProfile(LevelWidth.sinks(this), false);
+    }
+
+    public boolean ContainsCycle()
+    {
+        return !new TopologicalOrder(this).isAcyclic();
+    }
+
+    //
+    // Tarjan's Strongly Connected Components (see StronglyConnectedComponents)
+    //
+    public ArrayList<ArrayList<Integer>> GetStronglyConnectedComponents()
+    {
+        return new StronglyConnectedComponents(this).getComponents();
+    }
+
+    public String GetStronglyConnectedComponentDump()
+    {
+        StringBuilder str = new StringBuilder();
+        str.append("SCCs: ");
+        int counter = 0;
+        for (ArrayList<Integer> scc : GetStronglyConnectedComponents())
+        {
+            str.append("\t").append(counter++).append(": ");
+            for (int v : scc)
+            {
+                str.append(v).append(' ');
+            }
+        }
+
+        return str.toString();
+    }
+}
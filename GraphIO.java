@@ -0,0 +1,963 @@
+package digraph;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+//
+// Streaming import and export of edges: a text edge list, Graphviz DOT and a compact binary format
+//
+// Nothing is buffered beyond one direct buffer of BUFFER_BYTES per stream, whatever the size of the
+// graph. The readers parse the bytes in place (no String per line or token) and hand every edge to a
+// WeightedEdgeVisitor, so the caller decides where the edges go, e.g.
+//
+//   DiGraphBuilder builder = new DiGraphBuilder();
+//   GraphIO.readEdgeList(channel, (from, to, weight) -> builder.addEdge(from, to));
+//
+// The writers walk a FrozenGraph, or a DiGraph's edge table without freezing it, source by source.
+// The text formats go through an Appendable: a StringBuilder, any java.io.Writer, or the channel writer
+// returned by newWriter, which encodes UTF-8 straight into its buffer.
+//
+//   edge list  one edge per line, "from to" or "from to weight", separated by spaces or tabs; empty
+//              lines and lines starting with '#' or '%' are skipped
+//   DOT        digraph { 1 -> 2 [weight=3]; ... } with integer node ids; edge chains a -> b -> c are
+//              read, node, graph and attribute statements are skipped, and only the weight attribute
+//              of an edge is used; keywords (strict, digraph, node, ...) match in any case
+//   binary     "DGRE", version, flags (1: weighted), then per edge the zigzag varint delta of the
+//              source from the previous source and of the target from the previous target of the same
+//              source (or from the source itself), and the weight if weighted; edges grouped by source
+//              take 2 to 3 bytes each
+//
+// Vertices without edges are not part of an edge list or the binary format; the DOT writer lists them
+// but the reader skips node statements. All vertex ids are the graph's ids (labels), not dense indices.
+//
+public class GraphIO
+{
+    public static final int BUFFER_BYTES = 1 << 20;
+    public static final int BINARY_MAGIC = 0x45524744;  // "DGRE" read as a little-endian int
+    public static final int BINARY_VERSION = 1;
+    public static final int FLAG_WEIGHTED = 1;
+
+    private GraphIO()
+    {
+    }
+
+    //
+    // Edges grouped by source, from either kind of graph
+    //
+    private interface EdgeSource
+    {
+        boolean isWeighted();
+
+        void forEach(WeightedEdgeVisitor visitor);
+    }
+
+    private static EdgeSource Edges(FrozenGraph graph)
+    {
+        return new EdgeSource()
+        {
+            @Override
+            public boolean isWeighted()
+            {
+                return graph.isWeighted();
+            }
+
+            @Override
+            public void forEach(WeightedEdgeVisitor visitor)
+            {
+                for (int v = 0; v < graph.getNumVertices(); v++)
+                {
+                    int from = graph.getLabel(v);
+                    for (int i = 0; i < graph.getOutDegree(v); i++)
+                    {
+                        visitor.visit(from, graph.getLabel(graph.getOutNeighbor(v, i)), graph.getOutWeight(v, i));
+                    }
+                }
+            }
+        };
+    }
+
+    private static EdgeSource Edges(DiGraph<?> graph)
+    {
+        EdgeTable table = graph.getEdgeTable();
+        return new EdgeSource()
+        {
+            @Override
+            public boolean isWeighted()
+            {
+                for (int e = 0; e < table.getEdgeLimit(); e++)
+                {
+                    if (!table.isRemoved(e) && table.getWeight(e) != 1) return true;
+                }
+                return false;
+            }
+
+            @Override
+            public void forEach(WeightedEdgeVisitor visitor)
+            {
+                for (int v = 0; v < table.getNumVertices(); v++)
+                {
+                    for (int e = table.firstOutEdge(v); e != -1; e = table.nextOutEdge(e))
+                    {
+                        visitor.visit(v, table.getTarget(e), table.getWeight(e));
+                    }
+                }
+            }
+        };
+    }
+
+    // Runs forEach with a visitor that may fail with an IOException
+    private static void ForEach(EdgeSource edges, IOEdgeVisitor visitor) throws IOException
+    {
+        try
+        {
+            edges.forEach((from, to, weight) ->
+            {
+                try
+                {
+                    visitor.visit(from, to, weight);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    private interface IOEdgeVisitor
+    {
+        void visit(int from, int to, int weight) throws IOException;
+    }
+
+    //
+    // An Appendable over a channel that encodes UTF-8 into a direct buffer; call flush() at the end
+    //
+    public static ChannelWriter newWriter(WritableByteChannel channel)
+    {
+        return new ChannelWriter(channel);
+    }
+
+    public static class ChannelWriter implements Appendable, Flushable
+    {
+        private WritableByteChannel channel;
+        private ByteBuffer buffer;
+        private char highSurrogate;
+        private byte[] digits = new byte[11];
+
+        ChannelWriter(WritableByteChannel theChannel)
+        {
+            channel = theChannel;
+            buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        @Override
+        public ChannelWriter append(char c) throws IOException
+        {
+            if (buffer.remaining() < 5) Drain();
+            if (!Character.isLowSurrogate(c)) Unpaired();
+
+            if (c < 0x80)
+            {
+                buffer.put((byte) c);
+            }
+            else if (c < 0x800)
+            {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+            else if (Character.isHighSurrogate(c))
+            {
+                highSurrogate = c;
+                return this;
+            }
+            else if (Character.isLowSurrogate(c))
+            {
+                if (highSurrogate == 0)
+                {
+                    buffer.put((byte) '?');
+                    return this;
+                }
+
+                int code = Character.toCodePoint(highSurrogate, c);
+                highSurrogate = 0;
+                buffer.put((byte) (0xF0 | (code >> 18)));
+                buffer.put((byte) (0x80 | ((code >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((code >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (code & 0x3F)));
+            }
+            else
+            {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+            return this;
+        }
+
+        @Override
+        public ChannelWriter append(CharSequence text) throws IOException
+        {
+            return append(text, 0, text.length());
+        }
+
+        @Override
+        public ChannelWriter append(CharSequence text, int start, int end) throws IOException
+        {
+            for (int i = start; i < end; i++)
+            {
+                append(text.charAt(i));
+            }
+            return this;
+        }
+
+        // The decimal digits of an int, without a String
+        public ChannelWriter appendInt(int value) throws IOException
+        {
+            if (buffer.remaining() < digits.length + 1) Drain();
+            Unpaired();
+
+            long v = value;
+            if (v < 0)
+            {
+                buffer.put((byte) '-');
+                v = -v;
+            }
+
+            int d = digits.length;
+            do
+            {
+                digits[--d] = (byte) ('0' + v % 10);
+                v /= 10;
+            }
+            while (v != 0);
+
+            buffer.put(digits, d, digits.length - d);
+            return this;
+        }
+
+        void putByte(int b) throws IOException
+        {
+            if (!buffer.hasRemaining()) Drain();
+            buffer.put((byte) b);
+        }
+
+        void putInt(int value) throws IOException
+        {
+            if (buffer.remaining() < 4) Drain();
+            buffer.putInt(value);
+        }
+
+        // An unsigned LEB128 varint
+        void putVarint(long value) throws IOException
+        {
+            if (buffer.remaining() < 10) Drain();
+
+            while ((value & ~0x7FL) != 0)
+            {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        // A high surrogate not followed by a low one is written as '?'
+        private void Unpaired()
+        {
+            if (highSurrogate == 0) return;
+            buffer.put((byte) '?');
+            highSurrogate = 0;
+        }
+
+        private void Drain() throws IOException
+        {
+            buffer.flip();
+            while (buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        //
+        // Writes out everything appended so far. A high surrogate appended last is held back rather
+        // than written or dropped: its low surrogate may come with the next append, and the pair is
+        // then encoded as one code point.
+        //
+        @Override
+        public void flush() throws IOException
+        {
+            Drain();
+        }
+    }
+
+    // Appends an int without an intermediate String where the Appendable allows it
+    private static void AppendInt(Appendable out, int value) throws IOException
+    {
+        if (out instanceof ChannelWriter) ((ChannelWriter) out).appendInt(value);
+        else if (out instanceof StringBuilder) ((StringBuilder) out).append(value);
+        else out.append(Integer.toString(value));
+    }
+
+    //
+    // Edge list
+    //
+
+    public static void writeEdgeList(FrozenGraph graph, Appendable out) throws IOException
+    {
+        WriteEdgeList(Edges(graph), out);
+    }
+
+    public static void writeEdgeList(DiGraph<?> graph, Appendable out) throws IOException
+    {
+        WriteEdgeList(Edges(graph), out);
+    }
+
+    public static void writeEdgeList(FrozenGraph graph, WritableByteChannel channel) throws IOException
+    {
+        ChannelWriter out = newWriter(channel);
+        writeEdgeList(graph, out);
+        out.flush();
+    }
+
+    public static void writeEdgeList(DiGraph<?> graph, WritableByteChannel channel) throws IOException
+    {
+        ChannelWriter out = newWriter(channel);
+        writeEdgeList(graph, out);
+        out.flush();
+    }
+
+    // Weights only when some edge has a weight other than 1
+    private static void WriteEdgeList(EdgeSource edges, Appendable out) throws IOException
+    {
+        boolean weighted = edges.isWeighted();
+        ForEach(edges, (from, to, weight) ->
+        {
+            AppendInt(out, from);
+            out.append(' ');
+            AppendInt(out, to);
+            if (weighted)
+            {
+                out.append(' ');
+                AppendInt(out, weight);
+            }
+            out.append('\n');
+        });
+    }
+
+    //
+    // Reads an edge list, calling the visitor with every edge (weight 1 where none is given); returns
+    // the number of edges. Throws IOException naming the line of the first malformed line.
+    //
+    public static long readEdgeList(ReadableByteChannel channel, WeightedEdgeVisitor visitor) throws IOException
+    {
+        ByteReader in = new ByteReader(channel);
+        long numEdges = 0;
+
+        while (true)
+        {
+            int c = in.skipSpaces();
+            if (c == -1) return numEdges;
+
+            if (c == '\n' || c == '\r')
+            {
+                in.next();
+                continue;
+            }
+            if (c == '#' || c == '%')
+            {
+                in.skipLine();
+                continue;
+            }
+
+            int from = in.readInt();
+            in.skipSpaces();
+            int to = in.readInt();
+            int weight = 1;
+
+            c = in.skipSpaces();
+            if (c == '-' || (c >= '0' && c <= '9'))
+            {
+                weight = in.readInt();
+                c = in.skipSpaces();
+            }
+            if (c != '\n' && c != '\r' && c != -1) throw in.error("Expected \"from to [weight]\"");
+
+            visitor.visit(from, to, weight);
+            numEdges++;
+        }
+    }
+
+    //
+    // DOT
+    //
+
+    public static void writeDot(FrozenGraph graph, Appendable out) throws IOException
+    {
+        out.append("digraph {\n");
+        for (int v = 0; v < graph.getNumVertices(); v++)
+        {
+            if (graph.getOutDegree(v) != 0 || graph.getInDegree(v) != 0) continue;
+
+            out.append("  ");
+            AppendInt(out, graph.getLabel(v));
+            out.append(";\n");
+        }
+        WriteDotEdges(Edges(graph), out);
+        out.append("}\n");
+    }
+
+    //
+    // Every node, with String.valueOf its data as the label, then the edges
+    //
+    public static void writeDot(DiGraph<?> graph, Appendable out) throws IOException
+    {
+        out.append("digraph {\n");
+        EdgeTable table = graph.getEdgeTable();
+        for (int v = 0; v < table.getNumVertices(); v++)
+        {
+            if (table.isRemovedVertex(v)) continue;
+
+            out.append("  ");
+            AppendInt(out, v);
+            out.append(" [label=\"");
+            AppendEscaped(out, String.valueOf(graph.getData(v)));
+            out.append("\"];\n");
+        }
+        WriteDotEdges(Edges(graph), out);
+        out.append("}\n");
+    }
+
+    public static void writeDot(FrozenGraph graph, WritableByteChannel channel) throws IOException
+    {
+        ChannelWriter out = newWriter(channel);
+        writeDot(graph, out);
+        out.flush();
+    }
+
+    public static void writeDot(DiGraph<?> graph, WritableByteChannel channel) throws IOException
+    {
+        ChannelWriter out = newWriter(channel);
+        writeDot(graph, out);
+        out.flush();
+    }
+
+    private static void WriteDotEdges(EdgeSource edges, Appendable out) throws IOException
+    {
+        boolean weighted = edges.isWeighted();
+        ForEach(edges, (from, to, weight) ->
+        {
+            out.append("  ");
+            AppendInt(out, from);
+            out.append(" -> ");
+            AppendInt(out, to);
+            if (weighted)
+            {
+                out.append(" [weight=");
+                AppendInt(out, weight);
+                out.append(']');
+            }
+            out.append(";\n");
+        });
+    }
+
+    private static void AppendEscaped(Appendable out, String text) throws IOException
+    {
+        for (int i = 0; i < text.length(); i++)
+        {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') out.append('\\').append(c);
+            else if (c == '\n') out.append("\\n");
+            else out.append(c);
+        }
+    }
+
+    //
+    // Reads the edges of a DOT digraph (see above), calling the visitor with every edge; returns the
+    // number of edges. Undirected graphs, subgraphs and ports are rejected with an IOException.
+    //
+    public static long readDot(ReadableByteChannel channel, WeightedEdgeVisitor visitor) throws IOException
+    {
+        DotTokenizer in = new DotTokenizer(new ByteReader(channel));
+        long numEdges = 0;
+
+        int token = in.next();
+        if (token == DotTokenizer.ID && in.isKeyword("strict")) token = in.next();
+        if (token == DotTokenizer.ID && in.isKeyword("graph")) throw in.error("Undirected graphs are not supported");
+        if (token != DotTokenizer.ID || !in.isKeyword("digraph")) throw in.error("Expected digraph");
+        token = in.next();
+        if (token == DotTokenizer.ID || token == DotTokenizer.QUOTED) token = in.next();
+        if (token != '{') throw in.error("Expected {");
+
+        int[] chain = new int[4];
+        while (true)
+        {
+            token = in.next();
+            if (token == '}') return numEdges;
+            if (token == ';' || token == ',') continue;
+            if (token == DotTokenizer.EOF) throw in.error("Missing }");
+            if (token == '{' || (token == DotTokenizer.ID && in.isKeyword("subgraph"))) throw in.error("Subgraphs are not supported");
+            if (token != DotTokenizer.ID && token != DotTokenizer.QUOTED) throw in.error("Unexpected " + (char) token);
+
+            // graph / node / edge [attributes]: defaults, skipped
+            if (token == DotTokenizer.ID && (in.isKeyword("graph") || in.isKeyword("node") || in.isKeyword("edge")) && in.peek() == '[')
+            {
+                in.next();
+                SkipAttributes(in);
+                continue;
+            }
+
+            // id = value: a graph attribute, skipped
+            if (in.peek() == '=')
+            {
+                in.next();
+                in.next();
+                continue;
+            }
+
+            int length = 0;
+            chain[length++] = in.intValue();
+            while (in.peek() == DotTokenizer.ARROW)
+            {
+                in.next();
+                token = in.next();
+                if (token != DotTokenizer.ID && token != DotTokenizer.QUOTED) throw in.error("Expected a node after ->");
+
+                if (length == chain.length) chain = Arrays.copyOf(chain, 2 * length);
+                chain[length++] = in.intValue();
+            }
+            if (in.peek() == DotTokenizer.UNDIRECTED) throw in.error("Undirected edges are not supported");
+            if (in.peek() == ':') throw in.error("Ports are not supported");
+
+            int weight = 1;
+            if (in.peek() == '[')
+            {
+                in.next();
+                weight = SkipAttributes(in);
+            }
+
+            for (int i = 0; i + 1 < length; i++)
+            {
+                visitor.visit(chain[i], chain[i + 1], weight);
+                numEdges++;
+            }
+        }
+    }
+
+    // Reads an attribute list after its '['; returns the weight attribute, 1 if there is none
+    private static int SkipAttributes(DotTokenizer in) throws IOException
+    {
+        int weight = 1;
+        while (true)
+        {
+            int token = in.next();
+            if (token == ']') return weight;
+            if (token == ',' || token == ';') continue;
+            if (token != DotTokenizer.ID && token != DotTokenizer.QUOTED) throw in.error("Malformed attribute list");
+
+            boolean isWeight = in.is("weight");
+            if (in.next() != '=') throw in.error("Expected = in attribute list");
+            token = in.next();
+            if (token != DotTokenizer.ID && token != DotTokenizer.QUOTED) throw in.error("Expected an attribute value");
+            if (isWeight) weight = in.intValue();
+        }
+    }
+
+    //
+    // Binary
+    //
+
+    public static void writeBinary(FrozenGraph graph, WritableByteChannel channel) throws IOException
+    {
+        WriteBinary(Edges(graph), channel);
+    }
+
+    public static void writeBinary(DiGraph<?> graph, WritableByteChannel channel) throws IOException
+    {
+        WriteBinary(Edges(graph), channel);
+    }
+
+    private static void WriteBinary(EdgeSource edges, WritableByteChannel channel) throws IOException
+    {
+        boolean weighted = edges.isWeighted();
+        ChannelWriter out = newWriter(channel);
+        out.putInt(BINARY_MAGIC);
+        out.putByte(BINARY_VERSION);
+        out.putByte(weighted ? FLAG_WEIGHTED : 0);
+
+        long[] previous = new long[3]; // previous source, previous target, any edge yet
+        ForEach(edges, (from, to, weight) ->
+        {
+            long sourceDelta = from - previous[0];
+            long base = (previous[2] != 0 && sourceDelta == 0) ? previous[1] : from;
+
+            out.putVarint(ZigZag(sourceDelta));
+            out.putVarint(ZigZag(to - base));
+            if (weighted) out.putVarint(ZigZag(weight));
+
+            previous[0] = from;
+            previous[1] = to;
+            previous[2] = 1;
+        });
+
+        out.flush();
+    }
+
+    //
+    // Reads the binary format, calling the visitor with every edge; returns the number of edges
+    //
+    public static long readBinary(ReadableByteChannel channel, WeightedEdgeVisitor visitor) throws IOException
+    {
+        ByteReader in = new ByteReader(channel);
+
+        int magic = 0;
+        for (int i = 0; i < 4; i++)
+        {
+            magic |= in.nextByte() << (8 * i);
+        }
+        if (magic != BINARY_MAGIC) throw new IOException("Not a binary edge file");
+        int version = in.nextByte();
+        if (version != BINARY_VERSION) throw new IOException("Binary edge file version " + version + ", expected " + BINARY_VERSION);
+        boolean weighted = (in.nextByte() & FLAG_WEIGHTED) != 0;
+
+        long numEdges = 0;
+        long from = 0;
+        long to = 0;
+        while (in.peek() != -1)
+        {
+            long sourceDelta = UnZigZag(in.readVarint());
+            long base = (numEdges != 0 && sourceDelta == 0) ? to : from + sourceDelta;
+            from += sourceDelta;
+            to = base + UnZigZag(in.readVarint());
+            int weight = weighted ? (int) UnZigZag(in.readVarint()) : 1;
+
+            if (from != (int) from || to != (int) to) throw new IOException("Vertex id out of range in edge " + numEdges);
+
+            visitor.visit((int) from, (int) to, weight);
+            numEdges++;
+        }
+        return numEdges;
+    }
+
+    private static long ZigZag(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long UnZigZag(long value)
+    {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    //
+    // Bytes from a channel through one direct buffer, with one byte of lookahead
+    //
+    private static class ByteReader
+    {
+        private ReadableByteChannel channel;
+        private ByteBuffer buffer;
+        private boolean isEnd;
+        private long line = 1;
+
+        ByteReader(ReadableByteChannel theChannel)
+        {
+            channel = theChannel;
+            buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            buffer.limit(0);
+        }
+
+        // The next byte without consuming it, -1 at the end
+        int peek() throws IOException
+        {
+            if (!buffer.hasRemaining() && !Fill()) return -1;
+            return buffer.get(buffer.position()) & 0xFF;
+        }
+
+        int next() throws IOException
+        {
+            if (!buffer.hasRemaining() && !Fill()) return -1;
+
+            int c = buffer.get() & 0xFF;
+            if (c == '\n') line++;
+            return c;
+        }
+
+        // The next byte; throws IOException at the end
+        int nextByte() throws IOException
+        {
+            int c = next();
+            if (c == -1) throw new IOException("Unexpected end of input");
+            return c;
+        }
+
+        private boolean Fill() throws IOException
+        {
+            if (isEnd) return false;
+
+            buffer.clear();
+            int read;
+            do
+            {
+                read = channel.read(buffer);
+            }
+            while (read == 0);
+            buffer.flip();
+
+            if (read < 0) isEnd = true;
+            return buffer.hasRemaining();
+        }
+
+        // Skips spaces and tabs; returns the next byte (not consumed)
+        int skipSpaces() throws IOException
+        {
+            int c = peek();
+            while (c == ' ' || c == '\t')
+            {
+                next();
+                c = peek();
+            }
+            return c;
+        }
+
+        void skipLine() throws IOException
+        {
+            int c;
+            do
+            {
+                c = next();
+            }
+            while (c != '\n' && c != -1);
+        }
+
+        // An optionally negative decimal int
+        int readInt() throws IOException
+        {
+            boolean negative = peek() == '-';
+            if (negative) next();
+
+            int c = peek();
+            if (c < '0' || c > '9') throw error("Expected a number");
+
+            long value = 0;
+            while (c >= '0' && c <= '9')
+            {
+                value = value * 10 + (c - '0');
+                if (value > 1L + Integer.MAX_VALUE) throw error("Number out of int range");
+                next();
+                c = peek();
+            }
+
+            if (negative) value = -value;
+            if (value > Integer.MAX_VALUE) throw error("Number out of int range");
+            return (int) value;
+        }
+
+        long readVarint() throws IOException
+        {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7)
+            {
+                int b = nextByte();
+                value |= (long) (b & 0x7F) << shift;
+                if (b < 0x80) return value;
+            }
+            throw new IOException("Varint longer than 10 bytes");
+        }
+
+        IOException error(String message)
+        {
+            return new IOException("Line " + line + ": " + message);
+        }
+    }
+
+    //
+    // DOT tokens: IDs (names and numerals), quoted strings, -> and --, and single punctuation
+    // characters; comments and whitespace are skipped. The text of the current ID or string is kept in
+    // a byte array, so tokens cost no Strings.
+    //
+    private static class DotTokenizer
+    {
+        static final int EOF = -1;
+        static final int ID = -2;
+        static final int QUOTED = -3;
+        static final int ARROW = -4;
+        static final int UNDIRECTED = -5;
+        private static final int NONE = -6;
+
+        private ByteReader in;
+        private byte[] text = new byte[64];
+        private int length;
+        private int pending = NONE;       // a token read by peek
+        private byte[] pendingText = new byte[64];
+        private int pendingLength;
+
+        DotTokenizer(ByteReader theReader)
+        {
+            in = theReader;
+        }
+
+        int next() throws IOException
+        {
+            if (pending == NONE) return Read();
+
+            int token = pending;
+            pending = NONE;
+            byte[] swap = text;
+            text = pendingText;
+            pendingText = swap;
+            length = pendingLength;
+            return token;
+        }
+
+        // The next token, keeping the text of the current one
+        int peek() throws IOException
+        {
+            if (pending != NONE) return pending;
+
+            byte[] swap = text;
+            int savedLength = length;
+            text = pendingText;
+            pending = Read();
+            pendingText = text;
+            pendingLength = length;
+            text = swap;
+            length = savedLength;
+            return pending;
+        }
+
+        private int Read() throws IOException
+        {
+            length = 0;
+            while (true)
+            {
+                int c = in.peek();
+                if (c == -1) return EOF;
+
+                if (c == ' ' || c == '\t' || c == '\r' || c == '\n')
+                {
+                    in.next();
+                }
+                else if (c == '#')
+                {
+                    in.skipLine();
+                }
+                else if (c == '/')
+                {
+                    in.next();
+                    int second = in.next();
+                    if (second == '/')
+                    {
+                        in.skipLine();
+                    }
+                    else if (second == '*')
+                    {
+                        int previous = 0;
+                        int d;
+                        while ((d = in.next()) != -1 && !(previous == '*' && d == '/'))
+                        {
+                            previous = d;
+                        }
+                    }
+                    else throw error("Unexpected /");
+                }
+                else break;
+            }
+
+            int c = in.next();
+            if (c == '"')
+            {
+                while ((c = in.next()) != '"')
+                {
+                    if (c == -1) throw error("Unterminated string");
+                    if (c == '\\') c = in.nextByte();
+                    Add(c);
+                }
+                return QUOTED;
+            }
+            if (c == '-' && (in.peek() == '>' || in.peek() == '-'))
+            {
+                return in.next() == '>' ? ARROW : UNDIRECTED;
+            }
+            if (IsIdByte(c) || c == '-')
+            {
+                Add(c);
+                while (IsIdByte(in.peek()))
+                {
+                    Add(in.next());
+                }
+                return ID;
+            }
+            return c;
+        }
+
+        private static boolean IsIdByte(int c)
+        {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '.' || c >= 0x80;
+        }
+
+        private void Add(int c)
+        {
+            if (length == text.length) text = Arrays.copyOf(text, 2 * length);
+            text[length++] = (byte) c;
+        }
+
+        // Whether the current ID or string is the given ASCII name, such as an attribute name
+        boolean is(String name)
+        {
+            if (length != name.length()) return false;
+            for (int i = 0; i < length; i++)
+            {
+                if (text[i] != name.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        // Whether the current ID is the given lower-case keyword; DOT keywords are case-insensitive
+        boolean isKeyword(String keyword)
+        {
+            if (length != keyword.length()) return false;
+            for (int i = 0; i < length; i++)
+            {
+                int c = text[i];
+                if (c >= 'A' && c <= 'Z') c += 'a' - 'A';
+                if (c != keyword.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        // The current ID or string as an int
+        int intValue() throws IOException
+        {
+            int i = 0;
+            boolean negative = length > 0 && text[0] == '-';
+            if (negative) i++;
+            if (i == length) throw error("Expected an integer");
+
+            long value = 0;
+            for (; i < length; i++)
+            {
+                if (text[i] < '0' || text[i] > '9') throw error("Expected an integer");
+                value = value * 10 + (text[i] - '0');
+                if (value > 1L + Integer.MAX_VALUE) throw error("Number out of int range");
+            }
+
+            if (negative) value = -value;
+            if (value > Integer.MAX_VALUE) throw error("Number out of int range");
+            return (int) value;
+        }
+
+        IOException error(String message)
+        {
+            return in.error(message);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package digraph;
+
+//
+// A lower bound on the distance between two vertex ids, used by A* (see Dijkstra) to steer the search
+// towards the target
+//
+// The estimate must never exceed the true distance (admissible) and must satisfy
+// estimate(u, t) <= weight(u, v) + estimate(v, t) for every edge (consistent); 0 everywhere turns
+// A* back into plain Dijkstra. Landmark (ALT) bounds and geometric distances with scaled weights
+// are the usual choices.
+//
+public interface Heuristic
+{
+    long estimate(int vertex, int target);
+}
@@ -0,0 +1,35 @@
+package digraph;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+//
+// Iterates array[from] .. array[to - 1] without boxing; used for CSR neighbor lists
+//
+public class IntArrayIterator implements PrimitiveIterator.OfInt
+{
+    private int[] array;
+    private int next;
+    private int end;
+
+    public IntArrayIterator(int[] theArray, int from, int to)
+    {
+        array = theArray;
+        next = from;
+        end = to;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return next < end;
+    }
+
+    @Override
+    public int nextInt()
+    {
+        if (next >= end) throw new NoSuchElementException();
+
+        return array[next++];
+    }
+}
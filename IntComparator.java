@@ -0,0 +1,10 @@
+package digraph;
+
+//
+// A comparator over primitive ints (vertex ids), so ordering vertices does not box them
+//
+@FunctionalInterface
+public interface IntComparator
+{
+    int compare(int a, int b);
+}
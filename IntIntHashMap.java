@@ -0,0 +1,222 @@
+package digraph;
+
+import java.util.Arrays;
+
+//
+// A map from primitive int to primitive int using open addressing with linear probing
+//
+// Used as the vertex index of the graphs (vertex id -> dense position), replacing linear
+// ArrayList.contains / indexOf scans with amortized O(1) lookups.
+//
+public class IntIntHashMap
+{
+    private static final int FREE = 0; // marks an empty slot; the key 0 itself is tracked separately
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private int[] values;
+    private boolean hasFreeKey;
+    private int freeValue;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public IntIntHashMap()
+    {
+        this(16);
+    }
+
+    public IntIntHashMap(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public IntIntHashMap(IntIntHashMap that)
+    {
+        keys = Arrays.copyOf(that.keys, that.keys.length);
+        values = Arrays.copyOf(that.values, that.values.length);
+        hasFreeKey = that.hasFreeKey;
+        freeValue = that.freeValue;
+        size = that.size;
+        mask = that.mask;
+        resizeAt = that.resizeAt;
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int mix(int key)
+    {
+        int h = key * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    public boolean containsKey(int key)
+    {
+        if (key == FREE) return hasFreeKey;
+
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE)
+        {
+            if (keys[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    //
+    // The value mapped to key, or missingValue if there is none
+    //
+    public int get(int key, int missingValue)
+    {
+        if (key == FREE) return hasFreeKey ? freeValue : missingValue;
+
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE)
+        {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    //
+    // Maps key to value; returns true if the key was not already present
+    //
+    public boolean put(int key, int value)
+    {
+        if (key == FREE)
+        {
+            boolean added = !hasFreeKey;
+            hasFreeKey = true;
+            freeValue = value;
+            if (added) size++;
+            return added;
+        }
+
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE)
+        {
+            if (keys[slot] == key)
+            {
+                values[slot] = value;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) rehash(keys.length << 1);
+        return true;
+    }
+
+    //
+    // Maps key to value only if the key is not already present; returns true if it was added
+    //
+    public boolean putIfAbsent(int key, int value)
+    {
+        if (containsKey(key)) return false;
+
+        return put(key, value);
+    }
+
+    //
+    // Removes key; returns the value it was mapped to, or missingValue if there was none
+    //
+    public int remove(int key, int missingValue)
+    {
+        if (key == FREE)
+        {
+            if (!hasFreeKey) return missingValue;
+            hasFreeKey = false;
+            size--;
+            return freeValue;
+        }
+
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE)
+        {
+            if (keys[slot] == key)
+            {
+                int value = values[slot];
+                shiftKeys(slot);
+                size--;
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    //
+    // Closes the gap left by a removed key by moving back the later keys of its probe run that may
+    // live there, so lookups never need tombstones
+    //
+    private void shiftKeys(int gap)
+    {
+        int slot = gap;
+        while (true)
+        {
+            slot = (slot + 1) & mask;
+            int key = keys[slot];
+            if (key == FREE)
+            {
+                keys[gap] = FREE;
+                return;
+            }
+
+            // The key stays put if its home slot lies cyclically in (gap, slot]
+            int home = mix(key) & mask;
+            boolean stays = gap <= slot ? (gap < home && home <= slot) : (gap < home || home <= slot);
+            if (stays) continue;
+
+            keys[gap] = key;
+                values[gap] = values[slot];
+            gap = slot;
+        }
+    }
+
+    private void rehash(int capacity)
+    {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] == FREE) continue;
+
+            int slot = mix(oldKeys[i]) & mask;
+            while (keys[slot] != FREE)
+            {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(keys, FREE);
+        hasFreeKey = false;
+        size = 0;
+    }
+}
@@ -0,0 +1,35 @@
+package digraph;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+//
+// Iterates a (possibly missing) List<Integer> by index as primitive ints; used for the neighbor lists of
+// the edge maps, so walking them allocates neither an Iterator over the list nor any Integer
+//
+public class IntListIterator implements PrimitiveIterator.OfInt
+{
+    private List<Integer> list;
+    private int next;
+
+    public IntListIterator(List<Integer> theList)
+    {
+        list = theList;
+        next = 0;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return list != null && next < list.size();
+    }
+
+    @Override
+    public int nextInt()
+    {
+        if (!hasNext()) throw new NoSuchElementException();
+
+        return list.get(next++);
+    }
+}
@@ -0,0 +1,137 @@
+package digraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+//
+// An int array indexed by long, in segments: mapped read-only from a file, or allocated off the heap
+//
+// A single ByteBuffer is limited to 2 GB (2^31 bytes), less than the targets of a graph with a billion
+// edges. The array is therefore kept as consecutive segments of SEGMENT_INTS ints each (only the last
+// one may be shorter), and element i is found in segment i >> SEGMENT_SHIFT.
+//
+// map: nothing is copied; every get reads the page cache through the mapping, so several processes
+// mapping the same file share its pages. The ints are stored little-endian.
+//
+// allocateDirect: the segments are direct ByteBuffers in native byte order. They are outside the Java
+// heap, so the garbage collector neither scans nor moves them however large they are; the memory is
+// returned when the IntSegments becomes unreachable, and counts against -XX:MaxDirectMemorySize.
+//
+public class IntSegments
+{
+    public static final int SEGMENT_SHIFT = 28;                 // 2^28 ints = 1 GB per segment
+    public static final int SEGMENT_INTS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_INTS - 1;
+
+    private IntBuffer[] segments;
+    private long length;
+
+    private IntSegments(IntBuffer[] theSegments, long theLength)
+    {
+        segments = theSegments;
+        length = theLength;
+    }
+
+    //
+    // Maps length ints of a file starting at byte position, read-only
+    //
+    public static IntSegments map(FileChannel channel, long position, long length) throws IOException
+    {
+        int numSegments = (int) ((length + SEGMENT_INTS - 1) >> SEGMENT_SHIFT);
+        IntBuffer[] segments = new IntBuffer[Math.max(numSegments, 1)];
+
+        for (int s = 0; s < numSegments; s++)
+        {
+            long start = (long) s << SEGMENT_SHIFT;
+            long ints = Math.min(SEGMENT_INTS, length - start);
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, position + start * 4, ints * 4)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        }
+        if (numSegments == 0) segments[0] = IntBuffer.allocate(0);
+
+        return new IntSegments(segments, length);
+    }
+
+    //
+    // length zeroed ints off the heap
+    //
+    public static IntSegments allocateDirect(long length)
+    {
+        IntSegments array = new IntSegments(new IntBuffer[] { IntBuffer.allocate(0) }, 0);
+        array.setLength(length);
+        return array;
+    }
+
+    //
+    // Grows or shrinks a direct array, keeping the ints below the new length; new ints are zero. Only
+    // the last segment is reallocated (and copied), the full ones before it are kept.
+    //
+    public void setLength(long newLength)
+    {
+        int numSegments = (int) ((newLength + SEGMENT_INTS - 1) >> SEGMENT_SHIFT);
+        IntBuffer[] resized = new IntBuffer[Math.max(numSegments, 1)];
+        resized[0] = IntBuffer.allocate(0);
+
+        for (int s = 0; s < numSegments; s++)
+        {
+            int ints = (int) Math.min(SEGMENT_INTS, newLength - ((long) s << SEGMENT_SHIFT));
+            IntBuffer old = s < segments.length ? segments[s] : null;
+            if (old != null && old.capacity() == ints)
+            {
+                resized[s] = old;
+                continue;
+            }
+
+            resized[s] = ByteBuffer.allocateDirect(ints * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+            if (old != null)
+            {
+                int keep = Math.min(old.capacity(), ints);
+                resized[s].put(old.duplicate().clear().limit(keep)).clear();
+            }
+        }
+
+        segments = resized;
+        length = newLength;
+    }
+
+    public void set(long i, int value)
+    {
+        segments[(int) (i >>> SEGMENT_SHIFT)].put((int) (i & SEGMENT_MASK), value);
+    }
+
+    public int get(long i)
+    {
+        return segments[(int) (i >>> SEGMENT_SHIFT)].get((int) (i & SEGMENT_MASK));
+    }
+
+    public long length()
+    {
+        return length;
+    }
+
+    //
+    // A read-only view of ints from..to-1, sharing the mapping when they lie in one segment (always the
+    // case for runs of at most SEGMENT_INTS ints that do not cross a segment boundary); otherwise a copy
+    //
+    public IntBuffer view(long from, long to)
+    {
+        int first = (int) (from >>> SEGMENT_SHIFT);
+        int size = (int) (to - from);
+
+        if (first == (int) ((to - 1) >>> SEGMENT_SHIFT) || size == 0)
+        {
+            int start = (int) (from & SEGMENT_MASK);
+            return segments[Math.min(first, segments.length - 1)].duplicate().position(start).limit(start + size).slice().asReadOnlyBuffer();
+        }
+
+        int[] copy = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            copy[i] = get(from + i);
+        }
+        return IntBuffer.wrap(copy).asReadOnlyBuffer();
+    }
+}
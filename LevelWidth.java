@@ -0,0 +1,142 @@
+package digraph;
+
+import java.util.Arrays;
+
+//
+// Level-synchronous breadth-first traversal over a CSRGraph that reports how many vertices sit on each level
+//
+// Starting from a set of seed vertices (level 0) every vertex is counted once, on the first level at
+// which it is reached. Visited vertices are tracked in a bitset and the current and next frontiers
+// live in two int[] buffers that are swapped after every level, so a traversal is O(V + E) and does
+// not allocate beyond the returned profile. The buffers are kept between calls; an instance is
+// therefore not safe for use by several threads at once.
+//
+public class LevelWidth
+{
+    private FrozenGraph graph;
+    private long[] visited;
+    private int[] frontier;
+    private int[] next;
+    private int[] widths;     // widths[l] = number of vertices on level l
+    private int numLevels;
+    private int numVisited;
+
+    public LevelWidth(FrozenGraph theGraph)
+    {
+        graph = theGraph;
+
+        int n = graph.getNumVertices();
+        visited = new long[(n + 63) >>> 6];
+        frontier = new int[n];
+        next = new int[n];
+        widths = new int[Math.max(n, 1)];
+    }
+
+    //
+    // The dense indices of the sinks (vertices without out-edges), the usual seeds of a backward traversal
+    //
+    public static int[] sinks(FrozenGraph graph)
+    {
+        int count = 0;
+        for (int v = 0; v < graph.getNumVertices(); v++)
+        {
+            if (graph.getOutDegree(v) == 0) count++;
+        }
+
+        int[] sinks = new int[count];
+        count = 0;
+        for (int v = 0; v < graph.getNumVertices(); v++)
+        {
+            if (graph.getOutDegree(v) == 0) sinks[count++] = v;
+        }
+
+        return sinks;
+    }
+
+    //
+    // Traverses from the seed vertices (dense indices) along the out-edges (forward) or along the
+    // in-edges (backward, from the goal towards the sources) and returns the width of every level
+    //
+    public int[] getWidthProfile(int[] seeds, boolean forward)
+    {
+        Arrays.fill(visited, 0L);
+        numLevels = 0;
+        numVisited = 0;
+
+        int frontierSize = 0;
+        for (int seed : seeds)
+        {
+            if (Visit(seed)) frontier[frontierSize++] = seed;
+        }
+
+        while (frontierSize > 0)
+        {
+            widths[numLevels++] = frontierSize;
+            numVisited += frontierSize;
+
+            int nextSize = 0;
+            for (int f = 0; f < frontierSize; f++)
+            {
+                int v = frontier[f];
+                int degree = forward ? graph.getOutDegree(v) : graph.getInDegree(v);
+                for (int i = 0; i < degree; i++)
+                {
+                    int w = forward ? graph.getOutNeighbor(v, i) : graph.getInNeighbor(v, i);
+                    if (Visit(w)) next[nextSize++] = w;
+                }
+            }
+
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            frontierSize = nextSize;
+        }
+
+        return Arrays.copyOf(widths, numLevels);
+    }
+
+    // Marks a vertex visited; false if it already was
+    private boolean Visit(int v)
+    {
+        long bit = 1L << v;
+        if ((visited[v >>> 6] & bit) != 0) return false;
+
+        visited[v >>> 6] |= bit;
+        return true;
+    }
+
+    //
+    // The largest level width of the last traversal
+    //
+    public int getMaxWidth()
+    {
+        int max = 0;
+        for (int l = 0; l < numLevels; l++)
+        {
+            if (widths[l] > max) max = widths[l];
+        }
+        return max;
+    }
+
+    public int getNumLevels()
+    {
+        return numLevels;
+    }
+
+    //
+    // How many vertices the last traversal reached; less than the number of vertices if some cannot
+    // reach (or be reached from) the seeds
+    //
+    public int getNumVisited()
+    {
+        return numVisited;
+    }
+
+    //
+    // Whether the last traversal reached a dense vertex
+    //
+    public boolean isVisited(int index)
+    {
+        return (visited[index >>> 6] & (1L << index)) != 0;
+    }
+}
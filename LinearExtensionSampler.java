@@ -0,0 +1,130 @@
+package digraph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+//
+// Random linear extensions of a DAG, for graphs with far too many extensions to enumerate
+//
+// A Markov chain walks over the linear extensions by swapping neighbors: a step picks a position i and,
+// with probability 1/2, swaps the vertices at i and i + 1 if no edge orders them. Every such chain is
+// symmetric, so its stationary distribution is uniform over the extensions.
+//
+//   Karzanov-Khachiyan: i uniform over the n - 1 positions, mixing in O(n^4 log n) steps
+//   Bubley-Dyer:        i with probability proportional to i (n - i), mixing in O(n^3 log n) steps
+//
+// sample() runs the chain for the configured number of steps from where the last sample left off and
+// returns the current extension; with enough steps in between, consecutive samples are approximately
+// independent and uniform. The default is the Bubley-Dyer bound n^3 ln(n) / 4 rounded up.
+//
+// An instance holds the walk and is not safe for use by several threads at once.
+//
+public class LinearExtensionSampler
+{
+    private FrozenGraph graph;
+    private Random random;
+    private boolean bubleyDyer;
+    private long stepsPerSample;
+
+    private LongHashSet edges;  // Edge.key(v, w) over dense indices
+    private int[] order;        // the current extension, dense indices
+    private long[] cumulative;  // Bubley-Dyer: cumulative weights of the positions
+    private int[] sample;       // the vertex ids handed out
+
+    public LinearExtensionSampler(FrozenGraph theGraph, Random theRandom)
+    {
+        this(theGraph, theRandom, true);
+    }
+
+    //
+    // bubleyDyer == false: Karzanov-Khachiyan position choice
+    //
+    public LinearExtensionSampler(FrozenGraph theGraph, Random theRandom, boolean isBubleyDyer)
+    {
+        graph = theGraph;
+        random = theRandom;
+        bubleyDyer = isBubleyDyer;
+
+        order = new TopologicalOrder(graph).getOrder();
+        if (order == null) throw new IllegalStateException("Linear extensions need an acyclic graph");
+        order = order.clone();
+
+        int n = graph.getNumVertices();
+        edges = new LongHashSet(graph.getNumEdges());
+        for (int v = 0; v < n; v++)
+        {
+            for (int i = 0; i < graph.getOutDegree(v); i++)
+            {
+                edges.add(Edge.key(v, graph.getOutNeighbor(v, i)));
+            }
+        }
+
+        // Position i (0-based, swapping i and i + 1) has weight (i + 1) * (n - 1 - i)
+        cumulative = new long[Math.max(n - 1, 0)];
+        long total = 0;
+        for (int i = 0; i < n - 1; i++)
+        {
+            total += (long) (i + 1) * (n - 1 - i);
+            cumulative[i] = total;
+        }
+
+        double steps = n < 2 ? 0 : Math.ceil(Math.pow(n, 3) * Math.log(n) / 4);
+        stepsPerSample = (long) Math.min(steps, Long.MAX_VALUE);
+        sample = new int[n];
+    }
+
+    public void setStepsPerSample(long steps)
+    {
+        stepsPerSample = steps;
+    }
+
+    public long getStepsPerSample()
+    {
+        return stepsPerSample;
+    }
+
+    //
+    // Advances the chain and returns the vertex ids of the current extension; the array is overwritten
+    // by the next sample
+    //
+    public int[] sample()
+    {
+        step(stepsPerSample);
+
+        for (int i = 0; i < order.length; i++)
+        {
+            sample[i] = graph.getLabel(order[i]);
+        }
+        return sample;
+    }
+
+    //
+    // Runs the chain for a number of steps
+    //
+    public void step(long steps)
+    {
+        int n = order.length;
+        if (n < 2) return;
+
+        for (long s = 0; s < steps; s++)
+        {
+            int i = bubleyDyer ? Position() : random.nextInt(n - 1);
+            if (!random.nextBoolean()) continue;
+
+            int a = order[i];
+            int b = order[i + 1];
+            if (edges.contains(Edge.key(a, b))) continue;
+
+            order[i] = b;
+            order[i + 1] = a;
+        }
+    }
+
+    // A position drawn with probability proportional to its Bubley-Dyer weight
+    private int Position()
+    {
+        long r = (long) (random.nextDouble() * cumulative[cumulative.length - 1]);
+        int i = Arrays.binarySearch(cumulative, r + 1);
+        return i >= 0 ? i : -i - 1;
+    }
+}
@@ -0,0 +1,298 @@
+package digraph;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+//
+// All linear extensions (topological sorts) of a DAG, generated one at a time rather than collected
+//
+// Enumeration is Varol and Rotem's algorithm (Knuth, TAOCP 7.2.1.2, Algorithm V). The vertices are
+// renumbered 1..n along one topological order, so that the identity permutation is the first extension.
+// Each step tries to move the largest element k one place to the left; if the element in front of it
+// must precede it, k is put back at its home position and the step moves on to k - 1. Since two
+// neighbors of a valid extension can only be ordered by a direct edge, "must precede" is a single
+// lookup in a hash set of edges. The total work is constant amortized per extension.
+//
+// Only one permutation exists at any time: a[] (positions -> elements) and its inverse, mirrored into
+// one int[] of vertex ids that is handed to the visitor or returned by the iterator. Nothing is kept
+// per extension, so the enumeration can run (or be stopped) at any size.
+//
+// The number of extensions is counted separately without enumerating them (see count).
+//
+public class LinearExtensions implements Iterable<int[]>
+{
+    private FrozenGraph graph;
+    private int n;
+    private int[] label;         // element 1..n -> vertex id
+    private LongHashSet before;  // Edge.key(j, k) for every edge between elements j and k
+
+    public LinearExtensions(FrozenGraph theGraph)
+    {
+        graph = theGraph;
+        n = graph.getNumVertices();
+
+        int[] order = new TopologicalOrder(graph).getOrder();
+        if (order == null) throw new IllegalStateException("Linear extensions need an acyclic graph");
+
+        int[] element = new int[n];   // dense vertex -> element
+        label = new int[n + 1];
+        for (int i = 0; i < n; i++)
+        {
+            element[order[i]] = i + 1;
+            label[i + 1] = graph.getLabel(order[i]);
+        }
+
+        before = new LongHashSet(graph.getNumEdges());
+        for (int v = 0; v < n; v++)
+        {
+            for (int i = 0; i < graph.getOutDegree(v); i++)
+            {
+                before.add(Edge.key(element[v], element[graph.getOutNeighbor(v, i)]));
+            }
+        }
+    }
+
+    public FrozenGraph getGraph()
+    {
+        return graph;
+    }
+
+    //
+    // Hands every linear extension to the visitor until it returns false; returns how many it was given
+    //
+    public long visitAll(LinearizationVisitor visitor)
+    {
+        return visitAll(visitor, new int[0]);
+    }
+
+    //
+    // As visitAll, with every extension preceded by a fixed prefix of vertex ids in the visited array
+    // (see ParallelLinearExtensions)
+    //
+    long visitAll(LinearizationVisitor visitor, int[] prefix)
+    {
+        Enumeration walk = new Enumeration(prefix);
+
+        long visited = 0;
+        do
+        {
+            visited++;
+            if (!visitor.visit(walk.order)) break;
+        }
+        while (walk.Advance());
+
+        return visited;
+    }
+
+    //
+    // A lazy iterator over the linear extensions; next() returns the same array every time, updated in
+    // place, so copy it to keep an extension
+    //
+    @Override
+    public Iterator<int[]> iterator()
+    {
+        return new Iterator<int[]>()
+        {
+            private Enumeration walk = new Enumeration(new int[0]);
+            private boolean ready = true; // walk holds an extension that has not been returned yet
+
+            @Override
+            public boolean hasNext()
+            {
+                if (!ready && walk != null)
+                {
+                    ready = walk.Advance();
+                    if (!ready) walk = null;
+                }
+                return ready;
+            }
+
+            @Override
+            public int[] next()
+            {
+                if (!hasNext()) throw new NoSuchElementException();
+
+                ready = false;
+                return walk.order;
+            }
+        };
+    }
+
+    //
+    // The state of one enumeration (Algorithm V). a[0] = 0 is a sentinel that precedes every element.
+    //
+    private class Enumeration
+    {
+        int[] a = new int[n + 1];
+        int[] inverse = new int[n + 1];
+        int[] order;                // order[offset + j - 1] = label[a[j]], behind a fixed prefix
+        int offset;
+
+        Enumeration(int[] prefix)
+        {
+            offset = prefix.length;
+            order = Arrays.copyOf(prefix, offset + n);
+
+            for (int j = 0; j <= n; j++)
+            {
+                a[j] = inverse[j] = j;
+            }
+            for (int j = 1; j <= n; j++)
+            {
+                order[offset + j - 1] = label[j];
+            }
+        }
+
+        // Moves to the next extension; false when all have been generated
+        boolean Advance()
+        {
+            for (int k = n; k > 0; k--)
+            {
+                int j = inverse[k];
+                int l = a[j - 1];
+
+                if (l != 0 && !before.contains(Edge.key(l, k)))
+                {
+                    // k moves one place to the left
+                    Place(j - 1, k);
+                    Place(j, l);
+                    return true;
+                }
+
+                // k cannot move further: rotate it back home to position k
+                while (j < k)
+                {
+                    Place(j, a[j + 1]);
+                    j++;
+                }
+                Place(k, k);
+            }
+
+            return false;
+        }
+
+        private void Place(int j, int element)
+        {
+            a[j] = element;
+            inverse[element] = j;
+            order[offset + j - 1] = label[element];
+        }
+    }
+
+    //
+    // The number of linear extensions of a DAG, without enumerating them
+    //
+    // Every prefix of an extension is a downset (a set closed under predecessors), and the extensions
+    // are exactly the paths from the empty downset to the full one that add one vertex at a time. So
+    // ways(D + x) += ways(D) over the downsets level by level counts them all.
+    //
+    // The vertices are covered by chains (each vertex follows a predecessor in its chain), and a
+    // downset meets every chain in a prefix; the prefix lengths, read as a mixed-radix number, are its
+    // key. The number of downsets is at most the product of (chain length + 1), so this is practical
+    // when the graph is narrow; maxDownsets bounds the work of a single level.
+    //
+    public static BigInteger count(FrozenGraph graph)
+    {
+        return count(graph, 1 << 22);
+    }
+
+    public static BigInteger count(FrozenGraph graph, int maxDownsets)
+    {
+        int n = graph.getNumVertices();
+        int[] order = new TopologicalOrder(graph).getOrder();
+        if (order == null) throw new IllegalStateException("Linear extensions need an acyclic graph");
+
+        // Greedy chain cover along the topological order: extend a chain whose last vertex is a direct
+        // predecessor, else start a new chain
+        int[] chainOf = new int[n];
+        int[] position = new int[n];
+        int[] chainLength = new int[Math.max(n, 1)];
+        int[] chainTail = new int[Math.max(n, 1)];
+        int[] tailChain = new int[n];
+        Arrays.fill(tailChain, -1);
+
+        int numChains = 0;
+        for (int v : order)
+        {
+            int chain = -1;
+            for (int i = 0; i < graph.getInDegree(v) && chain < 0; i++)
+            {
+                int u = graph.getInNeighbor(v, i);
+                if (tailChain[u] >= 0) chain = tailChain[u];
+            }
+            if (chain < 0) chain = numChains++;
+            else tailChain[chainTail[chain]] = -1;
+
+            chainOf[v] = chain;
+            position[v] = chainLength[chain]++;
+            chainTail[chain] = v;
+            tailChain[v] = chain;
+        }
+
+        int[][] members = new int[numChains][];
+        long[] radix = new long[numChains];   // weight of a chain's prefix length in the key
+        long weight = 1;
+        for (int c = 0; c < numChains; c++)
+        {
+            members[c] = new int[chainLength[c]];
+            radix[c] = weight;
+            if (weight > Long.MAX_VALUE / (chainLength[c] + 1))
+            {
+                throw new IllegalArgumentException("Too wide to count by downsets (" + numChains + " chains)");
+            }
+            weight *= chainLength[c] + 1;
+        }
+        for (int v = 0; v < n; v++)
+        {
+            members[chainOf[v]][position[v]] = v;
+        }
+
+        HashMap<Long, BigInteger> level = new HashMap<Long, BigInteger>();
+        level.put(0L, BigInteger.ONE);
+        int[] prefix = new int[numChains];
+
+        for (int size = 0; size < n; size++)
+        {
+            HashMap<Long, BigInteger> next = new HashMap<Long, BigInteger>();
+
+            for (Map.Entry<Long, BigInteger> entry : level.entrySet())
+            {
+                long key = entry.getKey();
+                for (int c = 0; c < numChains; c++)
+                {
+                    prefix[c] = (int) ((key / radix[c]) % (chainLength[c] + 1));
+                }
+
+                // x can be added when it is next on its chain and all its predecessors are in the downset
+                for (int c = 0; c < numChains; c++)
+                {
+                    if (prefix[c] == chainLength[c]) continue;
+
+                    int x = members[c][prefix[c]];
+                    boolean free = true;
+                    for (int i = 0; i < graph.getInDegree(x) && free; i++)
+                    {
+                        int u = graph.getInNeighbor(x, i);
+                        free = position[u] < prefix[chainOf[u]];
+                    }
+                    if (!free) continue;
+
+                    next.merge(key + radix[c], entry.getValue(), BigInteger::add);
+                }
+            }
+
+            if (next.size() > maxDownsets)
+            {
+                throw new IllegalArgumentException("More than " + maxDownsets + " downsets of size " + (size + 1));
+            }
+            level = next;
+        }
+
+        // The only downset of size n is the whole graph
+        return level.get(weight - 1);
+    }
+}
@@ -1,67 +1,375 @@
 package digraph;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 
-public class Linearization<T>
+//
+// One linearization (topological sort), or a prefix of one, as a sequence of node ids
+//
+// The ids live in a growable int[], so push / pop (and addNode / removeLast) are O(1) and a
+// linearization costs 4 bytes per node instead of a reference to every Node. Nodes are resolved on
+// demand through the graph the linearization belongs to; only linearizations built from Node objects
+// without a graph remember those objects.
+//
+// Two compact, collision-free encodings are provided:
+//
+//   toBytes / fromBytes: the length and then every id as an unsigned LEB128 varint (1 byte per id
+//                        below 128, 2 below 16384)
+//   rank / unrank:       the position of a permutation of 0..n-1 among all n! permutations in
+//                        lexicographic order, from its Lehmer code
+//
+// equals and hashCode compare the id sequences, and compareTo orders them lexicographically (a proper
+// prefix first), so linearizations can be deduplicated in hash or tree sets directly.
+//
+public class Linearization<T> implements Comparable<Linearization<T>>
 {
-    private ArrayList<Node<T>> nodes;
-    
+    private static final int FIRST_PRINTABLE = 33;  // '!'
+    private static final int NUM_PRINTABLE = 94;    // '!' .. '~'
+
+    private int[] ids;
+    private int size;
+    private DiGraph<T> graph;   // resolves ids to nodes; null if unknown
+    private Object[] nodes;     // nodes passed to addNode when there is no graph; otherwise null
+
     public Linearization()
     {
-        nodes = new ArrayList<Node<T>>();
+        this(null, 8);
+    }
+
+    public Linearization(DiGraph<T> theGraph, int capacity)
+    {
+        graph = theGraph;
+        ids = new int[Math.max(capacity, 1)];
+    }
+
+    //
+    // A linearization of a graph's node ids (copied)
+    //
+    public Linearization(DiGraph<T> theGraph, int[] theIds)
+    {
+        graph = theGraph;
+        ids = Arrays.copyOf(theIds, Math.max(theIds.length, 1));
+        size = theIds.length;
+    }
+
+    public Linearization(Linearization<T> that)
+    {
+        graph = that.graph;
+        ids = Arrays.copyOf(that.ids, that.ids.length);
+        size = that.size;
+        if (that.nodes != null) nodes = Arrays.copyOf(that.nodes, that.nodes.length);
+    }
+
+    public void push(int id)
+    {
+        if (size == ids.length)
+        {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            if (nodes != null) nodes = Arrays.copyOf(nodes, ids.length);
+        }
+        ids[size++] = id;
+    }
+
+    public int pop()
+    {
+        if (size == 0) throw new IllegalStateException("The linearization is empty");
+
+        size--;
+        if (nodes != null) nodes[size] = null;
+        return ids[size];
+    }
+
+    public int getId(int index)
+    {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + ", length " + size);
+
+        return ids[index];
+    }
+
+    public int getLength()
+    {
+        return size;
+    }
+
+    public DiGraph<T> getGraph()
+    {
+        return graph;
     }
-    
+
     public void addNode(Node<T> newNode)
     {
-        nodes.add(newNode);
+        push(newNode.getId());
+        if (graph == null)
+        {
+            if (nodes == null) nodes = new Object[ids.length];
+            nodes[size - 1] = newNode;
+        }
     }
-    
+
+    @SuppressWarnings("unchecked")
     public Node<T> getNode(int index)
     {
-        return nodes.get(index);
+        int id = getId(index);
+        if (nodes != null && nodes[index] != null) return (Node<T>) nodes[index];
+        if (graph == null) throw new IllegalStateException("Node " + id + " has no graph to be resolved in");
+
+        return graph.getNode(id);
     }
-    
+
+    //
+    // A new list of the nodes, in order
+    //
     public ArrayList<Node<T>> getNodes()
     {
-        return nodes;
+        ArrayList<Node<T>> list = new ArrayList<Node<T>>(size);
+        for (int i = 0; i < size; i++)
+        {
+            list.add(getNode(i));
+        }
+        return list;
     }
-    
+
     public Node<T> removeLast()
     {
-        Node<T> lastNode = nodes.get(nodes.size() - 1);
-        nodes.remove(lastNode);
+        Node<T> lastNode = getNode(size - 1);
+        pop();
         return lastNode;
     }
-    
+
+    //
+    // One printable character per node ('!' + id) while every id is below 94; beyond that every id
+    // takes the same number of base-94 digits, so the string stays unambiguous for any graph size
+    //
     public String toASCIIString()
     {
-        String linearization = new String();
-        
-        for(Node currNode: nodes)
+        int max = 0;
+        for (int i = 0; i < size; i++)
         {
-            Integer charInt = currNode.getId() + 33;
-            char ASCIIChar = (char) Character.toLowerCase(charInt);
-            linearization += ASCIIChar;
+            max = Math.max(max, ids[i]);
         }
-        
-        return linearization;
+
+        int width = 1;
+        for (long limit = NUM_PRINTABLE; limit <= max; limit *= NUM_PRINTABLE)
+        {
+            width++;
+        }
+
+        char[] digits = new char[width];
+        StringBuilder linearization = new StringBuilder(size * width);
+        for (int i = 0; i < size; i++)
+        {
+            int id = ids[i];
+            for (int d = width - 1; d >= 0; d--)
+            {
+                digits[d] = (char) (FIRST_PRINTABLE + id % NUM_PRINTABLE);
+                id /= NUM_PRINTABLE;
+            }
+            linearization.append(digits);
+        }
+
+        return linearization.toString();
     }
-    
+
     public int[] toArray()
     {
-        int[] ary = new int[nodes.size()];
-        int index = 0;
-        for(Node<T> currNode: nodes)
+        return Arrays.copyOf(ids, size);
+    }
+
+    //
+    // The varint encoding: the length, then the ids, each as an unsigned LEB128 varint
+    //
+    public byte[] toBytes()
+    {
+        int length = VarintSize(size);
+        for (int i = 0; i < size; i++)
+        {
+            length += VarintSize(ids[i]);
+        }
+
+        byte[] bytes = new byte[length];
+        int pos = WriteVarint(bytes, 0, size);
+        for (int i = 0; i < size; i++)
+        {
+            pos = WriteVarint(bytes, pos, ids[i]);
+        }
+        return bytes;
+    }
+
+    public static <T> Linearization<T> fromBytes(byte[] bytes, DiGraph<T> theGraph)
+    {
+        int[] pos = new int[1];
+        int length = ReadVarint(bytes, pos);
+
+        Linearization<T> linearization = new Linearization<T>(theGraph, length);
+        for (int i = 0; i < length; i++)
+        {
+            linearization.push(ReadVarint(bytes, pos));
+        }
+        if (pos[0] != bytes.length) throw new IllegalArgumentException("Trailing bytes after the linearization");
+
+        return linearization;
+    }
+
+    private static int VarintSize(int value)
+    {
+        int bytes = 1;
+        while ((value >>>= 7) != 0)
+        {
+            bytes++;
+        }
+        return bytes;
+    }
+
+    private static int WriteVarint(byte[] bytes, int pos, int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            bytes[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int ReadVarint(byte[] bytes, int[] pos)
+    {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7)
+        {
+            if (pos[0] >= bytes.length) throw new IllegalArgumentException("Truncated varint");
+
+            byte b = bytes[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalArgumentException("Varint longer than 5 bytes");
+    }
+
+    //
+    // The lexicographic rank of this linearization among the permutations of 0..n-1, where n is its
+    // length; throws IllegalStateException unless it is such a permutation (a full linearization of a
+    // graph with ids 0..n-1). The Lehmer digit of position i is the number of smaller ids after it,
+    // found with a Fenwick tree, and rank = sum of digit(i) * (n - 1 - i)!, in O(n log n) plus the
+    // arithmetic on the result.
+    //
+    public BigInteger rank()
+    {
+        int n = size;
+        int[] tree = new int[n + 1];   // Fenwick tree over the ids seen so far
+        boolean[] seen = new boolean[n];
+
+        BigInteger rank = BigInteger.ZERO;
+        long small = 0;                // the rank while it fits a long (n <= 20)
+        boolean isSmall = n <= 20;
+
+        for (int i = 0; i < n; i++)
+        {
+            int id = ids[i];
+            if (id < 0 || id >= n || seen[id]) throw new IllegalStateException("Not a permutation of 0.." + (n - 1));
+            seen[id] = true;
+
+            int smallerSeen = 0;
+            for (int j = id; j > 0; j -= j & -j)
+            {
+                smallerSeen += tree[j];
+            }
+            for (int j = id + 1; j <= n; j += j & -j)
+            {
+                tree[j]++;
+            }
+
+            int digit = id - smallerSeen;
+            if (isSmall) small = small * (n - i) + digit;
+            else rank = rank.multiply(BigInteger.valueOf(n - i)).add(BigInteger.valueOf(digit));
+        }
+
+        return isSmall ? BigInteger.valueOf(small) : rank;
+    }
+
+    //
+    // The permutation of 0..n-1 with the given rank (the inverse of rank())
+    //
+    public static <T> Linearization<T> unrank(BigInteger rank, int n, DiGraph<T> theGraph)
+    {
+        if (rank.signum() < 0) throw new IllegalArgumentException("Negative rank " + rank);
+
+        // Lehmer digits from the last position to the first, digit(i) < n - i
+        int[] digit = new int[n];
+        for (int i = n - 1; i >= 0; i--)
+        {
+            BigInteger[] division = rank.divideAndRemainder(BigInteger.valueOf(n - i));
+            digit[i] = division[1].intValue();
+            rank = division[0];
+        }
+        if (rank.signum() != 0) throw new IllegalArgumentException("Rank out of range for " + n + " elements");
+
+        // The digit(i)-th smallest unused id, by binary descent over a Fenwick tree of unused ids
+        int[] tree = new int[n + 1];
+        for (int j = 1; j <= n; j++)
+        {
+            tree[j]++;
+            int parent = j + (j & -j);
+            if (parent <= n) tree[parent] += tree[j];
+        }
+        int top = n == 0 ? 0 : Integer.highestOneBit(n);
+
+        Linearization<T> linearization = new Linearization<T>(theGraph, n);
+        for (int i = 0; i < n; i++)
+        {
+            int pos = 0;
+            int remaining = digit[i];
+            for (int step = top; step > 0; step >>= 1)
+            {
+                if (pos + step <= n && tree[pos + step] <= remaining)
+                {
+                    pos += step;
+                    remaining -= tree[pos];
+                }
+            }
+
+            // pos is the count of ids before the chosen one, so the id is pos (0-based)
+            for (int j = pos + 1; j <= n; j += j & -j)
+            {
+                tree[j]--;
+            }
+            linearization.push(pos);
+        }
+        return linearization;
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        if (this == other) return true;
+        if (!(other instanceof Linearization)) return false;
+
+        Linearization<?> that = (Linearization<?>) other;
+        return Arrays.equals(ids, 0, size, that.ids, 0, that.size);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = 1;
+        for (int i = 0; i < size; i++)
         {
-            ary[index] = currNode.getId();
-            index++;
+            hash = 31 * hash + ids[i];
         }
-        return ary;
+        return hash;
     }
-    
+
+    @Override
+    public int compareTo(Linearization<T> that)
+    {
+        return Arrays.compare(ids, 0, size, that.ids, 0, that.size);
+    }
+
     @Override
     public String toString()
     {
-        return nodes.toString();
+        if (graph == null && nodes == null) return Arrays.toString(toArray());
+
+        return getNodes().toString();
     }
 }
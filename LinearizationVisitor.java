@@ -0,0 +1,13 @@
+package digraph;
+
+//
+// Receives linear extensions (topological sorts) one at a time as the vertex ids in order
+//
+// The array is the enumerator's working buffer: it is overwritten by the next extension, so copy it to
+// keep it. Return false to stop the enumeration.
+//
+@FunctionalInterface
+public interface LinearizationVisitor
+{
+    boolean visit(int[] order);
+}
@@ -0,0 +1,186 @@
+package digraph;
+
+import java.util.Arrays;
+
+//
+// A set of primitive longs using open addressing with linear probing
+//
+// Used as the edge index of the graphs: an edge (from, to) is packed into a single long key
+// (see Edge.key) so duplicate-edge checks are amortized O(1) with no boxing or per-entry objects.
+//
+public class LongHashSet
+{
+    private static final long FREE = 0L; // marks an empty slot; the key 0 itself is tracked separately
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private boolean hasFreeKey;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public LongHashSet()
+    {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public LongHashSet(LongHashSet that)
+    {
+        keys = Arrays.copyOf(that.keys, that.keys.length);
+        hasFreeKey = that.hasFreeKey;
+        size = that.size;
+        mask = that.mask;
+        resizeAt = that.resizeAt;
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Murmur3 finalizer, so that packed (from, to) keys spread over the whole table
+    private static int mix(long key)
+    {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    public boolean contains(long key)
+    {
+        if (key == FREE) return hasFreeKey;
+
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE)
+        {
+            if (keys[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    //
+    // Returns true if the key was not already present
+    //
+    public boolean add(long key)
+    {
+        if (key == FREE)
+        {
+            if (hasFreeKey) return false;
+            hasFreeKey = true;
+            size++;
+            return true;
+        }
+
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE)
+        {
+            if (keys[slot] == key) return false;
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        if (++size >= resizeAt) rehash(keys.length << 1);
+        return true;
+    }
+
+    //
+    // Returns true if the key was present
+    //
+    public boolean remove(long key)
+    {
+        if (key == FREE)
+        {
+            if (!hasFreeKey) return false;
+            hasFreeKey = false;
+            size--;
+            return true;
+        }
+
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE)
+        {
+            if (keys[slot] == key)
+            {
+                shiftKeys(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    //
+    // Closes the gap left by a removed key by moving back the later keys of its probe run that may
+    // live there, so lookups never need tombstones
+    //
+    private void shiftKeys(int gap)
+    {
+        int slot = gap;
+        while (true)
+        {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == FREE)
+            {
+                keys[gap] = FREE;
+                return;
+            }
+
+            // The key stays put if its home slot lies cyclically in (gap, slot]
+            int home = mix(key) & mask;
+            boolean stays = gap <= slot ? (gap < home && home <= slot) : (gap < home || home <= slot);
+            if (stays) continue;
+
+            keys[gap] = key;
+            gap = slot;
+        }
+    }
+
+    private void rehash(int capacity)
+    {
+        long[] oldKeys = keys;
+        allocate(capacity);
+
+        for (long key : oldKeys)
+        {
+            if (key == FREE) continue;
+
+            int slot = mix(key) & mask;
+            while (keys[slot] != FREE)
+            {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(keys, FREE);
+        hasFreeKey = false;
+        size = 0;
+    }
+}
@@ -0,0 +1,228 @@
+package digraph;
+
+import java.util.Arrays;
+
+//
+// A map from primitive long to primitive int using open addressing with linear probing
+//
+// Keyed by packed edges (see Edge.key): DiGraph maps every edge to its id in the edge table and
+// DiGraphInt maps it to its positions in the adjacency lists, so an edge is found for removal in
+// amortized O(1).
+//
+public class LongIntHashMap
+{
+    private static final long FREE = 0L; // marks an empty slot; the key 0 itself is tracked separately
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private boolean hasFreeKey;
+    private int freeValue;
+    private int size;
+    private int mask;
+    private int resizeAt;
+
+    public LongIntHashMap()
+    {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public LongIntHashMap(LongIntHashMap that)
+    {
+        keys = Arrays.copyOf(that.keys, that.keys.length);
+        values = Arrays.copyOf(that.values, that.values.length);
+        hasFreeKey = that.hasFreeKey;
+        freeValue = that.freeValue;
+        size = that.size;
+        mask = that.mask;
+        resizeAt = that.resizeAt;
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Murmur3 finalizer, so that packed (from, to) keys spread over the whole table
+    private static int mix(long key)
+    {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    public boolean containsKey(long key)
+    {
+        if (key == FREE) return hasFreeKey;
+
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE)
+        {
+            if (keys[slot] == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    //
+    // The value mapped to key, or missingValue if there is none
+    //
+    public int get(long key, int missingValue)
+    {
+        if (key == FREE) return hasFreeKey ? freeValue : missingValue;
+
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE)
+        {
+            if (keys[slot] == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    //
+    // Maps key to value; returns true if the key was not already present
+    //
+    public boolean put(long key, int value)
+    {
+        if (key == FREE)
+        {
+            boolean added = !hasFreeKey;
+            hasFreeKey = true;
+            freeValue = value;
+            if (added) size++;
+            return added;
+        }
+
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE)
+        {
+            if (keys[slot] == key)
+            {
+                values[slot] = value;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) rehash(keys.length << 1);
+        return true;
+    }
+
+    //
+    // Maps key to value only if the key is not already present; returns true if it was added
+    //
+    public boolean putIfAbsent(long key, int value)
+    {
+        if (containsKey(key)) return false;
+
+        return put(key, value);
+    }
+
+    //
+    // Removes key; returns the value it was mapped to, or missingValue if there was none
+    //
+    public int remove(long key, int missingValue)
+    {
+        if (key == FREE)
+        {
+            if (!hasFreeKey) return missingValue;
+            hasFreeKey = false;
+            size--;
+            return freeValue;
+        }
+
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE)
+        {
+            if (keys[slot] == key)
+            {
+                int value = values[slot];
+                shiftKeys(slot);
+                size--;
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    //
+    // Closes the gap left by a removed key by moving back the later keys of its probe run that may
+    // live there, so lookups never need tombstones
+    //
+    private void shiftKeys(int gap)
+    {
+        int slot = gap;
+        while (true)
+        {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == FREE)
+            {
+                keys[gap] = FREE;
+                return;
+            }
+
+            // The key stays put if its home slot lies cyclically in (gap, slot]
+            int home = mix(key) & mask;
+            boolean stays = gap <= slot ? (gap < home && home <= slot) : (gap < home || home <= slot);
+            if (stays) continue;
+
+            keys[gap] = key;
+            values[gap] = values[slot];
+            gap = slot;
+        }
+    }
+
+    private void rehash(int capacity)
+    {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] == FREE) continue;
+
+            int slot = mix(oldKeys[i]) & mask;
+            while (keys[slot] != FREE)
+            {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(keys, FREE);
+        hasFreeKey = false;
+        size = 0;
+    }
+}
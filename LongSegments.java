@@ -0,0 +1,51 @@
+package digraph;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+//
+// A long array indexed by long, off the Java heap in direct ByteBuffer segments of SEGMENT_LONGS longs
+// (see IntSegments, whose allocateDirect arrays this mirrors); used for the edge offsets of graphs with
+// 2^31 edges or more
+//
+public class LongSegments
+{
+    public static final int SEGMENT_SHIFT = 27;                 // 2^27 longs = 1 GB per segment
+    public static final int SEGMENT_LONGS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_LONGS - 1;
+
+    private LongBuffer[] segments;
+    private long length;
+
+    //
+    // length zeroed longs off the heap
+    //
+    public LongSegments(long theLength)
+    {
+        length = theLength;
+
+        int numSegments = (int) ((length + SEGMENT_LONGS - 1) >> SEGMENT_SHIFT);
+        segments = new LongBuffer[numSegments];
+        for (int s = 0; s < numSegments; s++)
+        {
+            int longs = (int) Math.min(SEGMENT_LONGS, length - ((long) s << SEGMENT_SHIFT));
+            segments[s] = ByteBuffer.allocateDirect(longs * 8).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+    }
+
+    public long get(long i)
+    {
+        return segments[(int) (i >>> SEGMENT_SHIFT)].get((int) (i & SEGMENT_MASK));
+    }
+
+    public void set(long i, long value)
+    {
+        segments[(int) (i >>> SEGMENT_SHIFT)].put((int) (i & SEGMENT_MASK), value);
+    }
+
+    public long length()
+    {
+        return length;
+    }
+}
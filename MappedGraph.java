@@ -0,0 +1,483 @@
+package digraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//
+// A frozen graph read straight from a memory-mapped file, without deserializing it
+//
+// write() stores the CSR arrays of a FrozenGraph once; open() maps them read-only with FileChannel.map,
+// so opening costs a few system calls whatever the size of the graph, pages are loaded on first touch,
+// and every process that opens the same file shares them through the page cache. All queries of
+// FrozenGraph then run over the mapping.
+//
+// The file, little-endian throughout:
+//
+//   header (64 bytes)  magic "DGRF", version, flags, 0, n (long), m (long), node data bytes (long)
+//   labels             n ints              dense index -> vertex id
+//   offsets            n + 1 ints          successors of v: targets[offsets[v]] .. targets[offsets[v + 1] - 1]
+//   targets            m ints
+//   transposeOffsets   n + 1 ints          the same for the predecessors
+//   transposeTargets   m ints
+//   weights            m ints              FLAG_WEIGHTED only, parallel to targets
+//   transposeWeights   m ints              FLAG_WEIGHTED only, parallel to transposeTargets
+//   sortedLabels       n ints              FLAG_SORTED_LABELS only (ids other than 0..n-1): the ids in
+//   sortedIndices      n ints              increasing order, and the dense index of each
+//   dataOffsets        n + 1 ints          FLAG_NODE_DATA only: node data of v is the UTF-8 string at
+//   data               node data bytes     data[dataOffsets[v]] .. data[dataOffsets[v + 1] - 1]
+//
+// Every section starts at a multiple of 8 bytes. The int arrays are mapped in 1 GB segments (see
+// IntSegments), so the edge count is limited only by the int offsets (m < 2^31); the node data
+// dictionary is a single mapping and must stay below 2 GB.
+//
+// The mappings live until the MappedGraph is garbage collected; Java offers no way to unmap them
+// earlier.
+//
+public class MappedGraph extends FrozenGraph
+{
+    public static final int MAGIC = 0x46524744;    // "DGRF" read as a little-endian int
+    public static final int VERSION = 1;
+    public static final int FLAG_WEIGHTED = 1;
+    public static final int FLAG_SORTED_LABELS = 2;
+    public static final int FLAG_NODE_DATA = 4;
+    private static final int HEADER_BYTES = 64;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    private int numVertices;
+    private int numEdges;
+    private IntSegments labels;
+    private IntSegments offsets;
+    private IntSegments targets;
+    private IntSegments transposeOffsets;
+    private IntSegments transposeTargets;
+    private IntSegments weights;            // null if unweighted
+    private IntSegments transposeWeights;
+    private IntSegments sortedLabels;       // null if the ids are 0..n-1
+    private IntSegments sortedIndices;
+    private IntSegments dataOffsets;        // null without node data
+    private MappedByteBuffer data;
+
+    private MappedGraph()
+    {
+    }
+
+    //
+    // Maps a file written by write(); throws IOException if it is not such a file or is truncated
+    //
+    public static MappedGraph open(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            if (channel.size() < HEADER_BYTES) throw new IOException(path + " is not a graph file");
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining())
+            {
+                if (channel.read(header, header.position()) < 0) throw new IOException(path + " is truncated");
+            }
+            header.flip();
+
+            if (header.getInt() != MAGIC) throw new IOException(path + " is not a graph file");
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException(path + " has version " + version + ", expected " + VERSION);
+            int flags = header.getInt();
+            header.getInt();
+            long n = header.getLong();
+            long m = header.getLong();
+            long dataBytes = header.getLong();
+
+            if (n < 0 || n >= Integer.MAX_VALUE || m < 0 || m >= Integer.MAX_VALUE || dataBytes < 0 || dataBytes >= Integer.MAX_VALUE)
+            {
+                throw new IOException(path + " has a corrupt header");
+            }
+            if (channel.size() < FileSize(flags, n, m, dataBytes)) throw new IOException(path + " is truncated");
+
+            MappedGraph graph = new MappedGraph();
+            graph.numVertices = (int) n;
+            graph.numEdges = (int) m;
+
+            long position = HEADER_BYTES;
+            graph.labels = IntSegments.map(channel, position, n);
+            position += Section(n);
+            graph.offsets = IntSegments.map(channel, position, n + 1);
+            position += Section(n + 1);
+            graph.targets = IntSegments.map(channel, position, m);
+            position += Section(m);
+            graph.transposeOffsets = IntSegments.map(channel, position, n + 1);
+            position += Section(n + 1);
+            graph.transposeTargets = IntSegments.map(channel, position, m);
+            position += Section(m);
+
+            if ((flags & FLAG_WEIGHTED) != 0)
+            {
+                graph.weights = IntSegments.map(channel, position, m);
+                position += Section(m);
+                graph.transposeWeights = IntSegments.map(channel, position, m);
+                position += Section(m);
+            }
+            if ((flags & FLAG_SORTED_LABELS) != 0)
+            {
+                graph.sortedLabels = IntSegments.map(channel, position, n);
+                position += Section(n);
+                graph.sortedIndices = IntSegments.map(channel, position, n);
+                position += Section(n);
+            }
+            if ((flags & FLAG_NODE_DATA) != 0)
+            {
+                graph.dataOffsets = IntSegments.map(channel, position, n + 1);
+                position += Section(n + 1);
+                graph.data = channel.map(FileChannel.MapMode.READ_ONLY, position, dataBytes);
+            }
+
+            return graph;
+        }
+    }
+
+    //
+    // Writes a frozen graph without node data
+    //
+    public static void write(FrozenGraph graph, Path path) throws IOException
+    {
+        write(graph, null, path);
+    }
+
+    //
+    // Writes a DiGraph with String.valueOf of every node's data as its node data
+    //
+    public static void write(DiGraph<?> graph, Path path) throws IOException
+    {
+        CSRGraph frozen = graph.freeze();
+
+        List<String> nodeData = new ArrayList<String>(frozen.getNumVertices());
+        for (int v = 0; v < frozen.getNumVertices(); v++)
+        {
+            nodeData.add(String.valueOf(graph.getData(frozen.getLabel(v))));
+        }
+
+        write(frozen, nodeData, path);
+    }
+
+    //
+    // Writes a frozen graph and, unless nodeData is null, one string per dense index (null is written
+    // as the empty string); replaces the file if it exists
+    //
+    public static void write(FrozenGraph graph, List<String> nodeData, Path path) throws IOException
+    {
+        int n = graph.getNumVertices();
+        int m = graph.getNumEdges();
+        if (nodeData != null && nodeData.size() != n)
+        {
+            throw new IllegalArgumentException(nodeData.size() + " node data strings for " + n + " vertices");
+        }
+
+        // The id -> index lookup, unless the ids are 0..n-1
+        long[] pairs = null;
+        for (int v = 0; v < n; v++)
+        {
+            if (graph.getLabel(v) == v) continue;
+
+            pairs = new long[n];
+            for (int w = 0; w < n; w++)
+            {
+                pairs[w] = ((long) graph.getLabel(w) << 32) | w;
+            }
+            Arrays.sort(pairs);
+            break;
+        }
+
+        byte[][] strings = null;
+        long dataBytes = 0;
+        if (nodeData != null)
+        {
+            strings = new byte[n][];
+            for (int v = 0; v < n; v++)
+            {
+                String s = nodeData.get(v);
+                strings[v] = s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+                dataBytes += strings[v].length;
+            }
+            if (dataBytes >= Integer.MAX_VALUE) throw new IllegalArgumentException("Node data over 2 GB");
+        }
+
+        int flags = (graph.isWeighted() ? FLAG_WEIGHTED : 0) | (pairs != null ? FLAG_SORTED_LABELS : 0) | (strings != null ? FLAG_NODE_DATA : 0);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            Writer out = new Writer(channel);
+
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(flags);
+            out.putInt(0);
+            out.putLong(n);
+            out.putLong(m);
+            out.putLong(dataBytes);
+            out.align(HEADER_BYTES);
+
+            for (int v = 0; v < n; v++)
+            {
+                out.putInt(graph.getLabel(v));
+            }
+            out.align(8);
+
+            WriteRows(out, graph, true, false);
+            WriteRows(out, graph, false, false);
+            if (graph.isWeighted())
+            {
+                WriteRows(out, graph, true, true);
+                WriteRows(out, graph, false, true);
+            }
+
+            if (pairs != null)
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    out.putInt((int) (pairs[i] >> 32));
+                }
+                out.align(8);
+                for (int i = 0; i < n; i++)
+                {
+                    out.putInt((int) pairs[i]);
+                }
+                out.align(8);
+            }
+
+            if (strings != null)
+            {
+                int offset = 0;
+                out.putInt(0);
+                for (int v = 0; v < n; v++)
+                {
+                    offset += strings[v].length;
+                    out.putInt(offset);
+                }
+                out.align(8);
+                for (int v = 0; v < n; v++)
+                {
+                    out.putBytes(strings[v]);
+                }
+            }
+
+            out.flush();
+        }
+    }
+
+    // The offsets and targets of one direction, or just the weights of that direction
+    private static void WriteRows(Writer out, FrozenGraph graph, boolean forward, boolean isWeights) throws IOException
+    {
+        int n = graph.getNumVertices();
+
+        if (!isWeights)
+        {
+            int offset = 0;
+            out.putInt(0);
+            for (int v = 0; v < n; v++)
+            {
+                offset += forward ? graph.getOutDegree(v) : graph.getInDegree(v);
+                out.putInt(offset);
+            }
+            out.align(8);
+        }
+
+        for (int v = 0; v < n; v++)
+        {
+            int degree = forward ? graph.getOutDegree(v) : graph.getInDegree(v);
+            for (int i = 0; i < degree; i++)
+            {
+                if (isWeights) out.putInt(forward ? graph.getOutWeight(v, i) : graph.getInWeight(v, i));
+                else out.putInt(forward ? graph.getOutNeighbor(v, i) : graph.getInNeighbor(v, i));
+            }
+        }
+        out.align(8);
+    }
+
+    // Bytes of a section of ints, padded to a multiple of 8
+    private static long Section(long ints)
+    {
+        return (ints * 4 + 7) & ~7L;
+    }
+
+    private static long FileSize(int flags, long n, long m, long dataBytes)
+    {
+        long size = HEADER_BYTES + Section(n) + 2 * Section(n + 1) + 2 * Section(m);
+        if ((flags & FLAG_WEIGHTED) != 0) size += 2 * Section(m);
+        if ((flags & FLAG_SORTED_LABELS) != 0) size += 2 * Section(n);
+        if ((flags & FLAG_NODE_DATA) != 0) size += Section(n + 1) + dataBytes;
+        return size;
+    }
+
+    //
+    // Sequential little-endian output through one reused buffer
+    //
+    private static class Writer
+    {
+        private FileChannel channel;
+        private ByteBuffer buffer;
+        private long position;
+
+        Writer(FileChannel theChannel)
+        {
+            channel = theChannel;
+            buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        void putInt(int value) throws IOException
+        {
+            if (buffer.remaining() < 4) flush();
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void putLong(long value) throws IOException
+        {
+            if (buffer.remaining() < 8) flush();
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        void putBytes(byte[] bytes) throws IOException
+        {
+            int done = 0;
+            while (done < bytes.length)
+            {
+                if (!buffer.hasRemaining()) flush();
+
+                int chunk = Math.min(buffer.remaining(), bytes.length - done);
+                buffer.put(bytes, done, chunk);
+                done += chunk;
+            }
+            position += bytes.length;
+        }
+
+        // Zero bytes up to the next multiple of alignment
+        void align(int alignment) throws IOException
+        {
+            while (position % alignment != 0)
+            {
+                if (!buffer.hasRemaining()) flush();
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        void flush() throws IOException
+        {
+            buffer.flip();
+            while (buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    public int getNumVertices()
+    {
+        return numVertices;
+    }
+
+    public int getNumEdges()
+    {
+        return numEdges;
+    }
+
+    public int getLabel(int index)
+    {
+        return labels.get(index);
+    }
+
+    public int getIndex(int label)
+    {
+        if (sortedLabels == null) return (label >= 0 && label < numVertices) ? label : -1;
+
+        int low = 0;
+        int high = numVertices - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int midLabel = sortedLabels.get(mid);
+
+            if (midLabel < label) low = mid + 1;
+            else if (midLabel > label) high = mid - 1;
+            else return sortedIndices.get(mid);
+        }
+        return -1;
+    }
+
+    public int getOutDegree(int index)
+    {
+        return offsets.get(index + 1) - offsets.get(index);
+    }
+
+    public int getInDegree(int index)
+    {
+        return transposeOffsets.get(index + 1) - transposeOffsets.get(index);
+    }
+
+    public int getOutNeighbor(int index, int i)
+    {
+        return targets.get(offsets.get(index) + i);
+    }
+
+    public int getInNeighbor(int index, int i)
+    {
+        return transposeTargets.get(transposeOffsets.get(index) + i);
+    }
+
+    public boolean isWeighted()
+    {
+        return weights != null;
+    }
+
+    public int getOutWeight(int index, int i)
+    {
+        return weights == null ? 1 : weights.get(offsets.get(index) + i);
+    }
+
+    public int getInWeight(int index, int i)
+    {
+        return transposeWeights == null ? 1 : transposeWeights.get(transposeOffsets.get(index) + i);
+    }
+
+    // A read-only view of the successors of a dense vertex, sharing the mapping (no copy) unless the
+    // list crosses a 1 GB segment boundary
+    public IntBuffer getOutNeighborView(int index)
+    {
+        return targets.view(offsets.get(index), offsets.get(index + 1));
+    }
+
+    public IntBuffer getInNeighborView(int index)
+    {
+        return transposeTargets.view(transposeOffsets.get(index), transposeOffsets.get(index + 1));
+    }
+
+    public boolean hasNodeData()
+    {
+        return data != null;
+    }
+
+    //
+    // The node data string of a dense index; throws IllegalStateException if the file has none
+    //
+    public String getNodeData(int index)
+    {
+        if (data == null) throw new IllegalStateException("The graph file has no node data");
+
+        int from = dataOffsets.get(index);
+        int to = dataOffsets.get(index + 1);
+
+        byte[] bytes = new byte[to - from];
+        data.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -46,6 +46,15 @@ public class Node<T> implements Comparable<Node>
 		}
 	}
 
+	// Adds an edge already known not to be incident to this node (the owning graph's edge index
+	// rejects duplicates), so the linear hasEdge scan is skipped
+	void attachEdge(Edge e)
+	{
+		if(e.sourceNode == id) outEdges.add(e);
+		if(e.targetNode == id) inEdges.add(e);
+		if(id != e.targetNode) this.descendants.add(e.targetNode);
+	}
+
 	//LC
 	//gets the weight from this target node to oneTargetNode
 	public int getWght(int oneTargetNode)
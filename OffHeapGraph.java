@@ -0,0 +1,237 @@
+package digraph;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+//
+// A frozen graph whose adjacency lives outside the Java heap, for graphs too large for int[] or the heap
+//
+// The layout is that of CSRGraph (forward and transpose rows, optional weights, an id lookup), but the
+// arrays are direct ByteBuffer segments: IntSegments for the targets and weights, LongSegments for the
+// offsets, so the edge count may exceed 2^31 (only the vertex count and every single degree are ints).
+// The heap holds a few objects per 1 GB segment, so garbage collection pauses do not grow with the
+// graph; the memory is released when the graph becomes unreachable.
+//
+// OffHeapGraph is a FrozenGraph, so every engine (traversals, TopologicalOrder, StronglyConnectedComponents,
+// ...) runs over it unchanged. Build one with OffHeapGraphBuilder, or copy another frozen graph.
+//
+public class OffHeapGraph extends FrozenGraph
+{
+    private int numVertices;
+    private long numEdges;
+    private IntSegments labels;            // null if the labels are 0..n-1
+    private IntSegments sortedLabels;      // null if the labels are 0..n-1
+    private IntSegments sortedIndices;
+    private LongSegments offsets;
+    private IntSegments targets;
+    private LongSegments transposeOffsets;
+    private IntSegments transposeTargets;
+    private IntSegments weights;           // null if all weights are 1
+    private IntSegments transposeWeights;
+
+    //
+    // Wrap already built forward rows over the vertices 0..n-1 (label == index); the transpose is
+    // derived from them
+    //
+    OffHeapGraph(int n, LongSegments theOffsets, IntSegments theTargets, IntSegments theWeights)
+    {
+        numVertices = n;
+        offsets = theOffsets;
+        targets = theTargets;
+        weights = theWeights;
+        numEdges = offsets.get(n);
+
+        BuildTranspose();
+    }
+
+    //
+    // An off-heap copy of another frozen graph, with its labels
+    //
+    public static OffHeapGraph copyOf(FrozenGraph graph)
+    {
+        int n = graph.getNumVertices();
+        long m = graph.getNumEdgesLong();
+
+        LongSegments offsets = new LongSegments(n + 1L);
+        IntSegments targets = IntSegments.allocateDirect(m);
+        IntSegments weights = graph.isWeighted() ? IntSegments.allocateDirect(m) : null;
+
+        long e = 0;
+        for (int v = 0; v < n; v++)
+        {
+            for (int i = 0; i < graph.getOutDegree(v); i++)
+            {
+                targets.set(e, graph.getOutNeighbor(v, i));
+                if (weights != null) weights.set(e, graph.getOutWeight(v, i));
+                e++;
+            }
+            offsets.set(v + 1, e);
+        }
+
+        OffHeapGraph copy = new OffHeapGraph(n, offsets, targets, weights);
+        copy.BuildIndex(graph);
+        return copy;
+    }
+
+    //
+    // The labels of another graph with the same indices, and sorted (id, index) pairs for id -> index
+    // lookups; skipped when the ids are 0..n-1
+    //
+    private void BuildIndex(FrozenGraph graph)
+    {
+        boolean identity = true;
+        for (int v = 0; v < numVertices && identity; v++)
+        {
+            identity = graph.getLabel(v) == v;
+        }
+        if (identity) return;
+
+        labels = IntSegments.allocateDirect(numVertices);
+        long[] pairs = new long[numVertices];
+        for (int v = 0; v < numVertices; v++)
+        {
+            labels.set(v, graph.getLabel(v));
+            pairs[v] = ((long) graph.getLabel(v) << 32) | v;
+        }
+        Arrays.sort(pairs);
+
+        sortedLabels = IntSegments.allocateDirect(numVertices);
+        sortedIndices = IntSegments.allocateDirect(numVertices);
+        for (int i = 0; i < numVertices; i++)
+        {
+            sortedLabels.set(i, (int) (pairs[i] >> 32));
+            sortedIndices.set(i, (int) pairs[i]);
+        }
+    }
+
+    //
+    // Counting sort of the forward edges (and their weights) by target
+    //
+    private void BuildTranspose()
+    {
+        int n = numVertices;
+
+        transposeOffsets = new LongSegments(n + 1L);
+        for (long e = 0; e < numEdges; e++)
+        {
+            int t = targets.get(e) + 1;
+            transposeOffsets.set(t, transposeOffsets.get(t) + 1);
+        }
+        for (int v = 0; v < n; v++)
+        {
+            transposeOffsets.set(v + 1, transposeOffsets.get(v + 1) + transposeOffsets.get(v));
+        }
+
+        LongSegments next = new LongSegments(n);
+        for (int v = 0; v < n; v++)
+        {
+            next.set(v, transposeOffsets.get(v));
+        }
+
+        transposeTargets = IntSegments.allocateDirect(numEdges);
+        transposeWeights = weights == null ? null : IntSegments.allocateDirect(numEdges);
+        for (int v = 0; v < n; v++)
+        {
+            for (long e = offsets.get(v); e < offsets.get(v + 1); e++)
+            {
+                int t = targets.get(e);
+                long slot = next.get(t);
+                next.set(t, slot + 1);
+
+                transposeTargets.set(slot, v);
+                if (weights != null) transposeWeights.set(slot, weights.get(e));
+            }
+        }
+    }
+
+    public int getNumVertices()
+    {
+        return numVertices;
+    }
+
+    // Throws IllegalStateException when the edges do not fit an int; see getNumEdgesLong
+    public int getNumEdges()
+    {
+        if (numEdges > Integer.MAX_VALUE) throw new IllegalStateException(numEdges + " edges do not fit an int");
+
+        return (int) numEdges;
+    }
+
+    @Override
+    public long getNumEdgesLong()
+    {
+        return numEdges;
+    }
+
+    public int getLabel(int index)
+    {
+        if (index < 0 || index >= numVertices) throw new IndexOutOfBoundsException("Index " + index + ", length " + numVertices);
+
+        return labels == null ? index : labels.get(index);
+    }
+
+    public int getIndex(int label)
+    {
+        if (sortedLabels == null) return (label >= 0 && label < numVertices) ? label : -1;
+
+        int low = 0;
+        int high = numVertices - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int midLabel = sortedLabels.get(mid);
+
+            if (midLabel < label) low = mid + 1;
+            else if (midLabel > label) high = mid - 1;
+            else return sortedIndices.get(mid);
+        }
+        return -1;
+    }
+
+    public int getOutDegree(int index)
+    {
+        return (int) (offsets.get(index + 1) - offsets.get(index));
+    }
+
+    public int getInDegree(int index)
+    {
+        return (int) (transposeOffsets.get(index + 1) - transposeOffsets.get(index));
+    }
+
+    public int getOutNeighbor(int index, int i)
+    {
+        return targets.get(offsets.get(index) + i);
+    }
+
+    public int getInNeighbor(int index, int i)
+    {
+        return transposeTargets.get(transposeOffsets.get(index) + i);
+    }
+
+    public boolean isWeighted()
+    {
+        return weights != null;
+    }
+
+    public int getOutWeight(int index, int i)
+    {
+        return weights == null ? 1 : weights.get(offsets.get(index) + i);
+    }
+
+    public int getInWeight(int index, int i)
+    {
+        return transposeWeights == null ? 1 : transposeWeights.get(transposeOffsets.get(index) + i);
+    }
+
+    // A read-only view of the successors of a dense vertex, sharing the segment (no copy) unless the
+    // list crosses a 1 GB segment boundary
+    public IntBuffer getOutNeighborView(int index)
+    {
+        return targets.view(offsets.get(index), offsets.get(index + 1));
+    }
+
+    public IntBuffer getInNeighborView(int index)
+    {
+        return transposeTargets.view(transposeOffsets.get(index), transposeOffsets.get(index + 1));
+    }
+}
@@ -0,0 +1,176 @@
+package digraph;
+
+import java.util.Arrays;
+
+//
+// Bulk loader for OffHeapGraph, the off-heap counterpart of DiGraphBuilder
+//
+// Edges are appended to direct IntSegments (grown by half their size, only the last segment being
+// copied), so neither loading nor building touches the heap beyond one scratch array of the largest
+// degree. build() sorts the edges by source with a counting sort into the final rows, then sorts and
+// deduplicates every neighbor list in place; of duplicate edges with different weights the lightest
+// is kept. Vertex ids must be non-negative; they are used directly as dense indices.
+//
+// build() hands the memory of the loaded edges over to the graph, so the builder is empty afterwards.
+//
+public class OffHeapGraphBuilder
+{
+    private IntSegments sources;
+    private IntSegments targets;
+    private IntSegments weights;   // null until an edge with a weight other than 1 is added
+    private long size;
+    private int numVertices;
+
+    public OffHeapGraphBuilder()
+    {
+        this(0, 16);
+    }
+
+    //
+    // numVertices: the graph has at least the vertices 0..numVertices-1, even if some have no edges
+    //
+    public OffHeapGraphBuilder(int numVertices)
+    {
+        this(numVertices, 16);
+    }
+
+    public OffHeapGraphBuilder(int numVertices, long expectedEdges)
+    {
+        this.numVertices = numVertices;
+        sources = IntSegments.allocateDirect(Math.max(expectedEdges, 1));
+        targets = IntSegments.allocateDirect(Math.max(expectedEdges, 1));
+    }
+
+    public OffHeapGraphBuilder addEdge(int from, int to)
+    {
+        return addEdge(from, to, 1);
+    }
+
+    public OffHeapGraphBuilder addEdge(int from, int to, int weight)
+    {
+        if (from < 0 || to < 0) throw new IllegalArgumentException("Negative vertex id in edge (" + from + ", " + to + ")");
+
+        if (size == sources.length())
+        {
+            long capacity = size + (size >> 1) + 1;
+            sources.setLength(capacity);
+            targets.setLength(capacity);
+            if (weights != null) weights.setLength(capacity);
+        }
+
+        if (weight != 1 && weights == null)
+        {
+            weights = IntSegments.allocateDirect(sources.length());
+            for (long e = 0; e < size; e++)
+            {
+                weights.set(e, 1);
+            }
+        }
+
+        sources.set(size, from);
+        targets.set(size, to);
+        if (weights != null) weights.set(size, weight);
+        size++;
+
+        if (from >= numVertices) numVertices = from + 1;
+        if (to >= numVertices) numVertices = to + 1;
+
+        return this;
+    }
+
+    public int getNumVertices()
+    {
+        return numVertices;
+    }
+
+    // The number of edges added so far, duplicates included
+    public long getNumEdgesAdded()
+    {
+        return size;
+    }
+
+    //
+    // An off-heap graph over the vertices 0..getNumVertices()-1 (vertex id == dense index)
+    //
+    public OffHeapGraph build()
+    {
+        int n = numVertices;
+        LongSegments offsets = new LongSegments(n + 1L);
+
+        // Pass 1: degrees
+        for (long e = 0; e < size; e++)
+        {
+            int s = sources.get(e) + 1;
+            offsets.set(s, offsets.get(s) + 1);
+        }
+        int maxDegree = 0;
+        for (int v = 0; v < n; v++)
+        {
+            maxDegree = (int) Math.max(maxDegree, offsets.get(v + 1));
+            offsets.set(v + 1, offsets.get(v + 1) + offsets.get(v));
+        }
+
+        // Pass 2: scatter
+        LongSegments next = new LongSegments(n);
+        for (int v = 0; v < n; v++)
+        {
+            next.set(v, offsets.get(v));
+        }
+
+        IntSegments adjacency = IntSegments.allocateDirect(size);
+        IntSegments adjacencyWeights = weights == null ? null : IntSegments.allocateDirect(size);
+        for (long e = 0; e < size; e++)
+        {
+            int s = sources.get(e);
+            long slot = next.get(s);
+            next.set(s, slot + 1);
+
+            adjacency.set(slot, targets.get(e));
+            if (weights != null) adjacencyWeights.set(slot, weights.get(e));
+        }
+        sources = null;
+        targets = null;
+        weights = null;
+        next = null;
+
+        // Sort each list and squeeze out duplicate edges; (target, weight) pairs sort the lightest first
+        long[] list = new long[maxDegree];
+        long write = 0;
+        for (int v = 0; v < n; v++)
+        {
+            long start = offsets.get(v);
+            int degree = (int) (offsets.get(v + 1) - start);
+            for (int i = 0; i < degree; i++)
+            {
+                long weight = adjacencyWeights == null ? 0 : adjacencyWeights.get(start + i) & 0xFFFFFFFFL;
+                list[i] = ((long) adjacency.get(start + i) << 32) | (weight ^ 0x80000000L);
+            }
+            Arrays.sort(list, 0, degree);
+
+            offsets.set(v, write);
+            for (int i = 0; i < degree; i++)
+            {
+                int target = (int) (list[i] >> 32);
+                if (i != 0 && target == (int) (list[i - 1] >> 32)) continue;
+
+                adjacency.set(write, target);
+                if (adjacencyWeights != null) adjacencyWeights.set(write, (int) (list[i] ^ 0x80000000L));
+                write++;
+            }
+        }
+        offsets.set(n, write);
+
+        if (write < size)
+        {
+            adjacency.setLength(write);
+            if (adjacencyWeights != null) adjacencyWeights.setLength(write);
+        }
+
+        size = 0;
+        numVertices = 0;
+        sources = IntSegments.allocateDirect(1);
+        targets = IntSegments.allocateDirect(1);
+
+        return new OffHeapGraph(n, offsets, adjacency, adjacencyWeights);
+    }
+}
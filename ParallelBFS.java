@@ -0,0 +1,403 @@
+package digraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//
+// Parallel, direction-optimizing level-synchronous BFS over a CSRGraph (Beamer, Asanovic, Patterson)
+//
+// Every level is expanded by ForkJoin tasks over chunks of work, sharing one atomic visited bitmap.
+// A level is expanded in one of two ways:
+//
+//   top-down:  every frontier vertex claims its unvisited neighbors with a compare-and-set on the
+//              visited bitmap; work is split over chunks of the frontier list
+//   bottom-up: every unvisited vertex looks for a neighbor (in the opposite direction) that is in the
+//              frontier bitmap and stops at the first one; work is split over 64-vertex words of the
+//              bitmap, so each task owns the words it writes
+//
+// Top-down is cheap while the frontier is small; once the edges leaving the frontier outnumber the
+// edges of the unvisited vertices by more than ALPHA, bottom-up examines far fewer edges. The
+// search returns to top-down when the frontier shrinks below n / BETA vertices. Going forward uses
+// the successors (edgeMap) top-down and the predecessors (transposeEdgeMap) bottom-up; going backward
+// swaps the two.
+//
+// Graphs with fewer edges than the sequential threshold are handed to LevelWidth, since forking
+// tasks costs more than it saves there. The results match LevelWidth: the width of every level.
+// An instance keeps its buffers between calls and is not safe for use by several threads at once.
+//
+public class ParallelBFS
+{
+    public static final int DEFAULT_SEQUENTIAL_THRESHOLD = 1 << 16; // edges
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+    private static final int GRAIN = 2048;     // frontier vertices per top-down task
+    private static final int WORD_GRAIN = 64;  // bitmap words (of 64 vertices) per bottom-up task
+
+    private FrozenGraph graph;
+    private ForkJoinPool pool;
+    private int sequentialThreshold;
+    private boolean directionOptimizing;
+
+    private boolean forward;
+    private AtomicLongArray visited;
+    private long[] frontierBits;
+    private long[] nextBits;
+    private int[] frontier;
+    private int[] next;
+    private AtomicInteger nextSize;
+    private AtomicLong nextDegrees;
+
+    private int[] widths;
+    private int numLevels;
+    private int numVisited;
+    private int numBottomUpLevels;
+
+    public ParallelBFS(FrozenGraph theGraph, ForkJoinPool thePool)
+    {
+        graph = theGraph;
+        pool = thePool;
+        sequentialThreshold = DEFAULT_SEQUENTIAL_THRESHOLD;
+        directionOptimizing = true;
+    }
+
+    public ParallelBFS(FrozenGraph theGraph)
+    {
+        this(theGraph, ForkJoinPool.commonPool());
+    }
+
+    //
+    // Graphs with fewer edges than this are traversed sequentially
+    //
+    public void setSequentialThreshold(int edges)
+    {
+        sequentialThreshold = edges;
+    }
+
+    //
+    // false: always expand top-down (a plain parallel BFS)
+    //
+    public void setDirectionOptimizing(boolean enabled)
+    {
+        directionOptimizing = enabled;
+    }
+
+    //
+    // Traverses from the seed vertices (dense indices) along the out-edges (forward) or the in-edges
+    // (backward) and returns the width of every level
+    //
+    public int[] getWidthProfile(int[] seeds, boolean isForward)
+    {
+        if (graph.getNumEdgesLong() < sequentialThreshold || pool.getParallelism() <= 1)
+        {
+            LevelWidth sequential = new LevelWidth(graph);
+            int[] profile = sequential.getWidthProfile(seeds, isForward);
+            widths = profile;
+            numLevels = profile.length;
+            numVisited = sequential.getNumVisited();
+            numBottomUpLevels = 0;
+            return profile;
+        }
+
+        forward = isForward;
+        Allocate();
+
+        int n = graph.getNumVertices();
+        int frontierSize = 0;
+        long frontierDegrees = 0;
+        for (int seed : seeds)
+        {
+            if (TryVisit(seed))
+            {
+                frontier[frontierSize++] = seed;
+                frontierDegrees += Degree(seed);
+            }
+        }
+
+        long unexploredDegrees = graph.getNumEdgesLong() - frontierDegrees;
+        boolean bottomUp = false;
+
+        while (frontierSize > 0)
+        {
+            widths[numLevels++] = frontierSize;
+            numVisited += frontierSize;
+
+            if (directionOptimizing)
+            {
+                if (!bottomUp && frontierDegrees > unexploredDegrees / ALPHA)
+                {
+                    bottomUp = true;
+                    ListToBits(frontierSize);
+                }
+                else if (bottomUp && frontierSize < n / BETA)
+                {
+                    bottomUp = false;
+                    frontierSize = BitsToList();
+                }
+            }
+
+            nextSize.set(0);
+            nextDegrees.set(0);
+
+            if (bottomUp)
+            {
+                numBottomUpLevels++;
+                Arrays.fill(nextBits, 0L);
+                pool.invoke(new BottomUp(0, frontierBits.length));
+
+                long[] swap = frontierBits;
+                frontierBits = nextBits;
+                nextBits = swap;
+            }
+            else
+            {
+                pool.invoke(new TopDown(0, frontierSize));
+
+                int[] swap = frontier;
+                frontier = next;
+                next = swap;
+            }
+
+            frontierSize = nextSize.get();
+            frontierDegrees = nextDegrees.get();
+            unexploredDegrees -= frontierDegrees;
+        }
+
+        return Arrays.copyOf(widths, numLevels);
+    }
+
+    private void Allocate()
+    {
+        int n = graph.getNumVertices();
+        int words = (n + 63) >>> 6;
+
+        if (frontier == null)
+        {
+            visited = new AtomicLongArray(words);
+            frontierBits = new long[words];
+            nextBits = new long[words];
+            frontier = new int[n];
+            next = new int[n];
+            nextSize = new AtomicInteger();
+            nextDegrees = new AtomicLong();
+            widths = new int[Math.max(n, 1)];
+        }
+        else
+        {
+            for (int w = 0; w < words; w++)
+            {
+                visited.set(w, 0L);
+            }
+            if (widths.length < Math.max(n, 1)) widths = new int[Math.max(n, 1)];
+        }
+
+        numLevels = 0;
+        numVisited = 0;
+        numBottomUpLevels = 0;
+    }
+
+    // The degree in the direction of travel
+    private int Degree(int v)
+    {
+        return forward ? graph.getOutDegree(v) : graph.getInDegree(v);
+    }
+
+    private boolean TryVisit(int v)
+    {
+        int word = v >>> 6;
+        long bit = 1L << v;
+
+        long old = visited.get(word);
+        while ((old & bit) == 0)
+        {
+            if (visited.compareAndSet(word, old, old | bit)) return true;
+            old = visited.get(word);
+        }
+        return false;
+    }
+
+    private void ListToBits(int frontierSize)
+    {
+        Arrays.fill(frontierBits, 0L);
+        for (int f = 0; f < frontierSize; f++)
+        {
+            frontierBits[frontier[f] >>> 6] |= 1L << frontier[f];
+        }
+    }
+
+    private int BitsToList()
+    {
+        int size = 0;
+        for (int word = 0; word < frontierBits.length; word++)
+        {
+            long bits = frontierBits[word];
+            while (bits != 0)
+            {
+                frontier[size++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return size;
+    }
+
+    //
+    // Expands frontier[lo, hi): claims unvisited neighbors and appends them to next
+    //
+    @SuppressWarnings("serial")
+    private class TopDown extends RecursiveAction
+    {
+        private int lo;
+        private int hi;
+
+        TopDown(int theLo, int theHi)
+        {
+            lo = theLo;
+            hi = theHi;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (hi - lo > GRAIN)
+            {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new TopDown(lo, mid), new TopDown(mid, hi));
+                return;
+            }
+
+            int[] found = new int[64];
+            int count = 0;
+            long degrees = 0;
+
+            for (int f = lo; f < hi; f++)
+            {
+                int v = frontier[f];
+                int degree = Degree(v);
+                int first = count;
+                for (int i = 0; i < degree; i++)
+                {
+                    int w = forward ? graph.getOutNeighbor(v, i) : graph.getInNeighbor(v, i);
+                    if (!TryVisit(w)) continue;
+
+                    if (count == found.length) found = Arrays.copyOf(found, count << 1);
+                    found[count++] = w;
+                }
+
+                // The degrees of the vertices found are read after v's list, not in between, so a
+                // graph that decodes lists (CompressedGraph) decodes v's once
+                for (int j = first; j < count; j++)
+                {
+                    degrees += Degree(found[j]);
+                }
+            }
+
+            if (count == 0) return;
+
+            int at = nextSize.getAndAdd(count);
+            System.arraycopy(found, 0, next, at, count);
+            nextDegrees.addAndGet(degrees);
+        }
+    }
+
+    //
+    // Scans the unvisited vertices of bitmap words [lo, hi) for a parent in the frontier
+    //
+    @SuppressWarnings("serial")
+    private class BottomUp extends RecursiveAction
+    {
+        private int lo;
+        private int hi;
+
+        BottomUp(int theLo, int theHi)
+        {
+            lo = theLo;
+            hi = theHi;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (hi - lo > WORD_GRAIN)
+            {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new BottomUp(lo, mid), new BottomUp(mid, hi));
+                return;
+            }
+
+            int n = graph.getNumVertices();
+            int count = 0;
+            long degrees = 0;
+
+            for (int word = lo; word < hi; word++)
+            {
+                long seen = visited.get(word);
+                long unvisited = ~seen;
+                long found = 0;
+
+                while (unvisited != 0)
+                {
+                    int w = (word << 6) + Long.numberOfTrailingZeros(unvisited);
+                    unvisited &= unvisited - 1;
+                    if (w >= n) break;
+
+                    // Parents are found against the direction of travel
+                    int degree = forward ? graph.getInDegree(w) : graph.getOutDegree(w);
+                    for (int i = 0; i < degree; i++)
+                    {
+                        int p = forward ? graph.getInNeighbor(w, i) : graph.getOutNeighbor(w, i);
+                        if ((frontierBits[p >>> 6] & (1L << p)) != 0)
+                        {
+                            found |= 1L << w;
+                            count++;
+                            degrees += Degree(w);
+                            break;
+                        }
+                    }
+                }
+
+                // This task owns the word, so no other task writes it during the step
+                if (found != 0)
+                {
+                    visited.set(word, seen | found);
+                    nextBits[word] = found;
+                }
+            }
+
+            if (count == 0) return;
+
+            nextSize.addAndGet(count);
+            nextDegrees.addAndGet(degrees);
+        }
+    }
+
+    public int getNumLevels()
+    {
+        return numLevels;
+    }
+
+    public int getNumVisited()
+    {
+        return numVisited;
+    }
+
+    //
+    // How many levels of the last traversal were expanded bottom-up
+    //
+    public int getNumBottomUpLevels()
+    {
+        return numBottomUpLevels;
+    }
+
+    public int getMaxWidth()
+    {
+        int max = 0;
+        for (int l = 0; l < numLevels; l++)
+        {
+            if (widths[l] > max) max = widths[l];
+        }
+        return max;
+    }
+}
@@ -0,0 +1,219 @@
+package digraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+//
+// Enumerates the linear extensions of a DAG on a ForkJoinPool by splitting the search tree on prefixes
+//
+// Every linear extension starts with some source of the graph, so the extensions beginning with a fixed
+// prefix are the extensions of the vertices still left, written behind that prefix. A task takes a
+// prefix, and either forks one subtask per vertex that may come next, or enumerates all extensions of
+// the remaining vertices itself with Varol-Rotem (see LinearExtensions). The pool's work stealing then
+// balances subtrees of very different sizes.
+//
+// How far the tree is split is governed by a task budget: the root gets DEFAULT_TASKS_PER_THREAD tasks
+// per pool thread, and every split divides a task's budget among its children, so the number of leaf
+// tasks stays around the budget whatever the shape of the graph. Subtrees with few vertices left are
+// never split.
+//
+// The visitor is called from several threads at once and must be thread-safe; each call gets an array
+// that belongs to the calling task and is reused for that task's next extension. As soon as the visitor
+// returns false every task stops at its next extension.
+//
+public class ParallelLinearExtensions
+{
+    public static final int DEFAULT_TASKS_PER_THREAD = 64;
+    private static final int SEQUENTIAL_SIZE = 8; // remaining vertices below which a subtree is not split
+
+    private FrozenGraph graph;
+    private ForkJoinPool pool;
+    private int tasksPerThread;
+
+    public ParallelLinearExtensions(FrozenGraph theGraph, ForkJoinPool thePool)
+    {
+        graph = theGraph;
+        pool = thePool;
+        tasksPerThread = DEFAULT_TASKS_PER_THREAD;
+
+        if (new TopologicalOrder(graph).getOrder() == null)
+        {
+            throw new IllegalStateException("Linear extensions need an acyclic graph");
+        }
+    }
+
+    public ParallelLinearExtensions(FrozenGraph theGraph)
+    {
+        this(theGraph, ForkJoinPool.commonPool());
+    }
+
+    public void setTasksPerThread(int tasks)
+    {
+        tasksPerThread = tasks;
+    }
+
+    //
+    // Hands every linear extension (vertex ids) to the thread-safe visitor until it returns false;
+    // returns how many were handed over
+    //
+    public long visitAll(LinearizationVisitor visitor)
+    {
+        Run run = new Run(visitor);
+
+        int n = graph.getNumVertices();
+        int[] inDegree = new int[n];
+        for (int v = 0; v < n; v++)
+        {
+            inDegree[v] = graph.getInDegree(v);
+        }
+
+        long budget = (long) tasksPerThread * pool.getParallelism();
+        pool.invoke(new Split(run, new int[0], inDegree, budget));
+
+        return run.visited.sum();
+    }
+
+    //
+    // The state of one visitAll call, shared by its tasks, so that calls on one instance do not meet
+    //
+    private static class Run
+    {
+        final LinearizationVisitor visitor;
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final LongAdder visited = new LongAdder();
+
+        Run(LinearizationVisitor theVisitor)
+        {
+            visitor = theVisitor;
+        }
+    }
+
+    //
+    // The subtree of extensions beginning with prefix (dense indices); inDegree counts, for every vertex
+    // not in the prefix, its predecessors that are not in the prefix either
+    //
+    @SuppressWarnings("serial")
+    private class Split extends RecursiveAction
+    {
+        private Run run;
+        private int[] prefix;
+        private int[] inDegree;
+        private long budget;
+
+        Split(Run theRun, int[] thePrefix, int[] theInDegree, long theBudget)
+        {
+            run = theRun;
+            prefix = thePrefix;
+            inDegree = theInDegree;
+            budget = theBudget;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (run.stopped.get()) return;
+
+            int n = graph.getNumVertices();
+            int remaining = n - prefix.length;
+
+            int free = 0;
+            for (int v = 0; v < n; v++)
+            {
+                if (inDegree[v] == 0) free++;
+            }
+
+            if (budget < 2 || remaining <= SEQUENTIAL_SIZE || free < 2)
+            {
+                Enumerate();
+                return;
+            }
+
+            Split[] children = new Split[free];
+            int c = 0;
+            for (int v = 0; v < n; v++)
+            {
+                if (inDegree[v] != 0) continue;
+
+                int[] childPrefix = Arrays.copyOf(prefix, prefix.length + 1);
+                childPrefix[prefix.length] = v;
+
+                int[] childInDegree = inDegree.clone();
+                childInDegree[v] = -1; // placed
+                for (int i = 0; i < graph.getOutDegree(v); i++)
+                {
+                    childInDegree[graph.getOutNeighbor(v, i)]--;
+                }
+
+                children[c++] = new Split(run, childPrefix, childInDegree, budget / free);
+            }
+
+            invokeAll(children);
+        }
+
+        // All extensions of the vertices not in the prefix, behind the prefix, in this thread
+        private void Enumerate()
+        {
+            int n = graph.getNumVertices();
+
+            // The induced subgraph of the remaining vertices, keeping their vertex ids as labels
+            int[] local = new int[n];
+            int size = 0;
+            for (int v = 0; v < n; v++)
+            {
+                local[v] = inDegree[v] >= 0 ? size++ : -1;
+            }
+
+            int[] labels = new int[size];
+            int[] offsets = new int[size + 1];
+            int edges = 0;
+            for (int v = 0; v < n; v++)
+            {
+                if (local[v] < 0) continue;
+
+                labels[local[v]] = graph.getLabel(v);
+                for (int i = 0; i < graph.getOutDegree(v); i++)
+                {
+                    if (local[graph.getOutNeighbor(v, i)] >= 0) edges++;
+                }
+                offsets[local[v] + 1] = edges;
+            }
+
+            int[] targets = new int[edges];
+            int e = 0;
+            for (int v = 0; v < n; v++)
+            {
+                if (local[v] < 0) continue;
+
+                for (int i = 0; i < graph.getOutDegree(v); i++)
+                {
+                    int w = local[graph.getOutNeighbor(v, i)];
+                    if (w >= 0) targets[e++] = w;
+                }
+            }
+
+            int[] prefixLabels = new int[prefix.length];
+            for (int i = 0; i < prefix.length; i++)
+            {
+                prefixLabels[i] = graph.getLabel(prefix[i]);
+            }
+
+            LinearExtensions rest = new LinearExtensions(new CSRGraph(labels, offsets, targets));
+            long[] handed = new long[1];
+            rest.visitAll(order ->
+            {
+                if (run.stopped.get()) return false;
+
+                handed[0]++;
+                if (run.visitor.visit(order)) return true;
+
+                run.stopped.set(true);
+                return false;
+            }, prefixLabels);
+
+            run.visited.add(handed[0]);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package digraph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+//
+// Reachability index: answers "can u reach v?" without a full graph search (GRAIL, Yildirim et al.)
+//
+// The graph is first reduced to its condensation (see StronglyConnectedComponents): two vertices in the
+// same component reach each other, and reachability between components is reachability in a DAG.
+// Component ids already form a reverse topological order (every condensation edge goes from a higher id
+// to a lower one), so a higher component can never be reached from a lower one.
+//
+// Every component then gets one interval [low, post] per randomized depth-first traversal of the DAG,
+// where post is its post-order number and low the smallest post-order number among everything it
+// reaches. If u reaches v then v's interval nests inside u's in every traversal, so a single traversal
+// whose intervals do not nest proves that u cannot reach v; with a few traversals in different child
+// orders this settles almost every negative query in O(k). The first traversal also records the
+// pre-order interval of its spanning forest: v inside u's subtree proves that u reaches v.
+//
+// Only queries that neither test decides fall back to a depth-first search of the condensation, pruned
+// by the same intervals. The index is immutable and may be shared between threads; the fallback search
+// uses a per-thread workspace. Memory is O(V + C * k + E') ints for V vertices, C components, k
+// traversals and E' condensation edges (see getMemoryBytes).
+//
+public class ReachabilityIndex
+{
+    public static final int DEFAULT_NUM_TRAVERSALS = 3;
+    public static final int MAX_NUM_TRAVERSALS = 16;
+
+    private FrozenGraph graph;
+    private int[] component;   // dense vertex -> component id
+    private int numComponents;
+    private int numTraversals;
+
+    // Condensation adjacency (forward only)
+    private int[] offsets;
+    private int[] targets;
+
+    // Per component and traversal: low[c * numTraversals + t], post[c * numTraversals + t]
+    private int[] low;
+    private int[] post;
+
+    // Spanning forest of the first traversal: c's subtree is pre[c] .. pre[c] + treeSize[c] - 1
+    private int[] pre;
+    private int[] treeSize;
+
+    private ThreadLocal<Workspace> workspace;
+
+    public ReachabilityIndex(FrozenGraph theGraph)
+    {
+        this(theGraph, DEFAULT_NUM_TRAVERSALS);
+    }
+
+    //
+    // More traversals decide more negative queries at once, for 8 bytes per component each
+    //
+    public ReachabilityIndex(FrozenGraph theGraph, int traversals)
+    {
+        if (traversals < 1 || traversals > MAX_NUM_TRAVERSALS)
+        {
+            throw new IllegalArgumentException("Between 1 and " + MAX_NUM_TRAVERSALS + " traversals, not " + traversals);
+        }
+
+        graph = theGraph;
+        numTraversals = traversals;
+
+        StronglyConnectedComponents sccs = new StronglyConnectedComponents(graph);
+        numComponents = sccs.getNumComponents();
+        component = new int[graph.getNumVertices()];
+        for (int v = 0; v < component.length; v++)
+        {
+            component[v] = sccs.getComponent(v);
+        }
+
+        CSRGraph condensation = sccs.getCondensation();
+        offsets = new int[numComponents + 1];
+        targets = new int[condensation.getNumEdges()];
+        for (int c = 0; c < numComponents; c++)
+        {
+            int degree = condensation.getOutDegree(c);
+            offsets[c + 1] = offsets[c] + degree;
+            for (int i = 0; i < degree; i++)
+            {
+                targets[offsets[c] + i] = condensation.getOutNeighbor(c, i);
+            }
+        }
+
+        low = new int[numComponents * numTraversals];
+        post = new int[numComponents * numTraversals];
+        pre = new int[numComponents];
+        treeSize = new int[numComponents];
+
+        Random random = new Random(numComponents);
+        for (int t = 0; t < numTraversals; t++)
+        {
+            Label(t, t == 0 ? null : random);
+        }
+
+        workspace = ThreadLocal.withInitial(() -> new Workspace(numComponents));
+    }
+
+    //
+    // One depth-first traversal of the condensation, iterative with an explicit (component, next edge)
+    // stack. random == null: roots in id order, children in edge order, recording the spanning forest.
+    // Otherwise roots are visited from a random rotation and each component's children from a random
+    // offset, which is enough to make the traversals disagree.
+    //
+    private void Label(int t, Random random)
+    {
+        boolean[] visited = new boolean[numComponents];
+        int[] stack = new int[numComponents];
+        int[] cursor = new int[numComponents];    // edges of stack[i] done so far
+        int[] start = new int[numComponents];     // first edge offset of stack[i]
+        int nextPost = 0;
+        int nextPre = 0;
+
+        int rootOffset = random == null ? 0 : random.nextInt(Math.max(numComponents, 1));
+
+        for (int r = 0; r < numComponents; r++)
+        {
+            int root = (r + rootOffset) % numComponents;
+            if (visited[root]) continue;
+
+            int top = 0;
+            visited[root] = true;
+            stack[top] = root;
+            cursor[top] = 0;
+            start[top] = random == null ? 0 : RandomStart(root, random);
+            low[root * numTraversals + t] = Integer.MAX_VALUE;
+            if (random == null) pre[root] = nextPre++;
+
+            while (top >= 0)
+            {
+                int c = stack[top];
+                int degree = offsets[c + 1] - offsets[c];
+
+                if (cursor[top] < degree)
+                {
+                    int e = offsets[c] + (start[top] + cursor[top]++) % degree;
+                    int w = targets[e];
+
+                    if (!visited[w])
+                    {
+                        visited[w] = true;
+                        top++;
+                        stack[top] = w;
+                        cursor[top] = 0;
+                        start[top] = random == null ? 0 : RandomStart(w, random);
+                        low[w * numTraversals + t] = Integer.MAX_VALUE;
+                        if (random == null) pre[w] = nextPre++;
+                    }
+                    else
+                    {
+                        // w is finished (the condensation has no cycles), so its low is final
+                        int slot = c * numTraversals + t;
+                        low[slot] = Math.min(low[slot], low[w * numTraversals + t]);
+                    }
+                    continue;
+                }
+
+                // All children done: number c and hand its low to its parent
+                int slot = c * numTraversals + t;
+                post[slot] = nextPost++;
+                low[slot] = Math.min(low[slot], post[slot]);
+                if (random == null) treeSize[c] = nextPre - pre[c];
+
+                top--;
+                if (top >= 0)
+                {
+                    int parentSlot = stack[top] * numTraversals + t;
+                    low[parentSlot] = Math.min(low[parentSlot], low[slot]);
+                }
+            }
+        }
+    }
+
+    private int RandomStart(int c, Random random)
+    {
+        int degree = offsets[c + 1] - offsets[c];
+        return degree <= 1 ? 0 : random.nextInt(degree);
+    }
+
+    public FrozenGraph getGraph()
+    {
+        return graph;
+    }
+
+    //
+    // Whether there is a path from one vertex id to another (every vertex reaches itself)
+    //
+    public boolean reaches(int from, int to)
+    {
+        int u = graph.getIndex(from);
+        if (u < 0) throw new IllegalArgumentException("Vertex " + from + " is not in the graph");
+        int v = graph.getIndex(to);
+        if (v < 0) throw new IllegalArgumentException("Vertex " + to + " is not in the graph");
+
+        return ComponentReaches(component[u], component[v]);
+    }
+
+    private boolean ComponentReaches(int cu, int cv)
+    {
+        if (cu == cv) return true;
+        if (cu < cv || !Nests(cu, cv)) return false;
+        if (InTree(cu, cv)) return true;
+
+        return Search(cu, cv);
+    }
+
+    // Whether cv's interval lies inside cu's in every traversal (necessary for cu to reach cv)
+    private boolean Nests(int cu, int cv)
+    {
+        int su = cu * numTraversals;
+        int sv = cv * numTraversals;
+        for (int t = 0; t < numTraversals; t++)
+        {
+            if (low[sv + t] < low[su + t] || post[sv + t] > post[su + t]) return false;
+        }
+        return true;
+    }
+
+    // Whether cv is in cu's subtree of the first traversal's spanning forest (sufficient for reaching)
+    private boolean InTree(int cu, int cv)
+    {
+        return pre[cu] <= pre[cv] && pre[cv] < pre[cu] + treeSize[cu];
+    }
+
+    // Depth-first search from cu for cv, descending only into components that may still reach cv
+    private boolean Search(int cu, int cv)
+    {
+        Workspace ws = workspace.get();
+        ws.NextQuery();
+
+        int top = 0;
+        ws.stack[top++] = cu;
+        ws.stamp[cu] = ws.query;
+
+        while (top > 0)
+        {
+            int c = ws.stack[--top];
+            for (int e = offsets[c]; e < offsets[c + 1]; e++)
+            {
+                int w = targets[e];
+                if (w == cv) return true;
+                if (ws.stamp[w] == ws.query) continue;
+                ws.stamp[w] = ws.query;
+
+                if (w < cv || !Nests(w, cv)) continue;
+                if (InTree(w, cv)) return true;
+
+                ws.stack[top++] = w;
+            }
+        }
+
+        return false;
+    }
+
+    //
+    // Per-thread state of the fallback search; stamps avoid clearing the visited marks between queries
+    //
+    private static class Workspace
+    {
+        int[] stamp;
+        int[] stack;
+        int query;
+
+        Workspace(int numComponents)
+        {
+            stamp = new int[numComponents];
+            stack = new int[numComponents];
+        }
+
+        void NextQuery()
+        {
+            if (++query == 0)
+            {
+                Arrays.fill(stamp, 0);
+                query = 1;
+            }
+        }
+    }
+
+    //
+    // Whether two vertex ids are in the same strongly connected component
+    //
+    public boolean isStronglyConnected(int u, int v)
+    {
+        int iu = graph.getIndex(u);
+        int iv = graph.getIndex(v);
+        return iu >= 0 && iv >= 0 && component[iu] == component[iv];
+    }
+
+    public int getNumComponents()
+    {
+        return numComponents;
+    }
+
+    public int getNumTraversals()
+    {
+        return numTraversals;
+    }
+
+    //
+    // The size of the index itself, in bytes of array data (excluding the graph it was built from);
+    // the fallback workspace adds 8 bytes per component for each thread that has needed it
+    //
+    public long getMemoryBytes()
+    {
+        long ints = (long) component.length + offsets.length + targets.length
+            + low.length + post.length + pre.length + treeSize.length;
+        return ints * Integer.BYTES;
+    }
+}
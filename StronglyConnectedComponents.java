@@ -0,0 +1,215 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+//
+// Tarjan's Strongly Connected Components over a CSRGraph, in O(V + E) time and without recursion
+//
+// Each vertex v is assigned a unique discovery index, which numbers the vertices consecutively in the
+// order in which they are discovered, and a lowLink: roughly the smallest index of any vertex known to
+// be reachable from v that is still on the work stack. v is the root of a component when
+// lowLink[v] == index[v], and the component is then everything above v on the work stack.
+//
+// The depth-first search keeps its own call stack of (vertex, next edge) frames, so the depth of the
+// graph is limited by the heap rather than the thread stack. A frame's successors are copied onto a
+// stack of lists when it is entered (see FrozenGraph.getOutNeighbors), so every list is read once even
+// though the search returns to it once per child. Membership of the work stack is a bitset rather than
+// a search of the stack.
+//
+// Components are numbered in the order Tarjan's algorithm completes them, which is a reverse
+// topological order of the condensation: every edge between components goes from a higher
+// component id to a lower one.
+//
+public class StronglyConnectedComponents
+{
+    private FrozenGraph graph;
+    private int[] component;        // dense vertex -> component id
+    private int numComponents;
+    private int[] memberOffsets;    // the members of component c are
+    private int[] members;          // members[memberOffsets[c]] .. members[memberOffsets[c + 1] - 1]
+    private boolean hasSelfLoop;
+
+    public StronglyConnectedComponents(FrozenGraph theGraph)
+    {
+        graph = theGraph;
+
+        int n = graph.getNumVertices();
+        component = new int[n];
+        members = new int[n];
+        memberOffsets = new int[n + 1];
+        numComponents = 0;
+
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        long[] onStack = new long[(n + 63) >>> 6];
+        int[] workStack = new int[n];
+        int workTop = 0;
+        int[] callStack = new int[n];
+        int[] edgeCursor = new int[n];  // the next successor of a vertex on the call stack, in pending
+        int[] edgeEnd = new int[n];
+        int[] pending = new int[16];    // the successor lists of the call stack, caller below callee
+        int pendingTop = 0;
+        int callTop = 0;
+        int overallIndex = 0;
+        int emitted = 0;
+
+        Arrays.fill(index, -1);
+
+        for (int root = 0; root < n; root++)
+        {
+            if (index[root] >= 0) continue;
+
+            index[root] = lowLink[root] = overallIndex++;
+            workStack[workTop++] = root;
+            onStack[root >>> 6] |= 1L << root;
+            pending = Enter(root, pending, 0, edgeCursor, edgeEnd);
+            pendingTop = edgeEnd[root];
+            callStack[callTop++] = root;
+
+            while (callTop > 0)
+            {
+                int v = callStack[callTop - 1];
+
+                //
+                // Follow the next edge of v in depth-first manner
+                //
+                if (edgeCursor[v] < edgeEnd[v])
+                {
+                    int w = pending[edgeCursor[v]++];
+
+                    if (w == v) hasSelfLoop = true;
+
+                    if (index[w] < 0)
+                    {
+                        index[w] = lowLink[w] = overallIndex++;
+                        workStack[workTop++] = w;
+                        onStack[w >>> 6] |= 1L << w;
+                        pending = Enter(w, pending, pendingTop, edgeCursor, edgeEnd);
+                        pendingTop = edgeEnd[w];
+                        callStack[callTop++] = w;
+                    }
+                    else if ((onStack[w >>> 6] & (1L << w)) != 0)
+                    {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                    continue;
+                }
+
+                //
+                // All edges of v are done: return to the caller and pass the lowLink up
+                //
+                callTop--;
+                if (callTop > 0)
+                {
+                    int caller = callStack[callTop - 1];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[v]);
+                    pendingTop = edgeEnd[caller];
+                }
+
+                if (lowLink[v] == index[v])
+                {
+                    int w;
+                    do
+                    {
+                        w = workStack[--workTop];
+                        onStack[w >>> 6] &= ~(1L << w);
+                        component[w] = numComponents;
+                        members[emitted++] = w;
+                    } while (w != v);
+
+                    memberOffsets[++numComponents] = emitted;
+                }
+            }
+        }
+
+        memberOffsets = Arrays.copyOf(memberOffsets, numComponents + 1);
+    }
+
+    // Copies the successors of v onto pending at top, growing it if need be; returns pending
+    private int[] Enter(int v, int[] pending, int top, int[] edgeCursor, int[] edgeEnd)
+    {
+        int degree = graph.getOutDegree(v);
+        if (top + degree > pending.length) pending = Arrays.copyOf(pending, Math.max(2 * pending.length, top + degree));
+
+        graph.getOutNeighbors(v, pending, top);
+        edgeCursor[v] = top;
+        edgeEnd[v] = top + degree;
+        return pending;
+    }
+
+    public FrozenGraph getGraph()
+    {
+        return graph;
+    }
+
+    public int getNumComponents()
+    {
+        return numComponents;
+    }
+
+    // The component id of a dense vertex index
+    public int getComponent(int index)
+    {
+        return component[index];
+    }
+
+    public int getComponentSize(int comp)
+    {
+        return memberOffsets[comp + 1] - memberOffsets[comp];
+    }
+
+    // The i-th member (dense vertex index) of a component
+    public int getMember(int comp, int i)
+    {
+        return members[memberOffsets[comp] + i];
+    }
+
+    //
+    // A cycle exists if some component has more than one vertex or some vertex has an edge to itself
+    //
+    public boolean ContainsCycle()
+    {
+        return hasSelfLoop || numComponents < graph.getNumVertices();
+    }
+
+    //
+    // The components as lists of vertex ids, in the order they were found
+    //
+    public ArrayList<ArrayList<Integer>> getComponents()
+    {
+        ArrayList<ArrayList<Integer>> components = new ArrayList<ArrayList<Integer>>(numComponents);
+
+        for (int c = 0; c < numComponents; c++)
+        {
+            ArrayList<Integer> scc = new ArrayList<Integer>(getComponentSize(c));
+            for (int i = memberOffsets[c]; i < memberOffsets[c + 1]; i++)
+            {
+                scc.add(graph.getLabel(members[i]));
+            }
+            components.add(scc);
+        }
+
+        return components;
+    }
+
+    //
+    // The condensation: one vertex per component (vertex id == component id) and an edge between two
+    // components whenever some edge joins their members. The result is always a DAG.
+    //
+    public CSRGraph getCondensation()
+    {
+        DiGraphBuilder builder = new DiGraphBuilder(numComponents);
+
+        for (int v = 0; v < graph.getNumVertices(); v++)
+        {
+            for (int i = 0; i < graph.getOutDegree(v); i++)
+            {
+                int w = graph.getOutNeighbor(v, i);
+                if (component[v] != component[w]) builder.addEdge(component[v], component[w]);
+            }
+        }
+
+        return builder.buildCSR();
+    }
+}
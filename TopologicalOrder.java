@@ -0,0 +1,257 @@
+package digraph;
+
+import java.util.ArrayList;
+
+//
+// Kahn's topological sort over a CSRGraph in a single O(V + E) pass (O((V + E) log V) with a tie-break)
+//
+// L <- Empty list that will contain the sorted vertices
+// S <- Set of all vertices with no incoming edge
+// while S is not empty do
+//     remove a vertex n from S and add n to the tail of L
+//     for each vertex m with an edge from n to m do
+//         remove the edge; if m has no other incoming edges then insert m into S
+// if edges remain then the graph has a cycle
+//
+// "Removing" an edge only decrements an in-degree counter. The level of a vertex is the Kahn round in
+// which it becomes free: sources are on level 0 and every other vertex is one level below its deepest
+// predecessor, which gives the level-by-level layering of the DAG.
+//
+// When the graph is not a DAG the vertices that never become free each still have an unsorted
+// predecessor; walking those predecessors must repeat a vertex, which yields a witness cycle.
+//
+public class TopologicalOrder
+{
+    private FrozenGraph graph;
+    private int[] order;     // sorted dense indices; only the first numSorted are valid on a cycle
+    private int numSorted;
+    private int[] level;     // Kahn round of each sorted vertex
+    private int numLevels;
+    private int[] inDegree;  // what is left after sorting: > 0 exactly for the vertices on or behind a cycle
+
+    //
+    // Ready vertices are emitted first-in first-out
+    //
+    public TopologicalOrder(FrozenGraph theGraph)
+    {
+        this(theGraph, null);
+    }
+
+    //
+    // Ready vertices are emitted smallest first according to tieBreak, which compares vertex ids;
+    // this makes the order deterministic regardless of how the graph was built
+    //
+    public TopologicalOrder(FrozenGraph theGraph, IntComparator tieBreak)
+    {
+        graph = theGraph;
+
+        int n = graph.getNumVertices();
+        order = new int[n];
+        level = new int[n];
+        inDegree = new int[n];
+
+        if (tieBreak == null) SortFifo();
+        else SortHeap(tieBreak);
+    }
+
+    private void SortFifo()
+    {
+        int n = graph.getNumVertices();
+        int tail = 0;
+
+        for (int v = 0; v < n; v++)
+        {
+            inDegree[v] = graph.getInDegree(v);
+            if (inDegree[v] == 0) order[tail++] = v;
+        }
+
+        // The order array doubles as the FIFO of ready vertices
+        while (numSorted < tail)
+        {
+            int v = order[numSorted++];
+            for (int i = 0; i < graph.getOutDegree(v); i++)
+            {
+                int w = graph.getOutNeighbor(v, i);
+                if (level[w] < level[v] + 1) level[w] = level[v] + 1;
+                if (--inDegree[w] == 0) order[tail++] = w;
+            }
+            if (level[v] + 1 > numLevels) numLevels = level[v] + 1;
+        }
+    }
+
+    private void SortHeap(IntComparator tieBreak)
+    {
+        int n = graph.getNumVertices();
+        int[] heap = new int[n];
+        int heapSize = 0;
+
+        for (int v = 0; v < n; v++)
+        {
+            inDegree[v] = graph.getInDegree(v);
+            if (inDegree[v] == 0) heapSize = Push(heap, heapSize, v, tieBreak);
+        }
+
+        while (heapSize > 0)
+        {
+            int v = heap[0];
+            heapSize = Pop(heap, heapSize, tieBreak);
+            order[numSorted++] = v;
+
+            for (int i = 0; i < graph.getOutDegree(v); i++)
+            {
+                int w = graph.getOutNeighbor(v, i);
+                if (level[w] < level[v] + 1) level[w] = level[v] + 1;
+                if (--inDegree[w] == 0) heapSize = Push(heap, heapSize, w, tieBreak);
+            }
+            if (level[v] + 1 > numLevels) numLevels = level[v] + 1;
+        }
+    }
+
+    private boolean Less(int a, int b, IntComparator tieBreak)
+    {
+        return tieBreak.compare(graph.getLabel(a), graph.getLabel(b)) < 0;
+    }
+
+    private int Push(int[] heap, int heapSize, int v, IntComparator tieBreak)
+    {
+        int i = heapSize++;
+        while (i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            if (!Less(v, heap[parent], tieBreak)) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = v;
+        return heapSize;
+    }
+
+    private int Pop(int[] heap, int heapSize, IntComparator tieBreak)
+    {
+        int last = heap[--heapSize];
+        int i = 0;
+        while (true)
+        {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && Less(heap[child + 1], heap[child], tieBreak)) child++;
+            if (!Less(heap[child], last, tieBreak)) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return heapSize;
+    }
+
+    public FrozenGraph getGraph()
+    {
+        return graph;
+    }
+
+    public boolean isAcyclic()
+    {
+        return numSorted == graph.getNumVertices();
+    }
+
+    //
+    // The dense indices in topological order, or null if the graph contains a cycle
+    //
+    public int[] getOrder()
+    {
+        return isAcyclic() ? order : null;
+    }
+
+    //
+    // The vertex ids in topological order (sources first), or null if the graph contains a cycle
+    //
+    public ArrayList<Integer> getSortedLabels()
+    {
+        if (!isAcyclic()) return null;
+
+        ArrayList<Integer> sorted = new ArrayList<Integer>(numSorted);
+        for (int i = 0; i < numSorted; i++)
+        {
+            sorted.add(graph.getLabel(order[i]));
+        }
+
+        return sorted;
+    }
+
+    //
+    // The Kahn round of a dense vertex (0 for sources); only meaningful for an acyclic graph
+    //
+    public int getLevel(int index)
+    {
+        return level[index];
+    }
+
+    public int getNumLevels()
+    {
+        return isAcyclic() ? numLevels : 0;
+    }
+
+    //
+    // The vertex ids level by level: every edge goes from a lower level to a higher one, so the vertices
+    // within a level are independent of each other. Null if the graph contains a cycle.
+    //
+    public ArrayList<ArrayList<Integer>> getLayers()
+    {
+        if (!isAcyclic()) return null;
+
+        ArrayList<ArrayList<Integer>> layers = new ArrayList<ArrayList<Integer>>(numLevels);
+        for (int l = 0; l < numLevels; l++)
+        {
+            layers.add(new ArrayList<Integer>());
+        }
+        for (int i = 0; i < numSorted; i++)
+        {
+            layers.get(level[order[i]]).add(graph.getLabel(order[i]));
+        }
+
+        return layers;
+    }
+
+    //
+    // The vertex ids of one cycle in edge order (the last vertex has an edge back to the first),
+    // or null if the graph is a DAG
+    //
+    public ArrayList<Integer> getCycle()
+    {
+        if (isAcyclic()) return null;
+
+        int n = graph.getNumVertices();
+
+        // Any unsorted vertex has an unsorted predecessor, so walk predecessors until one repeats
+        int[] step = new int[n];
+        int[] walk = new int[n + 1];
+        int length = 0;
+
+        int v = 0;
+        while (inDegree[v] == 0) v++;
+
+        while (step[v] == 0)
+        {
+            walk[length] = v;
+            step[v] = ++length;
+
+            for (int i = 0; i < graph.getInDegree(v); i++)
+            {
+                int u = graph.getInNeighbor(v, i);
+                if (inDegree[u] > 0)
+                {
+                    v = u;
+                    break;
+                }
+            }
+        }
+
+        // walk[step[v] - 1 .. length - 1] is the cycle, reversed because it followed in-edges
+        ArrayList<Integer> cycle = new ArrayList<Integer>(length - step[v] + 1);
+        for (int i = length - 1; i >= step[v] - 1; i--)
+        {
+            cycle.add(graph.getLabel(walk[i]));
+        }
+
+        return cycle;
+    }
+}
@@ -0,0 +1,448 @@
+package digraph;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+//
+// A graph for one writer and many concurrent readers: readers take immutable snapshots without locking
+// while the writer keeps adding and removing edges
+//
+// The writer's edits are invisible until publish(), which makes them the current version in one volatile
+// write; snapshot() is one volatile read. A Snapshot is a FrozenGraph, so every engine runs over it, and
+// it never changes, however long a reader keeps it.
+//
+// Versions share their storage (persistent adjacency chunks). The vertices are kept in chunks of CHUNK,
+// each holding their labels and successor and predecessor lists, behind a directory of chunks; the id ->
+// index table is an open addressing table cut into chunks the same way. The first edit of a chunk after
+// a publish copies the chunk, and the first edit of a list copies the list, and nothing a published
+// version can reach is written again. A publish therefore costs the chunks and lists touched since the
+// last one plus a copy of the directories (V / CHUNK references), not a copy of the graph.
+//
+// The writing methods are synchronized, so several writers are safe too; readers never lock.
+//
+public class VersionedGraph
+{
+    static final int CHUNK = 64;
+    private static final int CHUNK_SHIFT = 6;
+    private static final int HEADER = 2; // a neighbor list is { epoch, size, neighbors... }
+
+    private Chunk[] vertexChunks;
+    private Chunk[] slotChunks;       // the id table: CHUNK (id, index + 1) pairs per chunk, 0 = free
+    private int slotMask;
+    private int numVertices;
+    private int numEdges;
+    private LongHashSet edgeIndex;    // the writer's own, for rejecting duplicate edges
+    private int epoch;                // stamps what was created since the last publish
+    private boolean ownsDirectories;  // vertexChunks and slotChunks were copied since the last publish
+    private long version;
+
+    private volatile Snapshot current;
+
+    //
+    // CHUNK vertices (their labels and neighbor lists) or CHUNK id table slots; written in place only
+    // by the epoch that created it
+    //
+    static final class Chunk
+    {
+        final int epoch;
+        final int[] values;
+        final int[][] out;
+        final int[][] in;
+
+        Chunk(int epoch, int[] values, int[][] out, int[][] in)
+        {
+            this.epoch = epoch;
+            this.values = values;
+            this.out = out;
+            this.in = in;
+        }
+
+        Chunk copy(int newEpoch)
+        {
+            return new Chunk(newEpoch, values.clone(), out == null ? null : out.clone(), in == null ? null : in.clone());
+        }
+    }
+
+    public VersionedGraph()
+    {
+        vertexChunks = new Chunk[1];
+        slotChunks = new Chunk[] { new Chunk(0, new int[2 * CHUNK], null, null) };
+        slotMask = CHUNK - 1;
+        edgeIndex = new LongHashSet();
+        current = new Snapshot(0, 0, 0, vertexChunks, slotChunks, slotMask);
+
+        // The empty version is published like any other
+        epoch = 1;
+        ownsDirectories = false;
+    }
+
+    //
+    // A versioned copy of graph, published as the first version; vertices keep their order
+    //
+    public VersionedGraph(DiGraphInt graph)
+    {
+        this();
+
+        for (int vertex : graph.vertices)
+        {
+            AddVertex(vertex);
+        }
+        for (int vertex : graph.vertices)
+        {
+            graph.ForEachOutNeighbor(vertex, to -> addEdge(vertex, to));
+        }
+        publish();
+    }
+
+    //
+    // The version published last; lock-free, and immutable however long it is kept
+    //
+    public Snapshot snapshot()
+    {
+        return current;
+    }
+
+    //
+    // Makes every edit so far visible to snapshot(); returns the new version
+    //
+    public synchronized Snapshot publish()
+    {
+        Snapshot published = new Snapshot(++version, numVertices, numEdges, vertexChunks, slotChunks, slotMask);
+        current = published;
+
+        // From here on the published chunks, lists and directories are copied before they are written
+        epoch++;
+        ownsDirectories = false;
+        return published;
+    }
+
+    //
+    // Adds a vertex without edges; returns false if it was already there
+    //
+    public synchronized boolean addVertex(int vertex)
+    {
+        return AddVertex(vertex) >= 0;
+    }
+
+    //
+    // Adds an edge, and its endpoints as needed (the target first, as DiGraphInt does); returns false
+    // if the edge was already there
+    //
+    public synchronized boolean addEdge(int from, int to)
+    {
+        if (!edgeIndex.add(Edge.key(from, to))) return false;
+
+        AddVertex(to);
+        AddVertex(from);
+        int fromIndex = IndexOf(from);
+        int toIndex = IndexOf(to);
+
+        Chunk fromChunk = OwnedChunk(fromIndex);
+        fromChunk.out[fromIndex & (CHUNK - 1)] = Append(fromChunk.out[fromIndex & (CHUNK - 1)], toIndex);
+        Chunk toChunk = OwnedChunk(toIndex);
+        toChunk.in[toIndex & (CHUNK - 1)] = Append(toChunk.in[toIndex & (CHUNK - 1)], fromIndex);
+
+        numEdges++;
+        return true;
+    }
+
+    //
+    // Removes an edge; returns false if there was no such edge. The last entry of each list moves into
+    // the hole, so the lists lose their insertion order.
+    //
+    public synchronized boolean removeEdge(int from, int to)
+    {
+        if (!edgeIndex.remove(Edge.key(from, to))) return false;
+
+        int fromIndex = IndexOf(from);
+        int toIndex = IndexOf(to);
+
+        Chunk fromChunk = OwnedChunk(fromIndex);
+        fromChunk.out[fromIndex & (CHUNK - 1)] = Remove(fromChunk.out[fromIndex & (CHUNK - 1)], toIndex);
+        Chunk toChunk = OwnedChunk(toIndex);
+        toChunk.in[toIndex & (CHUNK - 1)] = Remove(toChunk.in[toIndex & (CHUNK - 1)], fromIndex);
+
+        numEdges--;
+        return true;
+    }
+
+    public synchronized boolean containsEdge(int from, int to)
+    {
+        return edgeIndex.contains(Edge.key(from, to));
+    }
+
+    // The vertices and edges so far, published or not
+    public synchronized int getNumVertices()
+    {
+        return numVertices;
+    }
+
+    public synchronized int getNumEdges()
+    {
+        return numEdges;
+    }
+
+    // Adds vertex at the next index; returns the index, or -1 if it was already there
+    private int AddVertex(int vertex)
+    {
+        if (IndexOf(vertex) >= 0) return -1;
+
+        int index = numVertices++;
+        if ((index >> CHUNK_SHIFT) == vertexChunks.length)
+        {
+            vertexChunks = Arrays.copyOf(vertexChunks, vertexChunks.length * 2);
+            slotChunks = ownsDirectories ? slotChunks : slotChunks.clone();
+            ownsDirectories = true;
+        }
+
+        Chunk chunk = OwnedChunk(index);
+        chunk.values[index & (CHUNK - 1)] = vertex;
+
+        if (2 * numVertices > slotMask + 1) Rehash((slotMask + 1) * 2);
+        else PutSlot(vertex, index);
+
+        return index;
+    }
+
+    // The chunk of a dense vertex, made writable: copied unless this epoch created it
+    private Chunk OwnedChunk(int index)
+    {
+        OwnDirectories();
+
+        int c = index >> CHUNK_SHIFT;
+        Chunk chunk = vertexChunks[c];
+        if (chunk == null) chunk = vertexChunks[c] = new Chunk(epoch, new int[CHUNK], new int[CHUNK][], new int[CHUNK][]);
+        else if (chunk.epoch != epoch) chunk = vertexChunks[c] = chunk.copy(epoch);
+
+        return chunk;
+    }
+
+    private void OwnDirectories()
+    {
+        if (ownsDirectories) return;
+
+        vertexChunks = vertexChunks.clone();
+        slotChunks = slotChunks.clone();
+        ownsDirectories = true;
+    }
+
+    // Appends a neighbor to a list, copying the list first unless this epoch created it
+    private int[] Append(int[] list, int neighbor)
+    {
+        if (list == null) list = new int[] { epoch, 0, 0, 0 };
+
+        int size = list[1];
+        if (list[0] != epoch || HEADER + size == list.length)
+        {
+            list = Arrays.copyOf(list, HEADER + size + 1 + (size >> 1));
+            list[0] = epoch;
+        }
+
+        list[HEADER + size] = neighbor;
+        list[1] = size + 1;
+        return list;
+    }
+
+    // Removes a neighbor from a list, copying the list first unless this epoch created it
+    private int[] Remove(int[] list, int neighbor)
+    {
+        if (list[0] != epoch)
+        {
+            list = list.clone();
+            list[0] = epoch;
+        }
+
+        int last = HEADER + list[1] - 1;
+        for (int i = HEADER; i <= last; i++)
+        {
+            if (list[i] == neighbor)
+            {
+                list[i] = list[last];
+                break;
+            }
+        }
+        list[1]--;
+        return list;
+    }
+
+    private int IndexOf(int vertex)
+    {
+        return Lookup(slotChunks, slotMask, vertex);
+    }
+
+    private static int Mix(int key)
+    {
+        int h = key * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    // The dense index of an id in an id table, or -1
+    static int Lookup(Chunk[] slotChunks, int slotMask, int vertex)
+    {
+        for (int slot = Mix(vertex) & slotMask; ; slot = (slot + 1) & slotMask)
+        {
+            int[] values = slotChunks[slot >> CHUNK_SHIFT].values;
+            int i = 2 * (slot & (CHUNK - 1));
+
+            if (values[i + 1] == 0) return -1;
+            if (values[i] == vertex) return values[i + 1] - 1;
+        }
+    }
+
+    private void PutSlot(int vertex, int index)
+    {
+        OwnDirectories();
+
+        int slot = Mix(vertex) & slotMask;
+        while (true)
+        {
+            int c = slot >> CHUNK_SHIFT;
+            Chunk chunk = slotChunks[c];
+            int i = 2 * (slot & (CHUNK - 1));
+
+            if (chunk.values[i + 1] == 0)
+            {
+                if (chunk.epoch != epoch) chunk = slotChunks[c] = chunk.copy(epoch);
+                chunk.values[i] = vertex;
+                chunk.values[i + 1] = index + 1;
+                return;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    // A new id table of the given capacity (a power of two of at least CHUNK slots), kept at most half full
+    private void Rehash(int capacity)
+    {
+        slotChunks = new Chunk[capacity >> CHUNK_SHIFT];
+        for (int c = 0; c < slotChunks.length; c++)
+        {
+            slotChunks[c] = new Chunk(epoch, new int[2 * CHUNK], null, null);
+        }
+        slotMask = capacity - 1;
+        vertexChunks = ownsDirectories ? vertexChunks : vertexChunks.clone();
+        ownsDirectories = true;
+
+        for (int v = 0; v < numVertices; v++)
+        {
+            PutSlot(vertexChunks[v >> CHUNK_SHIFT].values[v & (CHUNK - 1)], v);
+        }
+    }
+
+    //
+    // One published version of a VersionedGraph: an immutable FrozenGraph sharing the chunks it was
+    // published with, so it may be read by any number of threads
+    //
+    public static final class Snapshot extends FrozenGraph
+    {
+        private final long version;
+        private final int numVertices;
+        private final int numEdges;
+        private final Chunk[] vertexChunks;
+        private final Chunk[] slotChunks;
+        private final int slotMask;
+
+        Snapshot(long version, int numVertices, int numEdges, Chunk[] vertexChunks, Chunk[] slotChunks, int slotMask)
+        {
+            this.version = version;
+            this.numVertices = numVertices;
+            this.numEdges = numEdges;
+            this.vertexChunks = vertexChunks;
+            this.slotChunks = slotChunks;
+            this.slotMask = slotMask;
+        }
+
+        // 1 for the first publish, 2 for the next and so on; 0 for the empty graph before any
+        public long getVersion()
+        {
+            return version;
+        }
+
+        public int getNumVertices()
+        {
+            return numVertices;
+        }
+
+        public int getNumEdges()
+        {
+            return numEdges;
+        }
+
+        public int getLabel(int index)
+        {
+            if (index < 0 || index >= numVertices) throw new IndexOutOfBoundsException("Index " + index + ", length " + numVertices);
+
+            return vertexChunks[index >> CHUNK_SHIFT].values[index & (CHUNK - 1)];
+        }
+
+        public int getIndex(int label)
+        {
+            return Lookup(slotChunks, slotMask, label);
+        }
+
+        private int[] OutList(int index)
+        {
+            return vertexChunks[index >> CHUNK_SHIFT].out[index & (CHUNK - 1)];
+        }
+
+        private int[] InList(int index)
+        {
+            return vertexChunks[index >> CHUNK_SHIFT].in[index & (CHUNK - 1)];
+        }
+
+        public int getOutDegree(int index)
+        {
+            int[] list = OutList(index);
+            return list == null ? 0 : list[1];
+        }
+
+        public int getInDegree(int index)
+        {
+            int[] list = InList(index);
+            return list == null ? 0 : list[1];
+        }
+
+        public int getOutNeighbor(int index, int i)
+        {
+            return OutList(index)[HEADER + i];
+        }
+
+        public int getInNeighbor(int index, int i)
+        {
+            return InList(index)[HEADER + i];
+        }
+
+        public boolean isWeighted()
+        {
+            return false;
+        }
+
+        public int getOutWeight(int index, int i)
+        {
+            return 1;
+        }
+
+        public int getInWeight(int index, int i)
+        {
+            return 1;
+        }
+
+        // A read-only view of the successors of a dense vertex, sharing the list (no copy)
+        public IntBuffer getOutNeighborView(int index)
+        {
+            return View(OutList(index));
+        }
+
+        public IntBuffer getInNeighborView(int index)
+        {
+            return View(InList(index));
+        }
+
+        private static IntBuffer View(int[] list)
+        {
+            if (list == null) return IntBuffer.allocate(0).asReadOnlyBuffer();
+
+            return IntBuffer.wrap(list, HEADER, list[1]).slice().asReadOnlyBuffer();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package digraph;
+
+//
+// Receives edges as primitive (from, to, weight) triples, e.g. from the streaming readers of GraphIO
+//
+@FunctionalInterface
+public interface WeightedEdgeVisitor
+{
+    void visit(int from, int to, int weight);
+}
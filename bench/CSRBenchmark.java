@@ -0,0 +1,113 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Random;
+import java.util.function.Supplier;
+
+//
+// Memory and load time of the ways to build a graph from an edge list: the Hashtable of
+// ArrayList<Integer> layout DiGraphInt started with, DiGraphInt.AddEdge today, and the bulk
+// DiGraphBuilder into a CSRGraph or a DiGraphInt
+//
+// The old layout is rebuilt here as it was (a successor and a predecessor Hashtable, duplicates found
+// by a scan of the list), except that the vertex list's linear contains is backed by a HashSet, which
+// would otherwise make the load quadratic in the number of vertices. Retained memory is the used heap
+// after a full collection with the graph alive, less the same before it was built.
+//
+//   java digraph.CSRBenchmark [numVertices] [edgesPerVertex] [repeats]
+//
+public class CSRBenchmark
+{
+    public static void main(String[] args)
+    {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        Random random = new Random(42);
+        int m = n * degree;
+        int[] from = new int[m];
+        int[] to = new int[m];
+        for (int e = 0; e < m; e++)
+        {
+            from[e] = random.nextInt(n);
+            to[e] = random.nextInt(n);
+        }
+
+        System.out.printf("%d vertices, %d edges%n", n, m);
+        System.out.printf("%-40s %12s %14s %10s%n", "", "load", "retained", "per edge");
+
+        Run("Hashtable<Integer, ArrayList<Integer>>", () -> LegacyBuild(from, to), m, repeats);
+        Run("DiGraphInt.AddEdge", () ->
+        {
+            DiGraphInt graph = new DiGraphInt();
+            for (int e = 0; e < m; e++)
+            {
+                graph.AddEdge(from[e], to[e]);
+            }
+            return graph;
+        }, m, repeats);
+        Run("DiGraphBuilder.buildDiGraphInt", () -> new DiGraphBuilder(n, m).addEdges(from, to).buildDiGraphInt(), m, repeats);
+        Run("DiGraphBuilder.buildCSR", () -> new DiGraphBuilder(n, m).addEdges(from, to).buildCSR(), m, repeats);
+    }
+
+    private static void Run(String name, Supplier<Object> build, int m, int repeats)
+    {
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < repeats; r++)
+        {
+            long start = System.nanoTime();
+            build.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        long before = Used();
+        Object graph = build.get();
+        long retained = Used() - before;
+
+        System.out.printf("%-40s %9.1f ms %11.1f MB %8.1f B%n", name, best / 1e6, retained / 1e6, (double) retained / m);
+        if (graph == null) throw new IllegalStateException();
+    }
+
+    private static long Used()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // The successor and predecessor maps of the original DiGraphInt
+    private static Object LegacyBuild(int[] from, int[] to)
+    {
+        Hashtable<Integer, ArrayList<Integer>> edgeMap = new Hashtable<Integer, ArrayList<Integer>>();
+        Hashtable<Integer, ArrayList<Integer>> transposeEdgeMap = new Hashtable<Integer, ArrayList<Integer>>();
+        ArrayList<Integer> vertices = new ArrayList<Integer>();
+        HashSet<Integer> listed = new HashSet<Integer>();
+
+        for (int e = 0; e < from.length; e++)
+        {
+            if (listed.add(to[e])) vertices.add(to[e]);
+            if (listed.add(from[e])) vertices.add(from[e]);
+
+            AddUnique(edgeMap, from[e], to[e]);
+            AddUnique(transposeEdgeMap, to[e], from[e]);
+        }
+        return new Object[] { edgeMap, transposeEdgeMap, vertices };
+    }
+
+    private static void AddUnique(Hashtable<Integer, ArrayList<Integer>> edges, int from, int to)
+    {
+        ArrayList<Integer> successors = edges.get(from);
+        if (successors == null)
+        {
+            successors = new ArrayList<Integer>();
+            edges.put(from, successors);
+        }
+        if (!successors.contains(to)) successors.add(to);
+    }
+}
@@ -0,0 +1,81 @@
+package digraph;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+//
+// CompressedGraph against CSRGraph on the engines that walk neighbor lists: strongly connected
+// components (Tarjan returns to a vertex once per child, so a high-degree vertex is the worst case for
+// a graph that decodes its lists) and the breadth-first level widths, sequential and on a pool of 4 threads
+//
+//   java digraph.CompressedGraphBenchmark [starDegree] [numVertices] [repeats]
+//
+public class CompressedGraphBenchmark
+{
+    public static void main(String[] args)
+    {
+        int starDegree = args.length > 0 ? Integer.parseInt(args[0]) : 40000;
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        // A star: one hub with an edge to and from every leaf, so it is one component
+        DiGraphBuilder star = new DiGraphBuilder(starDegree + 1);
+        for (int leaf = 1; leaf <= starDegree; leaf++)
+        {
+            star.addEdge(0, leaf);
+            star.addEdge(leaf, 0);
+        }
+        Compare("star " + starDegree, star.buildCSR(), repeats);
+
+        // A sparse graph with locality: about 8 edges per vertex, most to nearby vertices
+        Random random = new Random(42);
+        DiGraphBuilder local = new DiGraphBuilder(n, 8 * n);
+        for (int v = 0; v < n; v++)
+        {
+            for (int i = 0; i < 8; i++)
+            {
+                int w = random.nextInt(10) < 8 ? v + 1 + random.nextInt(64) : random.nextInt(n);
+                if (w < n) local.addEdge(v, w);
+            }
+        }
+        Compare("local " + n, local.buildCSR(), repeats);
+    }
+
+    private static void Compare(String name, CSRGraph csr, int repeats)
+    {
+        CompressedGraph compressed = CompressedGraph.compress(csr);
+        System.out.printf("%s: %d vertices, %d edges, %.2f bits per edge%n", name, csr.getNumVertices(), csr.getNumEdges(), compressed.getBitsPerEdge());
+
+        long[] csrTimes = Time(csr, repeats);
+        long[] compressedTimes = Time(compressed, repeats);
+        String[] engines = { "components", "level widths", "parallel level widths" };
+        for (int i = 0; i < engines.length; i++)
+        {
+            System.out.printf("  %-22s CSR %8.1f ms   compressed %8.1f ms   %5.2fx%n", engines[i], csrTimes[i] / 1e6, compressedTimes[i] / 1e6, (double) compressedTimes[i] / csrTimes[i]);
+        }
+    }
+
+    // The best time of each engine over the repeats, in nanoseconds
+    private static long[] Time(FrozenGraph graph, int repeats)
+    {
+        long[] best = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        for (int r = 0; r < repeats; r++)
+        {
+            long start = System.nanoTime();
+            new StronglyConnectedComponents(graph);
+            best[0] = Math.min(best[0], System.nanoTime() - start);
+
+            start = System.nanoTime();
+            new LevelWidth(graph).getWidthProfile(new int[] { 0 }, true);
+            best[1] = Math.min(best[1], System.nanoTime() - start);
+
+            start = System.nanoTime();
+            new ParallelBFS(graph, pool).getWidthProfile(new int[] { 0 }, true);
+            best[2] = Math.min(best[2], System.nanoTime() - start);
+        }
+        pool.shutdown();
+        return best;
+    }
+}
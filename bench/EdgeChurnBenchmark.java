@@ -0,0 +1,122 @@
+package digraph;
+
+import java.util.Random;
+
+//
+// Add/remove churn on an EdgeTable under three compaction policies: the one DiGraph uses
+// (needsCompaction: the tombstones outnumber both the live edges and the vertices), compacting as soon
+// as the tombstones outnumber the live edges, and never compacting. The owner's share of a compaction
+// (DiGraph renumbers its edge index) is included by renumbering the benchmark's own list of live edges.
+//
+//   sparse  many vertices, a small window of live edges: the oldest edge goes, a new one comes
+//   hub     the same on the out-chain of a single vertex, walking that chain every 64 operations
+//   dense   a random live edge goes and a random new one comes, with the edges outnumbering the vertices
+//
+//   java digraph.EdgeChurnBenchmark [operations]
+//
+public class EdgeChurnBenchmark
+{
+    private static final String[] POLICIES = { "needsCompaction", "tombstones > live", "never" };
+
+    public static void main(String[] args)
+    {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+
+        // Warm up every path first, so the order of the runs does not decide the times
+        for (int policy = 0; policy < POLICIES.length; policy++)
+        {
+            Churn(100000, 1000, false, false, policy, operations / 4);
+            Churn(1000, 1000, true, false, policy, operations / 4);
+            Churn(10000, 100000, false, true, policy, operations / 4);
+        }
+
+        System.out.printf("%-8s %-18s %10s %12s %10s %12s%n", "", "policy", "ns/op", "compactions", "slots/live", "walk ns/edge");
+        for (int policy = 0; policy < POLICIES.length; policy++)
+        {
+            Report("sparse", policy, Churn(1000000, 1000, false, false, policy, operations));
+        }
+        for (int policy = 0; policy < POLICIES.length; policy++)
+        {
+            Report("hub", policy, Churn(1000, 1000, true, false, policy, operations));
+        }
+        for (int policy = 0; policy < POLICIES.length; policy++)
+        {
+            Report("dense", policy, Churn(100000, 1000000, false, true, policy, operations));
+        }
+    }
+
+    private static void Report(String scenario, int policy, double[] result)
+    {
+        System.out.printf("%-8s %-18s %10.1f %12d %10.2f %12s%n", scenario, POLICIES[policy], result[0], (long) result[1], result[2], result[3] < 0 ? "" : String.format("%.1f", result[3]));
+    }
+
+    //
+    // Runs the churn and returns ns per operation, the number of compactions, the most slots per live
+    // edge seen and (hub only) the ns per live edge of a walk of the hub's chain, else -1
+    //
+    private static double[] Churn(int numVertices, int numLive, boolean hub, boolean randomVictim, int policy, int operations)
+    {
+        Random random = new Random(42);
+        EdgeTable table = new EdgeTable(numVertices, numLive);
+        for (int v = 0; v < numVertices; v++)
+        {
+            table.addVertex();
+        }
+
+        // The live edge ids: a ring, oldest first, or (randomVictim) a bag
+        int[] live = new int[numLive];
+        int oldest = 0;
+        for (int i = 0; i < numLive; i++)
+        {
+            live[i] = table.addEdge(hub ? 0 : random.nextInt(numVertices), random.nextInt(numVertices), 1);
+        }
+
+        long compactions = 0;
+        double maxSlots = 1;
+        long walkTime = 0;
+        long walked = 0;
+        int[] sum = new int[1];
+
+        long start = System.nanoTime();
+        for (int op = 0; op < operations; op++)
+        {
+            int slot = randomVictim ? random.nextInt(numLive) : oldest;
+            table.removeEdge(live[slot]);
+            live[slot] = table.addEdge(hub ? 0 : random.nextInt(numVertices), random.nextInt(numVertices), 1);
+            if (!randomVictim) oldest = (oldest + 1) % numLive;
+
+            if (Compact(table, policy))
+            {
+                int[] newId = table.compact();
+                for (int i = 0; i < numLive; i++)
+                {
+                    live[i] = newId[live[i]];
+                }
+                compactions++;
+            }
+            maxSlots = Math.max(maxSlots, (double) table.getEdgeLimit() / table.getNumEdges());
+
+            if (hub && (op & 63) == 0)
+            {
+                long walkStart = System.nanoTime();
+                table.forEachOutNeighbor(0, w -> sum[0] += w);
+                walkTime += System.nanoTime() - walkStart;
+                walked += table.getOutDegree(0);
+            }
+        }
+        long elapsed = System.nanoTime() - start - walkTime;
+
+        if (sum[0] == 42) System.out.print("");
+        return new double[] { (double) elapsed / operations, compactions, maxSlots, hub ? (double) walkTime / walked : -1 };
+    }
+
+    private static boolean Compact(EdgeTable table, int policy)
+    {
+        switch (policy)
+        {
+            case 0: return table.needsCompaction();
+            case 1: return table.getNumRemovedEdges() > table.getNumEdges();
+            default: return false;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package digraph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+//
+// Thread scaling of ParallelBFS: the width profile of a random graph on pools of 1, 2, 4, 8 and 16
+// threads, direction-optimizing and plain top-down, with the speedup over the 1-thread pool (which
+// ParallelBFS hands to the sequential LevelWidth). Every profile is checked against LevelWidth.
+//
+//   java digraph.ParallelBFSBenchmark [numVertices] [edgesPerVertex] [repeats]
+//
+public class ParallelBFSBenchmark
+{
+    private static final int[] THREADS = { 1, 2, 4, 8, 16 };
+
+    public static void main(String[] args)
+    {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int degree = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        Random random = new Random(42);
+        DiGraphBuilder builder = new DiGraphBuilder(n, n * degree);
+        for (int v = 0; v < n; v++)
+        {
+            for (int i = 0; i < degree; i++)
+            {
+                builder.addEdge(v, random.nextInt(n));
+            }
+        }
+        CSRGraph graph = builder.buildCSR();
+
+        int[] seeds = { 0 };
+        int[] expected = new LevelWidth(graph).getWidthProfile(seeds, true);
+        System.out.printf("%d vertices, %d edges, %d levels, %d processors%n", n, graph.getNumEdges(), expected.length, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%8s %20s %9s %20s %9s%n", "threads", "direction-optimizing", "speedup", "top-down", "speedup");
+
+        double[] base = new double[2];
+        for (int threads : THREADS)
+        {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            double[] times = new double[2];
+            for (int mode = 0; mode < 2; mode++)
+            {
+                ParallelBFS bfs = new ParallelBFS(graph, pool);
+                bfs.setDirectionOptimizing(mode == 0);
+
+                long best = Long.MAX_VALUE;
+                for (int r = 0; r < repeats; r++)
+                {
+                    long start = System.nanoTime();
+                    int[] profile = bfs.getWidthProfile(seeds, true);
+                    best = Math.min(best, System.nanoTime() - start);
+
+                    if (!Arrays.equals(profile, expected)) throw new IllegalStateException("Profile differs on " + threads + " threads");
+                }
+                times[mode] = best / 1e6;
+                if (threads == 1) base[mode] = times[mode];
+            }
+            pool.shutdown();
+
+            System.out.printf("%8d %17.1f ms %8.2fx %17.1f ms %8.2fx%n", threads, times[0], base[0] / times[0], times[1], base[1] / times[1]);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package digraph;
+
+import java.io.IOException;
+
+//
+// Runs every test. From the repository root:
+//
+//   javac -d out *.java test/*.java && java -ea -cp out digraph.AllTests
+//
+// Every test class is a main of its own as well; a failure throws an AssertionError naming the case.
+//
+public class AllTests
+{
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        CSRGraphTest.main(args);
+        DuplicateEdgeTest.main(args);
+        DiGraphBuilderTest.main(args);
+        StronglyConnectedComponentsTest.main(args);
+        TopologicalOrderTest.main(args);
+        DagPathsTest.main(args);
+        LevelWidthTest.main(args);
+        ParallelBFSTest.main(args);
+        NeighborTest.main(args);
+        NodeViewTest.main(args);
+        DijkstraTest.main(args);
+        BidirectionalSearchTest.main(args);
+        ContractionHierarchyTest.main(args);
+        ReachabilityIndexTest.main(args);
+        LinearExtensionsTest.main(args);
+        ParallelLinearExtensionsTest.main(args);
+        LinearizationTest.main(args);
+        DynamicTopologicalOrderTest.main(args);
+        DynamicStronglyConnectedComponentsTest.main(args);
+        RemovalTest.main(args);
+        MappedGraphTest.main(args);
+        GraphIOTest.main(args);
+        OffHeapGraphTest.main(args);
+        CompressedGraphTest.main(args);
+        VersionedGraphTest.main(args);
+    }
+}
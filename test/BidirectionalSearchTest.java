@@ -0,0 +1,77 @@
+package digraph;
+
+import java.util.HashMap;
+import java.util.Random;
+
+//
+// Bidirectional search and A* against Dijkstra on the same queries, by weight and in edges, on dense
+// and sparse ids; A* is guided by half the true distance to the target, which is consistent
+//
+public class BidirectionalSearchTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(12);
+        for (int trial = 0; trial < 200; trial++)
+        {
+            int n = 1 + random.nextInt(50);
+            boolean dense = trial % 2 == 0;
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(4 * n), dense ? 1 + random.nextInt(20) : 1, dense, trial % 4 == 1);
+            CSRGraph graph = dense ? reference.toDiGraph().freeze() : reference.toDiGraphInt().Freeze();
+            if (reference.vertices.isEmpty()) continue;
+
+            for (boolean weighted : new boolean[] { false, true })
+            {
+                Dijkstra dijkstra = new Dijkstra(graph, weighted);
+                Dijkstra aStar = new Dijkstra(graph, weighted);
+                BidirectionalSearch bidirectional = new BidirectionalSearch(graph, weighted);
+                for (int query = 0; query < 10; query++)
+                {
+                    int source = reference.vertices.get(random.nextInt(reference.vertices.size()));
+                    int target = reference.vertices.get(random.nextInt(reference.vertices.size()));
+                    String name = "trial " + trial + (weighted ? " weighted " : " unweighted ") + source + " -> " + target;
+
+                    long expected = dijkstra.shortestPath(source, target);
+                    TestSupport.checkEquals(expected, bidirectional.shortestPath(source, target), name + " bidirectional");
+                    TestSupport.checkEquals(expected, bidirectional.getDistance(), name + " bidirectional getDistance");
+
+                    // The distances to the target along the reversed edges give the heuristic
+                    HashMap<Integer, Long> toTarget = ReverseDistances(reference, target, weighted);
+                    TestSupport.checkEquals(expected, aStar.shortestPath(source, target, (v, t) -> toTarget.getOrDefault(v, 0L) / 2), name + " A*");
+
+                    if (expected == Dijkstra.UNREACHABLE)
+                    {
+                        TestSupport.check(bidirectional.getPath() == null && aStar.getPath(target) == null, name + ": a path without one");
+                        continue;
+                    }
+                    TestSupport.checkPath(reference, bidirectional.getPath(), source, target, expected, weighted, name + " bidirectional");
+                    TestSupport.checkPath(reference, aStar.getPath(target), source, target, expected, weighted, name + " A*");
+                }
+            }
+
+            // FrozenGraph's shortest path searches from both ends by the graph's own weights
+            int source = reference.vertices.get(0);
+            int target = reference.vertices.get(reference.vertices.size() - 1);
+            Long distance = reference.distances(source, dense).get(target);
+            if (distance == null) TestSupport.check(graph.GetShortestPath(source, target) == null, "trial " + trial + ": GetShortestPath without a path");
+            else TestSupport.checkPath(reference, graph.GetShortestPath(source, target), source, target, distance, dense, "trial " + trial + " GetShortestPath");
+        }
+
+        System.out.println("BidirectionalSearchTest: ok");
+    }
+
+    // The distance from every vertex to target, from Bellman-Ford over the reversed reference
+    private static HashMap<Integer, Long> ReverseDistances(TestSupport.ReferenceGraph reference, int target, boolean weighted)
+    {
+        TestSupport.ReferenceGraph reversed = new TestSupport.ReferenceGraph();
+        for (int v : reference.vertices)
+        {
+            reversed.addVertex(v);
+        }
+        for (int[] edge : reference.edges)
+        {
+            reversed.addEdge(edge[1], edge[0], edge[2]);
+        }
+        return reversed.distances(target, weighted);
+    }
+}
@@ -0,0 +1,34 @@
+package digraph;
+
+import java.util.Random;
+
+//
+// CSRGraph frozen from DiGraphInt, DiGraph and DiGraphBuilder, against the reference graph the
+// source was built from
+//
+public class CSRGraphTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(1);
+        for (int trial = 0; trial < 300; trial++)
+        {
+            int n = 1 + random.nextInt(60);
+            int m = random.nextInt(4 * n);
+            boolean acyclic = random.nextBoolean();
+
+            TestSupport.ReferenceGraph sparse = TestSupport.randomGraph(random, n, m, 1, false, acyclic);
+            TestSupport.checkSameGraph(new CSRGraph(sparse.toDiGraphInt()), sparse, true, false, "DiGraphInt trial " + trial);
+            TestSupport.checkSameGraph(sparse.toDiGraphInt().Freeze(), sparse, true, false, "Freeze trial " + trial);
+
+            TestSupport.ReferenceGraph dense = TestSupport.randomGraph(random, n, m, 1 + random.nextInt(5), true, acyclic);
+            TestSupport.checkSameGraph(new CSRGraph(dense.toDiGraph()), dense, true, true, "DiGraph trial " + trial);
+            TestSupport.checkSameGraph(dense.toDiGraph().freeze(), dense, true, true, "freeze trial " + trial);
+        }
+
+        // The empty graph
+        TestSupport.checkSameGraph(new CSRGraph(new DiGraphInt()), new TestSupport.ReferenceGraph(), true, false, "empty");
+
+        System.out.println("CSRGraphTest: ok");
+    }
+}
@@ -0,0 +1,162 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+//
+// CompressedGraph against the reference and the CSRGraph it compresses, for several windows and
+// reference chain limits: every accessor, reads that interleave lists and directions, reads from many
+// threads, the engines over both graphs, and Tarjan on a high-degree star in linear time
+//
+public class CompressedGraphTest
+{
+    public static void main(String[] args)
+    {
+        int[][] settings = { { 0, 0 }, { 1, 1 }, { CompressedGraph.DEFAULT_WINDOW, CompressedGraph.DEFAULT_MAX_REF_COUNT }, { 16, 0 }, { 16, 1000 } };
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            Random random = new Random(24);
+            for (int trial = 0; trial < 100; trial++)
+            {
+                int n = 1 + random.nextInt(120);
+                boolean weighted = trial % 3 != 2;
+                boolean dense = weighted || trial % 2 == 0;
+                TestSupport.ReferenceGraph reference = trial % 2 == 0 ? Local(random, n, weighted) : TestSupport.randomGraph(random, n, random.nextInt(4 * n), 9, dense, random.nextBoolean());
+                CSRGraph csr = dense ? reference.toDiGraph().freeze() : reference.toDiGraphInt().Freeze();
+                if (csr.getNumVertices() == 0) continue;
+
+                for (int[] setting : settings)
+                {
+                    String name = "trial " + trial + " window " + setting[0] + " refs " + setting[1];
+                    CompressedGraph graph = CompressedGraph.compress(csr, setting[0], setting[1]);
+                    TestSupport.checkSameGraph(graph, reference, false, weighted, name);
+                    Interleaved(csr, graph, random, name);
+                    Concurrent(csr, graph, name);
+                    Engines(csr, graph, pool, name);
+                }
+            }
+
+            // Tarjan returns to the hub once per leaf; decoding its list each time would be quadratic
+            int leaves = 200000;
+            DiGraphBuilder star = new DiGraphBuilder(leaves + 1);
+            for (int leaf = 1; leaf <= leaves; leaf++)
+            {
+                star.addEdge(0, leaf);
+                star.addEdge(leaf, 0);
+            }
+            CompressedGraph compressed = CompressedGraph.compress(star.buildCSR());
+            long start = System.nanoTime();
+            TestSupport.checkEquals(1, new StronglyConnectedComponents(compressed).getNumComponents(), "star components");
+            long millis = (System.nanoTime() - start) / 1000000;
+            TestSupport.check(millis < 5000, "star components took " + millis + " ms");
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        System.out.println("CompressedGraphTest: ok");
+    }
+
+    // Lists copied from the previous vertex with a few changes, so that references pay off
+    private static TestSupport.ReferenceGraph Local(Random random, int n, boolean weighted)
+    {
+        TestSupport.ReferenceGraph reference = new TestSupport.ReferenceGraph();
+        for (int v = 0; v < n; v++)
+        {
+            reference.addVertex(v);
+        }
+        ArrayList<Integer> previous = new ArrayList<Integer>();
+        for (int v = 0; v < n; v++)
+        {
+            ArrayList<Integer> list = new ArrayList<Integer>();
+            for (int w : previous)
+            {
+                if (random.nextInt(5) != 0) list.add(w);
+            }
+            for (int k = random.nextInt(4); k > 0; k--)
+            {
+                list.add(Math.floorMod(v + random.nextInt(17) - 8, n));
+            }
+            for (int w : list)
+            {
+                reference.addEdge(v, w, weighted ? 1 + random.nextInt(9) : 1);
+            }
+            previous = reference.successors(v);
+        }
+        return reference;
+    }
+
+    // Random (vertex, position) reads alternating between lists and directions
+    private static void Interleaved(CSRGraph csr, CompressedGraph graph, Random random, String name)
+    {
+        int n = csr.getNumVertices();
+        for (int read = 0; read < 4 * n; read++)
+        {
+            int v = random.nextInt(n);
+            boolean out = random.nextBoolean();
+            int degree = out ? csr.getOutDegree(v) : csr.getInDegree(v);
+            TestSupport.checkEquals(degree, out ? graph.getOutDegree(v) : graph.getInDegree(v), name + " degree of " + v);
+            if (degree == 0) continue;
+            int i = random.nextInt(degree);
+            HashSet<Integer> expected = new HashSet<Integer>(TestSupport.boxed(Neighbors(csr, v, out)));
+            int w = out ? graph.getOutNeighbor(v, i) : graph.getInNeighbor(v, i);
+            TestSupport.check(expected.contains(w), name + ": " + w + " is not a neighbor of " + v);
+        }
+    }
+
+    // Every list read from many threads at once equals the CSR list as a set
+    private static void Concurrent(CSRGraph csr, CompressedGraph graph, String name)
+    {
+        long wrong = IntStream.range(0, 2 * csr.getNumVertices()).parallel().filter(q ->
+        {
+            int v = q >> 1;
+            boolean out = (q & 1) == 0;
+            int[] expected = Neighbors(csr, v, out);
+            int[] actual = Neighbors(graph, v, out);
+            Arrays.sort(expected);
+            Arrays.sort(actual);
+            return !Arrays.equals(expected, actual);
+        }).count();
+        TestSupport.checkEquals(0L, wrong, name + " lists read concurrently");
+    }
+
+    private static void Engines(CSRGraph csr, CompressedGraph graph, ForkJoinPool pool, String name)
+    {
+        HashSet<ArrayList<Integer>> components = new HashSet<ArrayList<Integer>>();
+        for (ArrayList<Integer> component : new StronglyConnectedComponents(csr).getComponents())
+        {
+            components.add(TestSupport.sorted(component));
+        }
+        HashSet<ArrayList<Integer>> compressedComponents = new HashSet<ArrayList<Integer>>();
+        for (ArrayList<Integer> component : new StronglyConnectedComponents(graph).getComponents())
+        {
+            compressedComponents.add(TestSupport.sorted(component));
+        }
+        TestSupport.checkEquals(components, compressedComponents, name + " components");
+
+        int[] seeds = LevelWidth.sinks(csr);
+        TestSupport.checkEquals(Arrays.toString(seeds), Arrays.toString(LevelWidth.sinks(graph)), name + " sinks");
+        String widths = Arrays.toString(new LevelWidth(csr).getWidthProfile(seeds, false));
+        TestSupport.checkEquals(widths, Arrays.toString(new LevelWidth(graph).getWidthProfile(seeds, false)), name + " widths");
+        ParallelBFS bfs = new ParallelBFS(graph, pool);
+        bfs.setSequentialThreshold(0);
+        TestSupport.checkEquals(widths, Arrays.toString(bfs.getWidthProfile(seeds, false)), name + " parallel widths");
+        TestSupport.checkEquals(csr.ContainsCycle(), graph.ContainsCycle(), name + " cycle");
+    }
+
+    private static int[] Neighbors(FrozenGraph graph, int v, boolean out)
+    {
+        int[] neighbors = new int[out ? graph.getOutDegree(v) : graph.getInDegree(v)];
+        for (int i = 0; i < neighbors.length; i++)
+        {
+            neighbors[i] = out ? graph.getOutNeighbor(v, i) : graph.getInNeighbor(v, i);
+        }
+        return neighbors;
+    }
+}
@@ -0,0 +1,85 @@
+package digraph;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Random;
+
+//
+// Contraction hierarchy queries against Bellman-Ford over the reference on dense and sparse ids,
+// before and after a writeTo / readFrom round trip, with paths unpacked to edges of the original graph
+//
+public class ContractionHierarchyTest
+{
+    public static void main(String[] args) throws IOException
+    {
+        Random random = new Random(13);
+        for (int trial = 0; trial < 150; trial++)
+        {
+            int n = 1 + random.nextInt(60);
+            boolean dense = trial % 2 == 0;
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(4 * n), dense ? 1 + random.nextInt(20) : 1, dense, trial % 4 == 1);
+            if (reference.vertices.isEmpty()) continue;
+            ContractionHierarchy built = dense ? reference.toDiGraph().buildContractionHierarchy() : ContractionHierarchy.build(reference.toDiGraphInt().Freeze());
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            built.writeTo(new DataOutputStream(bytes));
+            ContractionHierarchy read = ContractionHierarchy.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            TestSupport.checkEquals(built.getNumVertices(), read.getNumVertices(), "trial " + trial + " vertices read");
+            TestSupport.checkEquals(built.getNumEdges(), read.getNumEdges(), "trial " + trial + " edges read");
+            TestSupport.checkEquals(built.getNumShortcuts(), read.getNumShortcuts(), "trial " + trial + " shortcuts read");
+            TestSupport.checkEquals(reference.vertices.size(), built.getNumVertices(), "trial " + trial + " vertices");
+
+            // The ranks are a permutation of the vertices, and survive the round trip
+            boolean[] ranked = new boolean[built.getNumVertices()];
+            for (int v : reference.vertices)
+            {
+                int rank = built.getRank(v);
+                TestSupport.check(rank >= 0 && !ranked[rank], "trial " + trial + ": rank " + rank + " of " + v);
+                ranked[rank] = true;
+                TestSupport.checkEquals(rank, read.getRank(v), "trial " + trial + " rank read of " + v);
+            }
+
+            ContractionHierarchy.Query builtQuery = built.newQuery();
+            ContractionHierarchy.Query readQuery = read.newQuery();
+            for (int query = 0; query < 20; query++)
+            {
+                int source = reference.vertices.get(random.nextInt(reference.vertices.size()));
+                int target = reference.vertices.get(random.nextInt(reference.vertices.size()));
+                String name = "trial " + trial + " " + source + " -> " + target;
+                HashMap<Integer, Long> distances = reference.distances(source, true);
+                Long expected = distances.get(target);
+
+                for (ContractionHierarchy.Query q : new ContractionHierarchy.Query[] { builtQuery, readQuery })
+                {
+                    String what = name + (q == builtQuery ? " built" : " read");
+                    long found = q.shortestPath(source, target);
+                    TestSupport.checkEquals(found, q.getDistance(), what + " getDistance");
+                    if (expected == null)
+                    {
+                        TestSupport.checkEquals(ContractionHierarchy.UNREACHABLE, found, what + " distance");
+                        TestSupport.check(q.getPath() == null, what + ": a path without one");
+                        continue;
+                    }
+                    TestSupport.checkEquals(expected, found, what + " distance");
+                    TestSupport.checkPath(reference, q.getPath(), source, target, expected, true, what);
+                }
+            }
+        }
+
+        // A stream that is not a hierarchy is refused
+        try
+        {
+            ContractionHierarchy.readFrom(new DataInputStream(new ByteArrayInputStream(new byte[8])));
+            throw new AssertionError("read a hierarchy from zeros");
+        }
+        catch (IOException expected)
+        {
+        }
+
+        System.out.println("ContractionHierarchyTest: ok");
+    }
+}
@@ -0,0 +1,161 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+//
+// DagPaths against a memoized depth-first search over the reference: longest paths from anywhere
+// and from one source, shortest paths with negative weights, the paths themselves, and the
+// critical path and length of CSRGraph and DiGraphInt
+//
+public class DagPathsTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(6);
+        for (int trial = 0; trial < 300; trial++)
+        {
+            int n = 1 + random.nextInt(40);
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(3 * n), 1 + random.nextInt(9), true, true);
+            String name = "trial " + trial;
+
+            // Shift the weights down on odd trials so shortest paths see negative edges
+            int shift = trial % 2 == 0 ? 0 : 5;
+            DiGraph<String> digraph = new DiGraph<String>();
+            for (int v = 0; v < n; v++)
+            {
+                digraph.addNode("n" + v);
+            }
+            for (int[] edge : reference.edges)
+            {
+                digraph.addEdge(edge[0], edge[1], edge[2] - shift);
+            }
+            CSRGraph graph = digraph.freeze();
+
+            for (boolean weighted : new boolean[] { false, true })
+            {
+                String what = name + (weighted ? " weighted" : " unweighted");
+                int edgeShift = weighted ? shift : 0;
+
+                // From anywhere: the best path ending at each vertex
+                HashMap<Integer, Long> memo = new HashMap<Integer, Long>();
+                DagPaths critical = DagPaths.longestPaths(graph, weighted);
+                long criticalLength = 0;
+                for (int v = 0; v < n; v++)
+                {
+                    long expected = LongestInto(reference, v, weighted, edgeShift, memo);
+                    TestSupport.checkEquals(expected, critical.getDistance(v), what + " longest into " + v);
+                    CheckPath(reference, critical.getPath(v), -1, v, expected, weighted, edgeShift, what);
+                    criticalLength = Math.max(criticalLength, expected);
+                }
+                TestSupport.checkEquals(criticalLength, critical.getCriticalLength(), what + " critical length");
+                ArrayList<Integer> criticalPath = critical.getCriticalPath();
+                CheckPath(reference, criticalPath, -1, criticalPath.get(criticalPath.size() - 1), criticalLength, weighted, edgeShift, what + " critical path");
+
+                // From one source, longest and shortest
+                int source = random.nextInt(n);
+                DagPaths longest = DagPaths.longestPaths(graph, source, weighted);
+                DagPaths shortest = DagPaths.shortestPaths(graph, source, weighted);
+                HashMap<Integer, Long> longMemo = new HashMap<Integer, Long>();
+                HashMap<Integer, Long> shortMemo = new HashMap<Integer, Long>();
+                for (int v = 0; v < n; v++)
+                {
+                    boolean reachable = reference.reachable(source).contains(v);
+                    TestSupport.checkEquals(reachable, longest.isReachable(v), what + " reachable " + source + " -> " + v);
+                    TestSupport.checkEquals(reachable, shortest.isReachable(v), what + " reachable " + source + " -> " + v);
+                    if (!reachable)
+                    {
+                        TestSupport.checkEquals(DagPaths.UNREACHABLE, longest.getDistance(v), what + " unreachable distance");
+                        TestSupport.check(longest.getPath(v) == null && shortest.getPath(v) == null, what + ": a path to an unreachable vertex");
+                        continue;
+                    }
+                    long expectedLong = FromSource(reference, source, v, true, weighted, edgeShift, longMemo);
+                    long expectedShort = FromSource(reference, source, v, false, weighted, edgeShift, shortMemo);
+                    TestSupport.checkEquals(expectedLong, longest.getDistance(v), what + " longest " + source + " -> " + v);
+                    TestSupport.checkEquals(expectedShort, shortest.getDistance(v), what + " shortest " + source + " -> " + v);
+                    CheckPath(reference, longest.getPath(v), source, v, expectedLong, weighted, edgeShift, what + " longest");
+                    CheckPath(reference, shortest.getPath(v), source, v, expectedShort, weighted, edgeShift, what + " shortest");
+                }
+            }
+
+            // GetLength counts vertices on the longest path; the same from the DiGraphInt view
+            long hops = DagPaths.longestPaths(graph, false).getCriticalLength();
+            TestSupport.checkEquals((int) hops + 1, graph.GetLength(), name + " GetLength");
+            DiGraphInt sparse = reference.toDiGraphInt();
+            if (reference.numEdges() > 0)
+            {
+                TestSupport.checkEquals((int) hops + 1, sparse.GetLength(), name + " DiGraphInt GetLength");
+                TestSupport.checkEquals((int) hops, sparse.GetCriticalPath().size() - 1, name + " DiGraphInt critical path");
+            }
+        }
+
+        // Paths by topological order refuse a cycle
+        DiGraphInt cycle = new DiGraphInt();
+        cycle.AddEdge(1, 2);
+        cycle.AddEdge(2, 1);
+        try
+        {
+            DagPaths.longestPaths(cycle.Freeze(), false);
+            throw new AssertionError("longest paths of a cycle");
+        }
+        catch (IllegalStateException expected)
+        {
+        }
+
+        System.out.println("DagPathsTest: ok");
+    }
+
+    private static long Weight(TestSupport.ReferenceGraph reference, int from, int to, boolean weighted, int shift)
+    {
+        return weighted ? reference.weight(from, to) - shift : 1;
+    }
+
+    // The longest path ending at a vertex, starting anywhere
+    private static long LongestInto(TestSupport.ReferenceGraph reference, int v, boolean weighted, int shift, HashMap<Integer, Long> memo)
+    {
+        Long known = memo.get(v);
+        if (known != null) return known;
+
+        long best = 0;
+        for (int u : reference.predecessors(v))
+        {
+            best = Math.max(best, LongestInto(reference, u, weighted, shift, memo) + Weight(reference, u, v, weighted, shift));
+        }
+        memo.put(v, best);
+        return best;
+    }
+
+    // The longest or shortest path from source to a vertex it reaches
+    private static long FromSource(TestSupport.ReferenceGraph reference, int source, int v, boolean longest, boolean weighted, int shift, HashMap<Integer, Long> memo)
+    {
+        if (v == source) return 0;
+        Long known = memo.get(v);
+        if (known != null) return known;
+
+        Long best = null;
+        for (int u : reference.predecessors(v))
+        {
+            if (!reference.reachable(source).contains(u)) continue;
+            long candidate = FromSource(reference, source, u, longest, weighted, shift, memo) + Weight(reference, u, v, weighted, shift);
+            if (best == null || (longest ? candidate > best : candidate < best)) best = candidate;
+        }
+        memo.put(v, best);
+        return best;
+    }
+
+    // A path of existing edges from start (any start if negative) to end, of the given length
+    private static void CheckPath(TestSupport.ReferenceGraph reference, ArrayList<Integer> path, int start, int end, long length, boolean weighted, int shift, String name)
+    {
+        TestSupport.check(path != null && !path.isEmpty(), name + ": no path to " + end);
+        if (start >= 0) TestSupport.checkEquals(start, path.get(0), name + " path start");
+        TestSupport.checkEquals(end, path.get(path.size() - 1), name + " path end");
+        long sum = 0;
+        for (int i = 0; i + 1 < path.size(); i++)
+        {
+            TestSupport.check(reference.hasEdge(path.get(i), path.get(i + 1)), name + ": path uses a missing edge");
+            sum += Weight(reference, path.get(i), path.get(i + 1), weighted, shift);
+        }
+        TestSupport.checkEquals(length, sum, name + " path length to " + end);
+    }
+}
@@ -0,0 +1,115 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+//
+// DiGraphBuilder against graphs built edge by edge: every way of adding edges, and the CSRGraph,
+// DiGraph and DiGraphInt it builds
+//
+public class DiGraphBuilderTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 200; trial++)
+        {
+            int n = 1 + random.nextInt(50);
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(4 * n), 1, true, random.nextBoolean());
+
+            // The same edges, duplicated, through every way of adding them
+            int m = reference.numEdges();
+            int[] from = new int[m];
+            int[] to = new int[m];
+            int[] pairs = new int[2 * m];
+            long[] packed = new long[m];
+            for (int e = 0; e < m; e++)
+            {
+                from[e] = reference.edges.get(e)[0];
+                to[e] = reference.edges.get(e)[1];
+                pairs[2 * e] = from[e];
+                pairs[2 * e + 1] = to[e];
+                packed[e] = Edge.key(from[e], to[e]);
+            }
+            DiGraphBuilder builder = new DiGraphBuilder(n, 1);
+            switch (trial % 4)
+            {
+                case 0: builder.addEdges(from, to).addEdges(from, to); break;
+                case 1: builder.addEdges(pairs).addEdges(packed); break;
+                case 2: builder.addEdges(LongStream.of(packed)).addEdges(pairs); break;
+                default:
+                    for (int e = 0; e < m; e++)
+                    {
+                        builder.addEdge(from[e], to[e]);
+                        builder.addHyperEdge(new ArrayList<Integer>(Arrays.asList(from[e], from[e])), to[e]);
+                    }
+            }
+            TestSupport.check(builder.getNumEdgesAdded() >= 2 * m, "edges added, trial " + trial);
+
+            // The CSR lists are sorted
+            CSRGraph csr = builder.buildCSR();
+            TestSupport.checkSameGraph(csr, reference, false, false, "buildCSR trial " + trial);
+            for (int v = 0; v < n; v++)
+            {
+                TestSupport.checkEquals(TestSupport.sorted(reference.successors(v)), TestSupport.boxed(Successors(csr, v)), "sorted successors of " + v);
+            }
+
+            ArrayList<String> data = new ArrayList<String>();
+            for (int v = 0; v < n; v++)
+            {
+                data.add("n" + v);
+            }
+            DiGraph<String> graph = builder.buildDiGraph(data);
+            TestSupport.checkSameGraph(graph.freeze(), reference, false, false, "buildDiGraph trial " + trial);
+            for (int v = 0; v < n; v++)
+            {
+                TestSupport.checkEquals("n" + v, graph.getData(v), "data of " + v);
+            }
+
+            // The vertices of a built DiGraphInt are listed as AddEdge lists them
+            DiGraphInt built = builder.buildDiGraphInt();
+            DiGraphInt added = reference.toDiGraphInt();
+            TestSupport.checkEquals(Labels(added.Freeze()), Labels(built.Freeze()), "buildDiGraphInt vertex order, trial " + trial);
+            TestSupport.checkEquals(added.NumEdges(), built.NumEdges(), "buildDiGraphInt edges, trial " + trial);
+            TestSupport.check(Arrays.equals(added.GetWidthProfile(), built.GetWidthProfile()), "buildDiGraphInt width profile, trial " + trial);
+            for (int[] edge : reference.edges)
+            {
+                built.AddEdge(edge[0], edge[1]);
+            }
+            TestSupport.checkEquals(added.NumEdges(), built.NumEdges(), "edges added again to a built DiGraphInt, trial " + trial);
+        }
+
+        // Vertices beyond the declared number grow the graph; negative ids are rejected
+        DiGraphBuilder builder = new DiGraphBuilder(2).addEdge(0, 5);
+        TestSupport.checkEquals(6, builder.buildCSR().getNumVertices(), "grown vertices");
+        try
+        {
+            builder.addEdge(-1, 0);
+            throw new AssertionError("negative id accepted");
+        }
+        catch (IllegalArgumentException expected)
+        {
+        }
+
+        System.out.println("DiGraphBuilderTest: ok");
+    }
+
+    private static int[] Successors(FrozenGraph graph, int v)
+    {
+        int[] successors = new int[graph.getOutDegree(v)];
+        graph.getOutNeighbors(v, successors, 0);
+        return successors;
+    }
+
+    private static ArrayList<Integer> Labels(FrozenGraph graph)
+    {
+        ArrayList<Integer> labels = new ArrayList<Integer>();
+        for (int v = 0; v < graph.getNumVertices(); v++)
+        {
+            labels.add(graph.getLabel(v));
+        }
+        return labels;
+    }
+}
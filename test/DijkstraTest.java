@@ -0,0 +1,68 @@
+package digraph;
+
+import java.util.HashMap;
+import java.util.Random;
+
+//
+// Dijkstra against Bellman-Ford over the reference, by weight and in edges: distances and paths from
+// single-source runs and from point-to-point runs that stop early, with one search reused throughout,
+// on dense ids and on sparse ids that differ from the dense indices
+//
+public class DijkstraTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 200; trial++)
+        {
+            int n = 1 + random.nextInt(50);
+            // Odd trials: sparse ids through DiGraphInt, whose edges all weigh 1
+            boolean dense = trial % 2 == 0;
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(4 * n), dense ? 1 + random.nextInt(20) : 1, dense, trial % 4 == 1);
+            CSRGraph graph = dense ? reference.toDiGraph().freeze() : reference.toDiGraphInt().Freeze();
+            if (reference.vertices.isEmpty()) continue;
+
+            for (boolean weighted : new boolean[] { false, true })
+            {
+                Dijkstra dijkstra = new Dijkstra(graph, weighted);
+                for (int query = 0; query < 5; query++)
+                {
+                    int source = reference.vertices.get(random.nextInt(reference.vertices.size()));
+                    String name = "trial " + trial + (weighted ? " weighted" : " unweighted") + " from " + source;
+                    HashMap<Integer, Long> expected = reference.distances(source, weighted);
+
+                    dijkstra.shortestPaths(source);
+                    for (int v : reference.vertices)
+                    {
+                        Long distance = expected.get(v);
+                        TestSupport.checkEquals(distance != null, dijkstra.isReachable(v), name + " reaches " + v);
+                        if (distance == null)
+                        {
+                            TestSupport.checkEquals(Dijkstra.UNREACHABLE, dijkstra.getDistance(v), name + " distance to " + v);
+                            TestSupport.check(dijkstra.getPath(v) == null, name + ": a path to unreachable " + v);
+                            continue;
+                        }
+                        TestSupport.checkEquals(distance, dijkstra.getDistance(v), name + " distance to " + v);
+                        TestSupport.checkPath(reference, dijkstra.getPath(v), source, v, distance, weighted, name);
+                    }
+
+                    int target = reference.vertices.get(random.nextInt(reference.vertices.size()));
+                    Long distance = expected.get(target);
+                    long found = dijkstra.shortestPath(source, target);
+                    if (distance == null)
+                    {
+                        TestSupport.checkEquals(Dijkstra.UNREACHABLE, found, name + " distance to " + target);
+                        TestSupport.check(dijkstra.getPath(target) == null, name + ": a path to unreachable " + target);
+                    }
+                    else
+                    {
+                        TestSupport.checkEquals(distance, found, name + " distance to " + target);
+                        TestSupport.checkPath(reference, dijkstra.getPath(target), source, target, distance, weighted, name);
+                    }
+                }
+            }
+        }
+
+        System.out.println("DijkstraTest: ok");
+    }
+}
@@ -0,0 +1,65 @@
+package digraph;
+
+import java.util.Random;
+
+//
+// Edges added again (in DiGraph, DiGraphInt and DiGraphBuilder) against the reference, which keeps
+// every edge once with the weight it was first added with
+//
+public class DuplicateEdgeTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(2);
+        for (int trial = 0; trial < 200; trial++)
+        {
+            int n = 1 + random.nextInt(20);
+            TestSupport.ReferenceGraph reference = new TestSupport.ReferenceGraph();
+            for (int v = 0; v < n; v++)
+            {
+                reference.addVertex(v);
+            }
+            DiGraph<String> graph = reference.toDiGraph();
+            DiGraphInt intGraph = new DiGraphInt();
+            DiGraphBuilder builder = new DiGraphBuilder(n);
+
+            // Few vertices and many edges, so most edges come again, with other weights
+            for (int e = 0; e < 6 * n; e++)
+            {
+                int from = random.nextInt(n);
+                int to = random.nextInt(n);
+                int weight = 1 + random.nextInt(9);
+
+                reference.addEdge(from, to, weight);
+                graph.addEdge(from, to, weight);
+                intGraph.AddEdge(from, to);
+                builder.addEdge(from, to);
+
+                TestSupport.check(graph.hasEdge(from, to) && graph.hasEdge(new Edge(from, to)), "hasEdge " + from + " -> " + to);
+                TestSupport.checkEquals(reference.numEdges(), graph.getNumEdges(), "DiGraph edges, trial " + trial);
+                TestSupport.checkEquals(reference.numEdges(), intGraph.NumEdges(), "DiGraphInt edges, trial " + trial);
+            }
+
+            for (int from = 0; from < n; from++)
+            {
+                for (int to = 0; to < n; to++)
+                {
+                    TestSupport.checkEquals(reference.hasEdge(from, to), graph.hasEdge(from, to), "hasEdge " + from + " -> " + to);
+                }
+            }
+
+            TestSupport.checkSameGraph(graph.freeze(), reference, true, true, "DiGraph trial " + trial);
+            TestSupport.checkSameGraph(builder.buildCSR(), reference, false, false, "builder trial " + trial);
+
+            // The DiGraphInt lists only the vertices with edges
+            TestSupport.ReferenceGraph withEdges = new TestSupport.ReferenceGraph();
+            for (int[] edge : reference.edges)
+            {
+                withEdges.addEdge(edge[0], edge[1], 1);
+            }
+            TestSupport.checkSameGraph(intGraph.Freeze(), withEdges, true, false, "DiGraphInt trial " + trial);
+        }
+
+        System.out.println("DuplicateEdgeTest: ok");
+    }
+}
@@ -0,0 +1,101 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+//
+// Components kept up to date edge by edge against a static recompute (Tarjan over the frozen copy)
+// and the reference's mutual reachability, under random additions that close and merge cycles and
+// occasional removals that force a rebuild
+//
+public class DynamicStronglyConnectedComponentsTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(19);
+        for (int trial = 0; trial < 100; trial++)
+        {
+            int ids = 2 + random.nextInt(30);
+            TestSupport.ReferenceGraph reference = new TestSupport.ReferenceGraph();
+            DiGraphInt graph = new DiGraphInt();
+
+            for (int step = 0; step < 120; step++)
+            {
+                String name = "trial " + trial + " step " + step;
+                int from = random.nextInt(ids);
+                int to = random.nextInt(ids);
+                int op = random.nextInt(20);
+                if (op < 17)
+                {
+                    reference.addEdge(from, to, 1);
+                    graph.AddEdge(from, to);
+                }
+                else if (op < 19)
+                {
+                    TestSupport.checkEquals(reference.containsVertex(from) && reference.removeEdge(from, to), graph.RemoveEdge(from, to), name + " RemoveEdge");
+                }
+                else
+                {
+                    boolean present = reference.containsVertex(from);
+                    if (present) reference.removeVertex(from);
+                    TestSupport.checkEquals(present, graph.RemoveVertex(from), name + " RemoveVertex");
+                }
+
+                // Queried after every step, so the components are updated incrementally from here on
+                Check(reference, graph, name);
+            }
+        }
+
+        System.out.println("DynamicStronglyConnectedComponentsTest: ok");
+    }
+
+    private static void Check(TestSupport.ReferenceGraph reference, DiGraphInt graph, String name)
+    {
+        DynamicStronglyConnectedComponents sccs = graph.GetStronglyConnectedComponents();
+        CSRGraph frozen = graph.Freeze();
+        StronglyConnectedComponents recomputed = new StronglyConnectedComponents(frozen);
+
+        ArrayList<ArrayList<Integer>> components = sccs.getComponents();
+        TestSupport.checkEquals(Sets(recomputed.getComponents()), Sets(components), name + " components");
+        TestSupport.checkEquals(reference.components(), Sets(components), name + " reference components");
+        TestSupport.checkEquals(recomputed.getNumComponents(), sccs.getNumComponents(), name + " number of components");
+        TestSupport.checkEquals(reference.hasCycle(), sccs.containsCycle(), name + " cycle");
+        TestSupport.checkEquals(reference.hasCycle(), graph.ContainsCycle(), name + " DiGraphInt cycle");
+
+        // Reverse topological order: every edge between components goes from a later list to an earlier one
+        HashMap<Integer, Integer> list = new HashMap<Integer, Integer>();
+        for (int c = 0; c < components.size(); c++)
+        {
+            for (int v : components.get(c))
+            {
+                list.put(v, c);
+            }
+        }
+        for (int[] edge : reference.edges)
+        {
+            TestSupport.check(list.get(edge[0]) >= list.get(edge[1]), name + ": edge " + edge[0] + " -> " + edge[1] + " goes forward");
+        }
+
+        for (int u : reference.vertices)
+        {
+            int v = reference.vertices.get((u * 7) % reference.vertices.size());
+            TestSupport.checkEquals(list.get(u).equals(list.get(v)), sccs.isStronglyConnected(frozen.getIndex(u), frozen.getIndex(v)), name + " " + u + " strongly connected to " + v);
+        }
+
+        CSRGraph condensation = sccs.getCondensation();
+        TestSupport.checkEquals(components.size(), condensation.getNumVertices(), name + " condensation vertices");
+        TestSupport.check(!condensation.ContainsCycle(), name + ": the condensation has a cycle");
+    }
+
+    private static HashSet<ArrayList<Integer>> Sets(ArrayList<ArrayList<Integer>> components)
+    {
+        HashSet<ArrayList<Integer>> sets = new HashSet<ArrayList<Integer>>();
+        for (ArrayList<Integer> component : components)
+        {
+            sets.add(TestSupport.sorted(component));
+        }
+        return sets;
+    }
+}
@@ -0,0 +1,145 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+//
+// A maintained topological order under random edge additions and removals, against the reference:
+// exactly the edges that would close a cycle are rejected, the graph is unchanged by a rejection,
+// and the order stays a valid order of the current vertices. Also GetWidthProfile's goal vertex as
+// vertices come and go.
+//
+public class DynamicTopologicalOrderTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(18);
+        for (int trial = 0; trial < 150; trial++)
+        {
+            int ids = 2 + random.nextInt(30);
+            TestSupport.ReferenceGraph reference = new TestSupport.ReferenceGraph();
+            DiGraphInt graph = new DiGraphInt();
+
+            // Start from an acyclic graph on odd trials, from nothing on even ones
+            if (trial % 2 == 1)
+            {
+                reference = TestSupport.randomGraph(random, ids, random.nextInt(2 * ids), 1, false, true);
+                graph = reference.toDiGraphInt();
+            }
+            graph.MaintainTopologicalOrder();
+            Integer goal = reference.edges.isEmpty() ? null : reference.edges.get(0)[1];
+
+            for (int step = 0; step < 150; step++)
+            {
+                String name = "trial " + trial + " step " + step;
+                int from = random.nextInt(4 * ids);
+                int to = random.nextInt(4 * ids);
+                int op = random.nextInt(10);
+                if (op < 7)
+                {
+                    boolean closesCycle = from == to || reference.containsVertex(to) && reference.reachable(to).contains(from);
+                    int edges = graph.NumEdges();
+                    if (op == 0)
+                    {
+                        try
+                        {
+                            graph.AddEdge(from, to);
+                            TestSupport.check(!closesCycle, name + ": AddEdge accepted " + from + " -> " + to);
+                        }
+                        catch (IllegalArgumentException e)
+                        {
+                            TestSupport.check(closesCycle, name + ": AddEdge rejected " + from + " -> " + to);
+                        }
+                    }
+                    else
+                    {
+                        TestSupport.checkEquals(!closesCycle, graph.TryAddEdge(from, to), name + " TryAddEdge " + from + " -> " + to);
+                    }
+                    if (closesCycle)
+                    {
+                        TestSupport.checkEquals(edges, graph.NumEdges(), name + " edges after a rejection");
+                    }
+                    else
+                    {
+                        if (reference.vertices.isEmpty()) goal = to;
+                        reference.addEdge(from, to, 1);
+                    }
+                }
+                else if (op < 9)
+                {
+                    TestSupport.checkEquals(reference.containsVertex(from) && reference.removeEdge(from, to), graph.RemoveEdge(from, to), name + " RemoveEdge " + from + " -> " + to);
+                }
+                else
+                {
+                    boolean present = reference.containsVertex(from);
+                    if (present) reference.removeVertex(from);
+                    TestSupport.checkEquals(present, graph.RemoveVertex(from), name + " RemoveVertex " + from);
+                    if (reference.vertices.isEmpty()) goal = null;
+                }
+
+                TestSupport.check(!graph.ContainsCycle(), name + ": a cycle");
+                TestSupport.checkEquals(reference.numEdges(), graph.NumEdges(), name + " edges");
+                CheckOrder(reference, graph.TopologicalSort(), name);
+                CheckWidths(reference, graph, goal, name);
+            }
+
+            // A copy keeps the order and the goal
+            DiGraphInt copy = new DiGraphInt(graph);
+            CheckOrder(reference, copy.TopologicalSort(), "trial " + trial + " copy");
+            CheckWidths(reference, copy, goal, "trial " + trial + " copy");
+        }
+
+        System.out.println("DynamicTopologicalOrderTest: ok");
+    }
+
+    // Every current vertex once, and every edge forwards
+    private static void CheckOrder(TestSupport.ReferenceGraph reference, ArrayList<Integer> order, String name)
+    {
+        TestSupport.checkEquals(TestSupport.sorted(reference.vertices), TestSupport.sorted(order), name + " ordered vertices");
+        HashMap<Integer, Integer> position = new HashMap<Integer, Integer>();
+        for (int i = 0; i < order.size(); i++)
+        {
+            position.put(order.get(i), i);
+        }
+        for (int[] edge : reference.edges)
+        {
+            TestSupport.check(position.get(edge[0]) < position.get(edge[1]), name + ": edge " + edge[0] + " -> " + edge[1] + " backwards");
+        }
+    }
+
+    // Breadth-first over the predecessors from the goal, or from every sink once the goal is gone
+    private static void CheckWidths(TestSupport.ReferenceGraph reference, DiGraphInt graph, Integer goal, String name)
+    {
+        ArrayList<Integer> level = new ArrayList<Integer>();
+        if (goal != null && reference.containsVertex(goal))
+        {
+            level.add(goal);
+        }
+        else
+        {
+            for (int v : reference.vertices)
+            {
+                if (reference.successors(v).isEmpty()) level.add(v);
+            }
+        }
+
+        ArrayList<Integer> widths = new ArrayList<Integer>();
+        HashSet<Integer> seen = new HashSet<Integer>(level);
+        while (!level.isEmpty())
+        {
+            widths.add(level.size());
+            ArrayList<Integer> next = new ArrayList<Integer>();
+            for (int v : level)
+            {
+                for (int u : reference.predecessors(v))
+                {
+                    if (seen.add(u)) next.add(u);
+                }
+            }
+            level = next;
+        }
+        TestSupport.checkEquals(widths, TestSupport.boxed(graph.GetWidthProfile()), name + " width profile (goal " + goal + ")");
+    }
+}
@@ -0,0 +1,195 @@
+package digraph;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+//
+// Round trips of every format, from FrozenGraph and DiGraph, through an Appendable and through a
+// channel, against the reference's edges; graphs larger than the stream buffer, extreme ids and
+// negative weights; DOT keywords in any case and the statements the reader rejects; and surrogate
+// pairs split across a flush of the channel writer
+//
+public class GraphIOTest
+{
+    private static final int EDGE_LIST = 0;
+    private static final int DOT = 1;
+    private static final int BINARY = 2;
+
+    public static void main(String[] args) throws IOException
+    {
+        Random random = new Random(22);
+        for (int trial = 0; trial < 150; trial++)
+        {
+            int n = 1 + random.nextInt(60);
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(4 * n), trial % 3 == 0 ? 1 : 1 + random.nextInt(1000), true, false);
+            RoundTrips(reference, n, trial % 4 == 1 ? -500 : 0, "trial " + trial);
+        }
+
+        // Larger than the stream buffer, so every writer drains and every reader refills mid-edge
+        TestSupport.ReferenceGraph large = TestSupport.randomGraph(random, 100000, 300000, 1 << 20, true, false);
+        RoundTrips(large, 100000, 0, "large");
+
+        // Extreme ids, in DiGraphInt's frozen copy
+        DiGraphInt extreme = new DiGraphInt();
+        TestSupport.ReferenceGraph extremeReference = new TestSupport.ReferenceGraph();
+        int[] ids = { Integer.MIN_VALUE, -1, 0, 1, 127, 128, 16384, Integer.MAX_VALUE };
+        for (int from : ids)
+        {
+            for (int to : ids)
+            {
+                if ((from ^ to) % 3 == 0) continue;
+                extreme.AddEdge(from, to);
+                extremeReference.addEdge(from, to, 1);
+            }
+        }
+        for (int format = EDGE_LIST; format <= BINARY; format++)
+        {
+            TestSupport.checkEquals(Expected(extremeReference, 0), Read(format, Written(format, extreme.Freeze(), null, false)), "extreme ids " + format);
+        }
+
+        // DOT keywords match in any case; node, edge and graph defaults and graph attributes are skipped
+        String dot = "STRICT DiGraph \"G\" {\n  Graph [rankdir=LR];\n  NODE [shape=box];\n  Edge [color=red];\n  label = \"x\";\n"
+            + "  1 -> 2 -> 3 [weight=4, color=blue];\n  4 [label=\"four\"];\n  // a comment\n  5 -> 6\n}\n";
+        TestSupport.checkEquals("[1 2 4, 2 3 4, 5 6 1]", Read(DOT, dot.getBytes(StandardCharsets.UTF_8)).toString(), "DOT keywords");
+        Rejected("graph { 1 -- 2 }", "Undirected graphs are not supported");
+        Rejected("STRICT GRAPH { }", "Undirected graphs are not supported");
+        Rejected("digraph { subgraph { 1 -> 2 } }", "Subgraphs are not supported");
+        Rejected("digraph { SubGraph s { 1 -> 2 } }", "Subgraphs are not supported");
+        Rejected("digraph { { 1 -> 2 } }", "Subgraphs are not supported");
+        Rejected("digraph { 1 -- 2 }", "Undirected edges are not supported");
+        Rejected("digraph { 1:n -> 2 }", "Ports are not supported");
+        Rejected("digraph { 1 -> 2", "Missing }");
+
+        // A malformed edge list names its line
+        try
+        {
+            Read(EDGE_LIST, "1 2\n# comment\n3 x\n".getBytes(StandardCharsets.UTF_8));
+            throw new AssertionError("read a malformed edge list");
+        }
+        catch (IOException e)
+        {
+            TestSupport.check(e.getMessage().startsWith("Line 3:"), "malformed line reported as " + e.getMessage());
+        }
+
+        Surrogates();
+
+        System.out.println("GraphIOTest: ok");
+    }
+
+    //
+    // Every format from the frozen copy and from the DiGraph, through a channel and (for the text
+    // formats) a StringBuilder; shift moves every weight down, so that some are negative
+    //
+    private static void RoundTrips(TestSupport.ReferenceGraph reference, int n, int shift, String name) throws IOException
+    {
+        DiGraph<String> graph = new DiGraph<String>();
+        for (int v = 0; v < n; v++)
+        {
+            // Node labels that the DOT writer must escape
+            graph.addNode(v % 5 == 0 ? "q\"b\\n\n😀" + v : "n" + v);
+        }
+        for (int[] edge : reference.edges)
+        {
+            graph.addEdge(edge[0], edge[1], edge[2] + shift);
+        }
+
+        ArrayList<String> expected = Expected(reference, shift);
+        for (int format = EDGE_LIST; format <= BINARY; format++)
+        {
+            String what = name + " format " + format;
+            TestSupport.checkEquals(expected, Read(format, Written(format, graph.freeze(), null, false)), what + " FrozenGraph");
+            TestSupport.checkEquals(expected, Read(format, Written(format, null, graph, false)), what + " DiGraph");
+            if (format != BINARY)
+            {
+                TestSupport.checkEquals(expected, Read(format, Written(format, graph.freeze(), null, true)), what + " FrozenGraph text");
+                TestSupport.checkEquals(expected, Read(format, Written(format, null, graph, true)), what + " DiGraph text");
+            }
+        }
+    }
+
+    // The reference's edges as sorted "from to weight" strings
+    private static ArrayList<String> Expected(TestSupport.ReferenceGraph reference, int shift)
+    {
+        ArrayList<String> edges = new ArrayList<String>();
+        for (int[] edge : reference.edges)
+        {
+            edges.add(edge[0] + " " + edge[1] + " " + (edge[2] + shift));
+        }
+        Collections.sort(edges);
+        return edges;
+    }
+
+    // One of frozen or digraph written in a format, through a StringBuilder if text, else a channel
+    private static byte[] Written(int format, FrozenGraph frozen, DiGraph<?> digraph, boolean text) throws IOException
+    {
+        if (text)
+        {
+            StringBuilder out = new StringBuilder();
+            if (format == EDGE_LIST && frozen != null) GraphIO.writeEdgeList(frozen, out);
+            if (format == EDGE_LIST && digraph != null) GraphIO.writeEdgeList(digraph, out);
+            if (format == DOT && frozen != null) GraphIO.writeDot(frozen, out);
+            if (format == DOT && digraph != null) GraphIO.writeDot(digraph, out);
+            return out.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WritableByteChannel channel = Channels.newChannel(bytes);
+        if (format == EDGE_LIST && frozen != null) GraphIO.writeEdgeList(frozen, channel);
+        if (format == EDGE_LIST && digraph != null) GraphIO.writeEdgeList(digraph, channel);
+        if (format == DOT && frozen != null) GraphIO.writeDot(frozen, channel);
+        if (format == DOT && digraph != null) GraphIO.writeDot(digraph, channel);
+        if (format == BINARY && frozen != null) GraphIO.writeBinary(frozen, channel);
+        if (format == BINARY && digraph != null) GraphIO.writeBinary(digraph, channel);
+        return bytes.toByteArray();
+    }
+
+    // The edges read back, as sorted "from to weight" strings
+    private static ArrayList<String> Read(int format, byte[] bytes) throws IOException
+    {
+        ArrayList<String> edges = new ArrayList<String>();
+        WeightedEdgeVisitor visitor = (from, to, weight) -> edges.add(from + " " + to + " " + weight);
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(bytes));
+        long count = format == EDGE_LIST ? GraphIO.readEdgeList(channel, visitor) : format == DOT ? GraphIO.readDot(channel, visitor) : GraphIO.readBinary(channel, visitor);
+        TestSupport.checkEquals((long) edges.size(), count, "edges counted by the reader");
+        Collections.sort(edges);
+        return edges;
+    }
+
+    private static void Rejected(String dot, String message) throws IOException
+    {
+        try
+        {
+            Read(DOT, dot.getBytes(StandardCharsets.UTF_8));
+            throw new AssertionError("read " + dot);
+        }
+        catch (IOException e)
+        {
+            TestSupport.check(e.getMessage().endsWith(message), "\"" + dot + "\" rejected with " + e.getMessage());
+        }
+    }
+
+    // The channel writer's UTF-8 against the JDK's, with a flush between the halves of a pair
+    private static void Surrogates() throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GraphIO.ChannelWriter out = GraphIO.newWriter(Channels.newChannel(bytes));
+        out.append("aé€");
+        out.append('\uD83D');
+        out.flush();
+        out.append('\uDE00');
+        out.append('\uD83D');
+        out.appendInt(42);
+        out.append('\uDE00');
+        out.append("z");
+        out.flush();
+        TestSupport.checkEquals("aé€😀?42?z", new String(bytes.toByteArray(), StandardCharsets.UTF_8), "surrogates across a flush");
+    }
+}
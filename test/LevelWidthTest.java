@@ -0,0 +1,107 @@
+package digraph;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+//
+// LevelWidth against a naive queue-based breadth-first search over the same graph: level widths
+// from random seeds in both directions, the visited set, and the width of CSRGraph and DiGraphInt
+//
+public class LevelWidthTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(7);
+        for (int trial = 0; trial < 300; trial++)
+        {
+            int n = 1 + random.nextInt(80);
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(3 * n), 1, true, random.nextBoolean());
+            CSRGraph graph = reference.toDiGraph().freeze();
+            String name = "trial " + trial;
+
+            // One traversal object reused for every run, as callers do
+            LevelWidth bfs = new LevelWidth(graph);
+            for (int run = 0; run < 4; run++)
+            {
+                int[] seeds = new int[1 + random.nextInt(3)];
+                for (int s = 0; s < seeds.length; s++)
+                {
+                    seeds[s] = random.nextInt(n);
+                }
+                boolean forward = run % 2 == 0;
+                String what = name + " seeds " + Arrays.toString(seeds) + (forward ? " forward" : " backward");
+
+                int[] distance = new int[n];
+                int[] expected = NaiveWidths(graph, seeds, forward, distance);
+                TestSupport.checkEquals(Arrays.toString(expected), Arrays.toString(bfs.getWidthProfile(seeds, forward)), what + " widths");
+                TestSupport.checkEquals(expected.length, bfs.getNumLevels(), what + " number of levels");
+                TestSupport.checkEquals(Arrays.stream(expected).max().getAsInt(), bfs.getMaxWidth(), what + " max width");
+                TestSupport.checkEquals(Arrays.stream(expected).sum(), bfs.getNumVisited(), what + " visited");
+                for (int v = 0; v < n; v++)
+                {
+                    TestSupport.checkEquals(distance[v] >= 0, bfs.isVisited(v), what + " visited " + v);
+                }
+            }
+
+            // The graph's width starts at the sinks and walks the in-edges
+            int[] sinks = LevelWidth.sinks(graph);
+            for (int v = 0; v < n; v++)
+            {
+                TestSupport.checkEquals(reference.successors(v).isEmpty(), Arrays.binarySearch(sinks, v) >= 0, name + " sink " + v);
+            }
+            int[] expected = NaiveWidths(graph, sinks, false, new int[n]);
+            TestSupport.checkEquals(Arrays.toString(expected), Arrays.toString(graph.GetWidthProfile()), name + " CSRGraph widths");
+            TestSupport.checkEquals(Arrays.stream(expected).max().orElse(0), graph.GetWidth(), name + " CSRGraph width");
+
+            // DiGraphInt's goal is its first vertex, at dense index 0 of the frozen copy
+            if (reference.numEdges() > 0)
+            {
+                CSRGraph sparse = reference.toDiGraphInt().Freeze();
+                int[] goal = NaiveWidths(sparse, new int[] { 0 }, false, new int[sparse.getNumVertices()]);
+                TestSupport.checkEquals(Arrays.toString(goal), Arrays.toString(reference.toDiGraphInt().GetWidthProfile()), name + " DiGraphInt widths");
+                TestSupport.checkEquals(Arrays.stream(goal).max().getAsInt(), reference.toDiGraphInt().GetWidth(), name + " DiGraphInt width");
+            }
+        }
+
+        System.out.println("LevelWidthTest: ok");
+    }
+
+    //
+    // Level widths by a plain queue: every vertex at its distance from the nearest seed; distance
+    // receives the distance of every dense vertex, -1 if unreached
+    //
+    private static int[] NaiveWidths(FrozenGraph graph, int[] seeds, boolean forward, int[] distance)
+    {
+        Arrays.fill(distance, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+        for (int seed : seeds)
+        {
+            if (distance[seed] < 0)
+            {
+                distance[seed] = 0;
+                queue.add(seed);
+            }
+        }
+
+        int[] widths = new int[graph.getNumVertices() + 1];
+        int numLevels = 0;
+        while (!queue.isEmpty())
+        {
+            int v = queue.poll();
+            widths[distance[v]]++;
+            numLevels = Math.max(numLevels, distance[v] + 1);
+            int degree = forward ? graph.getOutDegree(v) : graph.getInDegree(v);
+            for (int i = 0; i < degree; i++)
+            {
+                int w = forward ? graph.getOutNeighbor(v, i) : graph.getInNeighbor(v, i);
+                if (distance[w] < 0)
+                {
+                    distance[w] = distance[v] + 1;
+                    queue.add(w);
+                }
+            }
+        }
+        return Arrays.copyOf(widths, numLevels);
+    }
+}
@@ -0,0 +1,141 @@
+package digraph;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+
+//
+// Linear extensions of small DAGs against brute force over every permutation of the vertices: the
+// visitor, the iterator, the count and DiGraph's and DiGraphInt's wrappers produce exactly the valid
+// orders, each once
+//
+public class LinearExtensionsTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(15);
+        for (int trial = 0; trial < 300; trial++)
+        {
+            int n = 1 + random.nextInt(7);
+            boolean dense = trial % 2 == 0;
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(2 * n), 1, dense, true);
+            if (reference.vertices.isEmpty()) continue;
+            CSRGraph graph = dense ? reference.toDiGraph().freeze() : reference.toDiGraphInt().Freeze();
+            String name = "trial " + trial;
+
+            HashSet<String> expected = BruteForce(reference);
+            LinearExtensions extensions = new LinearExtensions(graph);
+
+            HashSet<String> visited = new HashSet<String>();
+            long visitedCount = extensions.visitAll(order -> Add(visited, order, name + " visitAll"));
+            TestSupport.checkEquals(expected, visited, name + " visitAll");
+            TestSupport.checkEquals((long) expected.size(), visitedCount, name + " visitAll count");
+
+            HashSet<String> iterated = new HashSet<String>();
+            for (int[] order : extensions)
+            {
+                Add(iterated, order, name + " iterator");
+            }
+            TestSupport.checkEquals(expected, iterated, name + " iterator");
+            TestSupport.checkEquals(BigInteger.valueOf(expected.size()), LinearExtensions.count(graph), name + " count");
+
+            // A visitor that stops after k extensions has been given exactly k
+            int k = 1 + random.nextInt(expected.size());
+            int[] given = new int[1];
+            TestSupport.checkEquals((long) k, extensions.visitAll(order -> ++given[0] < k), name + " stopped visit");
+            TestSupport.checkEquals(k, given[0], name + " extensions before the stop");
+
+            if (dense)
+            {
+                DiGraph<String> digraph = reference.toDiGraph();
+                TestSupport.checkEquals(BigInteger.valueOf(expected.size()), digraph.countTopologicalSorts(), name + " countTopologicalSorts");
+
+                HashSet<String> sorts = new HashSet<String>();
+                digraph.forEachTopologicalSort(order -> Add(sorts, order, name + " forEachTopologicalSort"));
+                TestSupport.checkEquals(expected, sorts, name + " forEachTopologicalSort");
+
+                HashSet<String> lazy = new HashSet<String>();
+                for (Iterator<Linearization<String>> it = digraph.topologicalSorts(); it.hasNext(); )
+                {
+                    Add(lazy, it.next().toArray(), name + " topologicalSorts");
+                }
+                TestSupport.checkEquals(expected, lazy, name + " topologicalSorts");
+            }
+            else
+            {
+                DiGraphInt digraph = reference.toDiGraphInt();
+                TestSupport.checkEquals(BigInteger.valueOf(expected.size()), digraph.CountTopologicalSorts(), name + " CountTopologicalSorts");
+
+                HashSet<String> sorts = new HashSet<String>();
+                digraph.ForEachTopologicalSort(order -> Add(sorts, order, name + " ForEachTopologicalSort"));
+                TestSupport.checkEquals(expected, sorts, name + " ForEachTopologicalSort");
+            }
+        }
+
+        // The count of a wide DAG without enumerating: 12 independent vertices, and 3 chains of 4
+        DiGraph<String> antichain = new DiGraph<String>();
+        for (int v = 0; v < 12; v++)
+        {
+            antichain.addNode("n" + v);
+        }
+        TestSupport.checkEquals(new BigInteger("479001600"), antichain.countTopologicalSorts(), "count of an antichain");
+        for (int v = 0; v < 12; v++)
+        {
+            if (v % 4 != 3) antichain.addEdge(v, v + 1);
+        }
+        TestSupport.checkEquals(BigInteger.valueOf(34650), antichain.countTopologicalSorts(), "count of three chains");
+
+        // A cycle has no linear extension
+        DiGraphInt cycle = new DiGraphInt();
+        cycle.AddEdge(1, 2);
+        cycle.AddEdge(2, 1);
+        try
+        {
+            new LinearExtensions(cycle.Freeze());
+            throw new AssertionError("linear extensions of a cycle");
+        }
+        catch (IllegalStateException expected)
+        {
+        }
+
+        System.out.println("LinearExtensionsTest: ok");
+    }
+
+    // Adds a copy of an order to a set, which must not have it yet; true to go on
+    private static boolean Add(HashSet<String> orders, int[] order, String name)
+    {
+        TestSupport.check(orders.add(Arrays.toString(order)), name + ": " + Arrays.toString(order) + " twice");
+        return true;
+    }
+
+    // Every permutation of the vertices in which every edge goes forward
+    private static HashSet<String> BruteForce(TestSupport.ReferenceGraph reference)
+    {
+        HashSet<String> orders = new HashSet<String>();
+        Permute(reference, new ArrayList<Integer>(reference.vertices), 0, orders);
+        return orders;
+    }
+
+    private static void Permute(TestSupport.ReferenceGraph reference, ArrayList<Integer> order, int k, HashSet<String> orders)
+    {
+        if (k == order.size())
+        {
+            for (int[] edge : reference.edges)
+            {
+                if (order.indexOf(edge[0]) > order.indexOf(edge[1])) return;
+            }
+            orders.add(order.toString());
+            return;
+        }
+        for (int i = k; i < order.size(); i++)
+        {
+            Collections.swap(order, k, i);
+            Permute(reference, order, k + 1, orders);
+            Collections.swap(order, k, i);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package digraph;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+//
+// Linearization against a plain list of ids: random push / pop / addNode / removeLast sequences,
+// equality, hashing and order, the varint and ASCII encodings against naive ones, and rank / unrank
+// against the lexicographic order of every small permutation and a quadratic Lehmer code for large ones
+//
+public class LinearizationTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(17);
+        DiGraph<String> graph = new DiGraph<String>();
+        for (int v = 0; v < 200; v++)
+        {
+            graph.addNode("n" + v);
+        }
+
+        // Edits against the list model
+        for (int trial = 0; trial < 300; trial++)
+        {
+            // Without a graph, only nodes passed to addNode can be resolved, so ids are not pushed bare
+            boolean withGraph = trial % 2 == 0;
+            Linearization<String> linearization = withGraph ? new Linearization<String>(graph, random.nextInt(4)) : new Linearization<String>();
+            ArrayList<Integer> model = new ArrayList<Integer>();
+            for (int step = 0; step < 60; step++)
+            {
+                int id = random.nextInt(200);
+                switch (random.nextInt(4))
+                {
+                    case 0: if (withGraph) linearization.push(id); else linearization.addNode(graph.getNode(id)); model.add(id); break;
+                    case 1: linearization.addNode(graph.getNode(id)); model.add(id); break;
+                    case 2: if (!model.isEmpty()) TestSupport.checkEquals(model.remove(model.size() - 1), linearization.pop(), "trial " + trial + " pop"); break;
+                    default: if (!model.isEmpty()) TestSupport.checkEquals(model.remove(model.size() - 1), linearization.removeLast().getId(), "trial " + trial + " removeLast"); break;
+                }
+                TestSupport.checkEquals(model.size(), linearization.getLength(), "trial " + trial + " length");
+            }
+            String name = "trial " + trial;
+            TestSupport.checkEquals(model, TestSupport.boxed(linearization.toArray()), name + " ids");
+            for (int i = 0; i < model.size(); i++)
+            {
+                TestSupport.checkEquals(model.get(i), linearization.getId(i), name + " id " + i);
+                TestSupport.check(linearization.getNode(i) == graph.getNode(model.get(i)), name + ": node " + i + " is not the graph's view");
+            }
+
+            Linearization<String> copy = new Linearization<String>(linearization);
+            TestSupport.check(copy.equals(linearization) && copy.hashCode() == linearization.hashCode() && copy.compareTo(linearization) == 0, name + ": copy differs");
+            TestSupport.checkEquals(linearization, Linearization.fromBytes(linearization.toBytes(), graph), name + " varint round trip");
+            TestSupport.checkEquals(NaiveASCII(model), linearization.toASCIIString(), name + " ASCII");
+        }
+
+        // Equality and order against lists, on short sequences over few ids so that prefixes and ties occur
+        for (int trial = 0; trial < 2000; trial++)
+        {
+            ArrayList<Integer> a = RandomIds(random, random.nextInt(5), 3);
+            ArrayList<Integer> b = random.nextInt(4) == 0 ? new ArrayList<Integer>(a.subList(0, random.nextInt(a.size() + 1))) : RandomIds(random, random.nextInt(5), 3);
+            Linearization<String> la = new Linearization<String>(graph, Unboxed(a));
+            Linearization<String> lb = new Linearization<String>(graph, Unboxed(b));
+            String name = a + " vs " + b;
+            TestSupport.checkEquals(a.equals(b), la.equals(lb), name + " equals");
+            if (a.equals(b)) TestSupport.checkEquals(la.hashCode(), lb.hashCode(), name + " hashCode");
+            TestSupport.checkEquals(Integer.signum(Compare(a, b)), Integer.signum(la.compareTo(lb)), name + " compareTo");
+        }
+
+        // The varint encoding of ids of every size, and its malformed inputs
+        for (int trial = 0; trial < 500; trial++)
+        {
+            int[] ids = new int[random.nextInt(20)];
+            for (int i = 0; i < ids.length; i++)
+            {
+                ids[i] = random.nextInt() >>> (1 + random.nextInt(31));
+            }
+            Linearization<String> linearization = new Linearization<String>(null, ids);
+            byte[] bytes = linearization.toBytes();
+            TestSupport.checkEquals(NaiveVarints(ids), Arrays.toString(bytes), "varints of " + Arrays.toString(ids));
+            TestSupport.checkEquals(Arrays.toString(ids), Arrays.toString(Linearization.fromBytes(bytes, null).toArray()), "varint round trip");
+            if (bytes.length > 1) Refused(Arrays.copyOf(bytes, bytes.length - 1), "truncated varints");
+            Refused(Arrays.copyOf(bytes, bytes.length + 1), "trailing byte");
+        }
+        Refused(new byte[] { (byte) 0x81, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01 }, "a six-byte varint");
+
+        // Every permutation of up to 6 ids ranks at its lexicographic position, and unranks back
+        for (int n = 0; n <= 6; n++)
+        {
+            ArrayList<int[]> permutations = new ArrayList<int[]>();
+            Permutations(new int[n], new boolean[n], 0, permutations);
+            for (int r = 0; r < permutations.size(); r++)
+            {
+                Linearization<String> linearization = new Linearization<String>(graph, permutations.get(r));
+                TestSupport.checkEquals(BigInteger.valueOf(r), linearization.rank(), "rank of " + linearization);
+                TestSupport.checkEquals(linearization, Linearization.unrank(BigInteger.valueOf(r), n, graph), "unrank " + r + " of " + n);
+            }
+            try
+            {
+                Linearization.unrank(BigInteger.valueOf(permutations.size()), n, graph);
+                throw new AssertionError("unranked " + permutations.size() + " of " + n);
+            }
+            catch (IllegalArgumentException expected)
+            {
+            }
+        }
+
+        // Large permutations, beyond a long, against the quadratic Lehmer code
+        for (int trial = 0; trial < 100; trial++)
+        {
+            int n = 1 + random.nextInt(60);
+            ArrayList<Integer> ids = new ArrayList<Integer>();
+            for (int i = 0; i < n; i++)
+            {
+                ids.add(i);
+            }
+            Collections.shuffle(ids, random);
+            Linearization<String> linearization = new Linearization<String>(graph, Unboxed(ids));
+            BigInteger rank = NaiveRank(ids);
+            TestSupport.checkEquals(rank, linearization.rank(), "rank of " + ids);
+            TestSupport.checkEquals(linearization, Linearization.unrank(rank, n, graph), "unrank of " + ids);
+        }
+        try
+        {
+            new Linearization<String>(graph, new int[] { 0, 2, 2 }).rank();
+            throw new AssertionError("ranked a non-permutation");
+        }
+        catch (IllegalStateException expected)
+        {
+        }
+
+        System.out.println("LinearizationTest: ok");
+    }
+
+    private static ArrayList<Integer> RandomIds(Random random, int length, int bound)
+    {
+        ArrayList<Integer> ids = new ArrayList<Integer>();
+        for (int i = 0; i < length; i++)
+        {
+            ids.add(random.nextInt(bound));
+        }
+        return ids;
+    }
+
+    private static int[] Unboxed(ArrayList<Integer> list)
+    {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++)
+        {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    // Lexicographic, a proper prefix first
+    private static int Compare(ArrayList<Integer> a, ArrayList<Integer> b)
+    {
+        for (int i = 0; i < Math.min(a.size(), b.size()); i++)
+        {
+            if (!a.get(i).equals(b.get(i))) return Integer.compare(a.get(i), b.get(i));
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+
+    // Every id in the fewest base-94 digits that fit the largest, most significant first
+    private static String NaiveASCII(ArrayList<Integer> ids)
+    {
+        int width = 1;
+        while (Math.pow(94, width) <= Collections.max(ids.isEmpty() ? Arrays.asList(0) : ids)) width++;
+
+        StringBuilder s = new StringBuilder();
+        for (int id : ids)
+        {
+            String digits = "";
+            for (int d = 0; d < width; d++, id /= 94)
+            {
+                digits = (char) ('!' + id % 94) + digits;
+            }
+            s.append(digits);
+        }
+        return s.toString();
+    }
+
+    // The length and then every id, seven bits a byte, low bits first, with the high bit on all but the last
+    private static String NaiveVarints(int[] ids)
+    {
+        ArrayList<Byte> bytes = new ArrayList<Byte>();
+        long[] values = new long[ids.length + 1];
+        values[0] = ids.length;
+        for (int i = 0; i < ids.length; i++)
+        {
+            values[i + 1] = ids[i];
+        }
+        for (long value : values)
+        {
+            do
+            {
+                long low = value % 128;
+                value /= 128;
+                bytes.add((byte) (value > 0 ? low + 128 : low));
+            }
+            while (value > 0);
+        }
+        return bytes.toString();
+    }
+
+    private static void Refused(byte[] bytes, String what)
+    {
+        try
+        {
+            Linearization.fromBytes(bytes, null);
+            throw new AssertionError("decoded " + what);
+        }
+        catch (IllegalArgumentException expected)
+        {
+        }
+    }
+
+    private static void Permutations(int[] prefix, boolean[] used, int k, ArrayList<int[]> permutations)
+    {
+        if (k == prefix.length)
+        {
+            permutations.add(prefix.clone());
+            return;
+        }
+        for (int id = 0; id < prefix.length; id++)
+        {
+            if (used[id]) continue;
+            used[id] = true;
+            prefix[k] = id;
+            Permutations(prefix, used, k + 1, permutations);
+            used[id] = false;
+        }
+    }
+
+    // sum over positions of (smaller ids after it) * (n - 1 - i)!
+    private static BigInteger NaiveRank(ArrayList<Integer> ids)
+    {
+        int n = ids.size();
+        BigInteger rank = BigInteger.ZERO;
+        for (int i = 0; i < n; i++)
+        {
+            int smaller = 0;
+            for (int j = i + 1; j < n; j++)
+            {
+                if (ids.get(j) < ids.get(i)) smaller++;
+            }
+            BigInteger factorial = BigInteger.ONE;
+            for (int f = 2; f <= n - 1 - i; f++)
+            {
+                factorial = factorial.multiply(BigInteger.valueOf(f));
+            }
+            rank = rank.add(factorial.multiply(BigInteger.valueOf(smaller)));
+        }
+        return rank;
+    }
+}
@@ -0,0 +1,93 @@
+package digraph;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+//
+// MappedGraph round trips against the reference: dense weighted graphs with node data, sparse ids,
+// the empty graph and a mapped graph written again, plus files that are not graphs or are cut short
+//
+public class MappedGraphTest
+{
+    public static void main(String[] args) throws IOException
+    {
+        Path file = Files.createTempFile("digraph", ".dgrf");
+        try
+        {
+            Random random = new Random(21);
+            for (int trial = 0; trial < 150; trial++)
+            {
+                int n = 1 + random.nextInt(60);
+                boolean dense = trial % 2 == 0;
+                TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(4 * n), dense ? 1 + random.nextInt(1000) : 1, dense, random.nextBoolean());
+                String name = "trial " + trial;
+
+                if (dense)
+                {
+                    MappedGraph.write(reference.toDiGraph(), file);
+                }
+                else
+                {
+                    MappedGraph.write(reference.toDiGraphInt().Freeze(), file);
+                }
+                MappedGraph mapped = MappedGraph.open(file);
+                TestSupport.checkSameGraph(mapped, reference, true, dense, name);
+                TestSupport.checkEquals(dense, mapped.hasNodeData(), name + " node data present");
+                for (int v = 0; dense && v < n; v++)
+                {
+                    TestSupport.checkEquals("n" + mapped.getLabel(v), mapped.getNodeData(v), name + " node data of " + v);
+                }
+
+                // A mapped graph written out again maps to the same graph
+                Path again = Files.createTempFile("digraph", ".dgrf");
+                try
+                {
+                    MappedGraph.write(mapped, again);
+                    TestSupport.checkSameGraph(MappedGraph.open(again), reference, true, dense, name + " written again");
+                }
+                finally
+                {
+                    Files.delete(again);
+                }
+            }
+
+            // The empty graph
+            MappedGraph.write(new DiGraphInt().Freeze(), file);
+            TestSupport.checkSameGraph(MappedGraph.open(file), new TestSupport.ReferenceGraph(), true, false, "empty");
+
+            // Not a graph, and a graph cut short at every length
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, 20, 60, 9, true, false);
+            MappedGraph.write(reference.toDiGraph(), file);
+            byte[] bytes = Files.readAllBytes(file);
+            byte[] wrongMagic = bytes.clone();
+            wrongMagic[0] ^= 1;
+            Refused(file, wrongMagic, "a wrong magic number");
+            for (int length = 0; length < bytes.length; length += 1 + length / 8)
+            {
+                Refused(file, Arrays.copyOf(bytes, length), "a file cut to " + length + " of " + bytes.length + " bytes");
+            }
+        }
+        finally
+        {
+            Files.delete(file);
+        }
+
+        System.out.println("MappedGraphTest: ok");
+    }
+
+    private static void Refused(Path file, byte[] bytes, String what) throws IOException
+    {
+        Files.write(file, bytes);
+        try
+        {
+            MappedGraph.open(file);
+            throw new AssertionError("opened " + what);
+        }
+        catch (IOException expected)
+        {
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package digraph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+//
+// The primitive neighbor API of DiGraph and DiGraphInt against the reference, before and after
+// removals: forEach, iterators, buffer views and getOutEdgeNodes agree with each other and with the
+// reference, and getOutEdgeNodes reports through the tracer only, never on stdout
+//
+public class NeighborTest
+{
+    public static void main(String[] args)
+    {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured));
+        try
+        {
+            Run();
+        }
+        finally
+        {
+            System.setOut(stdout);
+        }
+        TestSupport.checkEquals("", captured.toString(), "stdout output");
+
+        System.out.println("NeighborTest: ok");
+    }
+
+    private static void Run()
+    {
+        Random random = new Random(9);
+        for (int trial = 0; trial < 200; trial++)
+        {
+            int n = 1 + random.nextInt(40);
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(3 * n), 1, true, random.nextBoolean());
+            DiGraph<String> digraph = reference.toDiGraph();
+            DiGraphInt digraphInt = reference.toDiGraphInt();
+            String name = "trial " + trial;
+
+            CheckDiGraph(digraph, reference, n, name);
+            CheckDiGraphInt(digraphInt, reference, name);
+
+            // Remove some edges and nodes from both and the reference, and look again
+            for (int r = 0; r < n / 2; r++)
+            {
+                int v = random.nextInt(n);
+                ArrayList<Integer> successors = reference.containsVertex(v) ? reference.successors(v) : new ArrayList<Integer>();
+                if (random.nextBoolean() && !successors.isEmpty())
+                {
+                    int w = successors.get(random.nextInt(successors.size()));
+                    reference.removeEdge(v, w);
+                    TestSupport.check(digraph.removeEdge(v, w), name + ": DiGraph lost edge " + v + " -> " + w);
+                    TestSupport.check(digraphInt.RemoveEdge(v, w), name + ": DiGraphInt lost edge " + v + " -> " + w);
+                }
+                else if (reference.containsVertex(v))
+                {
+                    reference.removeVertex(v);
+                    TestSupport.check(digraph.removeNode(v), name + ": DiGraph lost node " + v);
+                    digraphInt.RemoveVertex(v);
+                }
+            }
+            CheckDiGraph(digraph, reference, n, name + " after removals");
+            CheckDiGraphInt(digraphInt, reference, name + " after removals");
+        }
+    }
+
+    private static void CheckDiGraph(DiGraph<String> graph, TestSupport.ReferenceGraph reference, int n, String name)
+    {
+        ArrayList<int[]> traced = new ArrayList<int[]>();
+        graph.setTracer((from, to) -> traced.add(new int[] { from, to }));
+        for (int v = 0; v < n; v++)
+        {
+            String what = name + " node " + v;
+            boolean present = reference.containsVertex(v);
+            TestSupport.checkEquals(present, graph.containsNode(v), what + " present");
+            ArrayList<Integer> successors = present ? reference.successors(v) : new ArrayList<Integer>();
+            ArrayList<Integer> predecessors = present ? reference.predecessors(v) : new ArrayList<Integer>();
+
+            ArrayList<Integer> out = new ArrayList<Integer>();
+            graph.forEachOutNeighbor(v, out::add);
+            TestSupport.checkEquals(TestSupport.sorted(successors), TestSupport.sorted(out), what + " forEachOutNeighbor");
+            TestSupport.checkEquals(out, ToList(graph.outNeighbors(v)), what + " outNeighbors");
+            TestSupport.checkEquals(TestSupport.sorted(out), TestSupport.sorted(ToList(graph.getOutNeighborView(v))), what + " out view");
+
+            ArrayList<Integer> in = new ArrayList<Integer>();
+            graph.forEachInNeighbor(v, in::add);
+            TestSupport.checkEquals(TestSupport.sorted(predecessors), TestSupport.sorted(in), what + " forEachInNeighbor");
+            TestSupport.checkEquals(in, ToList(graph.inNeighbors(v)), what + " inNeighbors");
+            TestSupport.checkEquals(TestSupport.sorted(in), TestSupport.sorted(ToList(graph.getInNeighborView(v))), what + " in view");
+
+            // getOutEdgeNodes: the same targets in the same order, each traced once
+            traced.clear();
+            ArrayList<Integer> nodes = new ArrayList<Integer>();
+            for (Node<String> node : graph.getOutEdgeNodes(v))
+            {
+                nodes.add(node.getId());
+                TestSupport.checkEquals("n" + node.getId(), node.getData(), what + " target data");
+            }
+            TestSupport.checkEquals(out, nodes, what + " getOutEdgeNodes");
+            TestSupport.checkEquals(nodes.size(), traced.size(), what + " traced edges");
+            for (int i = 0; i < traced.size(); i++)
+            {
+                TestSupport.checkEquals(v, traced.get(i)[0], what + " traced source");
+                TestSupport.checkEquals(nodes.get(i), traced.get(i)[1], what + " traced target");
+            }
+        }
+
+        // Tracing is off again once the tracer is cleared
+        graph.setTracer(null);
+        traced.clear();
+        for (int v = 0; v < n; v++)
+        {
+            graph.getOutEdgeNodes(v);
+        }
+        TestSupport.check(traced.isEmpty(), name + ": traced without a tracer");
+    }
+
+    private static void CheckDiGraphInt(DiGraphInt graph, TestSupport.ReferenceGraph reference, String name)
+    {
+        for (int v : reference.vertices)
+        {
+            String what = name + " vertex " + v;
+            ArrayList<Integer> out = new ArrayList<Integer>();
+            graph.ForEachOutNeighbor(v, out::add);
+            TestSupport.checkEquals(TestSupport.sorted(reference.successors(v)), TestSupport.sorted(out), what + " ForEachOutNeighbor");
+            TestSupport.checkEquals(out, ToList(graph.OutNeighbors(v)), what + " OutNeighbors");
+
+            ArrayList<Integer> in = new ArrayList<Integer>();
+            graph.ForEachInNeighbor(v, in::add);
+            TestSupport.checkEquals(TestSupport.sorted(reference.predecessors(v)), TestSupport.sorted(in), what + " ForEachInNeighbor");
+            TestSupport.checkEquals(in, ToList(graph.InNeighbors(v)), what + " InNeighbors");
+        }
+    }
+
+    private static ArrayList<Integer> ToList(PrimitiveIterator.OfInt iterator)
+    {
+        ArrayList<Integer> list = new ArrayList<Integer>();
+        while (iterator.hasNext())
+        {
+            list.add(iterator.nextInt());
+        }
+        return list;
+    }
+
+    private static ArrayList<Integer> ToList(IntBuffer buffer)
+    {
+        ArrayList<Integer> list = new ArrayList<Integer>();
+        while (buffer.hasRemaining())
+        {
+            list.add(buffer.get());
+        }
+        return list;
+    }
+}
@@ -0,0 +1,163 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Random;
+
+//
+// DiGraph's cached Node views under random edits: one object per node until released, data written
+// through a view or setData seen by both, edge lists in step with the reference, and toString the
+// same as for an identical graph that never handed out a view
+//
+public class NodeViewTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(10);
+        for (int trial = 0; trial < 100; trial++)
+        {
+            int n = 1 + random.nextInt(30);
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(2 * n), 1 + random.nextInt(5), true, false);
+            DiGraph<String> graph = reference.toDiGraph();
+            DiGraph<String> twin = reference.toDiGraph();
+            HashMap<Integer, String> data = new HashMap<Integer, String>();
+            for (int v = 0; v < n; v++)
+            {
+                data.put(v, "n" + v);
+            }
+            HashMap<Integer, Node<String>> handedOut = new HashMap<Integer, Node<String>>();
+
+            for (int step = 0; step < 60; step++)
+            {
+                String name = "trial " + trial + " step " + step;
+                int v = random.nextInt(n);
+                int w = random.nextInt(n);
+                switch (random.nextInt(8))
+                {
+                    case 0:
+                    case 1:
+                        if (reference.containsVertex(v) && reference.containsVertex(w) && reference.addEdge(v, w, 1 + step % 4))
+                        {
+                            graph.addEdge(v, w, 1 + step % 4);
+                            twin.addEdge(v, w, 1 + step % 4);
+                        }
+                        break;
+                    case 2:
+                        if (reference.containsVertex(v) && reference.hasEdge(v, w))
+                        {
+                            reference.removeEdge(v, w);
+                            TestSupport.check(graph.removeEdge(v, w) && twin.removeEdge(v, w), name + ": lost edge " + v + " -> " + w);
+                        }
+                        break;
+                    case 3:
+                        if (random.nextInt(4) == 0 && reference.containsVertex(v))
+                        {
+                            reference.removeVertex(v);
+                            TestSupport.check(graph.removeNode(v) && twin.removeNode(v), name + ": lost node " + v);
+                            data.remove(v);
+                            handedOut.remove(v);
+                        }
+                        break;
+                    case 4:
+                        if (reference.containsVertex(v))
+                        {
+                            graph.setData(v, "s" + step);
+                            twin.setData(v, "s" + step);
+                            data.put(v, "s" + step);
+                        }
+                        break;
+                    case 5:
+                        // A write straight through the view
+                        if (reference.containsVertex(v))
+                        {
+                            Node<String> node = graph.getNode(v);
+                            node.data = "d" + step;
+                            handedOut.put(v, node);
+                            twin.setData(v, "d" + step);
+                            data.put(v, "d" + step);
+                        }
+                        break;
+                    case 6:
+                        if (random.nextInt(5) == 0)
+                        {
+                            graph.releaseNodeViews();
+                            handedOut.clear();
+                        }
+                        break;
+                    default:
+                        if (reference.containsVertex(v)) handedOut.put(v, graph.getNode(v));
+                        for (Node<String> node : graph.getOutEdgeNodes(w))
+                        {
+                            handedOut.put(node.getId(), node);
+                        }
+                        break;
+                }
+
+                Check(graph, reference, data, handedOut, n, name);
+                TestSupport.checkEquals(twin.toString(), graph.toString(), name + " toString");
+            }
+
+            // Every view at once: the same objects that were handed out one by one
+            ArrayList<Node<String>> vertices = graph.getVertices();
+            for (Node<String> node : vertices)
+            {
+                if (handedOut.containsKey(node.getId())) TestSupport.check(handedOut.get(node.getId()) == node, "trial " + trial + ": getVertices made a second view of " + node.getId());
+                handedOut.put(node.getId(), node);
+            }
+            Check(graph, reference, data, handedOut, n, "trial " + trial + " all views");
+            TestSupport.checkEquals(twin.toString(), graph.toString(), "trial " + trial + " toString with all views");
+        }
+
+        System.out.println("NodeViewTest: ok");
+    }
+
+    private static void Check(DiGraph<String> graph, TestSupport.ReferenceGraph reference, HashMap<Integer, String> data, HashMap<Integer, Node<String>> handedOut, int n, String name)
+    {
+        for (int v = 0; v < n; v++)
+        {
+            if (!reference.containsVertex(v))
+            {
+                TestSupport.check(graph.getNode(v) == null && graph.getData(v) == null, name + ": removed node " + v + " still has a view or data");
+                continue;
+            }
+            TestSupport.checkEquals(data.get(v), graph.getData(v), name + " data of " + v);
+
+            Node<String> node = handedOut.get(v);
+            if (node == null) continue;
+
+            TestSupport.check(graph.getNode(v) == node, name + ": a second view of " + v);
+            TestSupport.checkEquals(data.get(v), node.data, name + " view data of " + v);
+            TestSupport.checkEquals(Describe(reference, reference.successors(v), v, true), Describe(node.outEdges, true), name + " out edges of " + v);
+            TestSupport.checkEquals(Describe(reference, reference.predecessors(v), v, false), Describe(node.inEdges, false), name + " in edges of " + v);
+        }
+    }
+
+    // The (neighbor, weight) pairs of a node's edges, sorted by neighbor
+    private static String Describe(TestSupport.ReferenceGraph reference, ArrayList<Integer> neighbors, int v, boolean out)
+    {
+        StringBuilder s = new StringBuilder();
+        for (int w : TestSupport.sorted(neighbors))
+        {
+            s.append(w).append(':').append(out ? reference.weight(v, w) : reference.weight(w, v)).append(' ');
+        }
+        return s.toString();
+    }
+
+    private static String Describe(ArrayList<Edge> edges, boolean out)
+    {
+        ArrayList<Integer> neighbors = new ArrayList<Integer>();
+        HashMap<Integer, Integer> weights = new HashMap<Integer, Integer>();
+        for (Edge edge : edges)
+        {
+            int w = out ? edge.targetNode : edge.sourceNode;
+            neighbors.add(w);
+            weights.put(w, edge.getWeight());
+        }
+        StringBuilder s = new StringBuilder();
+        for (int w : TestSupport.sorted(neighbors))
+        {
+            s.append(w).append(':').append(weights.get(w)).append(' ');
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package digraph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+//
+// OffHeapGraph against the CSRGraph it copies and against the reference: every accessor, and the
+// engines giving the same results over both; OffHeapGraphBuilder against the reference with duplicate
+// edges of different weights (the lightest is kept)
+//
+public class OffHeapGraphTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(23);
+        for (int trial = 0; trial < 150; trial++)
+        {
+            int n = 1 + random.nextInt(80);
+            boolean dense = trial % 2 == 0;
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(4 * n), dense ? 1 + random.nextInt(100) : 1, dense, random.nextBoolean());
+            CSRGraph csr = dense ? reference.toDiGraph().freeze() : reference.toDiGraphInt().Freeze();
+            OffHeapGraph graph = OffHeapGraph.copyOf(csr);
+            String name = "trial " + trial;
+
+            TestSupport.checkSameGraph(graph, reference, true, dense, name + " copy");
+            if (csr.getNumVertices() == 0) continue;
+
+            // The same dense indices in the same neighbor order, so the engines agree exactly
+            TestSupport.checkEquals(new StronglyConnectedComponents(csr).getComponents(), new StronglyConnectedComponents(graph).getComponents(), name + " components");
+            TestSupport.checkEquals(new TopologicalOrder(csr).getSortedLabels(), new TopologicalOrder(graph).getSortedLabels(), name + " topological order");
+            TestSupport.checkEquals(Arrays.toString(csr.GetWidthProfile()), Arrays.toString(graph.GetWidthProfile()), name + " width profile");
+            int source = csr.getLabel(random.nextInt(csr.getNumVertices()));
+            Dijkstra expected = new Dijkstra(csr, dense);
+            Dijkstra actual = new Dijkstra(graph, dense);
+            expected.shortestPaths(source);
+            actual.shortestPaths(source);
+            for (int v = 0; v < csr.getNumVertices(); v++)
+            {
+                TestSupport.checkEquals(expected.getDistance(csr.getLabel(v)), actual.getDistance(csr.getLabel(v)), name + " distance to " + csr.getLabel(v));
+            }
+        }
+
+        // The builder: edges in random order with duplicates, against the reference of the lightest weights
+        for (int trial = 0; trial < 150; trial++)
+        {
+            int n = 1 + random.nextInt(80);
+            int m = random.nextInt(5 * n);
+            boolean weighted = trial % 2 == 0;
+            OffHeapGraphBuilder builder = trial % 3 == 0 ? new OffHeapGraphBuilder(n) : new OffHeapGraphBuilder(n, 1 + random.nextInt(m + 1));
+            HashMap<Long, Integer> lightest = new HashMap<Long, Integer>();
+            for (int e = 0; e < m; e++)
+            {
+                int from = random.nextInt(n);
+                int to = random.nextInt(n);
+                int weight = weighted ? 1 + random.nextInt(9) : 1;
+                if (weighted) builder.addEdge(from, to, weight);
+                else builder.addEdge(from, to);
+                lightest.merge(Edge.key(from, to), weight, Math::min);
+            }
+            TestSupport.checkEquals((long) m, builder.getNumEdgesAdded(), "builder trial " + trial + " edges added");
+
+            TestSupport.ReferenceGraph reference = new TestSupport.ReferenceGraph();
+            for (int v = 0; v < n; v++)
+            {
+                reference.addVertex(v);
+            }
+            for (Map.Entry<Long, Integer> edge : lightest.entrySet())
+            {
+                reference.addEdge((int) (edge.getKey() >>> 32), edge.getKey().intValue(), edge.getValue());
+            }
+            TestSupport.checkSameGraph(builder.build(), reference, false, weighted, "builder trial " + trial);
+        }
+
+        System.out.println("OffHeapGraphTest: ok");
+    }
+}
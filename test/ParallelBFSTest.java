@@ -0,0 +1,66 @@
+package digraph;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+//
+// ParallelBFS against the sequential LevelWidth on pools of several sizes, with the sequential
+// cut-off disabled, top-down only and direction-optimizing, in both directions
+//
+public class ParallelBFSTest
+{
+    public static void main(String[] args)
+    {
+        ForkJoinPool[] pools = { new ForkJoinPool(1), new ForkJoinPool(2), new ForkJoinPool(4) };
+        try
+        {
+            Random random = new Random(8);
+            int bottomUpLevels = 0;
+            for (int trial = 0; trial < 120; trial++)
+            {
+                // Mostly small graphs, and some large enough to switch to bottom-up steps
+                int n = trial % 10 == 0 ? 2000 + random.nextInt(6000) : 1 + random.nextInt(200);
+                int m = random.nextInt(trial % 3 == 0 ? 16 * n : 3 * n);
+                CSRGraph graph = TestSupport.randomGraph(random, n, m, 1, true, random.nextBoolean()).toDiGraph().freeze();
+                LevelWidth sequential = new LevelWidth(graph);
+
+                for (int run = 0; run < 4; run++)
+                {
+                    int[] seeds = run == 0 ? LevelWidth.sinks(graph) : new int[] { random.nextInt(n), random.nextInt(n) };
+                    boolean forward = run % 2 == 1;
+                    int[] expected = sequential.getWidthProfile(seeds, forward);
+
+                    for (ForkJoinPool pool : pools)
+                    {
+                        for (boolean directionOptimizing : new boolean[] { false, true })
+                        {
+                            String what = "trial " + trial + " run " + run + " threads " + pool.getParallelism() + (directionOptimizing ? " DO" : " top-down");
+                            ParallelBFS bfs = new ParallelBFS(graph, pool);
+                            bfs.setSequentialThreshold(0);
+                            bfs.setDirectionOptimizing(directionOptimizing);
+                            TestSupport.checkEquals(Arrays.toString(expected), Arrays.toString(bfs.getWidthProfile(seeds, forward)), what + " widths");
+                            TestSupport.checkEquals(sequential.getNumLevels(), bfs.getNumLevels(), what + " number of levels");
+                            TestSupport.checkEquals(sequential.getNumVisited(), bfs.getNumVisited(), what + " visited");
+                            TestSupport.checkEquals(sequential.getMaxWidth(), bfs.getMaxWidth(), what + " max width");
+                            if (!directionOptimizing) TestSupport.checkEquals(0, bfs.getNumBottomUpLevels(), what + " bottom-up levels");
+                            bottomUpLevels += bfs.getNumBottomUpLevels();
+                        }
+                    }
+                }
+
+                TestSupport.checkEquals(Arrays.toString(graph.GetWidthProfile()), Arrays.toString(graph.GetWidthProfile(pools[2])), "trial " + trial + " CSRGraph widths");
+            }
+            TestSupport.check(bottomUpLevels > 0, "no traversal went bottom-up");
+        }
+        finally
+        {
+            for (ForkJoinPool pool : pools)
+            {
+                pool.shutdown();
+            }
+        }
+
+        System.out.println("ParallelBFSTest: ok");
+    }
+}
@@ -0,0 +1,103 @@
+package digraph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+//
+// The parallel enumeration against the sequential one on pools of several sizes and task budgets, and
+// the Markov chain sampler: every sample a valid extension, and all extensions of a small DAG drawn
+// about equally often
+//
+public class ParallelLinearExtensionsTest
+{
+    public static void main(String[] args)
+    {
+        ForkJoinPool[] pools = { new ForkJoinPool(1), new ForkJoinPool(2), new ForkJoinPool(4) };
+        try
+        {
+            Random random = new Random(16);
+            for (int trial = 0; trial < 150; trial++)
+            {
+                int n = 1 + random.nextInt(8);
+                TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(3 * n), 1, true, true);
+                CSRGraph graph = reference.toDiGraph().freeze();
+                String name = "trial " + trial;
+
+                HashSet<String> expected = new HashSet<String>();
+                new LinearExtensions(graph).visitAll(order -> expected.add(Arrays.toString(order)));
+
+                for (ForkJoinPool pool : pools)
+                {
+                    ParallelLinearExtensions parallel = new ParallelLinearExtensions(graph, pool);
+                    parallel.setTasksPerThread(trial % 2 == 0 ? 1 : ParallelLinearExtensions.DEFAULT_TASKS_PER_THREAD);
+                    String what = name + " threads " + pool.getParallelism();
+
+                    ConcurrentHashMap<String, Boolean> visited = new ConcurrentHashMap<String, Boolean>();
+                    long count = parallel.visitAll(order ->
+                    {
+                        TestSupport.check(visited.put(Arrays.toString(order), true) == null, what + ": " + Arrays.toString(order) + " twice");
+                        return true;
+                    });
+                    TestSupport.checkEquals(expected, visited.keySet(), what + " extensions");
+                    TestSupport.checkEquals((long) expected.size(), count, what + " count");
+
+                    // A stop is seen by every task soon; the count is what the visitor was given
+                    AtomicLong given = new AtomicLong();
+                    long stopped = parallel.visitAll(order -> given.incrementAndGet() < 3);
+                    TestSupport.checkEquals(given.get(), stopped, what + " stopped count");
+                    TestSupport.check(stopped >= Math.min(3, expected.size()), what + ": stopped before the third extension");
+                }
+                TestSupport.checkEquals((long) expected.size(), reference.toDiGraph().forEachTopologicalSort(order -> true, pools[2]), name + " forEachTopologicalSort");
+
+                // Every sample of either chain is one of the extensions
+                for (boolean bubleyDyer : new boolean[] { false, true })
+                {
+                    LinearExtensionSampler sampler = new LinearExtensionSampler(graph, new Random(trial), bubleyDyer);
+                    for (int s = 0; s < 20; s++)
+                    {
+                        String sample = Arrays.toString(sampler.sample());
+                        TestSupport.check(expected.contains(sample), name + ": sampled " + sample + ", which is not an extension");
+                    }
+                }
+            }
+
+            // Two chains of two and one free vertex: 30 extensions, each drawn about 1/30 of the time
+            DiGraph<String> small = new DiGraph<String>();
+            for (int v = 0; v < 5; v++)
+            {
+                small.addNode("n" + v);
+            }
+            small.addEdge(0, 1);
+            small.addEdge(2, 3);
+            for (boolean bubleyDyer : new boolean[] { false, true })
+            {
+                LinearExtensionSampler sampler = new LinearExtensionSampler(small.freeze(), new Random(bubleyDyer ? 1 : 2), bubleyDyer);
+                HashMap<String, Integer> drawn = new HashMap<String, Integer>();
+                int samples = 30000;
+                for (int s = 0; s < samples; s++)
+                {
+                    drawn.merge(Arrays.toString(sampler.sample()), 1, Integer::sum);
+                }
+                TestSupport.checkEquals(30, drawn.size(), "sampled extensions" + (bubleyDyer ? " (Bubley-Dyer)" : ""));
+                for (int times : drawn.values())
+                {
+                    TestSupport.check(times > samples / 30 / 2 && times < samples / 30 * 2, "an extension drawn " + times + " times out of " + samples);
+                }
+            }
+        }
+        finally
+        {
+            for (ForkJoinPool pool : pools)
+            {
+                pool.shutdown();
+            }
+        }
+
+        System.out.println("ParallelLinearExtensionsTest: ok");
+    }
+}
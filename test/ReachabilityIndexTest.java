@@ -0,0 +1,68 @@
+package digraph;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+//
+// Every reachability query against a search over the reference, for one, the default and the most
+// traversals, on cyclic and acyclic graphs with dense and sparse ids, and from several threads at once
+//
+public class ReachabilityIndexTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(14);
+        for (int trial = 0; trial < 200; trial++)
+        {
+            int n = 1 + random.nextInt(60);
+            boolean dense = trial % 2 == 0;
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(3 * n), 1, dense, trial % 3 == 0);
+            CSRGraph graph = dense ? reference.toDiGraph().freeze() : reference.toDiGraphInt().Freeze();
+            if (reference.vertices.isEmpty()) continue;
+
+            HashMap<Integer, HashSet<Integer>> reachable = new HashMap<Integer, HashSet<Integer>>();
+            for (int v : reference.vertices)
+            {
+                reachable.put(v, reference.reachable(v));
+            }
+
+            int[] traversals = { 1, ReachabilityIndex.DEFAULT_NUM_TRAVERSALS, ReachabilityIndex.MAX_NUM_TRAVERSALS };
+            ReachabilityIndex index = new ReachabilityIndex(graph, traversals[trial % 3]);
+            String name = "trial " + trial + " traversals " + traversals[trial % 3];
+            TestSupport.checkEquals(new StronglyConnectedComponents(graph).getNumComponents(), index.getNumComponents(), name + " components");
+
+            for (int u : reference.vertices)
+            {
+                for (int v : reference.vertices)
+                {
+                    boolean forward = reachable.get(u).contains(v);
+                    TestSupport.checkEquals(forward, index.reaches(u, v), name + " " + u + " reaches " + v);
+                    TestSupport.checkEquals(forward && reachable.get(v).contains(u), index.isStronglyConnected(u, v), name + " " + u + " strongly connected to " + v);
+                }
+            }
+
+            // The fallback search keeps per-thread state; queries from many threads must not disturb it
+            int size = reference.vertices.size();
+            long wrong = IntStream.range(0, size * size).parallel().filter(q ->
+            {
+                int u = reference.vertices.get(q / size);
+                int v = reference.vertices.get(q % size);
+                return index.reaches(u, v) != reachable.get(u).contains(v);
+            }).count();
+            TestSupport.checkEquals(0L, wrong, name + " wrong concurrent answers");
+
+            // DiGraphInt builds the same index over its frozen copy (which holds every vertex of a sparse graph)
+            if (!dense)
+            {
+                ReachabilityIndex fromDiGraphInt = reference.toDiGraphInt().GetReachabilityIndex();
+                int u = reference.vertices.get(random.nextInt(size));
+                int v = reference.vertices.get(random.nextInt(size));
+                TestSupport.checkEquals(reachable.get(u).contains(v), fromDiGraphInt.reaches(u, v), name + " DiGraphInt " + u + " reaches " + v);
+            }
+        }
+
+        System.out.println("ReachabilityIndexTest: ok");
+    }
+}
@@ -0,0 +1,117 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+//
+// Long runs of additions and removals on DiGraph and DiGraphInt against the reference, enough churn
+// on few vertices to compact the edge table many times: edge and node counts, edge membership, the
+// edges in insertion order, and the frozen copy after every batch
+//
+public class RemovalTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(20);
+        for (int trial = 0; trial < 60; trial++)
+        {
+            int n = 2 + random.nextInt(20);
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(3 * n), 1 + random.nextInt(5), true, false);
+            DiGraph<String> graph = reference.toDiGraph();
+            int nextId = n;
+
+            for (int step = 0; step < 2000; step++)
+            {
+                String name = "trial " + trial + " step " + step;
+                int from = random.nextInt(nextId);
+                int to = random.nextInt(nextId);
+                int op = random.nextInt(100);
+                if (op < 50)
+                {
+                    boolean added = reference.containsVertex(from) && reference.containsVertex(to) && reference.addEdge(from, to, 1 + step % 7);
+                    int edges = graph.getNumEdges();
+                    if (reference.containsVertex(from) && reference.containsVertex(to)) graph.addEdge(from, to, 1 + step % 7);
+                    TestSupport.checkEquals(edges + (added ? 1 : 0), graph.getNumEdges(), name + " edges after adding " + from + " -> " + to);
+                }
+                else if (op < 95)
+                {
+                    // Mostly edges that exist, so the table fills with tombstones
+                    ArrayList<Integer> successors = reference.containsVertex(from) ? reference.successors(from) : new ArrayList<Integer>();
+                    if (!successors.isEmpty() && random.nextInt(4) != 0) to = successors.get(random.nextInt(successors.size()));
+                    TestSupport.checkEquals(reference.removeEdge(from, to), graph.removeEdge(from, to), name + " removeEdge " + from + " -> " + to);
+                }
+                else if (op < 98)
+                {
+                    boolean present = reference.containsVertex(from);
+                    if (present) reference.removeVertex(from);
+                    TestSupport.checkEquals(present, graph.removeNode(from), name + " removeNode " + from);
+                    TestSupport.check(graph.getNode(from) == null, name + ": removed node " + from + " has a view");
+                }
+                else
+                {
+                    graph.addNode("n" + nextId);
+                    reference.addVertex(nextId++);
+                }
+
+                TestSupport.check(!graph.getEdgeTable().needsCompaction(), name + ": compaction overdue");
+                TestSupport.checkEquals(reference.numEdges(), graph.getNumEdges(), name + " edges");
+                TestSupport.checkEquals(reference.vertices.size(), graph.getNumNode(), name + " nodes");
+                TestSupport.checkEquals(reference.hasEdge(from, to), graph.hasEdge(from, to), name + " hasEdge " + from + " -> " + to);
+
+                if (step % 100 == 99)
+                {
+                    ArrayList<String> expected = new ArrayList<String>();
+                    for (int[] edge : reference.edges)
+                    {
+                        expected.add(edge[0] + "->" + edge[1] + ":" + edge[2]);
+                    }
+                    ArrayList<String> edges = new ArrayList<String>();
+                    for (Edge edge : graph.getEdges())
+                    {
+                        edges.add(edge.sourceNode + "->" + edge.targetNode + ":" + edge.getWeight());
+                    }
+                    TestSupport.checkEquals(expected, edges, name + " edges in order");
+                    TestSupport.checkSameGraph(graph.freeze(), reference, false, true, name + " frozen");
+                }
+            }
+        }
+
+        // DiGraphInt: the same churn over sparse ids, without weights
+        for (int trial = 0; trial < 60; trial++)
+        {
+            int ids = 2 + random.nextInt(40);
+            TestSupport.ReferenceGraph reference = new TestSupport.ReferenceGraph();
+            DiGraphInt graph = new DiGraphInt();
+
+            for (int step = 0; step < 2000; step++)
+            {
+                String name = "DiGraphInt trial " + trial + " step " + step;
+                int from = 1000 + 7 * random.nextInt(ids);
+                int to = 1000 + 7 * random.nextInt(ids);
+                int op = random.nextInt(100);
+                if (op < 50)
+                {
+                    reference.addEdge(from, to, 1);
+                    graph.AddEdge(from, to);
+                }
+                else if (op < 97)
+                {
+                    ArrayList<Integer> successors = reference.containsVertex(from) ? reference.successors(from) : new ArrayList<Integer>();
+                    if (!successors.isEmpty() && random.nextInt(4) != 0) to = successors.get(random.nextInt(successors.size()));
+                    TestSupport.checkEquals(reference.removeEdge(from, to), graph.RemoveEdge(from, to), name + " RemoveEdge " + from + " -> " + to);
+                }
+                else
+                {
+                    boolean present = reference.containsVertex(from);
+                    if (present) reference.removeVertex(from);
+                    TestSupport.checkEquals(present, graph.RemoveVertex(from), name + " RemoveVertex " + from);
+                }
+
+                TestSupport.checkEquals(reference.numEdges(), graph.NumEdges(), name + " edges");
+                if (step % 100 == 99) TestSupport.checkSameGraph(graph.Freeze(), reference, false, false, name + " frozen");
+            }
+        }
+
+        System.out.println("RemovalTest: ok");
+    }
+}
@@ -0,0 +1,101 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+//
+// Tarjan's components against the classes of mutual reachability of the reference, their order
+// (a reverse topological order of the condensation) and a path deeper than any thread stack
+//
+public class StronglyConnectedComponentsTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(4);
+        for (int trial = 0; trial < 300; trial++)
+        {
+            int n = 1 + random.nextInt(40);
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(3 * n), 1, random.nextBoolean(), trial % 5 == 0);
+            CSRGraph graph = reference.toDiGraphInt().Freeze();
+            if (graph.getNumVertices() == 0) continue;
+            String name = "trial " + trial;
+
+            StronglyConnectedComponents sccs = new StronglyConnectedComponents(graph);
+            HashSet<ArrayList<Integer>> components = new HashSet<ArrayList<Integer>>();
+            for (ArrayList<Integer> component : sccs.getComponents())
+            {
+                components.add(TestSupport.sorted(component));
+            }
+            // DiGraphInt holds only the vertices with an edge, so isolated reference vertices drop out
+            HashSet<ArrayList<Integer>> expected = new HashSet<ArrayList<Integer>>();
+            for (ArrayList<Integer> component : reference.components())
+            {
+                if (graph.getIndex(component.get(0)) >= 0) expected.add(component);
+            }
+            TestSupport.checkEquals(expected, components, name + " components");
+            TestSupport.checkEquals(components.size(), sccs.getNumComponents(), name + " number of components");
+            TestSupport.checkEquals(reference.hasCycle(), sccs.ContainsCycle(), name + " cycle");
+
+            int members = 0;
+            for (int c = 0; c < sccs.getNumComponents(); c++)
+            {
+                for (int i = 0; i < sccs.getComponentSize(c); i++)
+                {
+                    TestSupport.checkEquals(c, sccs.getComponent(sccs.getMember(c, i)), name + " member " + i + " of " + c);
+                    members++;
+                }
+            }
+            TestSupport.checkEquals(graph.getNumVertices(), members, name + " members");
+
+            // Edges between components go from a higher id to a lower one, and the condensation has them
+            CSRGraph condensation = sccs.getCondensation();
+            TestSupport.checkEquals(sccs.getNumComponents(), condensation.getNumVertices(), name + " condensation vertices");
+            TestSupport.check(!condensation.ContainsCycle(), name + ": the condensation has a cycle");
+            for (int v = 0; v < graph.getNumVertices(); v++)
+            {
+                for (int i = 0; i < graph.getOutDegree(v); i++)
+                {
+                    int from = sccs.getComponent(v);
+                    int to = sccs.getComponent(graph.getOutNeighbor(v, i));
+                    TestSupport.check(from >= to, name + ": edge from component " + from + " to " + to);
+                    if (from != to) TestSupport.check(condensation.getIndex(to) >= 0 && HasEdge(condensation, from, to), name + ": condensation lacks " + from + " -> " + to);
+                }
+            }
+
+            TestSupport.checkEquals(components, Sorted(graph.GetStronglyConnectedComponents()), name + " FrozenGraph components");
+        }
+
+        // A path of a million vertices closed into one cycle: one component, without recursion
+        int n = 1000000;
+        DiGraphBuilder builder = new DiGraphBuilder(n, n);
+        for (int v = 0; v < n; v++)
+        {
+            builder.addEdge(v, (v + 1) % n);
+        }
+        StronglyConnectedComponents ring = new StronglyConnectedComponents(builder.buildCSR());
+        TestSupport.checkEquals(1, ring.getNumComponents(), "ring components");
+        TestSupport.checkEquals(n, ring.getComponentSize(0), "ring component size");
+
+        System.out.println("StronglyConnectedComponentsTest: ok");
+    }
+
+    private static boolean HasEdge(FrozenGraph graph, int from, int to)
+    {
+        for (int i = 0; i < graph.getOutDegree(from); i++)
+        {
+            if (graph.getOutNeighbor(from, i) == to) return true;
+        }
+        return false;
+    }
+
+    private static HashSet<ArrayList<Integer>> Sorted(ArrayList<ArrayList<Integer>> components)
+    {
+        HashSet<ArrayList<Integer>> sorted = new HashSet<ArrayList<Integer>>();
+        for (ArrayList<Integer> component : components)
+        {
+            sorted.add(TestSupport.sorted(component));
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,440 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.nio.IntBuffer;
+
+//
+// Shared fixtures of the tests: random graphs, a plain reference graph to compare the engines with,
+// and the checks every FrozenGraph must pass
+//
+// The tests are plain main classes (see AllTests); a failed check throws an AssertionError that names
+// the case, and every random case is seeded so that it can be repeated.
+//
+final class TestSupport
+{
+    private TestSupport()
+    {
+    }
+
+    static void check(boolean condition, String message)
+    {
+        if (!condition) throw new AssertionError(message);
+    }
+
+    static void checkEquals(Object expected, Object actual, String what)
+    {
+        if (!Objects.equals(expected, actual)) throw new AssertionError(what + ": expected " + expected + ", got " + actual);
+    }
+
+    //
+    // The reference graph, in the layout DiGraphInt started with: a Hashtable of successor lists, one
+    // of predecessor lists and the vertex list in order of first appearance (target before source).
+    // Everything on it is the obvious algorithm, kept simple rather than fast.
+    //
+    static final class ReferenceGraph
+    {
+        final Hashtable<Integer, ArrayList<Integer>> edgeMap = new Hashtable<Integer, ArrayList<Integer>>();
+        final Hashtable<Integer, ArrayList<Integer>> transposeEdgeMap = new Hashtable<Integer, ArrayList<Integer>>();
+        final ArrayList<Integer> vertices = new ArrayList<Integer>();
+        final ArrayList<int[]> edges = new ArrayList<int[]>(); // (from, to, weight) in the order added
+        final HashMap<Long, Integer> weights = new HashMap<Long, Integer>();
+
+        void addVertex(int vertex)
+        {
+            if (!edgeMap.containsKey(vertex))
+            {
+                edgeMap.put(vertex, new ArrayList<Integer>());
+                transposeEdgeMap.put(vertex, new ArrayList<Integer>());
+                vertices.add(vertex);
+            }
+        }
+
+        // false if the edge is already there (it keeps its weight)
+        boolean addEdge(int from, int to, int weight)
+        {
+            if (weights.containsKey(Edge.key(from, to))) return false;
+
+            addVertex(to);
+            addVertex(from);
+            edgeMap.get(from).add(to);
+            transposeEdgeMap.get(to).add(from);
+            edges.add(new int[] { from, to, weight });
+            weights.put(Edge.key(from, to), weight);
+            return true;
+        }
+
+        boolean removeEdge(int from, int to)
+        {
+            if (weights.remove(Edge.key(from, to)) == null) return false;
+
+            edgeMap.get(from).remove(Integer.valueOf(to));
+            transposeEdgeMap.get(to).remove(Integer.valueOf(from));
+            for (int i = 0; i < edges.size(); i++)
+            {
+                if (edges.get(i)[0] == from && edges.get(i)[1] == to)
+                {
+                    edges.remove(i);
+                    break;
+                }
+            }
+            return true;
+        }
+
+        void removeVertex(int vertex)
+        {
+            for (int to : new ArrayList<Integer>(successors(vertex)))
+            {
+                removeEdge(vertex, to);
+            }
+            for (int from : new ArrayList<Integer>(predecessors(vertex)))
+            {
+                removeEdge(from, vertex);
+            }
+            edgeMap.remove(vertex);
+            transposeEdgeMap.remove(vertex);
+            vertices.remove(Integer.valueOf(vertex));
+        }
+
+        boolean containsVertex(int vertex)
+        {
+            return edgeMap.containsKey(vertex);
+        }
+
+        boolean hasEdge(int from, int to)
+        {
+            return weights.containsKey(Edge.key(from, to));
+        }
+
+        ArrayList<Integer> successors(int vertex)
+        {
+            ArrayList<Integer> successors = edgeMap.get(vertex);
+            return successors == null ? new ArrayList<Integer>() : successors;
+        }
+
+        ArrayList<Integer> predecessors(int vertex)
+        {
+            ArrayList<Integer> predecessors = transposeEdgeMap.get(vertex);
+            return predecessors == null ? new ArrayList<Integer>() : predecessors;
+        }
+
+        int weight(int from, int to)
+        {
+            return weights.get(Edge.key(from, to));
+        }
+
+        int numEdges()
+        {
+            return edges.size();
+        }
+
+        // The vertices reachable from a vertex along the edges, the vertex itself included
+        HashSet<Integer> reachable(int from)
+        {
+            HashSet<Integer> seen = new HashSet<Integer>();
+            ArrayList<Integer> stack = new ArrayList<Integer>();
+            seen.add(from);
+            stack.add(from);
+            while (!stack.isEmpty())
+            {
+                int v = stack.remove(stack.size() - 1);
+                for (int w : successors(v))
+                {
+                    if (seen.add(w)) stack.add(w);
+                }
+            }
+            return seen;
+        }
+
+        // Bellman-Ford: the shortest distance from a vertex to every vertex it reaches, by weight or in
+        // edges; vertices it does not reach are absent
+        HashMap<Integer, Long> distances(int source, boolean weighted)
+        {
+            HashMap<Integer, Long> distance = new HashMap<Integer, Long>();
+            distance.put(source, 0L);
+            for (int round = 0; round < vertices.size(); round++)
+            {
+                boolean changed = false;
+                for (int[] edge : edges)
+                {
+                    Long from = distance.get(edge[0]);
+                    if (from == null) continue;
+                    long candidate = from + (weighted ? edge[2] : 1);
+                    Long to = distance.get(edge[1]);
+                    if (to == null || candidate < to)
+                    {
+                        distance.put(edge[1], candidate);
+                        changed = true;
+                    }
+                }
+                if (!changed) break;
+            }
+            return distance;
+        }
+
+        // Whether a path of at least one edge leads from a vertex back to itself, for some vertex
+        boolean hasCycle()
+        {
+            for (int v : vertices)
+            {
+                for (int w : successors(v))
+                {
+                    if (reachable(w).contains(v)) return true;
+                }
+            }
+            return false;
+        }
+
+        // The strongly connected components: the classes of mutual reachability, each sorted
+        HashSet<ArrayList<Integer>> components()
+        {
+            HashMap<Integer, HashSet<Integer>> reach = new HashMap<Integer, HashSet<Integer>>();
+            for (int v : vertices)
+            {
+                reach.put(v, reachable(v));
+            }
+
+            HashSet<ArrayList<Integer>> components = new HashSet<ArrayList<Integer>>();
+            for (int v : vertices)
+            {
+                ArrayList<Integer> component = new ArrayList<Integer>();
+                for (int w : reach.get(v))
+                {
+                    if (reach.get(w).contains(v)) component.add(w);
+                }
+                components.add(sorted(component));
+            }
+            return components;
+        }
+
+        // A DiGraphInt with the same edges added in the same order
+        DiGraphInt toDiGraphInt()
+        {
+            DiGraphInt graph = new DiGraphInt();
+            for (int[] edge : edges)
+            {
+                graph.AddEdge(edge[0], edge[1]);
+            }
+            return graph;
+        }
+
+        // A DiGraph over the vertices 0..n-1 (the reference must be dense, see randomGraph), node data
+        // "n" + id, with the same edges and weights added in the same order
+        DiGraph<String> toDiGraph()
+        {
+            DiGraph<String> graph = new DiGraph<String>();
+            for (int id = 0; id < vertices.size(); id++)
+            {
+                graph.addNode("n" + id);
+            }
+            for (int[] edge : edges)
+            {
+                graph.addEdge(edge[0], edge[1], edge[2]);
+            }
+            return graph;
+        }
+    }
+
+    //
+    // A random graph of n vertices and up to m edges (duplicates are dropped), with weights in
+    // 1..maxWeight. dense: the vertices are 0..n-1, all added up front; otherwise they are n distinct
+    // random ids appearing with their first edge. acyclic: every edge goes forward in a random order.
+    //
+    static ReferenceGraph randomGraph(Random random, int n, int m, int maxWeight, boolean dense, boolean acyclic)
+    {
+        ReferenceGraph graph = new ReferenceGraph();
+        int[] labels = new int[n];
+        if (dense)
+        {
+            for (int v = 0; v < n; v++)
+            {
+                labels[v] = v;
+                graph.addVertex(v);
+            }
+        }
+        else
+        {
+            ArrayList<Integer> pool = new ArrayList<Integer>();
+            for (int id = 0; id < 4 * n; id++)
+            {
+                pool.add(id);
+            }
+            Collections.shuffle(pool, random);
+            for (int v = 0; v < n; v++)
+            {
+                labels[v] = pool.get(v);
+            }
+        }
+
+        int[] rank = Permutation(random, n);
+        for (int e = 0; e < m && n > 0; e++)
+        {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            if (acyclic)
+            {
+                if (a == b) continue;
+                if (rank[a] > rank[b])
+                {
+                    int swap = a;
+                    a = b;
+                    b = swap;
+                }
+            }
+            graph.addEdge(labels[a], labels[b], 1 + random.nextInt(maxWeight));
+        }
+        return graph;
+    }
+
+    private static int[] Permutation(Random random, int n)
+    {
+        int[] permutation = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            permutation[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--)
+        {
+            int j = random.nextInt(i + 1);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+        }
+        return permutation;
+    }
+
+    //
+    // Checks a frozen graph against the reference: the labels and their indices, every accessor of the
+    // successors (in the reference's order if ordered, else as sets) and of the predecessors (as sets),
+    // and the weights when weighted
+    //
+    static void checkSameGraph(FrozenGraph graph, ReferenceGraph reference, boolean ordered, boolean weighted, String name)
+    {
+        int n = reference.vertices.size();
+        checkEquals(n, graph.getNumVertices(), name + " vertices");
+        checkEquals(reference.numEdges(), graph.getNumEdges(), name + " edges");
+        checkEquals((long) reference.numEdges(), graph.getNumEdgesLong(), name + " edges (long)");
+
+        HashSet<Integer> labels = new HashSet<Integer>();
+        for (int v = 0; v < n; v++)
+        {
+            int label = graph.getLabel(v);
+            check(reference.containsVertex(label), name + ": unknown label " + label);
+            check(labels.add(label), name + ": label " + label + " twice");
+            checkEquals(v, graph.getIndex(label), name + " index of " + label);
+
+            ArrayList<Integer> out = Labels(graph, Neighbors(graph, v, true));
+            ArrayList<Integer> expectedOut = reference.successors(label);
+            if (ordered) checkEquals(expectedOut, out, name + " successors of " + label);
+            else checkEquals(sorted(expectedOut), sorted(out), name + " successors of " + label);
+            checkEquals(sorted(reference.predecessors(label)), sorted(Labels(graph, Neighbors(graph, v, false))), name + " predecessors of " + label);
+
+            for (int i = 0; i < graph.getOutDegree(v); i++)
+            {
+                int expected = weighted ? reference.weight(label, graph.getLabel(graph.getOutNeighbor(v, i))) : 1;
+                checkEquals(expected, graph.getOutWeight(v, i), name + " weight " + label + " -> " + graph.getLabel(graph.getOutNeighbor(v, i)));
+            }
+            for (int i = 0; i < graph.getInDegree(v); i++)
+            {
+                int expected = weighted ? reference.weight(graph.getLabel(graph.getInNeighbor(v, i)), label) : 1;
+                checkEquals(expected, graph.getInWeight(v, i), name + " weight " + graph.getLabel(graph.getInNeighbor(v, i)) + " -> " + label);
+            }
+        }
+
+        int missing = -1;
+        while (reference.containsVertex(missing)) missing--;
+        checkEquals(-1, graph.getIndex(missing), name + " index of a missing label");
+    }
+
+    //
+    // Checks that a path runs from source to target over edges of the reference and has the given
+    // length, by weight or in edges
+    //
+    static void checkPath(ReferenceGraph reference, ArrayList<Integer> path, int source, int target, long length, boolean weighted, String name)
+    {
+        check(path != null && !path.isEmpty(), name + ": no path " + source + " -> " + target);
+        checkEquals(source, path.get(0), name + " path start");
+        checkEquals(target, path.get(path.size() - 1), name + " path end");
+        long sum = 0;
+        for (int i = 0; i + 1 < path.size(); i++)
+        {
+            check(reference.hasEdge(path.get(i), path.get(i + 1)), name + ": path uses a missing edge " + path.get(i) + " -> " + path.get(i + 1));
+            sum += weighted ? reference.weight(path.get(i), path.get(i + 1)) : 1;
+        }
+        checkEquals(length, sum, name + " path length " + source + " -> " + target);
+    }
+
+    //
+    // The neighbors of v through getOutNeighbor / getInNeighbor, after checking that the bulk copy,
+    // forEach, the iterator and the view all agree with it
+    //
+    private static int[] Neighbors(FrozenGraph graph, int v, boolean out)
+    {
+        int degree = out ? graph.getOutDegree(v) : graph.getInDegree(v);
+        int[] neighbors = new int[degree];
+        for (int i = 0; i < degree; i++)
+        {
+            neighbors[i] = out ? graph.getOutNeighbor(v, i) : graph.getInNeighbor(v, i);
+        }
+
+        int[] bulk = new int[degree + 2];
+        int copied = out ? graph.getOutNeighbors(v, bulk, 2) : graph.getInNeighbors(v, bulk, 2);
+        checkEquals(degree, copied, "bulk degree of " + v);
+        check(Arrays.equals(neighbors, Arrays.copyOfRange(bulk, 2, degree + 2)), "bulk neighbors of " + v);
+
+        ArrayList<Integer> visited = new ArrayList<Integer>();
+        if (out) graph.forEachOutNeighbor(v, visited::add);
+        else graph.forEachInNeighbor(v, visited::add);
+        checkEquals(boxed(neighbors), visited, "forEach neighbors of " + v);
+
+        ArrayList<Integer> iterated = new ArrayList<Integer>();
+        PrimitiveIterator.OfInt iterator = out ? graph.outNeighbors(v) : graph.inNeighbors(v);
+        while (iterator.hasNext())
+        {
+            iterated.add(iterator.nextInt());
+        }
+        checkEquals(boxed(neighbors), iterated, "iterated neighbors of " + v);
+
+        IntBuffer view = out ? graph.getOutNeighborView(v) : graph.getInNeighborView(v);
+        checkEquals(degree, view.remaining(), "view degree of " + v);
+        for (int i = 0; i < degree; i++)
+        {
+            checkEquals(neighbors[i], view.get(view.position() + i), "view neighbor " + i + " of " + v);
+        }
+        return neighbors;
+    }
+
+    private static ArrayList<Integer> Labels(FrozenGraph graph, int[] indices)
+    {
+        ArrayList<Integer> labels = new ArrayList<Integer>(indices.length);
+        for (int index : indices)
+        {
+            labels.add(graph.getLabel(index));
+        }
+        return labels;
+    }
+
+    static ArrayList<Integer> boxed(int[] values)
+    {
+        ArrayList<Integer> boxed = new ArrayList<Integer>(values.length);
+        for (int value : values)
+        {
+            boxed.add(value);
+        }
+        return boxed;
+    }
+
+    static ArrayList<Integer> sorted(ArrayList<Integer> values)
+    {
+        ArrayList<Integer> sorted = new ArrayList<Integer>(values);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}
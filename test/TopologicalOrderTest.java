@@ -0,0 +1,147 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+//
+// Kahn's order against the reference: a valid order on every DAG, a real cycle otherwise, the
+// tie-broken order equal to a naive smallest-first Kahn, and levels equal to the longest path in edges
+//
+public class TopologicalOrderTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(5);
+        for (int trial = 0; trial < 300; trial++)
+        {
+            int n = 1 + random.nextInt(40);
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, n, random.nextInt(3 * n), 1, random.nextBoolean(), trial % 3 != 0);
+            DiGraphInt digraph = reference.toDiGraphInt();
+            CSRGraph graph = digraph.Freeze();
+            String name = "trial " + trial;
+
+            // DiGraphInt holds only the vertices with an edge
+            ArrayList<Integer> vertices = new ArrayList<Integer>();
+            for (int v = 0; v < graph.getNumVertices(); v++)
+            {
+                vertices.add(graph.getLabel(v));
+            }
+
+            TopologicalOrder order = new TopologicalOrder(graph);
+            boolean cyclic = reference.hasCycle();
+            TestSupport.checkEquals(!cyclic, order.isAcyclic(), name + " acyclic");
+            TestSupport.checkEquals(cyclic, digraph.ContainsCycle(), name + " DiGraphInt cycle");
+            if (cyclic)
+            {
+                TestSupport.check(order.getOrder() == null && order.getSortedLabels() == null && order.getLayers() == null, name + ": an order of a cyclic graph");
+                CheckCycle(reference, order.getCycle(), name);
+                CheckCycle(reference, digraph.GetCycle(), name + " DiGraphInt");
+                TestSupport.check(digraph.TopologicalSort() == null, name + ": DiGraphInt sorted a cyclic graph");
+                continue;
+            }
+
+            TestSupport.check(order.getCycle() == null && digraph.GetCycle() == null, name + ": a cycle in a DAG");
+            CheckOrder(reference, vertices, order.getSortedLabels(), name);
+            CheckOrder(reference, vertices, digraph.TopologicalSort(), name + " DiGraphInt");
+            for (int i = 0; i < graph.getNumVertices(); i++)
+            {
+                TestSupport.checkEquals(order.getSortedLabels().get(i), graph.getLabel(order.getOrder()[i]), name + " dense order " + i);
+            }
+
+            IntComparator smallest = Integer::compare;
+            IntComparator largest = (a, b) -> Integer.compare(b, a);
+            TestSupport.checkEquals(NaiveKahn(reference, vertices, smallest), new TopologicalOrder(graph, smallest).getSortedLabels(), name + " smallest first");
+            TestSupport.checkEquals(NaiveKahn(reference, vertices, largest), digraph.TopologicalSort(largest), name + " largest first");
+
+            // Levels: the longest path in edges from a source, and layers group the vertices by level
+            HashMap<Integer, Integer> depth = new HashMap<Integer, Integer>();
+            int numLevels = 0;
+            for (int v : NaiveKahn(reference, vertices, smallest))
+            {
+                int d = 0;
+                for (int u : reference.predecessors(v))
+                {
+                    d = Math.max(d, depth.get(u) + 1);
+                }
+                depth.put(v, d);
+                numLevels = Math.max(numLevels, d + 1);
+            }
+            TestSupport.checkEquals(numLevels, order.getNumLevels(), name + " number of levels");
+            for (int v = 0; v < graph.getNumVertices(); v++)
+            {
+                TestSupport.checkEquals(depth.get(graph.getLabel(v)), order.getLevel(v), name + " level of " + graph.getLabel(v));
+            }
+            for (ArrayList<ArrayList<Integer>> layers : Pair(order.getLayers(), digraph.GetTopologicalLayers()))
+            {
+                TestSupport.checkEquals(numLevels, layers.size(), name + " number of layers");
+                for (int level = 0; level < layers.size(); level++)
+                {
+                    for (int v : layers.get(level))
+                    {
+                        TestSupport.checkEquals(level, depth.get(v), name + " layer of " + v);
+                    }
+                }
+            }
+        }
+
+        System.out.println("TopologicalOrderTest: ok");
+    }
+
+    // Every vertex exactly once, and every edge forwards
+    private static void CheckOrder(TestSupport.ReferenceGraph reference, ArrayList<Integer> vertices, ArrayList<Integer> order, String name)
+    {
+        TestSupport.check(order != null, name + ": no order of a DAG");
+        TestSupport.checkEquals(TestSupport.sorted(vertices), TestSupport.sorted(order), name + " ordered vertices");
+        HashMap<Integer, Integer> position = new HashMap<Integer, Integer>();
+        for (int i = 0; i < order.size(); i++)
+        {
+            position.put(order.get(i), i);
+        }
+        for (int[] edge : reference.edges)
+        {
+            TestSupport.check(position.get(edge[0]) < position.get(edge[1]), name + ": edge " + edge[0] + " -> " + edge[1] + " backwards");
+        }
+    }
+
+    // Distinct vertices, an edge between each consecutive pair and one back to the first
+    private static void CheckCycle(TestSupport.ReferenceGraph reference, ArrayList<Integer> cycle, String name)
+    {
+        TestSupport.check(cycle != null && !cycle.isEmpty(), name + ": no cycle in a cyclic graph");
+        TestSupport.checkEquals(cycle.size(), new HashSet<Integer>(cycle).size(), name + " distinct cycle vertices");
+        for (int i = 0; i < cycle.size(); i++)
+        {
+            int from = cycle.get(i);
+            int to = cycle.get((i + 1) % cycle.size());
+            TestSupport.check(reference.hasEdge(from, to), name + ": cycle uses a missing edge " + from + " -> " + to);
+        }
+    }
+
+    // Kahn's algorithm by rescanning: take the first ready vertex by tieBreak each round
+    private static ArrayList<Integer> NaiveKahn(TestSupport.ReferenceGraph reference, ArrayList<Integer> vertices, IntComparator tieBreak)
+    {
+        HashSet<Integer> done = new HashSet<Integer>();
+        ArrayList<Integer> order = new ArrayList<Integer>();
+        while (order.size() < vertices.size())
+        {
+            Integer next = null;
+            for (int v : vertices)
+            {
+                if (done.contains(v) || !done.containsAll(reference.predecessors(v))) continue;
+                if (next == null || tieBreak.compare(v, next) < 0) next = v;
+            }
+            done.add(next);
+            order.add(next);
+        }
+        return order;
+    }
+
+    private static ArrayList<ArrayList<ArrayList<Integer>>> Pair(ArrayList<ArrayList<Integer>> a, ArrayList<ArrayList<Integer>> b)
+    {
+        ArrayList<ArrayList<ArrayList<Integer>>> pair = new ArrayList<ArrayList<ArrayList<Integer>>>();
+        pair.add(a);
+        pair.add(b);
+        return pair;
+    }
+}
@@ -0,0 +1,209 @@
+package digraph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+//
+// Snapshots and copies against the reference: every VersionedGraph snapshot still matches the graph
+// it was published with after any number of later edits, readers on other threads only ever see
+// published versions, and DiGraphInt copies sharing their structures change independently
+//
+public class VersionedGraphTest
+{
+    public static void main(String[] args) throws InterruptedException
+    {
+        Random random = new Random(25);
+        for (int trial = 0; trial < 20; trial++)
+        {
+            String name = "trial " + trial;
+            int ids = 2 + random.nextInt(3 * VersionedGraph.CHUNK);
+            TestSupport.ReferenceGraph reference = TestSupport.randomGraph(random, ids / 2, random.nextInt(2 * ids), 1, false, false);
+            VersionedGraph graph = new VersionedGraph(reference.toDiGraphInt());
+
+            ConcurrentHashMap<Long, TestSupport.ReferenceGraph> published = new ConcurrentHashMap<Long, TestSupport.ReferenceGraph>();
+            published.put(1L, Copy(reference));
+            TestSupport.checkEquals(1L, graph.snapshot().getVersion(), name + " first version");
+
+            // Readers check every snapshot they see against the reference it was published with
+            AtomicBoolean done = new AtomicBoolean();
+            AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+            Thread[] readers = new Thread[1];
+            for (int r = 0; r < readers.length; r++)
+            {
+                readers[r] = new Thread(() ->
+                {
+                    try
+                    {
+                        long last = 0;
+                        while (!done.get())
+                        {
+                            VersionedGraph.Snapshot snapshot = graph.snapshot();
+                            TestSupport.check(snapshot.getVersion() >= last, name + ": version " + snapshot.getVersion() + " after " + last);
+                            last = snapshot.getVersion();
+                            TestSupport.checkSameGraph(snapshot, published.get(last), false, false, name + " read version " + last);
+                        }
+                    }
+                    catch (Throwable e)
+                    {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+                readers[r].start();
+            }
+
+            ArrayList<VersionedGraph.Snapshot> kept = new ArrayList<VersionedGraph.Snapshot>();
+            kept.add(graph.snapshot());
+            for (int step = 0; step < 1000; step++)
+            {
+                int from = random.nextInt(ids);
+                int to = random.nextInt(ids);
+                int op = random.nextInt(100);
+                if (op < 55)
+                {
+                    TestSupport.checkEquals(reference.addEdge(from, to, 1), graph.addEdge(from, to), name + " addEdge " + from + " -> " + to);
+                }
+                else if (op < 90)
+                {
+                    ArrayList<Integer> successors = reference.successors(from);
+                    if (!successors.isEmpty() && random.nextInt(4) != 0) to = successors.get(random.nextInt(successors.size()));
+                    TestSupport.checkEquals(reference.removeEdge(from, to), graph.removeEdge(from, to), name + " removeEdge " + from + " -> " + to);
+                }
+                else if (op < 95)
+                {
+                    boolean added = !reference.containsVertex(from);
+                    reference.addVertex(from);
+                    TestSupport.checkEquals(added, graph.addVertex(from), name + " addVertex " + from);
+                }
+                else
+                {
+                    // Nothing is visible before the publish
+                    long version = graph.snapshot().getVersion();
+                    TestSupport.checkSameGraph(graph.snapshot(), published.get(version), false, false, name + " unpublished edits");
+                    published.put(version + 1, Copy(reference));
+                    VersionedGraph.Snapshot snapshot = graph.publish();
+                    TestSupport.checkEquals(version + 1, snapshot.getVersion(), name + " version");
+                    TestSupport.check(snapshot == graph.snapshot(), name + ": published snapshot is not current");
+                    kept.add(snapshot);
+                }
+                TestSupport.checkEquals(reference.numEdges(), graph.getNumEdges(), name + " edges so far");
+                TestSupport.checkEquals(reference.vertices.size(), graph.getNumVertices(), name + " vertices so far");
+                TestSupport.checkEquals(reference.hasEdge(from, to), graph.containsEdge(from, to), name + " containsEdge " + from + " -> " + to);
+            }
+
+            done.set(true);
+            for (Thread reader : readers)
+            {
+                reader.join();
+            }
+            if (failure.get() != null) throw new AssertionError(name + ": reader failed", failure.get());
+
+            // Every version kept, however old, is still the graph it was published as
+            for (VersionedGraph.Snapshot snapshot : kept)
+            {
+                TestSupport.checkSameGraph(snapshot, published.get(snapshot.getVersion()), false, false, name + " kept version " + snapshot.getVersion());
+            }
+            VersionedGraph.Snapshot last = kept.get(kept.size() - 1);
+            HashSet<ArrayList<Integer>> components = new HashSet<ArrayList<Integer>>();
+            for (ArrayList<Integer> component : new StronglyConnectedComponents(last).getComponents())
+            {
+                components.add(TestSupport.sorted(component));
+            }
+            TestSupport.checkEquals(published.get(last.getVersion()).components(), components, name + " components of the last version");
+        }
+
+        Copies(random);
+
+        System.out.println("VersionedGraphTest: ok");
+    }
+
+    //
+    // A family of DiGraphInt copies, each edited at random alongside its own reference: an edit to one
+    // must not show in the graph it was copied from or in any other copy, nor in their frozen copies
+    // or maintained components
+    //
+    private static void Copies(Random random)
+    {
+        for (int trial = 0; trial < 20; trial++)
+        {
+            int ids = 2 + random.nextInt(40);
+            ArrayList<TestSupport.ReferenceGraph> references = new ArrayList<TestSupport.ReferenceGraph>();
+            ArrayList<DiGraphInt> graphs = new ArrayList<DiGraphInt>();
+            references.add(TestSupport.randomGraph(random, ids, random.nextInt(2 * ids), 1, false, false));
+            graphs.add(references.get(0).toDiGraphInt());
+
+            for (int step = 0; step < 600; step++)
+            {
+                String name = "trial " + trial + " step " + step;
+                int g = random.nextInt(graphs.size());
+                TestSupport.ReferenceGraph reference = references.get(g);
+                DiGraphInt graph = graphs.get(g);
+                int from = random.nextInt(4 * ids);
+                int to = random.nextInt(4 * ids);
+                int op = random.nextInt(100);
+                if (op < 10)
+                {
+                    // A copy of a copy, replacing a random graph once there are enough
+                    int slot = graphs.size() < 6 ? graphs.size() : random.nextInt(graphs.size());
+                    if (slot == graphs.size())
+                    {
+                        graphs.add(null);
+                        references.add(null);
+                    }
+                    references.set(slot, Copy(reference));
+                    graphs.set(slot, new DiGraphInt(graph));
+                }
+                else if (op < 60)
+                {
+                    reference.addEdge(from, to, 1);
+                    graph.AddEdge(from, to);
+                }
+                else if (op < 90)
+                {
+                    ArrayList<Integer> successors = reference.successors(from);
+                    if (!successors.isEmpty() && random.nextInt(4) != 0) to = successors.get(random.nextInt(successors.size()));
+                    TestSupport.checkEquals(reference.removeEdge(from, to), graph.RemoveEdge(from, to), name + " RemoveEdge " + from + " -> " + to);
+                }
+                else if (op < 95)
+                {
+                    boolean present = reference.containsVertex(from);
+                    if (present) reference.removeVertex(from);
+                    TestSupport.checkEquals(present, graph.RemoveVertex(from), name + " RemoveVertex " + from);
+                }
+                else
+                {
+                    // Cached on the graph and carried into its copies
+                    graph.Freeze();
+                    graph.GetStronglyConnectedComponents();
+                }
+
+                if (step % 50 == 49)
+                {
+                    for (int i = 0; i < graphs.size(); i++)
+                    {
+                        TestSupport.checkSameGraph(graphs.get(i).Freeze(), references.get(i), false, false, name + " graph " + i);
+                        TestSupport.checkEquals(references.get(i).numEdges(), graphs.get(i).NumEdges(), name + " edges of graph " + i);
+                        TestSupport.checkEquals(references.get(i).components().size(), graphs.get(i).GetStronglyConnectedComponents().getNumComponents(), name + " components of graph " + i);
+                    }
+                }
+            }
+        }
+    }
+
+    private static TestSupport.ReferenceGraph Copy(TestSupport.ReferenceGraph reference)
+    {
+        TestSupport.ReferenceGraph copy = new TestSupport.ReferenceGraph();
+        for (int vertex : reference.vertices)
+        {
+            copy.addVertex(vertex);
+        }
+        for (int[] edge : reference.edges)
+        {
+            copy.addEdge(edge[0], edge[1], edge[2]);
+        }
+        return copy;
+    }
+}